@@ -0,0 +1,458 @@
+/*
+ * File: BenchmarkGate.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Runs the gated benchmarks and compares them with the baseline
+ *       results stored in bench/baseline.json. A benchmark only counts as
+ *       a regression (or improvement) when its 99.9% confidence interval
+ *       no longer overlaps the baseline interval and the mean has moved by
+ *       more than the threshold, so noise in single samples can't trip the
+ *       gate. Exits with status 1 if any benchmark regressed.
+ *       Usage: BenchmarkGate [--baseline file] [--results file]
+ *                            [--threshold fraction] [--update]
+ *                            [-wi warmups] [-i iterations] [-r ms]
+ *                            [-f key regex]
+ *       --results compares an existing JMH style JSON file instead of
+ *       running the benchmarks, and --update saves the run as the new
+ *       baseline. Baselines are machine specific, so refresh the stored
+ *       one (with --update) when the benchmark machine changes.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+public class BenchmarkGate {
+
+    // the graph size that is gated by default
+    static final int GATED_SIZE = 1000;
+
+    // the benchmarks that are gated by default, at the gated size (or the
+    // node count R-MAT rounds it down to)
+    static final String DEFAULT_FILTER =
+            "^(GraphAlgorithms\\.(bfs|dfs|shortestPath|connectedComponents)|GraphOps\\.(outNodes|inNodes|adjacent|hasEdge|add))"
+            + ":.*n=(" + GATED_SIZE + "|" + GraphBenchmarks.nodes("rmat", GATED_SIZE) + ")$";
+
+    // smallest relative change in the mean that is reported
+    static final double DEFAULT_THRESHOLD = 0.10;
+
+    // the outcomes of a comparison
+    enum Verdict { REGRESSION, IMPROVEMENT, UNCHANGED, NEW, MISSING }
+
+    /**
+     * The comparison of one benchmark with its baseline.
+     */
+    static class Comparison {
+        final String key;
+        final BenchmarkHarness.Result baseline;
+        final BenchmarkHarness.Result current;
+        final Verdict verdict;
+
+        Comparison(String key, BenchmarkHarness.Result baseline, BenchmarkHarness.Result current,
+                   Verdict verdict) {
+            this.key = key;
+            this.baseline = baseline;
+            this.current = current;
+            this.verdict = verdict;
+        }
+
+        /**
+         * Purpose: The relative change of the mean score (0.1 = 10% more
+         *          operations per second), or NaN.
+         */
+        double change() {
+            if (baseline == null || current == null) {
+                return Double.NaN;
+            }
+            return (current.score - baseline.score) / baseline.score;
+        }
+    }
+
+    // singleton
+    private BenchmarkGate() {}
+
+
+    public static void main(String[] args) throws Exception {
+        Path baselinePath = workspacePath("bench/baseline.json");
+        Path resultsPath = null;
+        double threshold = DEFAULT_THRESHOLD;
+        boolean update = false;
+        int warmups = 3;
+        int iterations = 10;
+        long millis = 500;
+        String filter = DEFAULT_FILTER;
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--update": update = true; break;
+                case "--baseline": baselinePath = workspacePath(args[++i]); break;
+                case "--results": resultsPath = workspacePath(args[++i]); break;
+                case "--threshold": threshold = Double.parseDouble(args[++i]); break;
+                case "-wi": warmups = Integer.parseInt(args[++i]); break;
+                case "-i": iterations = Integer.parseInt(args[++i]); break;
+                case "-r": millis = Long.parseLong(args[++i]); break;
+                case "-f": filter = args[++i]; break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        List<BenchmarkHarness.Result> current;
+        if (resultsPath != null) {
+            current = readResults(resultsPath);
+        } else {
+            BenchmarkHarness harness = new BenchmarkHarness(warmups, iterations, millis, filter);
+            GraphBenchmarks.runAll(harness);
+            current = harness.results();
+        }
+        if (update) {
+            Files.write(baselinePath,
+                    BenchmarkHarness.toJson(current).getBytes(StandardCharsets.UTF_8));
+            System.out.println("saved " + current.size() + " results to " + baselinePath);
+            return;
+        }
+
+        List<Comparison> comparisons = compare(readResults(baselinePath), current, threshold);
+        System.out.print(report(comparisons, threshold));
+        for (Comparison comparison : comparisons) {
+            if (comparison.verdict == Verdict.REGRESSION) {
+                System.exit(1);
+            }
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // comparison
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Compares each current result with the baseline result of
+     *          the same benchmark and parameters.
+     * @param baseline The stored results.
+     * @param current The new results.
+     * @param threshold The smallest relative change of the mean reported.
+     * @return One comparison per benchmark, current results first.
+     */
+    static List<Comparison> compare(List<BenchmarkHarness.Result> baseline,
+                                    List<BenchmarkHarness.Result> current, double threshold) {
+        Map<String, BenchmarkHarness.Result> before = new LinkedHashMap<>();
+        for (BenchmarkHarness.Result result : baseline) {
+            before.put(result.key(), result);
+        }
+        List<Comparison> comparisons = new ArrayList<>();
+        for (BenchmarkHarness.Result result : current) {
+            BenchmarkHarness.Result old = before.remove(result.key());
+            comparisons.add(new Comparison(result.key(), old, result, verdict(old, result, threshold)));
+        }
+        for (BenchmarkHarness.Result old : before.values()) {
+            comparisons.add(new Comparison(old.key(), old, null, Verdict.MISSING));
+        }
+        return comparisons;
+    }
+
+
+    /**
+     * Purpose: Decides whether a benchmark regressed. Scores are
+     *          throughputs, so lower is worse.
+     */
+    static Verdict verdict(BenchmarkHarness.Result baseline, BenchmarkHarness.Result current,
+                           double threshold) {
+        if (baseline == null) {
+            return Verdict.NEW;
+        }
+        double change = (current.score - baseline.score) / baseline.score;
+        boolean below = current.score + current.scoreError < baseline.score - baseline.scoreError;
+        boolean above = current.score - current.scoreError > baseline.score + baseline.scoreError;
+        if (below && change < -threshold) {
+            return Verdict.REGRESSION;
+        }
+        if (above && change > threshold) {
+            return Verdict.IMPROVEMENT;
+        }
+        return Verdict.UNCHANGED;
+    }
+
+
+    /**
+     * Purpose: Formats the comparisons as a report, regressions first.
+     */
+    static String report(List<Comparison> comparisons, double threshold) {
+        StringBuilder report = new StringBuilder();
+        int[] counts = new int[Verdict.values().length];
+        for (Verdict verdict : Verdict.values()) {
+            for (Comparison comparison : comparisons) {
+                if (comparison.verdict != verdict) {
+                    continue;
+                }
+                ++counts[verdict.ordinal()];
+                report.append(String.format(Locale.ROOT, "%-12s %-60s %s -> %s %s%n",
+                        verdict, comparison.key, score(comparison.baseline),
+                        score(comparison.current),
+                        Double.isNaN(comparison.change()) ? ""
+                                : String.format(Locale.ROOT, "(%+.1f%%)", 100 * comparison.change())));
+            }
+        }
+        report.append(String.format(Locale.ROOT,
+                "%d regressions, %d improvements, %d unchanged, %d new, %d missing"
+                        + " (threshold %.0f%%, 99.9%% confidence intervals)%n",
+                counts[Verdict.REGRESSION.ordinal()], counts[Verdict.IMPROVEMENT.ordinal()],
+                counts[Verdict.UNCHANGED.ordinal()], counts[Verdict.NEW.ordinal()],
+                counts[Verdict.MISSING.ordinal()], 100 * threshold));
+        return report.toString();
+    }
+
+
+    /**
+     * Purpose: Formats a score and its error.
+     */
+    private static String score(BenchmarkHarness.Result result) {
+        if (result == null) {
+            return "-";
+        }
+        return String.format(Locale.ROOT, "%.1f+-%.1f", result.score, result.scoreError);
+    }
+
+
+    //--------------------------------------------------------------------
+    // reading results
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Reads a JMH style JSON result file.
+     * @param path The file to read.
+     * @return The results, in file order.
+     */
+    static List<BenchmarkHarness.Result> readResults(Path path) throws IOException {
+        String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        return parseResults(text);
+    }
+
+
+    /**
+     * Purpose: Parses JMH style JSON results.
+     */
+    static List<BenchmarkHarness.Result> parseResults(String text) throws IOException {
+        Object json = new JsonReader(text).read();
+        if (!(json instanceof List)) {
+            throw new IOException("expected a JSON array of results");
+        }
+        List<BenchmarkHarness.Result> results = new ArrayList<>();
+        for (Object item : (List<?>) json) {
+            Map<?, ?> entry = (Map<?, ?>) item;
+            Map<String, String> params = new LinkedHashMap<>();
+            Object rawParams = entry.get("params");
+            if (rawParams instanceof Map) {
+                for (Map.Entry<?, ?> param : ((Map<?, ?>) rawParams).entrySet()) {
+                    params.put(String.valueOf(param.getKey()), String.valueOf(param.getValue()));
+                }
+            }
+            Map<?, ?> primary = (Map<?, ?>) entry.get("primaryMetric");
+            double allocRate = Double.NaN;
+            double allocPerOp = Double.NaN;
+            Object secondary = entry.get("secondaryMetrics");
+            if (secondary instanceof Map) {
+                allocRate = metric((Map<?, ?>) secondary, "gc.alloc.rate") * (1 << 20);
+                allocPerOp = metric((Map<?, ?>) secondary, "gc.alloc.rate.norm");
+            }
+            results.add(new BenchmarkHarness.Result(String.valueOf(entry.get("benchmark")), params,
+                    number(primary.get("score")), number(primary.get("scoreError")),
+                    allocRate, allocPerOp));
+        }
+        return results;
+    }
+
+
+    /**
+     * Purpose: Reads the score of a secondary metric, or NaN.
+     */
+    private static double metric(Map<?, ?> metrics, String name) {
+        Object metric = metrics.get(name);
+        return metric instanceof Map ? number(((Map<?, ?>) metric).get("score")) : Double.NaN;
+    }
+
+
+    /**
+     * Purpose: Converts a JSON number (or "NaN") to a double.
+     */
+    private static double number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return Double.NaN;
+    }
+
+
+    /**
+     * Purpose: Resolves a path against the workspace when run by bazel
+     *          (so --update writes into the source tree).
+     */
+    private static Path workspacePath(String name) {
+        String workspace = System.getenv("BUILD_WORKSPACE_DIRECTORY");
+        return workspace == null ? Paths.get(name) : Paths.get(workspace).resolve(name);
+    }
+
+
+    /**
+     * A minimal JSON reader: objects become LinkedHashMaps, arrays become
+     * ArrayLists, numbers become Doubles.
+     */
+    static class JsonReader {
+        private final String text;
+        private int pos;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        Object read() throws IOException {
+            Object value = value();
+            skipSpace();
+            if (pos < text.length()) {
+                throw error("unexpected text after the value");
+            }
+            return value;
+        }
+
+        private Object value() throws IOException {
+            skipSpace();
+            if (pos >= text.length()) {
+                throw error("unexpected end of input");
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default: return number();
+            }
+        }
+
+        private Map<String, Object> object() throws IOException {
+            Map<String, Object> object = new LinkedHashMap<>();
+            ++pos;
+            skipSpace();
+            if (peek() == '}') {
+                ++pos;
+                return object;
+            }
+            while (true) {
+                skipSpace();
+                String key = string();
+                skipSpace();
+                expect(':');
+                object.put(key, value());
+                skipSpace();
+                if (peek() == ',') {
+                    ++pos;
+                } else {
+                    expect('}');
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> array() throws IOException {
+            List<Object> array = new ArrayList<>();
+            ++pos;
+            skipSpace();
+            if (peek() == ']') {
+                ++pos;
+                return array;
+            }
+            while (true) {
+                array.add(value());
+                skipSpace();
+                if (peek() == ',') {
+                    ++pos;
+                } else {
+                    expect(']');
+                    return array;
+                }
+            }
+        }
+
+        private String string() throws IOException {
+            expect('"');
+            StringBuilder string = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return string.toString();
+                }
+                if (c != '\\') {
+                    string.append(c);
+                    continue;
+                }
+                char escape = text.charAt(pos++);
+                switch (escape) {
+                    case 'n': string.append('\n'); break;
+                    case 't': string.append('\t'); break;
+                    case 'r': string.append('\r'); break;
+                    case 'b': string.append('\b'); break;
+                    case 'f': string.append('\f'); break;
+                    case 'u':
+                        string.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: string.append(escape);
+                }
+            }
+        }
+
+        private Double number() throws IOException {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                ++pos;
+            }
+            try {
+                return Double.valueOf(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("expected a value");
+            }
+        }
+
+        private Object literal(String word, Object value) throws IOException {
+            if (!text.startsWith(word, pos)) {
+                throw error("expected " + word);
+            }
+            pos += word.length();
+            return value;
+        }
+
+        private void expect(char c) throws IOException {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            ++pos;
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                ++pos;
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException("bad JSON at character " + pos + ": " + message);
+        }
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ * File: BenchmarkHarness.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: A small throughput benchmark harness in the style of JMH. Each
+ *       benchmark runs for timed warm up iterations, then for timed
+ *       measurement iterations. The score is the mean operations per
+ *       second with a 99.9% confidence interval over the measurement
+ *       iterations. Allocation is measured per thread (the same numbers
+ *       as the JMH gc profiler's gc.alloc.rate and gc.alloc.rate.norm).
+ *       Results are written in the JMH JSON result format.
+ */
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+
+public class BenchmarkHarness {
+
+    /**
+     * One benchmark operation. The result is kept so the JIT can't remove
+     * the work.
+     */
+    public interface Operation {
+        Object run();
+    }
+
+    /**
+     * The result of one benchmark.
+     */
+    public static class Result {
+        public final String benchmark;
+        public final Map<String, String> params;
+        // operations per second: mean and half width of the 99.9% interval
+        public final double score;
+        public final double scoreError;
+        // bytes allocated per second and per operation
+        public final double allocRate;
+        public final double allocPerOp;
+
+        Result(String benchmark, Map<String, String> params, double score, double scoreError,
+               double allocRate, double allocPerOp) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.score = score;
+            this.scoreError = scoreError;
+            this.allocRate = allocRate;
+            this.allocPerOp = allocPerOp;
+        }
+
+        /**
+         * Purpose: Builds the key that identifies the benchmark and its
+         *          parameters, such as "GraphOps.outNodes:impl=list,n=100".
+         */
+        public String key() {
+            StringBuilder key = new StringBuilder(benchmark);
+            String separator = ":";
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+                separator = ",";
+            }
+            return key.toString();
+        }
+    }
+
+    // two sided 99.9% Student t quantiles for 1 to 30 degrees of freedom
+    private static final double[] T_999 = {
+        636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+        3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646,
+    };
+
+    // keeps benchmark results reachable
+    private static volatile Object sink;
+
+    // run settings
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+    private final Pattern filter;
+
+    // the results so far
+    private final List<Result> results = new ArrayList<>();
+
+    // per thread allocation counter (null if the JVM has none)
+    private final com.sun.management.ThreadMXBean threads;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Creates a harness.
+     * @param warmupIterations Timed iterations run before measuring.
+     * @param iterations Timed iterations measured (at least 2).
+     * @param iterationMillis The length of each iteration.
+     * @param filter Only benchmarks whose key matches are run (or null).
+     */
+    public BenchmarkHarness(int warmupIterations, int iterations, long iterationMillis,
+                            String filter) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = Math.max(2, iterations);
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.filter = filter == null ? null : Pattern.compile(filter);
+        Object bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threads = null;
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // harness methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Runs one benchmark (if it matches the filter) and prints
+     *          its score.
+     * @param benchmark The benchmark name.
+     * @param params The parameter values, in display order.
+     * @param operation The operation to measure.
+     */
+    public void run(String benchmark, Map<String, String> params, Operation operation) {
+        Result pending = new Result(benchmark, params, 0, 0, 0, 0);
+        if (filter != null && !filter.matcher(pending.key()).find()) {
+            return;
+        }
+        for (int i = 0; i < warmupIterations; ++i) {
+            iteration(operation);
+        }
+        double[] scores = new double[iterations];
+        long totalOps = 0;
+        long totalBytes = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < iterations; ++i) {
+            long[] measured = iteration(operation);
+            scores[i] = measured[0] * 1e9 / measured[2];
+            totalOps += measured[0];
+            totalBytes += measured[1];
+            totalNanos += measured[2];
+        }
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        variance /= iterations - 1;
+        double t = T_999[Math.min(iterations - 1, T_999.length) - 1];
+        double error = t * Math.sqrt(variance / iterations);
+        double allocRate = threads == null ? Double.NaN : totalBytes * 1e9 / totalNanos;
+        double allocPerOp = threads == null ? Double.NaN : (double) totalBytes / totalOps;
+        Result result = new Result(benchmark, params, mean, error, allocRate, allocPerOp);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-60s %14.3f +- %12.3f ops/s %12.1f B/op%n",
+                result.key(), mean, error, allocPerOp);
+    }
+
+
+    /**
+     * Purpose: Generic getter for the results so far.
+     */
+    public List<Result> results() {
+        return results;
+    }
+
+
+    /**
+     * Purpose: Writes the results in the JMH JSON result format.
+     * @param path The file to write.
+     */
+    public void writeJson(Path path) throws IOException {
+        Files.write(path, toJson(results).getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Purpose: Formats results in the JMH JSON result format.
+     */
+    public static String toJson(List<Result> results) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int r = 0; r < results.size(); ++r) {
+            Result result = results.get(r);
+            json.append("    {\n");
+            json.append("        \"benchmark\" : ").append(quote(result.benchmark)).append(",\n");
+            json.append("        \"mode\" : \"thrpt\",\n");
+            json.append("        \"params\" : {");
+            String separator = "\n";
+            for (Map.Entry<String, String> param : result.params.entrySet()) {
+                json.append(separator).append("            ").append(quote(param.getKey()))
+                        .append(" : ").append(quote(param.getValue()));
+                separator = ",\n";
+            }
+            json.append(result.params.isEmpty() ? "},\n" : "\n        },\n");
+            json.append("        \"primaryMetric\" : {\n");
+            json.append("            \"score\" : ").append(number(result.score)).append(",\n");
+            json.append("            \"scoreError\" : ").append(number(result.scoreError)).append(",\n");
+            json.append("            \"scoreConfidence\" : [")
+                    .append(number(result.score - result.scoreError)).append(", ")
+                    .append(number(result.score + result.scoreError)).append("],\n");
+            json.append("            \"scoreUnit\" : \"ops/s\"\n");
+            json.append("        },\n");
+            json.append("        \"secondaryMetrics\" : {\n");
+            json.append("            \"gc.alloc.rate\" : {\"score\" : ")
+                    .append(number(result.allocRate / (1 << 20))).append(", \"scoreUnit\" : \"MB/sec\"},\n");
+            json.append("            \"gc.alloc.rate.norm\" : {\"score\" : ")
+                    .append(number(result.allocPerOp)).append(", \"scoreUnit\" : \"B/op\"}\n");
+            json.append("        }\n");
+            json.append(r + 1 < results.size() ? "    },\n" : "    }\n");
+        }
+        return json.append("]\n").toString();
+    }
+
+
+    /**
+     * Purpose: Builds a parameter map from name, value pairs.
+     */
+    public static Map<String, String> params(Object... pairs) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            params.put(String.valueOf(pairs[i]), String.valueOf(pairs[i + 1]));
+        }
+        return params;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Runs the operation until the iteration time is up.
+     * @return The operation count, bytes allocated and elapsed nanoseconds.
+     */
+    private long[] iteration(Operation operation) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + iterationNanos;
+        long ops = 0;
+        long now;
+        do {
+            sink = operation.run();
+            ++ops;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new long[] {ops, allocatedBytes() - bytesBefore, now - start};
+    }
+
+
+    /**
+     * Purpose: Reads the bytes allocated so far by this thread.
+     */
+    private long allocatedBytes() {
+        return threads == null ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+
+    /**
+     * Purpose: Formats a number for JSON (NaN as the string JMH uses).
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.6f", value);
+    }
+
+
+    /**
+     * Purpose: Quotes a string for JSON.
+     */
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\');
+            }
+            quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * File: GraphBenchmarks.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Throughput and allocation benchmarks for the graph operations of
+ *       AdjacencyList, AdjacencyMatrix and ConcurrentAdjacencyList, and
+ *       for the GraphAlgorithms on graphs from each GraphGenerator loader
+ *       at several sizes.
+ *       Usage: GraphBenchmarks [-wi warmups] [-i iterations]
+ *                              [-r iteration ms] [-f key regex]
+ *                              [-o results.json]
+ */
+
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+
+public class GraphBenchmarks {
+
+    // graph sizes for the graph operations and the algorithms
+    static final int[] OP_SIZES = {100, 1000};
+    static final int[] ALGORITHM_SIZES = {100, 1000};
+
+    // largest graph transitiveClosure is run on (it is cubic on dense
+    // graphs)
+    static final int CLOSURE_MAX_NODES = 100;
+
+    // the number of node pairs probed by one hasEdge operation
+    static final int PROBES = 1024;
+
+    // the loaders, by name
+    static final String[] LOADERS = {
+        "quickLadder", "sparse", "sparseAcyclic", "sparseDisconnected", "dense", "denseAcyclic",
+        "erdosRenyi", "rmat", "preferentialAttachment",
+    };
+
+    // singleton
+    private GraphBenchmarks() {}
+
+
+    public static void main(String[] args) throws Exception {
+        int warmups = 3;
+        int iterations = 5;
+        long millis = 1000;
+        String filter = null;
+        String output = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-wi": warmups = Integer.parseInt(args[i + 1]); break;
+                case "-i": iterations = Integer.parseInt(args[i + 1]); break;
+                case "-r": millis = Long.parseLong(args[i + 1]); break;
+                case "-f": filter = args[i + 1]; break;
+                case "-o": output = args[i + 1]; break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        BenchmarkHarness harness = new BenchmarkHarness(warmups, iterations, millis, filter);
+        runAll(harness);
+        if (output != null) {
+            harness.writeJson(Paths.get(output));
+        }
+    }
+
+
+    /**
+     * Purpose: Runs every benchmark with the given harness.
+     */
+    static void runAll(BenchmarkHarness harness) {
+        graphOps(harness);
+        algorithms(harness);
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph operations
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Benchmarks add, hasEdge, outNodes, inNodes and adjacent on
+     *          sparse random directed graphs.
+     */
+    static void graphOps(BenchmarkHarness harness) {
+        for (String impl : new String[] {"list", "matrix", "concurrent"}) {
+            for (int n : OP_SIZES) {
+                BiFunction<Integer, Boolean, Graph<Integer>> create = impl.equals("list")
+                        ? AdjacencyList::new : impl.equals("matrix")
+                        ? AdjacencyMatrix::new : ConcurrentAdjacencyList::new;
+                Graph<Integer> g = create.apply(n, true);
+                GraphGenerator.loadSparse(g, 1);
+
+                // the distinct edges of g, to add without duplicates
+                int[] src = new int[g.edgeCount()];
+                int[] dst = new int[g.edgeCount()];
+                int count = 0;
+                for (int u = 0; u < n; ++u) {
+                    for (int v : g.outNodes(u)) {
+                        src[count] = u;
+                        dst[count++] = v;
+                    }
+                }
+                Random random = new Random(2);
+                int[] probeSrc = new int[PROBES];
+                int[] probeDst = new int[PROBES];
+                for (int i = 0; i < PROBES; ++i) {
+                    probeSrc[i] = random.nextInt(n);
+                    probeDst[i] = random.nextInt(n);
+                }
+                int[] cursor = {0};
+
+                harness.run("GraphOps.add", BenchmarkHarness.params("impl", impl, "n", n), () -> {
+                    Graph<Integer> fresh = create.apply(n, true);
+                    for (int i = 0; i < src.length; ++i) {
+                        fresh.add(src[i], i, dst[i]);
+                    }
+                    return fresh;
+                });
+                harness.run("GraphOps.hasEdge", BenchmarkHarness.params("impl", impl, "n", n), () -> {
+                    int found = 0;
+                    for (int i = 0; i < PROBES; ++i) {
+                        if (g.hasEdge(probeSrc[i], probeDst[i])) {
+                            ++found;
+                        }
+                    }
+                    return found;
+                });
+                harness.run("GraphOps.outNodes", BenchmarkHarness.params("impl", impl, "n", n),
+                        () -> g.outNodes(next(cursor, n)));
+                harness.run("GraphOps.inNodes", BenchmarkHarness.params("impl", impl, "n", n),
+                        () -> g.inNodes(next(cursor, n)));
+                harness.run("GraphOps.adjacent", BenchmarkHarness.params("impl", impl, "n", n),
+                        () -> g.adjacent(next(cursor, n)));
+            }
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // algorithms
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Benchmarks the GraphAlgorithms on a directed AdjacencyList
+     *          filled by each loader.
+     */
+    static void algorithms(BenchmarkHarness harness) {
+        for (String loader : LOADERS) {
+            for (int size : ALGORITHM_SIZES) {
+                int n = nodes(loader, size);
+                Consumer<Graph<Integer>> load = loader(loader);
+                Graph<Integer> g = new AdjacencyList<>(n, true);
+                load.accept(g);
+                String name = "GraphAlgorithms.";
+
+                harness.run(name + "bfs", BenchmarkHarness.params("loader", loader, "n", n),
+                        () -> GraphAlgorithms.bfs(g, 0));
+                harness.run(name + "dfs", BenchmarkHarness.params("loader", loader, "n", n),
+                        () -> GraphAlgorithms.dfs(g, 0));
+                harness.run(name + "shortestPath", BenchmarkHarness.params("loader", loader, "n", n),
+                        () -> GraphAlgorithms.shortestPath(g, 0, n - 1));
+                harness.run(name + "connectedComponents",
+                        BenchmarkHarness.params("loader", loader, "n", n),
+                        () -> GraphAlgorithms.connectedComponents(g));
+                harness.run(name + "acyclic", BenchmarkHarness.params("loader", loader, "n", n),
+                        () -> GraphAlgorithms.acyclic(g));
+                harness.run(name + "topologicalSort", BenchmarkHarness.params("loader", loader, "n", n),
+                        () -> GraphAlgorithms.topologicalSort(g));
+                if (n <= CLOSURE_MAX_NODES) {
+                    // the closure adds edges, so each operation loads a
+                    // new copy of the graph first (included in the time)
+                    harness.run(name + "transitiveClosure",
+                            BenchmarkHarness.params("loader", loader, "n", n), () -> {
+                                Graph<Integer> copy = new AdjacencyList<>(n, true);
+                                load.accept(copy);
+                                GraphAlgorithms.transitiveClosure(copy);
+                                return copy;
+                            });
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Looks up a GraphGenerator loader by name.
+     */
+    static Consumer<Graph<Integer>> loader(String name) {
+        switch (name) {
+            case "quickLadder": return GraphGenerator::loadQuickLadder;
+            case "sparse": return g -> GraphGenerator.loadSparse(g, 1);
+            case "sparseAcyclic": return g -> GraphGenerator.loadSparseAcyclic(g, 1);
+            case "sparseDisconnected": return g -> GraphGenerator.loadSparseDisconnected(g, 4);
+            case "dense": return g -> GraphGenerator.loadDense(g, 1);
+            case "denseAcyclic": return g -> GraphGenerator.loadDenseAcyclic(g, 1);
+            case "erdosRenyi": return g -> GraphGenerator.loadErdosRenyi(g, 4.0 / g.nodeCount(), 1);
+            case "rmat": return g -> GraphGenerator.loadRmat(g,
+                    Integer.numberOfTrailingZeros(g.nodeCount()), 8, 1);
+            case "preferentialAttachment":
+                return g -> GraphGenerator.loadPreferentialAttachment(g, 3, 1);
+            default: throw new IllegalArgumentException("unknown loader " + name);
+        }
+    }
+
+
+    /**
+     * Purpose: Picks the node count for a loader near the given size
+     *          (R-MAT needs a power of two, so it is rounded down).
+     */
+    static int nodes(String loader, int size) {
+        return loader.equals("rmat") ? Integer.highestOneBit(size) : size;
+    }
+
+
+    /**
+     * Purpose: Steps a node cursor round the graph.
+     */
+    private static int next(int[] cursor, int n) {
+        int node = cursor[0];
+        cursor[0] = node + 1 == n ? 0 : node + 1;
+        return node;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * File: LoadDenseBench.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Times GraphGenerator.loadDense on both graph implementations,
+ *       through the bulk loader (sequential and parallel) and with one
+ *       add per edge. The acyclic case adds only edges i < j, so the
+ *       matrix rows fill from the right (the worst case for scanning a
+ *       row from the left).
+ *       Usage: LoadDenseBench [n ...] (default 2000 3000 5000)
+ */
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+
+public class LoadDenseBench {
+
+    // timed runs per size (after one warm up run)
+    private static final int RUNS = 3;
+
+    // singleton
+    private LoadDenseBench() {}
+
+
+    public static void main(String[] args) {
+        int[] sizes = {2000, 3000, 5000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; ++i) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-26s %6s %12s %10s%n", "case", "n", "edges", "best ms");
+        for (int n : sizes) {
+            run("matrix loadDense", n, () -> {
+                Graph<Integer> g = new AdjacencyMatrix<>(n, true);
+                GraphGenerator.loadDense(g, 42);
+                return g;
+            });
+            run("matrix loadDenseParallel", n, () -> {
+                Graph<Integer> g = new AdjacencyMatrix<>(n, true);
+                GraphGenerator.loadDenseParallel(g, 42, threads);
+                return g;
+            });
+            run("matrix add per edge", n, () -> {
+                Graph<Integer> g = new AdjacencyMatrix<>(n, true);
+                addDense(g, 42, false);
+                return g;
+            });
+            run("matrix acyclic per edge", n, () -> {
+                Graph<Integer> g = new AdjacencyMatrix<>(n, true);
+                addDense(g, 42, true);
+                return g;
+            });
+            run("list loadDense", n, () -> {
+                Graph<Integer> g = new AdjacencyList<>(n, true);
+                GraphGenerator.loadDense(g, 42);
+                return g;
+            });
+            run("list add per edge", n, () -> {
+                Graph<Integer> g = new AdjacencyList<>(n, true);
+                addDense(g, 42, false);
+                return g;
+            });
+        }
+    }
+
+
+    // the edges of loadDense (or loadDenseAcyclic for a directed graph),
+    // added with one add call each
+    private static void addDense(Graph<Integer> g, long seed, boolean acyclic) {
+        Random random = new Random(seed);
+        int n = g.nodeCount();
+        double p = 1 - (random.nextDouble() / 5);
+        int k = 0;
+        for (int i = 0; i < n; ++i)
+            for (int j = acyclic ? i + 1 : 0; j < n; ++j)
+                if (random.nextDouble() <= p)
+                    g.add(i, k++, j);
+    }
+
+
+    // builds a graph RUNS + 1 times and prints the best time
+    private static void run(String name, int n, Supplier<Graph<Integer>> load) {
+        long best = Long.MAX_VALUE;
+        int edges = 0;
+        for (int r = 0; r <= RUNS; ++r) {
+            long start = System.nanoTime();
+            Graph<Integer> g = load.get();
+            long time = System.nanoTime() - start;
+            edges = g.edgeCount();
+            if (r > 0) {
+                best = Math.min(best, time);
+            }
+        }
+        System.out.printf("%-26s %6d %12d %10.1f%n", name, n, edges, best / 1e6);
+    }
+
+}
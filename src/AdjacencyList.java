@@ -7,9 +7,8 @@
 
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 
 public class AdjacencyList<T> implements Graph<T> {
@@ -23,8 +22,10 @@ public class AdjacencyList<T> implements Graph<T> {
     // true if the graph is directed, false if undirected
     private boolean directed;
 
-    // the adjacency list as an array of node-to-label mappings
-    private Map<Integer,T>[] adjList;
+    // the adjacency list as an array of per-node neighbor sets, where
+    // each set maps a neighbor node to the edge label and picks its
+    // layout based on the node degree (see AdjacencySet)
+    private AdjacencySet<T>[] adjList;
 
 
     //--------------------------------------------------------------------
@@ -36,10 +37,10 @@ public class AdjacencyList<T> implements Graph<T> {
     public AdjacencyList(int nodeCount, boolean directed) {
         this.nodeCount = nodeCount;
         this.directed = directed;
-        adjList = new HashMap[nodeCount];
-        // initialize each array element to an empty hashmap
+        adjList = new AdjacencySet[nodeCount];
+        // initialize each array element to an empty neighbor set
         for (int i = 0; i < nodeCount; ++i)
-            adjList[i] = new HashMap<>();
+            adjList[i] = new AdjacencySet<>(nodeCount);
     }
 
 
@@ -68,20 +69,18 @@ public class AdjacencyList<T> implements Graph<T> {
      */
     public void add(int node1, T label, int node2) {
         if (directed) {
-            if (!adjList[node1].containsKey(node2)) {
+            if (adjList[node1].add(node2, label)) {
                 // if graph is directed and node1 is empty,
                 // add node2 as connected to node1.
-                adjList[node1].put(node2, label);
                 ++edgeCount;
             } else {
                 System.out.println("Invalid Add: NODE " + node1 + " already contains edge to NODE " + node2);
             }
         } else {
-            if (!adjList[node1].containsKey(node2)) {
+            if (adjList[node1].add(node2, label)) {
                 // if graph is undirected and has any node info stored inside,
                 // add both node1 and node2 data.
-                adjList[node1].put(node2, label);
-                adjList[node2].put(node1, label);
+                adjList[node2].add(node1, label);
                 ++edgeCount;
             } else {
                 System.out.println("Invalid Add: " + node1 + " already contains edge");
@@ -90,6 +89,99 @@ public class AdjacencyList<T> implements Graph<T> {
     }
 
 
+    /**
+     * Purpose: Adds a batch of labeled edges in one pass. The batch is
+     *          sorted once by (node1, node2), only the first copy of each
+     *          edge that isn't already in the graph is kept, and each
+     *          node's new neighbors are merged into its neighbor set in one
+     *          step. Unlike add, duplicates are skipped without a message.
+     * @param src The starting node of each edge if directed.
+     * @param labels The label of each edge, or null if all are unlabeled.
+     * @param dst The ending node of each edge if directed.
+     */
+    public void addAll(int[] src, T[] labels, int[] dst) {
+        int count = src.length;
+        // sort the edges by (node1, node2), with the smaller node first
+        // for undirected edges so both directions sort together
+        long[] keys = new long[count];
+        int[] index = new int[count];
+        for (int i = 0; i < count; ++i) {
+            int a = src[i];
+            int b = dst[i];
+            if (!directed && a > b) {
+                a = dst[i];
+                b = src[i];
+            }
+            keys[i] = ((long) a << 32) | b;
+            index[i] = i;
+        }
+        GraphBuilder.sortByKey(keys, index, count);
+
+        // keep the first (lowest index) copy of each new edge
+        int unique = 0;
+        int selfLoops = 0;
+        long last = -1;
+        for (int k = 0; k < count; ++k) {
+            long key = keys[k];
+            if (key == last) {
+                continue;
+            }
+            last = key;
+            int a = (int) (key >>> 32);
+            int b = (int) key;
+            if (adjList[a].contains(b)) {
+                continue;
+            }
+            if (a == b) {
+                ++selfLoops;
+            }
+            keys[unique] = key;
+            index[unique] = index[k];
+            ++unique;
+        }
+
+        // undirected edges are stored in both directions, so add the
+        // reversed entries and sort again
+        int entries = unique;
+        if (!directed) {
+            entries = 2 * unique - selfLoops;
+            keys = Arrays.copyOf(keys, entries);
+            index = Arrays.copyOf(index, entries);
+            for (int k = 0, next = unique; k < unique; ++k) {
+                int a = (int) (keys[k] >>> 32);
+                int b = (int) keys[k];
+                if (a != b) {
+                    keys[next] = ((long) b << 32) | a;
+                    index[next] = index[k];
+                    ++next;
+                }
+            }
+            GraphBuilder.sortByKey(keys, index, entries);
+        }
+
+        // merge each node's run of new neighbors into its neighbor set
+        int[] targets = new int[entries];
+        Object[] runLabels = labels == null ? null : new Object[entries];
+        for (int k = 0; k < entries; ++k) {
+            targets[k] = (int) keys[k];
+            if (runLabels != null) {
+                runLabels[k] = labels[index[k]];
+            }
+        }
+        int start = 0;
+        while (start < entries) {
+            int node = (int) (keys[start] >>> 32);
+            int end = start + 1;
+            while (end < entries && (int) (keys[end] >>> 32) == node) {
+                ++end;
+            }
+            adjList[node].addAllSorted(targets, runLabels, start, end);
+            start = end;
+        }
+        edgeCount += unique;
+    }
+
+
     /**
      * Purpose: Removes and edge from the graph if an edge exists between node1 and node2.
      * @param node1 The starting node if the graph is directed.
@@ -97,18 +189,16 @@ public class AdjacencyList<T> implements Graph<T> {
      */
     public void remove(int node1, int node2) {
         if (directed) {
-            if (adjList[node1].containsKey(node2)) {
+            if (adjList[node1].remove(node2)) {
                 // if graph is directed and has a node associated with node 1
-                adjList[node1].remove(node2);
                 --edgeCount;
             } else {
                 System.out.println("Invalid Remove: " + node1 + " is already null");
             }
         } else {
-            if (adjList[node1].containsKey(node2)) {
+            if (adjList[node1].remove(node2)) {
                 // if graph is undirected and has any node info stored inside,
                 // remove both node1 and node2 data.
-                adjList[node1].remove(node2);
                 adjList[node2].remove(node1);
                 --edgeCount;
             } else {
@@ -128,11 +218,11 @@ public class AdjacencyList<T> implements Graph<T> {
     public void set(int node1, T label, int node2) {
         if (directed) {
             // Directionality is assumed to be from node1 to node2.
-            adjList[node1].put(node2, label);
+            adjList[node1].set(node2, label);
         } else {
             // if undirected add label to both edges.
-            adjList[node1].put(node2, label);
-            adjList[node2].put(node1, label);
+            adjList[node1].set(node2, label);
+            adjList[node2].set(node1, label);
         }
     }
 
@@ -167,7 +257,7 @@ public class AdjacencyList<T> implements Graph<T> {
      *         Node 1 and Node 2.
      */
     public boolean hasEdge(int node1, int node2) {
-        return adjList[node1].containsKey(node2);
+        return adjList[node1].contains(node2);
     }
 
 
@@ -182,20 +272,14 @@ public class AdjacencyList<T> implements Graph<T> {
         List<Integer> nodesList = new ArrayList<>();
         if (directed) {
             for (int index = 0; index < nodeCount; index++) {
-                if ((adjList[node].containsKey(index) ||
-                        adjList[index].containsKey(node) )&&
-                        !nodesList.contains(index)) {
+                if (adjList[node].contains(index) || adjList[index].contains(node)) {
                     // check if either incoming or outgoing edges exist on the parameter node.
                     nodesList.add(index);
                 }
             }
         } else {
-            for (int index = 0; index < nodeCount; index++) {
-                if (adjList[node].containsKey(index) && !nodesList.contains(index)) {
-                    // if the node index is stored in the map and not already added to the nodesList.
-                    nodesList.add(index);
-                }
-            }
+            // the neighbor set already holds each adjacent node once, in order.
+            adjList[node].addTo(nodesList);
         }
         return nodesList;
     }
@@ -203,23 +287,16 @@ public class AdjacencyList<T> implements Graph<T> {
 
     /**
      * Purpose: Creates a list of integer keys for every out going node from the
-     *          adjacency list. The method loops through the adjacency list and checks
-     *          every node stored in the hash map. If there is a node key stored in
-     *          the map, and it is not already stored in the out nodes list, the key
-     *          index is added to the out nodes list. The method then returns the list
-     *          of outgoing nodes.
+     *          adjacency list. The neighbor set of the node is copied in ascending
+     *          order, so the cost is proportional to the out degree of the node
+     *          rather than the number of nodes in the graph.
      * @param node The key index of the node to be checked for outgoing node edges.
      * @return A list of integer keys for all the nodes outgoing edges from the node
      *         parameter.
      */
     public List<Integer> outNodes(int node) {
-        List<Integer> nodesList = new ArrayList<>();
-        for (int index = 0; index < nodeCount; ++index) {
-            if (adjList[node].containsKey(index) && !nodesList.contains(index)) {
-                // if the node index is stored in the map and not already added to the nodesList.
-                nodesList.add(index);
-            }
-        }
+        List<Integer> nodesList = new ArrayList<>(adjList[node].size());
+        adjList[node].addTo(nodesList);
         return nodesList;
     }
 
@@ -227,7 +304,7 @@ public class AdjacencyList<T> implements Graph<T> {
     /**
      * Purpose: Creates a list of integer keys for every incoming node edge from the
      *          adjacency list. The method loops through the adjacency list and checks
-     *          every node stored in the hash map. If there is a node key that sends an
+     *          every node's neighbor set. If there is a node key that sends an
      *          edge to the parameter node, and it is not already stored in the out
      *          nodes list, the key index is added to the out nodes list. The method
      *          then returns the list of outgoing nodes.
@@ -238,9 +315,8 @@ public class AdjacencyList<T> implements Graph<T> {
     public List<Integer> inNodes(int node) {
         List<Integer> nodesList = new ArrayList<>();
         for (int index = 0; index < nodeCount; ++index) {
-            if (adjList[index].containsKey(node) && !nodesList.contains(index)) {
-                // if the node index has the parameter node stored in its hash map
-                // and not already added to the nodesList.
+            if (adjList[index].contains(node)) {
+                // if the node index has the parameter node stored in its neighbor set.
                 nodesList.add(index);
             }
         }
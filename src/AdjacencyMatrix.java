@@ -25,8 +25,13 @@ public class AdjacencyMatrix<T> implements Graph<T> {
     // matrix[i][j] is not null
     private T[][] matrix;
 
+    // the number of non-null entries in each row (out degree) and each
+    // column (in degree) of the matrix
+    private int[] outDegree;
+    private int[] inDegree;
+
     // for debug print statements
-    private final boolean DEBUG = true;
+    private final boolean DEBUG = false;
 
 
     //--------------------------------------------------------------------
@@ -42,6 +47,8 @@ public class AdjacencyMatrix<T> implements Graph<T> {
         this.nodeCount = nodeCount;
         this.directed = directed;
         matrix = (T[][])(new Object[nodeCount][nodeCount]);
+        outDegree = new int[nodeCount];
+        inDegree = new int[nodeCount];
     }
 
 
@@ -67,52 +74,45 @@ public class AdjacencyMatrix<T> implements Graph<T> {
      * @param node2 Integer of matrix coordinate.
      */
     public void add(int node1, T label, int node2) {
-        boolean isNewNode = true;
         // if the edge is a new and valid edge.
         if (matrix[node1][node2] == null) {
             if (directed) {
-                matrix[node1][node2] = label;
                 if (DEBUG) {
                     System.out.println("Adding Directed Edge ["
-                            + node1 + "][" + node2 + "]: " + matrix[node1][node2]);
+                            + node1 + "][" + node2 + "]: " + label);
                 }
             } else { // Undirected
-                matrix[node1][node2] = label;
-                matrix[node2][node1] = label;
                 if (DEBUG) {
                     System.out.println("Adding Undirected Edge ["
-                            + node1 + "][" + node2 + "]: " + matrix[node1][node2]);
+                            + node1 + "][" + node2 + "]: " + label);
                     System.out.println("Adding Undirected Edge ["
-                            + node2 + "][" + node1 + "]: " + matrix[node2][node1]);
+                            + node2 + "][" + node1 + "]: " + label);
                 }
             }
-            ++edgeCount;
+            store(node1, label, node2);
         } else {
             System.out.println("Failed Add... Node already exists.");
-            return;
         }
+    }
 
-        // check if node1 is a new Vertex to count
-        for(int index = 0; index < matrix.length; ++index) {
-            if (matrix[node1][index] != null) {
-                isNewNode = false;
-                break;
-            }
-        }
-        if (isNewNode) {
-            ++nodeCount;
-        }
 
-        // check if node2 is a new Vertex to count
-        isNewNode = true;
-        for(int index = 0; index < matrix.length; ++index) {
-            if (matrix[index][node2] != null) {
-                isNewNode = false;
-                break;
+    /**
+     * Purpose: Adds a batch of edges straight into the matrix. An edge is
+     *          only stored if its matrix location is still empty, so the
+     *          first copy of a duplicate edge wins, as with add. No debug
+     *          or failure messages are printed for the batch.
+     * @param src Matrix row (node1) of each edge.
+     * @param labels The label of each edge, or null if all are unlabeled.
+     * @param dst Matrix column (node2) of each edge.
+     */
+    public void addAll(int[] src, T[] labels, int[] dst) {
+        for (int i = 0; i < src.length; ++i) {
+            int node1 = src[i];
+            int node2 = dst[i];
+            if (matrix[node1][node2] != null) {
+                continue;
             }
-        }
-        if (isNewNode) { // node2 is a new node
-            ++nodeCount;
+            store(node1, labels == null ? null : labels[i], node2);
         }
     }
 
@@ -124,7 +124,6 @@ public class AdjacencyMatrix<T> implements Graph<T> {
      * @param node2 Integer of matrix coordinate.
      */
     public void remove(int node1, int node2) {
-        boolean isNode = true;
         // if the edge is a valid edge.
         if (matrix[node1][node2] != null) {
             if (directed) {
@@ -132,7 +131,7 @@ public class AdjacencyMatrix<T> implements Graph<T> {
                     System.out.println("\nRemoving Directed Edge ["
                             + node1 + "][" + node2 + "]: " + matrix[node1][node2]);
                 }
-                matrix[node1][node2] = null;
+                clear(node1, node2);
             } else {
                 if (DEBUG) {
                     System.out.println("\nRemoving  Undirected Edge ["
@@ -140,8 +139,10 @@ public class AdjacencyMatrix<T> implements Graph<T> {
                     System.out.println("Removing  Undirected Edge ["
                             + node2 + "][" + node1 + "]: " + matrix[node2][node1]);
                 }
-                matrix[node1][node2] = null;
-                matrix[node2][node1] = null;
+                clear(node1, node2);
+                if (node1 != node2) {
+                    clear(node2, node1);
+                }
             }
             --edgeCount;
         } else {
@@ -150,37 +151,16 @@ public class AdjacencyMatrix<T> implements Graph<T> {
         }
 
         // check if node1 is an empty Vertex to decrement count
-        for(int index = 0; index < matrix.length; ++index) {
-            if (matrix[node1][index] != null) {
-                if (DEBUG) {
-                    System.out.println("non-Decrementing nodeCount: ["
-                            + node1 + "][" + index +"]");
-                }
-                isNode = false;
-                break;
-            }
-        }
-        if (isNode) {
+        if (outDegree[node1] == 0) {
             if (DEBUG) {
                 System.out.println("Decrementing nodeCount because node1");
             }
             --nodeCount;
             return; // no need to check node2 and double count on corner nodes
         }
-        isNode = true;
 
         // check if node2 is an empty Vertex to decrement count
-        for(int index = 0; index < matrix.length; ++index) {
-            if (matrix[index][node2] != null) {
-                if (DEBUG) {
-                    System.out.println("non-Decrementing nodeCount: ["
-                            + index + "][" + node2 + "]");
-                }
-                isNode = false;
-                break;
-            }
-        }
-        if (isNode) { // node2 is a new node
+        if (inDegree[node2] == 0) {
             if (DEBUG) {
                 System.out.println("Decrementing nodeCount because node2");
             }
@@ -191,7 +171,8 @@ public class AdjacencyMatrix<T> implements Graph<T> {
 
     /**
      * Purpose: Set a provided node to a new label value only if the node
-     *          already exists.
+     *          already exists. A null entry marks a missing edge, so
+     *          setting a null label removes the edge.
      * @param node1 Integer of matrix coordinate.
      * @param label T type that adds a label to the given edge.
      * @param node2 Integer of matrix coordinate.
@@ -199,7 +180,9 @@ public class AdjacencyMatrix<T> implements Graph<T> {
     public void set(int node1, T label, int node2) {
         // if the edge is a valid edge.
         if (matrix[node1][node2] != null) {
-            if (directed) {
+            if (label == null) {
+                remove(node1, node2);
+            } else if (directed) {
                 matrix[node1][node2] = label;
                 if (DEBUG) {
                     System.out.println("\nSetting label on Directed Edge: ["
@@ -439,6 +422,28 @@ public class AdjacencyMatrix<T> implements Graph<T> {
     }
 
 
+    /**
+     * Purpose: Generic getter for the number of edges leaving a node
+     *          (the non-null entries in its matrix row).
+     * @param node The node.
+     * @return The out degree of the node.
+     */
+    public int outDegree(int node) {
+        return outDegree[node];
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges entering a node
+     *          (the non-null entries in its matrix column).
+     * @param node The node.
+     * @return The in degree of the node.
+     */
+    public int inDegree(int node) {
+        return inDegree[node];
+    }
+
+
     /**
      * Purpose: Generic getter for the number of nodes currently in the graph.
      * @return Integer count of nodes in Graph.
@@ -459,4 +464,52 @@ public class AdjacencyMatrix<T> implements Graph<T> {
         return edgeCount;
     }
 
-}
\ No newline at end of file
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Stores a new edge in the matrix (in both directions if
+     *          undirected) and updates the edge, degree and node counts.
+     *          A node with no entries in its row (node1) or column
+     *          (node2) after the edge is stored is counted as a new node.
+     * @param node1 Integer of matrix coordinate.
+     * @param label T type that adds a label to the given edge.
+     * @param node2 Integer of matrix coordinate.
+     */
+    private void store(int node1, T label, int node2) {
+        if (label != null) {
+            matrix[node1][node2] = label;
+            ++outDegree[node1];
+            ++inDegree[node2];
+            if (!directed && node1 != node2) {
+                matrix[node2][node1] = label;
+                ++outDegree[node2];
+                ++inDegree[node1];
+            }
+        }
+        ++edgeCount;
+
+        // check if node1 and node2 are new Vertices to count
+        if (outDegree[node1] == 0) {
+            ++nodeCount;
+        }
+        if (inDegree[node2] == 0) {
+            ++nodeCount;
+        }
+    }
+
+
+    /**
+     * Purpose: Clears one matrix entry and updates the degree counts.
+     * @param node1 Integer of matrix coordinate.
+     * @param node2 Integer of matrix coordinate.
+     */
+    private void clear(int node1, int node2) {
+        matrix[node1][node2] = null;
+        --outDegree[node1];
+        --inDegree[node2];
+    }
+
+}
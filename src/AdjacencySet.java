@@ -0,0 +1,449 @@
+/*
+ * File: AdjacencySet.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Per-node neighbor storage for AdjacencyList that adapts its
+ *       layout to the degree of the node. Low degree nodes use a small
+ *       inline array, medium degree nodes use a sorted array, and very
+ *       high degree (hub) nodes use a bitmap over all node ids. The
+ *       bitmap keeps the labels in node order (found by counting the
+ *       bits before a node), and none at all while every label is null,
+ *       so it stays smaller than the sorted array it replaces.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+
+public class AdjacencySet<T> {
+
+    // largest degree stored in the small (linear scan) form
+    static final int SMALL_MAX = 8;
+
+    // degree at which a sorted array shrinks back to the small form
+    // (below SMALL_MAX so add/remove at the boundary doesn't thrash)
+    static final int SMALL_MIN = 4;
+
+    // a sorted array is promoted to a bitmap once degree * BITMAP_RATIO
+    // reaches the number of nodes, and demoted once it drops to half that
+    static final int BITMAP_RATIO = 8;
+
+    // smallest universe (number of nodes) where a bitmap is worth using
+    static final int BITMAP_MIN_NODES = 256;
+
+    // the bitmap keeps a running bit count every 2^BLOCK_SHIFT words
+    static final int BLOCK_SHIFT = 3;
+
+    // the storage forms
+    static final int SMALL = 0;
+    static final int SORTED = 1;
+    static final int BITMAP = 2;
+
+    // the number of possible neighbors (node ids 0 to universe-1)
+    private final int universe;
+
+    // the current storage form
+    private int form = SMALL;
+
+    // the number of neighbors stored
+    private int size;
+
+    // SMALL and SORTED: neighbor ids (sorted) and their labels
+    // BITMAP: the labels in node order, or null while all are null
+    private int[] nodes;
+    private Object[] labels;
+
+    // BITMAP: one bit per node id, and the number of bits set before
+    // each block of words
+    private long[] bits;
+    private int[] blockRanks;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Creates an empty neighbor set for a graph with the given
+     *          number of nodes.
+     * @param universe The number of nodes in the graph.
+     */
+    public AdjacencySet(int universe) {
+        this.universe = universe;
+        nodes = new int[0];
+        labels = new Object[0];
+    }
+
+
+    //--------------------------------------------------------------------
+    // set methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the number of neighbors in the set.
+     * @return The neighbor count (the degree of the node).
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Purpose: Returns the current storage form (SMALL, SORTED or BITMAP).
+     *          Mostly useful for tests and memory reporting.
+     * @return The storage form constant.
+     */
+    int form() {
+        return form;
+    }
+
+
+    /**
+     * Purpose: Checks if the given node is a neighbor.
+     * @param node The neighbor node id.
+     * @return True if the node is stored in the set.
+     */
+    public boolean contains(int node) {
+        switch (form) {
+            case SMALL:
+                for (int i = 0; i < size; ++i) {
+                    if (nodes[i] == node) {
+                        return true;
+                    }
+                }
+                return false;
+            case SORTED:
+                return Arrays.binarySearch(nodes, 0, size, node) >= 0;
+            default:
+                return node >= 0 && node < universe && (bits[node >>> 6] & (1L << node)) != 0;
+        }
+    }
+
+
+    /**
+     * Purpose: Fetches the label stored for the given neighbor.
+     * @param node The neighbor node id.
+     * @return The label, or null if the node is not a neighbor.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int node) {
+        if (form == BITMAP) {
+            return labels == null || !contains(node) ? null : (T) labels[rank(node)];
+        }
+        int index = indexOf(node);
+        return index < 0 ? null : (T) labels[index];
+    }
+
+
+    /**
+     * Purpose: Adds the given neighbor with its label if it is not
+     *          already in the set, promoting the storage form if needed.
+     * @param node The neighbor node id.
+     * @param label The label of the edge to the neighbor.
+     * @return True if the neighbor was added, false if it already existed.
+     */
+    public boolean add(int node, T label) {
+        if (form == BITMAP) {
+            if (contains(node)) {
+                return false;
+            }
+            int rank = rank(node);
+            bits[node >>> 6] |= 1L << node;
+            for (int block = (node >>> 6 >>> BLOCK_SHIFT) + 1; block < blockRanks.length; ++block)
+                ++blockRanks[block];
+            if (labels != null || label != null) {
+                insertLabel(rank, label);
+            }
+            ++size;
+            return true;
+        }
+        int index = indexOf(node);
+        if (index >= 0) {
+            return false;
+        }
+        insertAt(-(index + 1), node, label);
+        if (form == SMALL && size > SMALL_MAX) {
+            form = SORTED;
+        }
+        if (form == SORTED && universe >= BITMAP_MIN_NODES
+                && (long) size * BITMAP_RATIO >= universe) {
+            toBitmap();
+        }
+        return true;
+    }
+
+
+    /**
+     * Purpose: Adds a batch of new neighbors in one merge. The batch must
+     *          be sorted, free of duplicates and hold no node that is
+     *          already in the set.
+     * @param newNodes The array holding the new neighbor ids.
+     * @param newLabels The labels parallel to newNodes, or null.
+     * @param from The first index of the batch in newNodes.
+     * @param to One past the last index of the batch in newNodes.
+     */
+    public void addAllSorted(int[] newNodes, Object[] newLabels, int from, int to) {
+        int count = to - from;
+        if (count == 0) {
+            return;
+        }
+        if (form == BITMAP) {
+            // merged as arrays, then turned back into a bitmap below
+            toSorted();
+        }
+        // merge the two sorted runs into new arrays
+        int total = size + count;
+        int[] mergedNodes = new int[Math.max(SMALL_MAX, total)];
+        Object[] mergedLabels = new Object[mergedNodes.length];
+        int i = 0;
+        int j = from;
+        for (int k = 0; k < total; ++k) {
+            if (j >= to || (i < size && nodes[i] < newNodes[j])) {
+                mergedNodes[k] = nodes[i];
+                mergedLabels[k] = labels[i++];
+            } else {
+                mergedNodes[k] = newNodes[j];
+                mergedLabels[k] = newLabels == null ? null : newLabels[j];
+                ++j;
+            }
+        }
+        nodes = mergedNodes;
+        labels = mergedLabels;
+        size = total;
+        form = size > SMALL_MAX ? SORTED : SMALL;
+        if (form == SORTED && universe >= BITMAP_MIN_NODES
+                && (long) size * BITMAP_RATIO >= universe) {
+            toBitmap();
+        }
+    }
+
+
+    /**
+     * Purpose: Replaces the label of an existing neighbor. Does nothing
+     *          if the node is not a neighbor.
+     * @param node The neighbor node id.
+     * @param label The new label of the edge to the neighbor.
+     */
+    public void set(int node, T label) {
+        if (form == BITMAP) {
+            if (contains(node) && (labels != null || label != null)) {
+                if (labels == null) {
+                    labels = new Object[size];
+                }
+                labels[rank(node)] = label;
+            }
+            return;
+        }
+        int index = indexOf(node);
+        if (index >= 0) {
+            labels[index] = label;
+        }
+    }
+
+
+    /**
+     * Purpose: Removes the given neighbor, demoting the storage form if
+     *          the degree has dropped far enough.
+     * @param node The neighbor node id.
+     * @return True if the neighbor was removed, false if it did not exist.
+     */
+    public boolean remove(int node) {
+        if (form == BITMAP) {
+            if (!contains(node)) {
+                return false;
+            }
+            int rank = rank(node);
+            bits[node >>> 6] &= ~(1L << node);
+            for (int block = (node >>> 6 >>> BLOCK_SHIFT) + 1; block < blockRanks.length; ++block)
+                --blockRanks[block];
+            if (labels != null) {
+                System.arraycopy(labels, rank + 1, labels, rank, size - rank - 1);
+                labels[size - 1] = null;
+            }
+            --size;
+            if ((long) size * BITMAP_RATIO * 2 < universe) {
+                toSorted();
+            }
+            return true;
+        }
+        int index = indexOf(node);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(nodes, index + 1, nodes, index, size - index - 1);
+        System.arraycopy(labels, index + 1, labels, index, size - index - 1);
+        --size;
+        labels[size] = null;
+        if (form == SORTED && size <= SMALL_MIN) {
+            form = SMALL;
+            nodes = Arrays.copyOf(nodes, SMALL_MAX);
+            labels = Arrays.copyOf(labels, SMALL_MAX);
+        }
+        return true;
+    }
+
+
+    /**
+     * Purpose: Copies the neighbors in ascending node order into a new
+     *          array.
+     * @return The sorted neighbor ids.
+     */
+    public int[] toArray() {
+        if (form != BITMAP) {
+            return Arrays.copyOf(nodes, size);
+        }
+        int[] result = new int[size];
+        int count = 0;
+        for (int word = 0; word < bits.length; ++word) {
+            long w = bits[word];
+            while (w != 0) {
+                result[count++] = (word << 6) + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Purpose: Appends the neighbors in ascending node order to the given
+     *          list.
+     * @param out The list to add the neighbor ids to.
+     */
+    public void addTo(List<Integer> out) {
+        if (form != BITMAP) {
+            for (int i = 0; i < size; ++i) {
+                out.add(nodes[i]);
+            }
+            return;
+        }
+        for (int word = 0; word < bits.length; ++word) {
+            long w = bits[word];
+            while (w != 0) {
+                out.add((word << 6) + Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Finds the position of a node in the SMALL or SORTED arrays.
+     * @param node The neighbor node id.
+     * @return The index of the node, or (-(insertion point) - 1) if the
+     *         node is not stored (same convention as Arrays.binarySearch).
+     */
+    private int indexOf(int node) {
+        if (form == SORTED) {
+            return Arrays.binarySearch(nodes, 0, size, node);
+        }
+        // the small form is kept sorted too, so a short scan finds both
+        // the node and its insertion point
+        int i = 0;
+        while (i < size && nodes[i] < node) {
+            ++i;
+        }
+        return (i < size && nodes[i] == node) ? i : -(i + 1);
+    }
+
+
+    /**
+     * Purpose: Inserts a node and label at the given array position,
+     *          growing the arrays if they are full.
+     * @param index The position to insert at.
+     * @param node The neighbor node id.
+     * @param label The label of the edge to the neighbor.
+     */
+    private void insertAt(int index, int node, T label) {
+        if (size == nodes.length) {
+            int capacity = Math.max(SMALL_MAX, size + (size >> 1));
+            nodes = Arrays.copyOf(nodes, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+        System.arraycopy(nodes, index, nodes, index + 1, size - index);
+        System.arraycopy(labels, index, labels, index + 1, size - index);
+        nodes[index] = node;
+        labels[index] = label;
+        ++size;
+    }
+
+
+    /**
+     * Purpose: Counts the neighbors below a node in the bitmap form (the
+     *          node's index in the labels).
+     * @param node The node id.
+     * @return The number of neighbors with a smaller id.
+     */
+    private int rank(int node) {
+        int word = node >>> 6;
+        int rank = blockRanks[word >>> BLOCK_SHIFT];
+        for (int w = word & ~((1 << BLOCK_SHIFT) - 1); w < word; ++w)
+            rank += Long.bitCount(bits[w]);
+        return rank + Long.bitCount(bits[word] & ((1L << node) - 1));
+    }
+
+
+    /**
+     * Purpose: Inserts a label at a rank in the bitmap form, creating the
+     *          labels (all null so far) or growing them if needed.
+     * @param rank The index to insert at.
+     * @param label The label to insert.
+     */
+    private void insertLabel(int rank, Object label) {
+        if (labels == null) {
+            labels = new Object[size + (size >> 1) + 1];
+        } else if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size + (size >> 1) + 1);
+        }
+        System.arraycopy(labels, rank, labels, rank + 1, size - rank);
+        labels[rank] = label;
+    }
+
+
+    /**
+     * Purpose: Converts the sorted array form to the bitmap form. The
+     *          labels are already in node order, so they are kept as they
+     *          are unless all of them are null.
+     */
+    private void toBitmap() {
+        long[] newBits = new long[(universe + 63) >>> 6];
+        for (int i = 0; i < size; ++i) {
+            newBits[nodes[i] >>> 6] |= 1L << nodes[i];
+        }
+        bits = newBits;
+        blockRanks = new int[((newBits.length - 1) >>> BLOCK_SHIFT) + 1];
+        int count = 0;
+        for (int w = 0; w < newBits.length; ++w) {
+            if ((w & ((1 << BLOCK_SHIFT) - 1)) == 0) {
+                blockRanks[w >>> BLOCK_SHIFT] = count;
+            }
+            count += Long.bitCount(newBits[w]);
+        }
+        boolean labeled = false;
+        for (int i = 0; i < size && !labeled; ++i) {
+            labeled = labels[i] != null;
+        }
+        labels = labeled ? labels : null;
+        nodes = null;
+        form = BITMAP;
+    }
+
+
+    /**
+     * Purpose: Converts the bitmap form back to the sorted array form.
+     */
+    private void toSorted() {
+        int[] newNodes = toArray();
+        int capacity = Math.max(SMALL_MAX, newNodes.length);
+        nodes = Arrays.copyOf(newNodes, capacity);
+        labels = labels == null ? new Object[capacity] : Arrays.copyOf(labels, capacity);
+        bits = null;
+        blockRanks = null;
+        form = size > SMALL_MAX ? SORTED : SMALL;
+    }
+
+}
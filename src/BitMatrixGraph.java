@@ -0,0 +1,280 @@
+/*
+ * File: BitMatrixGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Adjacency matrix implementation of a graph that stores one bit
+ *       per possible edge. Labels are kept in separate per-row arrays
+ *       that are only allocated once a row gets a non-null label, so
+ *       unlabeled dense graphs take n^2/8 bytes.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class BitMatrixGraph<T> implements Graph<T> {
+
+    // the most longs the matrix may hold (the largest array the JVM
+    // reliably allocates), so every bit index fits in an int
+    static final long MAX_WORDS = Integer.MAX_VALUE - 8;
+
+    // the total number of nodes in the graph (numbered 0 to nodes-1)
+    private final int nodeCount;
+
+    // the total number of edges in the graph
+    private int edgeCount;
+
+    // true if the graph is directed, false if undirected
+    private final boolean directed;
+
+    // the number of longs in each row of the matrix
+    private final int words;
+
+    // the edge bits, where an edge from i to j exists if bit j of row i
+    // (stored at bits[i * words + j / 64]) is set
+    private final long[] bits;
+
+    // the labels of each row, allocated when first needed
+    private final Object[][] labels;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Creates an empty graph with the given number of nodes.
+     * @param nodeCount The number of nodes in the graph.
+     * @param directed Provided directionality of the graph.
+     * @throws IllegalArgumentException If the matrix would need more than
+     *         MAX_WORDS longs.
+     */
+    public BitMatrixGraph(int nodeCount, boolean directed) {
+        if (!fits(nodeCount)) {
+            throw new IllegalArgumentException("bit matrix of " + nodeCount + " nodes is too large");
+        }
+        this.nodeCount = nodeCount;
+        this.directed = directed;
+        words = (nodeCount + 63) >>> 6;
+        bits = new long[nodeCount * words];
+        labels = new Object[nodeCount][];
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for whether the graph is directed.
+     * @return True if directed, false if undirected.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Adds a labeled edge if it doesn't already exist.
+     * @param node1 The starting node if directed.
+     * @param label The label of the edge.
+     * @param node2 The ending node if directed.
+     */
+    public void add(int node1, T label, int node2) {
+        if (hasEdge(node1, node2)) {
+            return;
+        }
+        setBit(node1, node2, label);
+        if (!directed) {
+            setBit(node2, node1, label);
+        }
+        ++edgeCount;
+    }
+
+
+    /**
+     * Purpose: Removes an edge if it exists.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     */
+    public void remove(int node1, int node2) {
+        if (!hasEdge(node1, node2)) {
+            return;
+        }
+        clearBit(node1, node2);
+        if (!directed) {
+            clearBit(node2, node1);
+        }
+        --edgeCount;
+    }
+
+
+    /**
+     * Purpose: Updates the label of an existing edge.
+     * @param node1 The starting node if directed.
+     * @param label The new label of the edge.
+     * @param node2 The ending node if directed.
+     */
+    public void set(int node1, T label, int node2) {
+        if (!hasEdge(node1, node2)) {
+            return;
+        }
+        setLabel(node1, node2, label);
+        if (!directed) {
+            setLabel(node2, node1, label);
+        }
+    }
+
+
+    /**
+     * Purpose: Checks the bit for the given edge.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return True if the graph contains an edge from node1 to node2.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        return (bits[node1 * words + (node2 >>> 6)] & (1L << node2)) != 0;
+    }
+
+
+    /**
+     * Purpose: Fetches the label of the given edge.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return The label, or null if the edge has no label.
+     */
+    @SuppressWarnings("unchecked")
+    public T label(int node1, int node2) {
+        Object[] row = labels[node1];
+        return row == null ? null : (T) row[node2];
+    }
+
+
+    /**
+     * Purpose: Finds all nodes on an in or out edge of the given node.
+     * @param node The node to find the adjacent nodes of.
+     * @return The adjacent nodes in ascending order.
+     */
+    public List<Integer> adjacent(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        List<Integer> nodesList = new ArrayList<>();
+        for (int index = 0; index < nodeCount; ++index) {
+            if (hasEdge(node, index) || hasEdge(index, node)) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Finds the out nodes of a node by walking the set bits of
+     *          its row a word at a time.
+     * @param node The node to find the out nodes of.
+     * @return The out nodes in ascending order.
+     */
+    public List<Integer> outNodes(int node) {
+        List<Integer> nodesList = new ArrayList<>();
+        int start = node * words;
+        for (int word = 0; word < words; ++word) {
+            long w = bits[start + word];
+            while (w != 0) {
+                nodesList.add((word << 6) + Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Finds the in nodes of a node by checking its column.
+     * @param node The node to find the in nodes of.
+     * @return The in nodes in ascending order.
+     */
+    public List<Integer> inNodes(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        List<Integer> nodesList = new ArrayList<>();
+        for (int index = 0; index < nodeCount; ++index) {
+            if (hasEdge(index, node)) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     * @return Integer count of nodes in Graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges in the graph.
+     * @return Integer count of edges in Graph.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Checks if a matrix of the given number of nodes fits in
+     *          one array. The constructor enforces this, so the int row
+     *          offsets (node * words) below can't overflow.
+     * @param nodeCount The number of nodes.
+     * @return True if the matrix needs at most MAX_WORDS longs.
+     */
+    static boolean fits(int nodeCount) {
+        return (long) nodeCount * ((nodeCount + 63L) >>> 6) <= MAX_WORDS;
+    }
+
+
+    /**
+     * Purpose: Sets one matrix bit and its label.
+     */
+    private void setBit(int node1, int node2, T label) {
+        bits[node1 * words + (node2 >>> 6)] |= 1L << node2;
+        if (label != null || labels[node1] != null) {
+            setLabel(node1, node2, label);
+        }
+    }
+
+
+    /**
+     * Purpose: Clears one matrix bit and its label.
+     */
+    private void clearBit(int node1, int node2) {
+        bits[node1 * words + (node2 >>> 6)] &= ~(1L << node2);
+        if (labels[node1] != null) {
+            labels[node1][node2] = null;
+        }
+    }
+
+
+    /**
+     * Purpose: Stores a label, allocating the row's labels if needed.
+     */
+    private void setLabel(int node1, int node2, T label) {
+        if (labels[node1] == null) {
+            if (label == null) {
+                return;
+            }
+            labels[node1] = new Object[nodeCount];
+        }
+        labels[node1][node2] = label;
+    }
+
+}
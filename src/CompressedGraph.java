@@ -0,0 +1,664 @@
+/*
+ * File: CompressedGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Read-only graph with compressed adjacency rows, in the style of
+ *       WebGraph. Each sorted row is stored as its degree, the distance
+ *       of the first neighbor from the node itself, and the gaps between
+ *       the remaining neighbors, all written as variable-length integers
+ *       in pages of bytes. A long offset index gives random access to
+ *       rows, so the encoding isn't limited to 2 GB.
+ *
+ *       The graph is built one row at a time, either from another graph
+ *       or from a sorted stream of edges, so no uncompressed copy is
+ *       ever held. The in rows of a directed graph (and the reversed
+ *       halves of an undirected edge stream) are built from the encoded
+ *       out rows a range of nodes at a time, with a buffer of at most
+ *       RANGE_ENTRIES ints.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+
+public class CompressedGraph<T> implements Graph<T> {
+
+    // the size of a page of encoded rows (1 GB)
+    static final int PAGE_SHIFT = 30;
+
+    // the most row entries buffered while building the in rows of a
+    // range of nodes (128 MB); each range rereads the out rows once
+    static final int RANGE_ENTRIES = 1 << 25;
+
+    // the total number of nodes in the graph (numbered 0 to nodes-1)
+    private final int nodeCount;
+
+    // the total number of edges in the graph
+    private final long edgeCount;
+
+    // true if the graph is directed, false if undirected
+    private final boolean directed;
+
+    // the encoded out rows
+    private final Rows out;
+
+    // the encoded in rows (directed only, the out rows for undirected
+    // graphs)
+    private final Rows in;
+
+    // the labels of the out-edges in row order, with the labels of node
+    // u starting at labels[labelIndex[u]] (both null if unlabeled)
+    private final Object[] labels;
+    private final int[] labelIndex;
+
+
+    //--------------------------------------------------------------------
+    // constructors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Compresses a copy of the given graph, reading one row of
+     *          it at a time.
+     * @param g The graph to copy.
+     */
+    public CompressedGraph(Graph<T> g) {
+        this(g, PAGE_SHIFT, RANGE_ENTRIES);
+    }
+
+
+    /**
+     * Purpose: Compresses a copy of the given graph with the given page
+     *          and buffer sizes (small sizes are for tests).
+     */
+    CompressedGraph(Graph<T> g, int pageShift, int rangeEntries) {
+        nodeCount = g.nodeCount();
+        directed = g.directed();
+        CsrGraph<T> csr = g instanceof CsrGraph ? (CsrGraph<T>) g : null;
+        out = new Rows(pageShift, nodeCount);
+        int[] labelStart = new int[nodeCount + 1];
+        // the labels are only kept once a non-null one is seen
+        List<Object> labelList = null;
+        long entries = 0;
+        for (int u = 0; u < nodeCount; ++u) {
+            int[] row = sortedRow(g.outNodes(u));
+            out.append(u, row, row.length);
+            entries += row.length;
+            for (int i = 0; i < row.length; ++i) {
+                Object label = csr != null ? csr.outLabel(u, i) : g.label(u, row[i]);
+                if (label != null && labelList == null) {
+                    labelList = new ArrayList<>(Collections.nCopies((int) entries - row.length + i, null));
+                }
+                if (labelList != null) {
+                    labelList.add(label);
+                }
+            }
+            if (labelList != null && entries > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("too many labeled edges to copy");
+            }
+            labelStart[u + 1] = (int) entries;
+        }
+        out.finish();
+        edgeCount = g.edgeCount();
+        in = directed ? transpose(out, nodeCount, false, pageShift, rangeEntries, null) : out;
+        labels = labelList != null ? labelList.toArray() : null;
+        labelIndex = labelList != null ? labelStart : null;
+    }
+
+
+    /**
+     * Purpose: Creates an unlabeled graph from every node's sorted out row.
+     */
+    private CompressedGraph(int nodeCount, boolean directed, Rows out, Rows in, long edgeCount) {
+        this.nodeCount = nodeCount;
+        this.directed = directed;
+        this.out = out;
+        this.in = in;
+        this.edgeCount = edgeCount;
+        labels = null;
+        labelIndex = null;
+    }
+
+
+    /**
+     * Purpose: Builds an unlabeled graph from a stream of packed edges
+     *          (see EdgeStream.pack) sorted by source and then target, for
+     *          graphs too large to hold uncompressed. Repeated edges are
+     *          skipped. An undirected edge may be given in either or both
+     *          directions.
+     * @param nodeCount The number of nodes.
+     * @param directed True for a directed graph.
+     * @param edges The sorted packed edges.
+     * @return The compressed graph.
+     * @throws IllegalArgumentException if the edges are out of order or
+     *         a node is out of range
+     */
+    public static CompressedGraph<Void> fromSortedEdges(int nodeCount, boolean directed,
+                                                        PrimitiveIterator.OfLong edges) {
+        return fromSortedEdges(nodeCount, directed, edges, PAGE_SHIFT, RANGE_ENTRIES);
+    }
+
+
+    /**
+     * Purpose: Builds a graph from sorted edges with the given page and
+     *          buffer sizes (small sizes are for tests).
+     */
+    static CompressedGraph<Void> fromSortedEdges(int nodeCount, boolean directed, PrimitiveIterator.OfLong edges,
+                                                 int pageShift, int rangeEntries) {
+        Rows given = new Rows(pageShift, nodeCount);
+        int[] row = new int[16];
+        int size = 0;
+        int node = 0;
+        long previous = -1;
+        long entries = 0;
+        while (edges.hasNext()) {
+            long edge = edges.nextLong();
+            int u = EdgeStream.src(edge);
+            int v = EdgeStream.dst(edge);
+            if (edge < previous) {
+                throw new IllegalArgumentException("edges are not sorted at (" + u + ", " + v + ")");
+            }
+            if (u < 0 || u >= nodeCount || v < 0 || v >= nodeCount) {
+                throw new IllegalArgumentException("edge (" + u + ", " + v + ") is out of range");
+            }
+            if (edge == previous) {
+                continue;
+            }
+            previous = edge;
+            // finish the rows before this edge's source
+            for (; node < u; ++node) {
+                given.append(node, row, size);
+                entries += size;
+                size = 0;
+            }
+            if (size == row.length) {
+                row = Arrays.copyOf(row, 2 * size);
+            }
+            row[size++] = v;
+        }
+        for (; node < nodeCount; ++node) {
+            given.append(node, row, size);
+            entries += size;
+            size = 0;
+        }
+        given.finish();
+        if (directed) {
+            Rows in = transpose(given, nodeCount, false, pageShift, rangeEntries, null);
+            return new CompressedGraph<>(nodeCount, true, given, in, entries);
+        }
+        // each row gains the edges given in the other direction
+        long[] edgeCount = new long[1];
+        Rows rows = transpose(given, nodeCount, true, pageShift, rangeEntries, edgeCount);
+        return new CompressedGraph<>(nodeCount, false, rows, rows, edgeCount[0]);
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for whether the graph is directed.
+     * @return True if directed, false if undirected.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Not supported, the compressed layout is read-only.
+     */
+    public void add(int node1, T label, int node2) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Not supported, the compressed layout is read-only.
+     */
+    public void remove(int node1, int node2) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Not supported, the compressed layout is read-only.
+     */
+    public void set(int node1, T label, int node2) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Checks for an edge by decoding node1's row up to node2.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return True if the graph contains an edge from node1 to node2.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        return out.positionOf(node1, node2) >= 0;
+    }
+
+
+    /**
+     * Purpose: Fetches the label of an edge.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return The edge label, or null if there is no such edge.
+     */
+    @SuppressWarnings("unchecked")
+    public T label(int node1, int node2) {
+        if (labels == null) {
+            return null;
+        }
+        int position = out.positionOf(node1, node2);
+        return position < 0 ? null : (T) labels[labelIndex[node1] + position];
+    }
+
+
+    /**
+     * Purpose: Finds all nodes on an in or out edge of the given node.
+     * @param node The node to find the adjacent nodes of.
+     * @return The adjacent nodes in ascending order.
+     */
+    public List<Integer> adjacent(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        int[] outRow = out.decode(node);
+        int[] inRow = in.decode(node);
+        List<Integer> nodesList = new ArrayList<>(outRow.length + inRow.length);
+        int i = 0;
+        int j = 0;
+        while (i < outRow.length || j < inRow.length) {
+            if (j >= inRow.length || (i < outRow.length && outRow[i] < inRow[j])) {
+                nodesList.add(outRow[i++]);
+            } else if (i >= outRow.length || inRow[j] < outRow[i]) {
+                nodesList.add(inRow[j++]);
+            } else {
+                nodesList.add(outRow[i++]);
+                ++j;
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Decodes the out row of the given node.
+     * @param node The node to find the out nodes of.
+     * @return The out nodes in ascending order.
+     */
+    public List<Integer> outNodes(int node) {
+        return toList(out.decode(node));
+    }
+
+
+    /**
+     * Purpose: Decodes the in row of the given node.
+     * @param node The node to find the in nodes of.
+     * @return The in nodes in ascending order.
+     */
+    public List<Integer> inNodes(int node) {
+        return toList(in.decode(node));
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     * @return Integer count of nodes in Graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges in the graph,
+     *          capped at Integer.MAX_VALUE (see edgeCountLong).
+     * @return Integer count of edges in Graph.
+     */
+    public int edgeCount() {
+        return (int) Math.min(edgeCount, Integer.MAX_VALUE);
+    }
+
+
+    //--------------------------------------------------------------------
+    // compression specific methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the full number of edges in the graph.
+     * @return The edge count as a long.
+     */
+    public long edgeCountLong() {
+        return edgeCount;
+    }
+
+
+    /**
+     * Purpose: Decodes the out row of a node into an array, avoiding the
+     *          boxing of outNodes for tight traversal loops.
+     * @param node The node to find the out nodes of.
+     * @return The out nodes in ascending order.
+     */
+    public int[] outArray(int node) {
+        return out.decode(node);
+    }
+
+
+    /**
+     * Purpose: Returns the size of the encoded adjacency rows (out and, for
+     *          directed graphs, in rows) not counting the offset index.
+     * @return The number of bytes.
+     */
+    public long encodedBytes() {
+        return directed ? out.length() + in.length() : out.length();
+    }
+
+
+    /**
+     * Purpose: Returns the average encoded size of one stored row entry.
+     * @return The bytes per out row entry.
+     */
+    public double bytesPerEdge() {
+        long entries = out.countEntries();
+        return entries == 0 ? 0 : (double) out.length() / entries;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Builds the reversed rows of some encoded rows, a range of
+     *          nodes at a time. The rows are scanned in node order, so the
+     *          sources collected for each node are already sorted.
+     * @param rows The rows to reverse.
+     * @param n The number of nodes.
+     * @param merge True to merge each reversed row with the node's own
+     *              row (making an edge stream symmetric).
+     * @param edgeCount If not null, set to the number of undirected edges
+     *                  in the merged rows.
+     * @return The reversed (or merged) rows.
+     */
+    private static Rows transpose(Rows rows, int n, boolean merge, int pageShift, int rangeEntries,
+                                  long[] edgeCount) {
+        int[] inDegree = new int[n];
+        for (int u = 0; u < n; ++u) {
+            for (int v : rows.decode(u))
+                ++inDegree[v];
+        }
+        Rows result = new Rows(pageShift, n);
+        int[] start = new int[n + 1];
+        int[] buffer = new int[0];
+        int[] merged = new int[16];
+        long edges = 0;
+        for (int lo = 0, hi = 0; lo < n; lo = hi) {
+            // the largest range whose entries fit the buffer (at least one node)
+            long total = inDegree[hi++];
+            while (hi < n && total + inDegree[hi] <= rangeEntries)
+                total += inDegree[hi++];
+            if (buffer.length < total) {
+                buffer = new int[(int) total];
+            }
+            start[lo] = 0;
+            for (int x = lo; x < hi; ++x)
+                start[x + 1] = start[x] + inDegree[x];
+            int[] fill = Arrays.copyOfRange(start, lo, hi);
+            for (int u = 0; u < n; ++u) {
+                for (int v : rows.decode(u)) {
+                    if (v >= lo && v < hi) {
+                        buffer[fill[v - lo]++] = u;
+                    }
+                }
+            }
+            for (int x = lo; x < hi; ++x) {
+                if (!merge) {
+                    result.append(x, buffer, start[x], start[x + 1]);
+                    continue;
+                }
+                int[] own = rows.decode(x);
+                int size = 0;
+                if (merged.length < own.length + inDegree[x]) {
+                    merged = new int[own.length + inDegree[x]];
+                }
+                int i = 0;
+                int j = start[x];
+                while (i < own.length || j < start[x + 1]) {
+                    int next;
+                    if (j >= start[x + 1] || (i < own.length && own[i] < buffer[j])) {
+                        next = own[i++];
+                    } else if (i >= own.length || buffer[j] < own[i]) {
+                        next = buffer[j++];
+                    } else {
+                        next = own[i++];
+                        ++j;
+                    }
+                    merged[size++] = next;
+                    if (next >= x) {
+                        ++edges;
+                    }
+                }
+                result.append(x, merged, 0, size);
+            }
+        }
+        result.finish();
+        if (edgeCount != null) {
+            edgeCount[0] = edges;
+        }
+        return result;
+    }
+
+
+    /**
+     * Purpose: Copies a row into a sorted array.
+     */
+    private static int[] sortedRow(List<Integer> row) {
+        int[] sorted = new int[row.size()];
+        for (int i = 0; i < sorted.length; ++i)
+            sorted[i] = row.get(i);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+
+    /**
+     * Purpose: Writes a non-negative int as a variable-length integer, 7
+     *          bits per byte with the high bit marking more bytes.
+     * @return The position after the written bytes.
+     */
+    static int writeVarint(byte[] data, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
+    }
+
+
+    /**
+     * Purpose: Boxes a decoded row.
+     */
+    private static List<Integer> toList(int[] row) {
+        List<Integer> nodesList = new ArrayList<>(row.length);
+        for (int v : row) {
+            nodesList.add(v);
+        }
+        return nodesList;
+    }
+
+
+    //--------------------------------------------------------------------
+    // encoded rows
+    //--------------------------------------------------------------------
+
+    /**
+     * Encoded rows in pages of bytes, with the long position of each
+     * node's row. Rows are appended in node order.
+     */
+    static final class Rows {
+
+        // the pages (all full except the last) and the page size
+        private byte[][] pages = new byte[1][];
+        private final int pageShift;
+        private final long pageMask;
+
+        // the start of each node's row, and the end of the last row
+        private final long[] index;
+        private long length;
+
+        // the encoding of the row being appended
+        private final byte[] scratch = new byte[5];
+
+        Rows(int pageShift, int nodeCount) {
+            this.pageShift = pageShift;
+            pageMask = (1L << pageShift) - 1;
+            pages[0] = new byte[(int) Math.min(1 << 12, 1L << pageShift)];
+            index = new long[nodeCount + 1];
+        }
+
+        /**
+         * Purpose: Appends the row of the next node (rows must be appended
+         *          in node order).
+         */
+        void append(int node, int[] row, int size) {
+            append(node, row, 0, size);
+        }
+
+        /**
+         * Purpose: Appends a sorted row held in row[from] to row[to-1].
+         */
+        void append(int node, int[] row, int from, int to) {
+            index[node] = length;
+            put(to - from);
+            int prev = 0;
+            for (int i = from; i < to; ++i) {
+                int v = row[i];
+                if (i == from) {
+                    // the first neighbor is usually close to the node itself
+                    int delta = v - node;
+                    put((delta << 1) ^ (delta >> 31));
+                } else {
+                    put(v - prev - 1);
+                }
+                prev = v;
+            }
+        }
+
+        /**
+         * Purpose: Marks the end of the last row and trims the last page.
+         */
+        void finish() {
+            index[index.length - 1] = length;
+            int last = (int) (length >>> pageShift);
+            if (last < pages.length && pages[last] != null) {
+                pages[last] = Arrays.copyOf(pages[last], (int) (length & pageMask));
+            }
+        }
+
+        /**
+         * Purpose: Returns the number of encoded bytes.
+         */
+        long length() {
+            return length;
+        }
+
+        /**
+         * Purpose: Decodes one row.
+         */
+        int[] decode(int node) {
+            long[] pos = {index[node]};
+            int degree = read(pos);
+            int[] row = new int[degree];
+            int prev = 0;
+            for (int i = 0; i < degree; ++i) {
+                int value = read(pos);
+                prev = i == 0 ? node + ((value >>> 1) ^ -(value & 1)) : prev + value + 1;
+                row[i] = prev;
+            }
+            return row;
+        }
+
+        /**
+         * Purpose: Finds the position of node2 in node1's row, decoding
+         *          only as far as needed.
+         * @return The position, or -1 if there is no such edge.
+         */
+        int positionOf(int node1, int node2) {
+            long[] pos = {index[node1]};
+            int degree = read(pos);
+            int prev = 0;
+            for (int i = 0; i < degree; ++i) {
+                int value = read(pos);
+                prev = i == 0 ? node1 + ((value >>> 1) ^ -(value & 1)) : prev + value + 1;
+                if (prev == node2) {
+                    return i;
+                }
+                if (prev > node2) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Purpose: Counts the stored row entries.
+         */
+        long countEntries() {
+            long entries = 0;
+            long[] pos = new long[1];
+            for (int u = 0; u + 1 < index.length; ++u) {
+                pos[0] = index[u];
+                entries += read(pos);
+            }
+            return entries;
+        }
+
+        /**
+         * Purpose: Appends one variable-length integer.
+         */
+        void put(int value) {
+            int size = writeVarint(scratch, 0, value);
+            for (int i = 0; i < size; ++i) {
+                int page = (int) (length >>> pageShift);
+                int offset = (int) (length & pageMask);
+                if (page == pages.length) {
+                    pages = Arrays.copyOf(pages, 2 * pages.length);
+                }
+                if (pages[page] == null) {
+                    pages[page] = new byte[(int) Math.min(1 << 12, 1L << pageShift)];
+                } else if (offset == pages[page].length) {
+                    pages[page] = Arrays.copyOf(pages[page],
+                            (int) Math.min(2L * offset, 1L << pageShift));
+                }
+                pages[page][offset] = scratch[i];
+                ++length;
+            }
+        }
+
+        /**
+         * Purpose: Reads a variable-length integer, advancing pos[0]. A
+         *          value may continue on the next page.
+         */
+        int read(long[] pos) {
+            long p = pos[0];
+            int b = pages[(int) (p >>> pageShift)][(int) (p & pageMask)];
+            ++p;
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = pages[(int) (p >>> pageShift)][(int) (p & pageMask)];
+                ++p;
+                value |= (b & 0x7F) << shift;
+            }
+            pos[0] = p;
+            return value;
+        }
+    }
+
+}
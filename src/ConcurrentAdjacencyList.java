@@ -0,0 +1,319 @@
+/*
+ * File: ConcurrentAdjacencyList.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: A thread safe list implementation of a graph for workloads that
+ *       add edges while other threads query the graph. Each node's
+ *       neighbors are kept in a ConcurrentHashMap, so reads never block.
+ *       Writes to an undirected edge touch two maps, so they hold the
+ *       lock stripes of both nodes (taken in stripe order) to make the
+ *       two halves and the edge count change together for writers.
+ *       Directed writes only touch one map and need no lock. The edge
+ *       count is a LongAdder so writers don't contend on one counter.
+ *       Readers may see one half of an undirected edge that is being
+ *       added or removed, but never a half left behind once the write
+ *       returns.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+public class ConcurrentAdjacencyList<T> implements Graph<T> {
+
+    // the number of lock stripes (a power of two); nodes share stripes
+    // by their low bits
+    static final int STRIPES = 64;
+
+    // stored in place of a null label (the maps don't allow null values)
+    private static final Object NULL_LABEL = new Object();
+
+    // the total number of nodes in the graph (numbered 0 to nodes-1)
+    private final int nodeCount;
+
+    // the total number of edges in the graph
+    private final LongAdder edgeCount = new LongAdder();
+
+    // true if the graph is directed, false if undirected
+    private final boolean directed;
+
+    // each node's neighbors, mapped to their edge labels
+    private final ConcurrentHashMap<Integer, Object>[] adjList;
+
+    // the boxed id of each node, shared by every map so lookups don't
+    // allocate
+    private final Integer[] ids;
+
+    // the lock stripes for undirected writes
+    private final Object[] locks = new Object[STRIPES];
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Initializes the graph with the given number of nodes and
+     *          the given directionality.
+     * @param nodeCount The number of nodes.
+     * @param directed True for a directed graph.
+     */
+    public ConcurrentAdjacencyList(int nodeCount, boolean directed) {
+        this.nodeCount = nodeCount;
+        this.directed = directed;
+        @SuppressWarnings("unchecked")
+        ConcurrentHashMap<Integer, Object>[] maps =
+                (ConcurrentHashMap<Integer, Object>[]) new ConcurrentHashMap<?, ?>[nodeCount];
+        adjList = maps;
+        ids = new Integer[nodeCount];
+        for (int i = 0; i < nodeCount; ++i) {
+            adjList[i] = new ConcurrentHashMap<>(4);
+            ids[i] = i;
+        }
+        for (int i = 0; i < STRIPES; ++i)
+            locks[i] = new Object();
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true if the graph is directed, otherwise false.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Adds a labeled edge to the graph from node1 to node2 if it
+     *          isn't already there. Safe to call from any thread.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public void add(int node1, T label, int node2) {
+        insert(node1, label, node2);
+    }
+
+
+    /**
+     * Purpose: Adds a batch of labeled edges. Like the other graphs,
+     *          edges already in the graph (or earlier in the batch) are
+     *          skipped without a message.
+     * @param src The starting node of each edge if directed.
+     * @param labels The label of each edge, or null if all are unlabeled.
+     * @param dst The ending node of each edge if directed.
+     */
+    public void addAll(int[] src, T[] labels, int[] dst) {
+        for (int i = 0; i < src.length; ++i)
+            insert(src[i], labels == null ? null : labels[i], dst[i]);
+    }
+
+
+    /**
+     * Purpose: Removes the edge between node1 and node2 if it exists.
+     *          Safe to call from any thread. A missing edge is skipped
+     *          without a message, as threads may race to remove the same
+     *          edge.
+     * @param node1 The starting node if the graph is directed.
+     * @param node2 The ending node if the graph is directed.
+     */
+    public void remove(int node1, int node2) {
+        boolean removed;
+        if (directed) {
+            removed = adjList[node1].remove(ids[node2]) != null;
+        } else {
+            Object first = locks[firstStripe(node1, node2)];
+            Object second = locks[secondStripe(node1, node2)];
+            synchronized (first) {
+                synchronized (second) {
+                    removed = adjList[node1].remove(ids[node2]) != null;
+                    if (removed) {
+                        adjList[node2].remove(ids[node1]);
+                    }
+                }
+            }
+        }
+        if (removed) {
+            edgeCount.decrement();
+        }
+    }
+
+
+    /**
+     * Purpose: Sets the label on an existing edge (both directions if
+     *          undirected). Safe to call from any thread.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public void set(int node1, T label, int node2) {
+        Object stored = label == null ? NULL_LABEL : label;
+        if (directed) {
+            adjList[node1].replace(ids[node2], stored);
+        } else {
+            Object first = locks[firstStripe(node1, node2)];
+            Object second = locks[secondStripe(node1, node2)];
+            synchronized (first) {
+                synchronized (second) {
+                    if (adjList[node1].replace(ids[node2], stored) != null) {
+                        adjList[node2].replace(ids[node1], stored);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Generic getter for the label on the edge from node1 to
+     *          node2. Never blocks.
+     * @param node1 Starting Node if directional.
+     * @param node2 Ending Node if directional.
+     * @return The label, or null if unlabeled or there is no edge.
+     */
+    @SuppressWarnings("unchecked")
+    public T label(int node1, int node2) {
+        Object stored = adjList[node1].get(ids[node2]);
+        return stored == NULL_LABEL ? null : (T) stored;
+    }
+
+
+    /**
+     * Purpose: Checks for an edge from node1 to node2. Never blocks.
+     * @param node1 Starting Node if directional.
+     * @param node2 Ending Node if directional.
+     * @return True if there is an edge.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        return adjList[node1].containsKey(ids[node2]);
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming or outgoing edge of the node,
+     *          in ascending order. Never blocks.
+     * @param node The node to be checked for adjacent node edges
+     * @return A List of the nodes adjacent to the node.
+     */
+    public List<Integer> adjacent(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        List<Integer> nodesList = new ArrayList<>();
+        for (int index = 0; index < nodeCount; ++index) {
+            if (adjList[node].containsKey(ids[index]) || adjList[index].containsKey(ids[node])) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Copies the nodes on an outgoing edge of the node, in
+     *          ascending order. Never blocks.
+     * @param node The node to be checked for outgoing node edges.
+     * @return A list of the nodes on the node's outgoing edges.
+     */
+    public List<Integer> outNodes(int node) {
+        List<Integer> nodesList = new ArrayList<>(adjList[node].keySet());
+        Collections.sort(nodesList);
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming edge of the node by checking
+     *          every node's neighbors, in ascending order. Never blocks.
+     * @param node The node to be checked for incoming node edges.
+     * @return A list of the nodes on the node's incoming edges.
+     */
+    public List<Integer> inNodes(int node) {
+        List<Integer> nodesList = new ArrayList<>();
+        Integer id = ids[node];
+        for (int index = 0; index < nodeCount; ++index) {
+            if (adjList[index].containsKey(id)) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     * @return Integer count of nodes in Graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges in the graph (while
+     *          writers are running, a recent count).
+     * @return Integer count of edges in Graph.
+     */
+    public int edgeCount() {
+        return (int) edgeCount.sum();
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Adds an edge if it isn't already there.
+     * @return True if the edge was added.
+     */
+    private boolean insert(int node1, T label, int node2) {
+        Object stored = label == null ? NULL_LABEL : label;
+        boolean added;
+        if (directed) {
+            added = adjList[node1].putIfAbsent(ids[node2], stored) == null;
+        } else {
+            Object first = locks[firstStripe(node1, node2)];
+            Object second = locks[secondStripe(node1, node2)];
+            synchronized (first) {
+                synchronized (second) {
+                    added = adjList[node1].putIfAbsent(ids[node2], stored) == null;
+                    if (added) {
+                        adjList[node2].put(ids[node1], stored);
+                    }
+                }
+            }
+        }
+        if (added) {
+            edgeCount.increment();
+        }
+        return added;
+    }
+
+
+    /**
+     * Purpose: Finds the lower of the two nodes' lock stripes, which is
+     *          locked first so two writers never wait on each other.
+     */
+    private static int firstStripe(int node1, int node2) {
+        return Math.min(node1 & (STRIPES - 1), node2 & (STRIPES - 1));
+    }
+
+
+    /**
+     * Purpose: Finds the higher of the two nodes' lock stripes (the same
+     *          stripe when both nodes share one, which is locked again).
+     */
+    private static int secondStripe(int node1, int node2) {
+        return Math.max(node1 & (STRIPES - 1), node2 & (STRIPES - 1));
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * File: ConnectivityTracker.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Wraps a graph and keeps its connected components up to date as
+ *       edges are added, so components don't have to be recomputed after
+ *       every batch. Components are kept in a union-find (union by size
+ *       with path halving), so adding an edge and asking which component
+ *       a node is in take nearly constant time. Like connectedComponents,
+ *       the graph is treated as undirected (weak components if directed).
+ *       A union-find can't split a component, so removing an edge only
+ *       marks the components stale, and they are rebuilt from the graph
+ *       on the next query.
+ */
+
+import java.util.List;
+
+
+public class ConnectivityTracker<T> implements Graph<T> {
+
+    // the graph whose components are tracked
+    private final Graph<T> graph;
+
+    // each node's parent in the union-find (roots are their own parent)
+    private final int[] parent;
+
+    // the number of nodes under each root
+    private final int[] size;
+
+    // the smallest node under each root (the component's id)
+    private final int[] smallest;
+
+    // the number of components
+    private int componentCount;
+
+    // true if an edge was removed since the components were built
+    private boolean stale;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Wraps the graph and finds its components. From now on the
+     *          graph should only be changed through the tracker.
+     * @param graph The graph to track.
+     */
+    public ConnectivityTracker(Graph<T> graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        parent = new int[n];
+        size = new int[n];
+        smallest = new int[n];
+        rebuild();
+    }
+
+
+    //--------------------------------------------------------------------
+    // component queries
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Checks if two nodes are in the same component.
+     * @param node1 The first node.
+     * @param node2 The second node.
+     * @return True if there is a path between them (ignoring direction).
+     */
+    public boolean sameComponent(int node1, int node2) {
+        refresh();
+        return find(node1) == find(node2);
+    }
+
+
+    /**
+     * Purpose: Finds the component of a node, named by its smallest node
+     *          (so the id doesn't depend on the order edges were added).
+     * @param node The node.
+     * @return The smallest node in the node's component.
+     */
+    public int componentOf(int node) {
+        refresh();
+        return smallest[find(node)];
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of components (isolated
+     *          nodes count as one each).
+     * @return The number of components.
+     */
+    public int componentCount() {
+        refresh();
+        return componentCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the wrapped graph.
+     * @return The tracked graph.
+     */
+    public Graph<T> graph() {
+        return graph;
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true if the graph is directed, otherwise false.
+     */
+    public boolean directed() {
+        return graph.directed();
+    }
+
+
+    /**
+     * Purpose: Adds a labeled edge to the graph and joins the components
+     *          of its nodes.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public void add(int node1, T label, int node2) {
+        graph.add(node1, label, node2);
+        union(node1, node2);
+    }
+
+
+    /**
+     * Purpose: Adds a batch of labeled edges and joins their components.
+     * @param src The starting node of each edge if directed.
+     * @param labels The label of each edge, or null if all are unlabeled.
+     * @param dst The ending node of each edge if directed.
+     */
+    public void addAll(int[] src, T[] labels, int[] dst) {
+        graph.addAll(src, labels, dst);
+        for (int i = 0; i < src.length; ++i)
+            union(src[i], dst[i]);
+    }
+
+
+    /**
+     * Purpose: Removes an edge from the graph. The components are rebuilt
+     *          on the next query.
+     * @param node1 The starting node if the graph is directed.
+     * @param node2 The ending node if the graph is directed.
+     */
+    public void remove(int node1, int node2) {
+        if (graph.hasEdge(node1, node2)) {
+            stale = true;
+        }
+        graph.remove(node1, node2);
+    }
+
+
+    public void set(int node1, T label, int node2) {
+        graph.set(node1, label, node2);
+    }
+
+
+    public T label(int node1, int node2) {
+        return graph.label(node1, node2);
+    }
+
+
+    public boolean hasEdge(int node1, int node2) {
+        return graph.hasEdge(node1, node2);
+    }
+
+
+    public List<Integer> adjacent(int node) {
+        return graph.adjacent(node);
+    }
+
+
+    public List<Integer> outNodes(int node) {
+        return graph.outNodes(node);
+    }
+
+
+    public List<Integer> inNodes(int node) {
+        return graph.inNodes(node);
+    }
+
+
+    public int nodeCount() {
+        return graph.nodeCount();
+    }
+
+
+    public int edgeCount() {
+        return graph.edgeCount();
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Rebuilds the components if an edge was removed.
+     */
+    private void refresh() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+
+    /**
+     * Purpose: Builds the components from every edge of the graph.
+     */
+    private void rebuild() {
+        int n = parent.length;
+        for (int u = 0; u < n; ++u) {
+            parent[u] = u;
+            size[u] = 1;
+            smallest[u] = u;
+        }
+        componentCount = n;
+        for (int u = 0; u < n; ++u) {
+            for (int v : graph.outNodes(u))
+                union(u, v);
+        }
+        stale = false;
+    }
+
+
+    /**
+     * Purpose: Finds a node's root, halving the path on the way.
+     */
+    private int find(int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+
+    /**
+     * Purpose: Joins the components of two nodes, hanging the smaller
+     *          tree under the larger.
+     */
+    private void union(int node1, int node2) {
+        int root1 = find(node1);
+        int root2 = find(node2);
+        if (root1 == root2) {
+            return;
+        }
+        if (size[root1] < size[root2]) {
+            int swap = root1;
+            root1 = root2;
+            root2 = swap;
+        }
+        parent[root2] = root1;
+        size[root1] += size[root2];
+        smallest[root1] = Math.min(smallest[root1], smallest[root2]);
+        --componentCount;
+    }
+
+}
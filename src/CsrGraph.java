@@ -0,0 +1,406 @@
+/*
+ * File: CsrGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Read-only compressed sparse row (CSR) implementation of a
+ *       graph. The out-edges of every node are stored back to back in
+ *       one sorted array with an offset array marking where each node's
+ *       edges start. Directed graphs also keep the reversed (in-edge)
+ *       rows so inNodes doesn't need to scan the graph.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class CsrGraph<T> implements Graph<T> {
+
+    // the total number of nodes in the graph (numbered 0 to nodes-1)
+    private final int nodeCount;
+
+    // the total number of edges in the graph
+    private final int edgeCount;
+
+    // true if the graph is directed, false if undirected
+    private final boolean directed;
+
+    // the out-edges of node u are targets[offsets[u]] to
+    // targets[offsets[u+1]-1], sorted by target node
+    private final int[] offsets;
+    private final int[] targets;
+
+    // the label of each out-edge (parallel to targets), or null if every
+    // label in the graph is null
+    private final Object[] labels;
+
+    // the in-edges of each node in the same layout (directed only; for
+    // undirected graphs these are the same arrays as the out-edges)
+    private final int[] inOffsets;
+    private final int[] inSources;
+
+
+    //--------------------------------------------------------------------
+    // constructors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Copies the given graph into CSR form in one pass over its
+     *          out-edges.
+     * @param g The graph to copy.
+     */
+    public CsrGraph(Graph<T> g) {
+        this(g.nodeCount(), g.directed(), rowsOf(g), g);
+    }
+
+
+    /**
+     * Purpose: Builds a CSR graph from already prepared arrays. Each row
+     *          of targets must be sorted and free of duplicates, and for
+     *          undirected graphs every edge must appear in both rows.
+     * @param nodeCount The number of nodes.
+     * @param directed Directionality of the graph.
+     * @param offsets The row start offsets (nodeCount + 1 entries).
+     * @param targets The row contents.
+     * @param labels The edge labels parallel to targets, or null.
+     * @param edgeCount The number of (directed or undirected) edges.
+     */
+    CsrGraph(int nodeCount, boolean directed, int[] offsets, int[] targets,
+             Object[] labels, int edgeCount) {
+        this.nodeCount = nodeCount;
+        this.directed = directed;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.labels = labels;
+        this.edgeCount = edgeCount;
+        if (directed) {
+            inOffsets = new int[nodeCount + 1];
+            inSources = new int[offsets[nodeCount]];
+            transpose(nodeCount, offsets, targets, inOffsets, inSources);
+        } else {
+            inOffsets = offsets;
+            inSources = targets;
+        }
+    }
+
+
+    /**
+     * Purpose: Helper constructor that flattens the rows gathered from a
+     *          graph and reads their labels.
+     */
+    private CsrGraph(int nodeCount, boolean directed, int[][] rows, Graph<T> g) {
+        this(nodeCount, directed, offsetsOf(rows), flatten(rows), labelsOf(rows, g),
+                g.edgeCount());
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for whether the graph is directed.
+     * @return True if directed, false if undirected.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Not supported, the CSR layout is read-only.
+     */
+    public void add(int node1, T label, int node2) {
+        throw new UnsupportedOperationException("CsrGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Not supported, the CSR layout is read-only.
+     */
+    public void remove(int node1, int node2) {
+        throw new UnsupportedOperationException("CsrGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Not supported, the CSR layout is read-only.
+     */
+    public void set(int node1, T label, int node2) {
+        throw new UnsupportedOperationException("CsrGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Checks for an edge with a binary search of node1's row.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return True if the graph contains an edge from node1 to node2.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        return indexOf(node1, node2) >= 0;
+    }
+
+
+    /**
+     * Purpose: Fetches the label of an edge with a binary search of
+     *          node1's row.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return The edge label, or null if there is no such edge.
+     */
+    @SuppressWarnings("unchecked")
+    public T label(int node1, int node2) {
+        int index = indexOf(node1, node2);
+        if (index < 0 || labels == null) {
+            return null;
+        }
+        return (T) labels[index];
+    }
+
+
+    /**
+     * Purpose: Finds all nodes on an in or out edge of the given node by
+     *          merging its (sorted) out and in rows.
+     * @param node The node to find the adjacent nodes of.
+     * @return The adjacent nodes in ascending order.
+     */
+    public List<Integer> adjacent(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        List<Integer> nodesList = new ArrayList<>(outDegree(node) + inDegree(node));
+        int i = offsets[node];
+        int iEnd = offsets[node + 1];
+        int j = inOffsets[node];
+        int jEnd = inOffsets[node + 1];
+        while (i < iEnd || j < jEnd) {
+            int next;
+            if (j >= jEnd || (i < iEnd && targets[i] < inSources[j])) {
+                next = targets[i++];
+            } else if (i >= iEnd || inSources[j] < targets[i]) {
+                next = inSources[j++];
+            } else {
+                next = targets[i++];
+                ++j;
+            }
+            nodesList.add(next);
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Copies the out row of the given node.
+     * @param node The node to find the out nodes of.
+     * @return The out nodes in ascending order.
+     */
+    public List<Integer> outNodes(int node) {
+        List<Integer> nodesList = new ArrayList<>(outDegree(node));
+        for (int i = offsets[node]; i < offsets[node + 1]; ++i) {
+            nodesList.add(targets[i]);
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Copies the in row of the given node.
+     * @param node The node to find the in nodes of.
+     * @return The in nodes in ascending order.
+     */
+    public List<Integer> inNodes(int node) {
+        List<Integer> nodesList = new ArrayList<>(inDegree(node));
+        for (int i = inOffsets[node]; i < inOffsets[node + 1]; ++i) {
+            nodesList.add(inSources[i]);
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     * @return Integer count of nodes in Graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges in the graph.
+     * @return Integer count of edges in Graph.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+
+    //--------------------------------------------------------------------
+    // CSR specific methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Returns the number of out-edges of a node.
+     * @param node The node to check.
+     * @return The out degree.
+     */
+    public int outDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+
+    /**
+     * Purpose: Returns the number of in-edges of a node.
+     * @param node The node to check.
+     * @return The in degree.
+     */
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+
+    /**
+     * Purpose: Returns the i-th out neighbor of a node without creating
+     *          a list, for tight traversal loops.
+     * @param node The node whose row is read.
+     * @param i The position in the row (0 to outDegree(node)-1).
+     * @return The neighbor node id.
+     */
+    public int outNode(int node, int i) {
+        return targets[offsets[node] + i];
+    }
+
+
+    /**
+     * Purpose: Returns the label of the i-th out edge of a node without a
+     *          search.
+     * @param node The node whose row is read.
+     * @param i The position in the row (0 to outDegree(node)-1).
+     * @return The edge label, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public T outLabel(int node, int i) {
+        return labels == null ? null : (T) labels[offsets[node] + i];
+    }
+
+
+    /**
+     * Purpose: Checks if any edge of the graph has a non-null label.
+     * @return True if labels are stored.
+     */
+    public boolean labeled() {
+        return labels != null;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Finds the position of an edge in the targets array.
+     * @return The index, or a negative value if the edge doesn't exist.
+     */
+    private int indexOf(int node1, int node2) {
+        return Arrays.binarySearch(targets, offsets[node1], offsets[node1 + 1], node2);
+    }
+
+
+    /**
+     * Purpose: Reads the out rows of a graph, sorting any row that isn't
+     *          already in ascending order.
+     */
+    private static int[][] rowsOf(Graph<?> g) {
+        int[][] rows = new int[g.nodeCount()][];
+        for (int u = 0; u < rows.length; ++u) {
+            List<Integer> out = g.outNodes(u);
+            int[] row = new int[out.size()];
+            boolean sorted = true;
+            for (int i = 0; i < row.length; ++i) {
+                row[i] = out.get(i);
+                if (i > 0 && row[i - 1] >= row[i]) {
+                    sorted = false;
+                }
+            }
+            if (!sorted) {
+                row = Arrays.stream(row).sorted().distinct().toArray();
+            }
+            rows[u] = row;
+        }
+        return rows;
+    }
+
+
+    /**
+     * Purpose: Computes the row offsets of a set of rows.
+     */
+    static int[] offsetsOf(int[][] rows) {
+        int[] offsets = new int[rows.length + 1];
+        for (int u = 0; u < rows.length; ++u) {
+            offsets[u + 1] = offsets[u] + rows[u].length;
+        }
+        return offsets;
+    }
+
+
+    /**
+     * Purpose: Concatenates a set of rows into one array.
+     */
+    static int[] flatten(int[][] rows) {
+        int[] flat = new int[offsetsOf(rows)[rows.length]];
+        int k = 0;
+        for (int[] row : rows) {
+            System.arraycopy(row, 0, flat, k, row.length);
+            k += row.length;
+        }
+        return flat;
+    }
+
+
+    /**
+     * Purpose: Reads the label of every edge in the rows.
+     * @return The labels parallel to the flattened rows, or null if every
+     *         label is null.
+     */
+    private static Object[] labelsOf(int[][] rows, Graph<?> g) {
+        Object[] labels = null;
+        int k = 0;
+        for (int u = 0; u < rows.length; ++u) {
+            for (int v : rows[u]) {
+                Object label = g.label(u, v);
+                if (label != null) {
+                    if (labels == null) {
+                        labels = new Object[offsetsOf(rows)[rows.length]];
+                    }
+                    labels[k] = label;
+                }
+                ++k;
+            }
+        }
+        return labels;
+    }
+
+
+    /**
+     * Purpose: Fills in the transposed (in-edge) rows with a counting
+     *          sort. The resulting rows are sorted since sources are
+     *          visited in ascending order.
+     */
+    static void transpose(int nodeCount, int[] offsets, int[] targets,
+                          int[] inOffsets, int[] inSources) {
+        for (int i = 0; i < offsets[nodeCount]; ++i) {
+            ++inOffsets[targets[i] + 1];
+        }
+        for (int v = 0; v < nodeCount; ++v) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] next = Arrays.copyOf(inOffsets, nodeCount);
+        for (int u = 0; u < nodeCount; ++u) {
+            for (int i = offsets[u]; i < offsets[u + 1]; ++i) {
+                inSources[next[targets[i]]++] = u;
+            }
+        }
+    }
+
+}
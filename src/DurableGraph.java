@@ -0,0 +1,696 @@
+/*
+ * File: DurableGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: An in-memory AdjacencyList (with Integer labels) whose changes
+ *       survive a crash. Every add, remove and set that changes the graph
+ *       is appended to a write-ahead log in a directory, and a checkpoint
+ *       writes the whole graph to a MappedGraph file and starts a new log,
+ *       so opening the directory only replays the log written since the
+ *       last checkpoint.
+ *
+ *       Files (the generation number g counts checkpoints):
+ *         snapshot-g.csrg  the graph as of the start of log g
+ *         wal-g.log        the changes made after snapshot g
+ *
+ *       Log layout (little-endian): an 8-byte header (magic, version),
+ *       then one 17-byte record per change: op (1 = add, 2 = remove,
+ *       3 = set), node1, node2, label (NULL_LABEL for null or remove) and
+ *       the CRC32C of those 13 bytes, so NULL_LABEL itself can't be used
+ *       as a label. Replay reads the log a block at a time, stops at the
+ *       first torn or corrupt record and cuts the log there.
+ *
+ *       Durability: with a sync interval of 0 each change returns once it
+ *       is on disk, and threads changing the graph at the same time share
+ *       one fsync (group commit). With an interval above 0 changes return
+ *       at once and a background thread fsyncs every interval, so a crash
+ *       loses at most the last interval of changes. The first failure of
+ *       a background sync or checkpoint is kept, and every later change,
+ *       sync and close throws it (wrapped in an UncheckedIOException).
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+
+public class DurableGraph implements Graph<Integer>, AutoCloseable {
+
+    // log identification ("WALG") and format version
+    static final int MAGIC = 0x57414c47;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    // record ops and size
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+    static final byte SET = 3;
+    static final int RECORD_BYTES = 17;
+
+    // the number of records replay reads at a time
+    static final int REPLAY_RECORDS = 4096;
+
+    // stands for a null label in the log (as in the graph file)
+    static final int NULL_LABEL = MappedGraph.NULL_LABEL;
+
+    // file names by generation
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.csrg");
+    private static final Pattern LOG = Pattern.compile("wal-(\\d+)\\.log");
+
+    // the directory holding the snapshots and logs
+    private final Path dir;
+
+    // the graph
+    private final AdjacencyList<Integer> graph;
+
+    // the current log generation and file
+    private long generation;
+    private FileChannel log;
+
+    // records appended to the log buffer but not yet written, and the
+    // sequence numbers of the last appended and last durable record
+    private ByteBuffer pending = newBuffer();
+    private long appended;
+    private long durable;
+
+    // held while writing and syncing the log (taken before the graph lock)
+    private final Object syncLock = new Object();
+
+    // the background sync and checkpoint thread (null if not needed)
+    private ScheduledExecutorService background;
+    private final long syncMillis;
+
+    // the first background sync or checkpoint failure (null if none)
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    // computes the record checksums (used under the graph lock)
+    private final CRC32C crc = new CRC32C();
+
+
+    //--------------------------------------------------------------------
+    // opening
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Opens (or creates) a durable graph that syncs every change.
+     * @param dir The directory of the snapshots and logs.
+     * @param nodeCount The number of nodes of a new graph.
+     * @param directed The directionality of a new graph.
+     * @return The recovered graph.
+     */
+    public static DurableGraph open(Path dir, int nodeCount, boolean directed) throws IOException {
+        return open(dir, nodeCount, directed, 0);
+    }
+
+
+    /**
+     * Purpose: Opens (or creates) a durable graph. The newest snapshot is
+     *          loaded and the logs written after it are replayed.
+     * @param dir The directory of the snapshots and logs.
+     * @param nodeCount The number of nodes of a new graph.
+     * @param directed The directionality of a new graph.
+     * @param syncMillis The time between background fsyncs, or 0 to sync
+     *                   each change before it returns.
+     * @return The recovered graph.
+     */
+    public static DurableGraph open(Path dir, int nodeCount, boolean directed, long syncMillis)
+            throws IOException {
+        if (syncMillis < 0) {
+            throw new IllegalArgumentException("sync interval must not be negative: " + syncMillis);
+        }
+        Files.createDirectories(dir);
+        long snapshot = -1;
+        long lastLog = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Matcher s = SNAPSHOT.matcher(file.getFileName().toString());
+                Matcher l = LOG.matcher(file.getFileName().toString());
+                if (s.matches()) {
+                    snapshot = Math.max(snapshot, Long.parseLong(s.group(1)));
+                } else if (l.matches()) {
+                    lastLog = Math.max(lastLog, Long.parseLong(l.group(1)));
+                }
+            }
+        }
+        AdjacencyList<Integer> graph;
+        long generation = Math.max(0, snapshot);
+        if (snapshot >= 0) {
+            graph = load(MappedGraph.open(dir.resolve(snapshotName(snapshot))));
+        } else {
+            graph = new AdjacencyList<>(nodeCount, directed);
+        }
+        // replay the logs after the snapshot, in order
+        for (long g = generation; g <= lastLog; ++g) {
+            Path file = dir.resolve(logName(g));
+            if (Files.exists(file)) {
+                replay(file, graph);
+            }
+        }
+        return new DurableGraph(dir, graph, Math.max(generation, lastLog), syncMillis);
+    }
+
+
+    /**
+     * Purpose: Creates the graph around the recovered state, appending to
+     *          the newest log.
+     */
+    private DurableGraph(Path dir, AdjacencyList<Integer> graph, long generation, long syncMillis)
+            throws IOException {
+        this.dir = dir;
+        this.graph = graph;
+        this.generation = generation;
+        this.syncMillis = syncMillis;
+        this.log = openLog(dir.resolve(logName(generation)));
+        if (syncMillis > 0) {
+            background().scheduleWithFixedDelay(this::syncQuietly, syncMillis, syncMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // durability
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Writes and fsyncs every change made so far.
+     * @throws UncheckedIOException if a background sync or checkpoint
+     *         failed
+     */
+    public void sync() throws IOException {
+        checkFailure();
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        commit(target);
+    }
+
+
+    /**
+     * Purpose: Writes the graph to a new snapshot and starts a new log,
+     *          then deletes the older snapshots and logs. Changes wait
+     *          only while the graph is copied, not while it is written.
+     */
+    public void checkpoint() throws IOException {
+        CsrGraph<Integer> copy;
+        long next;
+        synchronized (syncLock) {
+            synchronized (this) {
+                // finish the old log and start the next one
+                writePending();
+                log.force(false);
+                durable = appended;
+                next = generation + 1;
+                FileChannel nextLog = openLog(dir.resolve(logName(next)));
+                log.close();
+                log = nextLog;
+                generation = next;
+                copy = new CsrGraph<>(graph);
+            }
+        }
+        // the snapshot only becomes visible once complete (written under
+        // a temporary name and renamed)
+        MappedGraph.write(copy, dir.resolve(snapshotName(next)));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Matcher s = SNAPSHOT.matcher(file.getFileName().toString());
+                Matcher l = LOG.matcher(file.getFileName().toString());
+                if ((s.matches() && Long.parseLong(s.group(1)) < next)
+                        || (l.matches() && Long.parseLong(l.group(1)) < next)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Starts a background thread that checkpoints every period.
+     * @param periodMillis The time between checkpoints.
+     */
+    public synchronized void startCheckpoints(long periodMillis) {
+        background().scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Purpose: Stops the background thread, syncs every change and closes
+     *          the log (also when a background failure is thrown).
+     * @throws UncheckedIOException if a background sync or checkpoint
+     *         failed
+     */
+    public void close() throws IOException {
+        ScheduledExecutorService stopping;
+        synchronized (this) {
+            stopping = background;
+            background = null;
+        }
+        if (stopping != null) {
+            stopping.shutdown();
+            try {
+                stopping.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (syncLock) {
+                log.close();
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Generic getter for the current log generation.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true if the graph is directed, otherwise false.
+     */
+    public boolean directed() {
+        return graph.directed();
+    }
+
+
+    /**
+     * Purpose: Adds a labeled edge and logs it. With a sync interval of
+     *          0, returns once the change is on disk.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The label for the edge (not NULL_LABEL).
+     * @param node2 The ending node if it's a directed graph.
+     * @throws IllegalArgumentException if the label is NULL_LABEL
+     * @throws UncheckedIOException if the log can't be written or a
+     *         background sync or checkpoint failed
+     */
+    public void add(int node1, Integer label, int node2) {
+        checkLabel(label);
+        checkFailure();
+        long sequence;
+        synchronized (this) {
+            if (graph.hasEdge(node1, node2)) {
+                graph.add(node1, label, node2);
+                return;
+            }
+            graph.add(node1, label, node2);
+            sequence = append(ADD, node1, node2, label);
+        }
+        commitIfSyncing(sequence);
+    }
+
+
+    /**
+     * Purpose: Removes an edge and logs it. With a sync interval of 0,
+     *          returns once the change is on disk.
+     * @param node1 The starting node if the graph is directed.
+     * @param node2 The ending node if the graph is directed.
+     * @throws UncheckedIOException if the log can't be written or a
+     *         background sync or checkpoint failed
+     */
+    public void remove(int node1, int node2) {
+        checkFailure();
+        long sequence;
+        synchronized (this) {
+            if (!graph.hasEdge(node1, node2)) {
+                graph.remove(node1, node2);
+                return;
+            }
+            graph.remove(node1, node2);
+            sequence = append(REMOVE, node1, node2, null);
+        }
+        commitIfSyncing(sequence);
+    }
+
+
+    /**
+     * Purpose: Sets the label of an existing edge and logs it. With a sync
+     *          interval of 0, returns once the change is on disk.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The new label (not NULL_LABEL).
+     * @param node2 The ending node if it's a directed graph.
+     * @throws IllegalArgumentException if the label is NULL_LABEL
+     * @throws UncheckedIOException if the log can't be written or a
+     *         background sync or checkpoint failed
+     */
+    public void set(int node1, Integer label, int node2) {
+        checkLabel(label);
+        checkFailure();
+        long sequence;
+        synchronized (this) {
+            if (!graph.hasEdge(node1, node2)) {
+                return;
+            }
+            graph.set(node1, label, node2);
+            sequence = append(SET, node1, node2, label);
+        }
+        commitIfSyncing(sequence);
+    }
+
+
+    public synchronized Integer label(int node1, int node2) {
+        return graph.label(node1, node2);
+    }
+
+
+    public synchronized boolean hasEdge(int node1, int node2) {
+        return graph.hasEdge(node1, node2);
+    }
+
+
+    public synchronized List<Integer> adjacent(int node) {
+        return graph.adjacent(node);
+    }
+
+
+    public synchronized List<Integer> outNodes(int node) {
+        return graph.outNodes(node);
+    }
+
+
+    public synchronized List<Integer> inNodes(int node) {
+        return graph.inNodes(node);
+    }
+
+
+    public int nodeCount() {
+        return graph.nodeCount();
+    }
+
+
+    public synchronized int edgeCount() {
+        return graph.edgeCount();
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Rejects the label that stands for null in the log.
+     */
+    private static void checkLabel(Integer label) {
+        if (label != null && label == NULL_LABEL) {
+            throw new IllegalArgumentException("label " + NULL_LABEL + " is reserved for null labels");
+        }
+    }
+
+
+    /**
+     * Purpose: Appends a record to the log buffer (under the graph lock).
+     * @return The record's sequence number.
+     */
+    private long append(byte op, int node1, int node2, Integer label) {
+        if (pending.remaining() < RECORD_BYTES) {
+            ByteBuffer larger = newBuffer(2 * pending.capacity());
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        int start = pending.position();
+        pending.put(op);
+        pending.putInt(node1);
+        pending.putInt(node2);
+        pending.putInt(label == null ? NULL_LABEL : label);
+        crc.reset();
+        crc.update(pending.array(), start, RECORD_BYTES - 4);
+        pending.putInt((int) crc.getValue());
+        return ++appended;
+    }
+
+
+    /**
+     * Purpose: Waits for a record to be on disk when every change is synced.
+     */
+    private void commitIfSyncing(long sequence) {
+        if (syncMillis == 0) {
+            try {
+                commit(sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Makes every record up to the sequence number durable. The
+     *          first waiting thread writes and fsyncs the records of every
+     *          thread, so the others find theirs already done.
+     */
+    private void commit(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (durable >= sequence) {
+                return;
+            }
+            long last;
+            synchronized (this) {
+                writePending();
+                last = appended;
+            }
+            log.force(false);
+            durable = last;
+        }
+    }
+
+
+    /**
+     * Purpose: Writes the buffered records to the log (under both locks).
+     */
+    private void writePending() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            log.write(pending);
+        }
+        pending.clear();
+    }
+
+
+    /**
+     * Purpose: Throws the first background failure, if any.
+     */
+    private void checkFailure() {
+        IOException e = failure.get();
+        if (e != null) {
+            throw new UncheckedIOException("background log sync or checkpoint failed", e);
+        }
+    }
+
+
+    /**
+     * Purpose: Syncs from the background thread, keeping the first failure
+     *          for the next caller.
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        } catch (UncheckedIOException e) {
+            // an earlier failure, already kept
+        }
+    }
+
+
+    /**
+     * Purpose: Creates the background thread on first use.
+     */
+    private synchronized ScheduledExecutorService background() {
+        if (background == null) {
+            background = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "graph-log-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return background;
+    }
+
+
+    /**
+     * Purpose: Fsyncs the directory so a renamed or created file survives
+     *          a crash (not possible on every platform).
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directories can't be opened for syncing on some platforms
+        }
+    }
+
+
+    /**
+     * Purpose: Opens a log for appending. A new log gets its header, and
+     *          the directory is synced so the file itself survives a crash.
+     */
+    private FileChannel openLog(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        if (channel.size() == 0) {
+            ByteBuffer header = newBuffer(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(false);
+            syncDirectory();
+        }
+        channel.position(channel.size());
+        return channel;
+    }
+
+
+    /**
+     * Purpose: Applies the records of a log to a graph, reading it a block
+     *          of records at a time, and cuts the log after the last whole,
+     *          valid record.
+     */
+    static void replay(Path file, Graph<Integer> graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                channel.truncate(0);
+                return;
+            }
+            ByteBuffer bytes = newBuffer(RECORD_BYTES * REPLAY_RECORDS);
+            bytes.limit(HEADER_BYTES);
+            readFully(channel, bytes, 0);
+            bytes.flip();
+            if (bytes.remaining() < HEADER_BYTES || bytes.getInt() != MAGIC || bytes.getInt() != VERSION) {
+                throw new IOException(file + " is not a graph log");
+            }
+            CRC32C crc = new CRC32C();
+            long valid = HEADER_BYTES;
+            boolean corrupt = false;
+            while (!corrupt && size - valid >= RECORD_BYTES) {
+                // the next block of whole records
+                bytes.clear();
+                bytes.limit((int) Math.min(bytes.capacity(), (size - valid) / RECORD_BYTES * RECORD_BYTES));
+                readFully(channel, bytes, valid);
+                bytes.flip();
+                if (bytes.remaining() < RECORD_BYTES) {
+                    break;
+                }
+                while (bytes.remaining() >= RECORD_BYTES) {
+                    int start = bytes.position();
+                    crc.reset();
+                    crc.update(bytes.array(), start, RECORD_BYTES - 4);
+                    byte op = bytes.get();
+                    int node1 = bytes.getInt();
+                    int node2 = bytes.getInt();
+                    int label = bytes.getInt();
+                    if (bytes.getInt() != (int) crc.getValue()) {
+                        corrupt = true;
+                        break;
+                    }
+                    Integer value = label == NULL_LABEL ? null : label;
+                    if (op == ADD && !graph.hasEdge(node1, node2)) {
+                        graph.add(node1, value, node2);
+                    } else if (op == REMOVE && graph.hasEdge(node1, node2)) {
+                        graph.remove(node1, node2);
+                    } else if (op == SET) {
+                        graph.set(node1, value, node2);
+                    }
+                    valid += RECORD_BYTES;
+                }
+            }
+            if (valid < size) {
+                channel.truncate(valid);
+                channel.force(false);
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Reads from a file position until the buffer is full or the
+     *          file ends.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            int read = channel.read(bytes, position + bytes.position());
+            if (read < 0) {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Loads a snapshot into a new AdjacencyList.
+     */
+    private static AdjacencyList<Integer> load(MappedGraph snapshot) {
+        int n = snapshot.nodeCount();
+        AdjacencyList<Integer> graph = new AdjacencyList<>(n, snapshot.directed());
+        GraphBuilder<Integer> edges = new GraphBuilder<>();
+        for (int u = 0; u < n; ++u) {
+            for (int v : snapshot.outNodes(u)) {
+                if (snapshot.directed() || u <= v) {
+                    edges.add(u, snapshot.label(u, v), v);
+                }
+            }
+        }
+        edges.build(graph);
+        return graph;
+    }
+
+
+    /**
+     * Purpose: Makes a little-endian heap buffer.
+     */
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+
+    /**
+     * Purpose: Makes the default size log buffer.
+     */
+    private static ByteBuffer newBuffer() {
+        return newBuffer(RECORD_BYTES * 256);
+    }
+
+
+    private static String snapshotName(long generation) {
+        return String.format("snapshot-%d.csrg", generation);
+    }
+
+
+    private static String logName(long generation) {
+        return String.format("wal-%d.log", generation);
+    }
+
+}
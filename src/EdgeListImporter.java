@@ -0,0 +1,269 @@
+/*
+ * File: EdgeListImporter.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Reads graphs from edge list text files. Each line holds a
+ *       source node, a destination node and an optional integer label
+ *       ("src dst [label]"), separated by spaces, tabs or commas. Blank
+ *       lines and lines starting with '#' or '%' are skipped. The file is
+ *       split into byte ranges that are parsed in parallel straight from
+ *       memory mapped bytes.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+public class EdgeListImporter {
+
+    // the smallest and largest byte range parsed by one task
+    static final long MIN_CHUNK_BYTES = 1L << 20;
+    static final long MAX_CHUNK_BYTES = 1L << 28;
+
+    // the number of chunks per thread (extra chunks balance the load)
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // singleton
+    private EdgeListImporter() {}
+
+
+    /**
+     * Purpose: Reads an edge list file using all available processors.
+     * @param path The file to read.
+     * @return The edges, in file order.
+     */
+    public static GraphBuilder<Integer> read(Path path) throws IOException {
+        return read(path, Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * Purpose: Reads an edge list file with the given number of threads.
+     * @param path The file to read.
+     * @param parallelism The number of parsing threads.
+     * @return The edges, in file order.
+     */
+    public static GraphBuilder<Integer> read(Path path, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, parallelism);
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            List<GraphBuilder<Integer>> parts;
+            try {
+                parts = pool.submit(() -> IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1]))
+                        .collect(Collectors.toList())).get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while reading " + path, e);
+            } finally {
+                pool.shutdown();
+            }
+            if (parts.size() == 1) {
+                return parts.get(0);
+            }
+            // the parts are copied once, straight into arrays of the
+            // exact size, so build can hand them to the graph as they are
+            int total = 0;
+            for (GraphBuilder<Integer> part : parts) {
+                total += part.size();
+            }
+            GraphBuilder<Integer> edges = new GraphBuilder<>(total);
+            for (GraphBuilder<Integer> part : parts) {
+                edges.addAll(part);
+            }
+            return edges;
+        }
+    }
+
+
+    /**
+     * Purpose: Reads an edge list file into a new AdjacencyList with one
+     *          node per id up to the largest id in the file.
+     * @param path The file to read.
+     * @param directed Directionality of the new graph.
+     * @return The loaded graph.
+     */
+    public static Graph<Integer> load(Path path, boolean directed) throws IOException {
+        GraphBuilder<Integer> edges = read(path);
+        Graph<Integer> g = new AdjacencyList<>(edges.maxNode() + 1, directed);
+        edges.build(g);
+        return g;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Splits a file into byte ranges that each start at the
+     *          beginning of a line.
+     * @return The range boundaries (first is 0, last is the file size).
+     */
+    static long[] chunkBounds(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunk = size / Math.max(1, (long) parallelism * CHUNKS_PER_THREAD);
+        chunk = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, chunk));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = chunk;
+        while (position < size) {
+            // move the boundary past the next newline
+            long next = -1;
+            long at = position;
+            while (next < 0 && at < size) {
+                probe.clear();
+                int read = channel.read(probe, at);
+                for (int i = 0; i < read; ++i) {
+                    if (probe.get(i) == '\n') {
+                        next = at + i + 1;
+                        break;
+                    }
+                }
+                at += Math.max(read, 0);
+            }
+            if (next < 0 || next >= size) {
+                break;
+            }
+            bounds.add(next);
+            position = next + chunk;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+
+    /**
+     * Purpose: Parses the lines in one byte range of the file.
+     */
+    private static GraphBuilder<Integer> parseChunk(FileChannel channel, long start, long end) {
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            return parse(bytes, start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Purpose: Parses edge list lines from a buffer of bytes.
+     * @param bytes The bytes to parse (from position 0 to the limit).
+     * @param offset The file position of the first byte, for messages.
+     * @return The parsed edges.
+     */
+    static GraphBuilder<Integer> parse(ByteBuffer bytes, long offset) throws IOException {
+        int length = bytes.limit();
+        // size the edges by the line count, so they never grow
+        int lines = 1;
+        for (int i = 0; i < length; ++i) {
+            if (bytes.get(i) == '\n') {
+                ++lines;
+            }
+        }
+        GraphBuilder<Integer> edges = new GraphBuilder<>(lines);
+        long[] fields = new long[3];
+        int pos = 0;
+        while (pos < length) {
+            int lineStart = pos;
+            int count = 0;
+            boolean comment = false;
+            while (pos < length) {
+                byte b = bytes.get(pos);
+                if (b == '\n') {
+                    break;
+                }
+                if (b == ' ' || b == '\t' || b == ',' || b == '\r') {
+                    ++pos;
+                    continue;
+                }
+                if (count == 0 && (b == '#' || b == '%')) {
+                    comment = true;
+                }
+                if (comment) {
+                    ++pos;
+                    continue;
+                }
+                // parse one (optionally negative) integer field
+                boolean negative = b == '-';
+                if (negative) {
+                    ++pos;
+                }
+                long value = 0;
+                int digits = 0;
+                while (pos < length) {
+                    int digit = bytes.get(pos) - '0';
+                    if (digit < 0 || digit > 9) {
+                        break;
+                    }
+                    value = value * 10 + digit;
+                    if (value > Integer.MAX_VALUE + 1L) {
+                        throw badLine(offset + lineStart, "number out of range");
+                    }
+                    ++digits;
+                    ++pos;
+                }
+                if (digits == 0 || (pos < length && !isSeparator(bytes.get(pos)))) {
+                    throw badLine(offset + lineStart, "expected an integer");
+                }
+                if (count == 3) {
+                    throw badLine(offset + lineStart, "too many fields");
+                }
+                fields[count++] = negative ? -value : value;
+            }
+            ++pos; // skip the newline
+            if (comment || count == 0) {
+                continue;
+            }
+            if (count < 2 || fields[0] < 0 || fields[1] < 0
+                    || fields[0] > Integer.MAX_VALUE || fields[1] > Integer.MAX_VALUE
+                    || (count == 3 && fields[2] > Integer.MAX_VALUE)) {
+                throw badLine(offset + lineStart, "expected 'src dst [label]'");
+            }
+            if (count == 3) {
+                edges.addInt((int) fields[0], (int) fields[2], (int) fields[1]);
+            } else {
+                edges.add((int) fields[0], null, (int) fields[1]);
+            }
+        }
+        return edges;
+    }
+
+
+    /**
+     * Purpose: Checks for a byte that ends a field.
+     */
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == '\r' || b == '\n';
+    }
+
+
+    /**
+     * Purpose: Builds the exception for a malformed line.
+     */
+    private static IOException badLine(long position, String message) {
+        return new IOException("malformed edge at byte " + position + ": " + message);
+    }
+
+}
@@ -0,0 +1,525 @@
+/*
+ * File: EdgeStream.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Lazy, splittable streams of generated edges that never build a
+ *       graph. Each factory matches the model of a GraphGenerator loader
+ *       (with its own random sequence). Edges are generated a block of
+ *       trials (or node pairs) at a time, and every block has its own
+ *       random generator derived from the seed and the block number, so
+ *       the edges are the same however the stream is split, and memory
+ *       use stays constant however many edges are produced.
+ */
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+
+public class EdgeStream implements Spliterator.OfLong {
+
+    // the number of trials (or node pairs) in one block
+    static final int BLOCK = 1 << 16;
+
+    /**
+     * Receives one generated edge. The index is the position of the edge's
+     * trial or node pair, so indexes increase along the stream and are
+     * unique, but may have gaps.
+     */
+    public interface EdgeConsumer {
+        void accept(long index, int src, int dst);
+    }
+
+    /**
+     * Generates the edges of the trials from to to-1 (all in one block)
+     * using the given random generator.
+     */
+    interface Source {
+        void generate(long from, long to, SplittableRandom random, EdgeConsumer out);
+    }
+
+    // the edge generator and its seed
+    private final Source source;
+    private final long seed;
+
+    // true if every trial produces exactly one edge
+    private final boolean sized;
+
+    // the expected number of edges per trial (for size estimates)
+    private final double edgesPerTrial;
+
+    // the next trial to generate (at a block boundary) and the end
+    private long position;
+    private final long end;
+
+    // the edges of a partly consumed block
+    private long[] bufferIndex = new long[0];
+    private int[] bufferSrc = new int[0];
+    private int[] bufferDst = new int[0];
+    private int bufferSize;
+    private int bufferPos;
+
+
+    //--------------------------------------------------------------------
+    // constructors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Creates a stream over trials 0 to trials-1.
+     */
+    EdgeStream(Source source, long seed, long trials, boolean sized, double edgesPerTrial) {
+        this(source, seed, 0, trials, sized, edgesPerTrial);
+    }
+
+
+    /**
+     * Purpose: Creates a stream over trials position to end-1.
+     */
+    private EdgeStream(Source source, long seed, long position, long end, boolean sized,
+                       double edgesPerTrial) {
+        this.source = source;
+        this.seed = seed;
+        this.position = position;
+        this.end = end;
+        this.sized = sized;
+        this.edgesPerTrial = edgesPerTrial;
+    }
+
+
+    //--------------------------------------------------------------------
+    // generators
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadQuickLadder.
+     * @param n The number of nodes.
+     */
+    public static EdgeStream quickLadder(int n) {
+        // one trial per ladder step u = 0, 2, 4, ..., with up to 5 edges
+        return new EdgeStream((from, to, random, out) -> {
+            for (long step = from; step < to; ++step) {
+                int u = (int) (2 * step);
+                long index = 5 * step;
+                out.accept(index, u, u + 1);
+                if (u - 2 >= 0) {
+                    out.accept(index + 1, u - 2, u);
+                    out.accept(index + 2, u - 1, u + 1);
+                    out.accept(index + 3, u - 2, u + 1);
+                }
+                if (u - 4 >= 0) {
+                    out.accept(index + 4, u - 4, u);
+                }
+            }
+        }, 0, n / 2, false, 5);
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadSparseDisconnected.
+     * @param n The number of nodes.
+     * @param components The number of components.
+     */
+    public static EdgeStream sparseDisconnected(int n, int components) {
+        if (components < 1) {
+            throw new IllegalArgumentException("need at least one component: " + components);
+        }
+        int m = n / components;
+        // one trial per node u, with at most one edge
+        return new EdgeStream((from, to, random, out) -> {
+            for (long index = from; index < to; ++index) {
+                int u = (int) index;
+                int c = m == 0 ? components : u / m;
+                if (c < components - 1) {
+                    out.accept(index, u, u < c * m + m - 1 ? u + 1 : c * m);
+                } else if (u >= components * m && u < n - 1) {
+                    out.accept(index, u, u + 1);
+                }
+            }
+        }, 0, n, false, 1);
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadSparse.
+     * @param n The number of nodes.
+     * @param seed The random number seed.
+     */
+    public static EdgeStream sparse(int n, long seed) {
+        long trials = n == 0 ? 0 : n + new SplittableRandom(seed).nextInt(n);
+        return new EdgeStream((from, to, random, out) -> {
+            for (long index = from; index < to; ++index) {
+                int v1 = random.nextInt(n);
+                int v2 = random.nextInt(n);
+                out.accept(index, v1, v2);
+            }
+        }, seed, trials, true, 1);
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadSparseAcyclic.
+     * @param n The number of nodes.
+     * @param directed True for forward edges, false for a bipartite graph.
+     * @param seed The random number seed.
+     */
+    public static EdgeStream sparseAcyclic(int n, boolean directed, long seed) {
+        if (directed) {
+            long trials = n == 0 ? 0 : n + new SplittableRandom(seed).nextInt(n);
+            return new EdgeStream((from, to, random, out) -> {
+                for (long index = from; index < to; ++index) {
+                    int v1 = random.nextInt(n);
+                    int v2 = random.nextInt(n);
+                    out.accept(index, Math.min(v1, v2), Math.max(v1, v2));
+                }
+            }, seed, trials, true, 1);
+        }
+        int m = n / 2;
+        return new EdgeStream((from, to, random, out) -> {
+            for (long index = from; index < to; ++index) {
+                int u = random.nextInt(m);
+                int v = m + random.nextInt(n - m);
+                out.accept(index, u, v);
+            }
+        }, seed, m == 0 ? 0 : 2L * n, true, 1);
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadDense (every node
+     *          pair, including self loops, with probability .8 <= p <= 1).
+     * @param n The number of nodes.
+     * @param seed The random number seed.
+     */
+    public static EdgeStream dense(int n, long seed) {
+        double p = 1 - (new SplittableRandom(seed).nextDouble() / 5);
+        return pairs((long) n * n, p, seed, (index, out) ->
+                out.accept(index, (int) (index / n), (int) (index % n)));
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadDenseAcyclic.
+     * @param n The number of nodes.
+     * @param directed True for forward edges, false for a bipartite graph.
+     * @param seed The random number seed.
+     */
+    public static EdgeStream denseAcyclic(int n, boolean directed, long seed) {
+        double p = 1 - (new SplittableRandom(seed).nextDouble() / 5);
+        if (directed) {
+            return triangle(n, p, seed);
+        }
+        // nodes 0 to m-1 joined to nodes m+1 to n-1, as the loader does
+        int m = n / 2;
+        int width = Math.max(0, n - m - 1);
+        return pairs((long) m * width, p, seed, (index, out) ->
+                out.accept(index, (int) (index / width), m + 1 + (int) (index % width)));
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadErdosRenyi.
+     * @param n The number of nodes.
+     * @param directed True for ordered pairs, false for unordered pairs.
+     * @param p The edge probability.
+     * @param seed The random number seed.
+     */
+    public static EdgeStream erdosRenyi(int n, boolean directed, double p, long seed) {
+        if (!directed) {
+            return triangle(n, p, seed);
+        }
+        return pairs((long) n * (n - 1), p, seed, (index, out) -> {
+            int i = (int) (index / (n - 1));
+            int c = (int) (index % (n - 1));
+            out.accept(index, i, c < i ? c : c + 1);
+        });
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadErdosRenyiAcyclic.
+     * @param n The number of nodes.
+     * @param directed True for forward edges, false for a bipartite graph.
+     * @param p The edge probability.
+     * @param seed The random number seed.
+     */
+    public static EdgeStream erdosRenyiAcyclic(int n, boolean directed, double p, long seed) {
+        if (directed) {
+            return triangle(n, p, seed);
+        }
+        int m = n / 2;
+        return pairs((long) m * (n - m), p, seed, (index, out) ->
+                out.accept(index, (int) (index / (n - m)), m + (int) (index % (n - m))));
+    }
+
+
+    /**
+     * Purpose: Streams the edges of GraphGenerator.loadRmat. Instead of
+     *          a stored shuffle of the node ids, the ids are scrambled by
+     *          an invertible hash so memory use stays constant. Self
+     *          loops are skipped, as in loadRmat, so the edge indexes
+     *          have gaps and the stream isn't sized.
+     * @param scale The log2 of the number of nodes.
+     * @param edgeFactor The number of edges per node.
+     * @param seed The random number seed.
+     */
+    public static EdgeStream rmat(int scale, int edgeFactor, long seed) {
+        if (scale < 0 || scale > 30 || edgeFactor < 0) {
+            throw new IllegalArgumentException("bad R-MAT size: scale " + scale
+                    + ", edge factor " + edgeFactor);
+        }
+        int mask = (1 << scale) - 1;
+        SplittableRandom header = new SplittableRandom(seed);
+        int multiplier = header.nextInt() | 1;
+        int offset = header.nextInt();
+        int shift = (scale + 1) / 2;
+        return new EdgeStream((from, to, random, out) -> {
+            for (long index = from; index < to; ++index) {
+                int src = 0;
+                int dst = 0;
+                for (int bit = 1 << scale >>> 1; bit != 0; bit >>>= 1) {
+                    double r = random.nextDouble();
+                    if (r >= 0.57 + 0.19 + 0.19) {
+                        src |= bit;
+                        dst |= bit;
+                    } else if (r >= 0.57 + 0.19) {
+                        src |= bit;
+                    } else if (r >= 0.57) {
+                        dst |= bit;
+                    }
+                }
+                if (src != dst) {
+                    out.accept(index, scramble(src, multiplier, offset, shift, mask),
+                            scramble(dst, multiplier, offset, shift, mask));
+                }
+            }
+        }, seed, (long) edgeFactor << scale, false, 1 - Math.pow(0.57 + 0.05, scale));
+    }
+
+
+    //--------------------------------------------------------------------
+    // stream methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Packs an edge into one long (src in the high 32 bits).
+     */
+    public static long pack(int src, int dst) {
+        return ((long) src << 32) | (dst & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * Purpose: Unpacks the source node of a packed edge.
+     */
+    public static int src(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+
+    /**
+     * Purpose: Unpacks the destination node of a packed edge.
+     */
+    public static int dst(long edge) {
+        return (int) edge;
+    }
+
+
+    /**
+     * Purpose: Wraps the remaining edges in a LongStream of packed edges.
+     * @param parallel True for a parallel stream.
+     * @return The stream.
+     */
+    public LongStream asLongStream(boolean parallel) {
+        return StreamSupport.longStream(this, parallel);
+    }
+
+
+    /**
+     * Purpose: Passes the next edge to the consumer.
+     * @param action The edge consumer.
+     * @return False if there are no edges left.
+     */
+    public boolean tryAdvance(EdgeConsumer action) {
+        while (bufferPos == bufferSize) {
+            if (position >= end) {
+                return false;
+            }
+            fillBuffer();
+        }
+        action.accept(bufferIndex[bufferPos], bufferSrc[bufferPos], bufferDst[bufferPos]);
+        ++bufferPos;
+        return true;
+    }
+
+
+    /**
+     * Purpose: Passes all the remaining edges to the consumer, in order.
+     * @param action The edge consumer.
+     */
+    public void forEachRemaining(EdgeConsumer action) {
+        while (bufferPos < bufferSize) {
+            action.accept(bufferIndex[bufferPos], bufferSrc[bufferPos], bufferDst[bufferPos]);
+            ++bufferPos;
+        }
+        while (position < end) {
+            long to = Math.min(end, position + BLOCK);
+            source.generate(position, to, random(position / BLOCK), action);
+            position = to;
+        }
+    }
+
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        return tryAdvance((index, src, dst) -> action.accept(pack(src, dst)));
+    }
+
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        forEachRemaining((index, src, dst) -> action.accept(pack(src, dst)));
+    }
+
+
+    @Override
+    public EdgeStream trySplit() {
+        // split the blocks not yet started in half
+        long blocks = (end - position + BLOCK - 1) / BLOCK;
+        if (blocks < 2) {
+            return null;
+        }
+        long mid = position + (blocks / 2) * BLOCK;
+        EdgeStream prefix = new EdgeStream(source, seed, position, mid, sized, edgesPerTrial);
+        // this stream keeps any buffered edges, which come first
+        prefix.bufferIndex = bufferIndex;
+        prefix.bufferSrc = bufferSrc;
+        prefix.bufferDst = bufferDst;
+        prefix.bufferSize = bufferSize;
+        prefix.bufferPos = bufferPos;
+        bufferIndex = new long[0];
+        bufferSrc = new int[0];
+        bufferDst = new int[0];
+        bufferSize = 0;
+        bufferPos = 0;
+        position = mid;
+        return prefix;
+    }
+
+
+    @Override
+    public long estimateSize() {
+        long buffered = bufferSize - bufferPos;
+        if (sized) {
+            return end - position + buffered;
+        }
+        return (long) Math.ceil((end - position) * edgesPerTrial) + buffered;
+    }
+
+
+    @Override
+    public int characteristics() {
+        int characteristics = ORDERED | NONNULL | IMMUTABLE;
+        return sized ? characteristics | SIZED | SUBSIZED : characteristics;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Maps a pair index to an edge.
+     */
+    private interface PairMap {
+        void map(long index, EdgeConsumer out);
+    }
+
+
+    /**
+     * Purpose: Streams each of the given number of node pairs with
+     *          probability p, using geometric skip sampling in each block.
+     */
+    private static EdgeStream pairs(long total, double p, long seed, PairMap map) {
+        if (!(p >= 0 && p <= 1)) {
+            throw new IllegalArgumentException("edge probability must be between 0 and 1: " + p);
+        }
+        return new EdgeStream((from, to, random, out) ->
+                GraphGenerator.sampleIndexes(from, to, p, random::nextDouble,
+                        index -> map.map(index, out)), seed, Math.max(0, total), false, p);
+    }
+
+
+    /**
+     * Purpose: Streams each pair i < j of nodes 0 to n-1 with probability
+     *          p (pair index j*(j-1)/2 + i).
+     */
+    private static EdgeStream triangle(int n, double p, long seed) {
+        return pairs((long) n * (n - 1) / 2, p, seed, (index, out) -> {
+            // solve j*(j-1)/2 <= index for the largest j
+            long j = (long) ((1 + Math.sqrt(1 + 8.0 * index)) / 2);
+            while (j * (j - 1) / 2 > index) {
+                --j;
+            }
+            while ((j + 1) * j / 2 <= index) {
+                ++j;
+            }
+            out.accept(index, (int) (index - j * (j - 1) / 2), (int) j);
+        });
+    }
+
+
+    /**
+     * Purpose: Generates the next block into the buffer.
+     */
+    private void fillBuffer() {
+        bufferSize = 0;
+        bufferPos = 0;
+        long to = Math.min(end, position + BLOCK);
+        source.generate(position, to, random(position / BLOCK), (index, src, dst) -> {
+            if (bufferSize == bufferSrc.length) {
+                int capacity = Math.max(1024, 2 * bufferSize);
+                bufferIndex = Arrays.copyOf(bufferIndex, capacity);
+                bufferSrc = Arrays.copyOf(bufferSrc, capacity);
+                bufferDst = Arrays.copyOf(bufferDst, capacity);
+            }
+            bufferIndex[bufferSize] = index;
+            bufferSrc[bufferSize] = src;
+            bufferDst[bufferSize] = dst;
+            ++bufferSize;
+        });
+        position = to;
+    }
+
+
+    /**
+     * Purpose: Creates the random generator of one block.
+     */
+    private SplittableRandom random(long block) {
+        return new SplittableRandom(mix(seed ^ mix(block + 1)));
+    }
+
+
+    /**
+     * Purpose: Scrambles the bits of a 64 bit value (MurmurHash3 finalizer).
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+
+    /**
+     * Purpose: Maps a node id to a scrambled id with the same number of
+     *          bits (a bijection on 0 to mask).
+     */
+    private static int scramble(int x, int multiplier, int offset, int shift, int mask) {
+        x = (x * multiplier + offset) & mask;
+        x ^= x >>> shift;
+        return (x * multiplier) & mask;
+    }
+
+}
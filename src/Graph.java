@@ -21,6 +21,15 @@ public interface Graph<T> {
   // exist.
   public void add(int node1, T label, int node2);
 
+  // Adds a batch of labeled edges, where edge i goes from src[i] to
+  // dst[i] with label labels[i] (labels may be null if every edge is
+  // unlabeled). The result is the same as calling add on each edge in
+  // order, but implementations may install the whole batch at once.
+  public default void addAll(int[] src, T[] labels, int[] dst) {
+    for (int i = 0; i < src.length; ++i)
+      add(src[i], labels == null ? null : labels[i], dst[i]);
+  }
+
   // Removes an edge from the graph if it exists
   public void remove(int node1, int node2);
 
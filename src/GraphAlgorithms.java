@@ -7,6 +7,8 @@
  */
 
 import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
 
 public class GraphAlgorithms {
@@ -29,16 +31,65 @@ public class GraphAlgorithms {
      *         or null if src is an invalid index
      */
     public static Map<Integer,Integer> bfs(Graph g, int src) {
+        return bfs(g, src, null, null);
+    }
+
+
+    /**
+     * Purpose: Performs a breadth-first traversal, recording nodes visited,
+     *          edges examined and the frontier size of each level.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param stats the counters to add to, or null
+     * @return the search tree resulting from the breadth-first search
+     */
+    public static Map<Integer,Integer> bfs(Graph<?> g, int src, TraversalStats stats) {
+        return bfs(g, src, stats, null);
+    }
+
+
+    /**
+     * Purpose: Performs a breadth-first traversal that stops when the
+     *          context is cancelled or its deadline passes.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return the search tree resulting from the breadth-first search
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static Map<Integer,Integer> bfs(Graph<?> g, int src, TraversalStats stats, GraphTaskContext context) {
+        return run("bfs", g.nodeCount(), stats, context, () -> breadthFirst(g, src, stats, context));
+    }
+
+
+    /**
+     * Purpose: The queue based breadth first search used by bfs.
+     */
+    private static Map<Integer,Integer> breadthFirst(Graph<?> g, int src, TraversalStats stats,
+                                                     GraphTaskContext context) {
         List<Integer> toVisit = new ArrayList<>(g.nodeCount());
+        // true once toVisit has been filled (later fills reuse it)
+        boolean refill = false;
         queue = new LinkedList<>();
         discoveredNodes = new HashMap<>();
         int uVal;
+        // the nodes left in the current level and found for the next one
+        int levelLeft = 1;
+        int nextLevel = 0;
+        if (stats != null) {
+            stats.level(1);
+        }
         discoveredNodes.put(src, -1);
         queue.add(src);
         while (!queue.isEmpty()) {
             // get the next node to check and clear the list of adjacent nodes
             uVal = queue.poll();
             toVisit.clear();
+            if (stats != null && refill) {
+                stats.reuse();
+            }
+            refill = true;
             // Get all the nodes adjacent to the uVal
             if (g.directed()) {
                 toVisit.addAll(g.outNodes(uVal));
@@ -51,12 +102,235 @@ public class GraphAlgorithms {
                 if (!discoveredNodes.containsKey(vertex)) {
                     queue.add(vertex);
                     discoveredNodes.put(vertex, uVal);
+                    ++nextLevel;
+                }
+            }
+            if (stats != null) {
+                stats.visit(toVisit.size());
+                if (--levelLeft == 0 && nextLevel > 0) {
+                    stats.level(nextLevel);
+                    levelLeft = nextLevel;
+                    nextLevel = 0;
                 }
             }
+            if (context != null) {
+                context.visit();
+            }
         }
         return discoveredNodes;
     }
 
+    /**
+     * Decides whether a search may follow the edge from node1 to node2
+     * (for example, by its label).
+     */
+    public interface EdgePredicate<T> {
+        boolean test(int node1, T label, int node2);
+    }
+
+
+    /**
+     * Purpose: Performs a breadth-first traversal that only goes maxDepth
+     *          edges from the source (the k-hop neighborhood).
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param maxDepth the most edges from src to go, or -1 for no limit
+     * @return the search tree of the nodes within maxDepth of src
+     */
+    public static Map<Integer,Integer> bfs(Graph<?> g, int src, int maxDepth) {
+        return bfs(g, src, maxDepth, null, null, null, null);
+    }
+
+
+    /**
+     * Purpose: Performs a breadth-first traversal that stops as soon as
+     *          every target node is found, only going maxDepth edges from
+     *          the source and only following the edges the filter allows.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param maxDepth the most edges from src to go, or -1 for no limit
+     * @param targets the nodes to find, or null to search everything
+     * @param filter the edges that may be followed, or null for all
+     * @return the search tree found before stopping (the path to each
+     *         target found is a shortest path)
+     */
+    public static <T> Map<Integer,Integer> bfs(Graph<T> g, int src, int maxDepth, Set<Integer> targets,
+                                               EdgePredicate<? super T> filter) {
+        return bfs(g, src, maxDepth, targets, filter, null, null);
+    }
+
+
+    /**
+     * Purpose: Performs a bounded breadth-first traversal, recording nodes
+     *          visited, edges examined and the frontier size of each level.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param maxDepth the most edges from src to go, or -1 for no limit
+     * @param targets the nodes to find, or null to search everything
+     * @param filter the edges that may be followed, or null for all
+     * @param stats the counters to add to, or null
+     * @return the search tree found before stopping
+     */
+    public static <T> Map<Integer,Integer> bfs(Graph<T> g, int src, int maxDepth, Set<Integer> targets,
+                                               EdgePredicate<? super T> filter, TraversalStats stats) {
+        return bfs(g, src, maxDepth, targets, filter, stats, null);
+    }
+
+
+    /**
+     * Purpose: Performs a bounded breadth-first traversal that also stops
+     *          when the context is cancelled or its deadline passes.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param maxDepth the most edges from src to go, or -1 for no limit
+     * @param targets the nodes to find, or null to search everything
+     * @param filter the edges that may be followed, or null for all
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return the search tree found before stopping
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static <T> Map<Integer,Integer> bfs(Graph<T> g, int src, int maxDepth, Set<Integer> targets,
+                                               EdgePredicate<? super T> filter, TraversalStats stats,
+                                               GraphTaskContext context) {
+        Set<Integer> remaining = targets == null ? null : new HashSet<>(targets);
+        Map<Integer,Integer> tree = new HashMap<>();
+        run("bfs", g.nodeCount(), stats, context,
+                () -> boundedBreadthFirst(g, src, maxDepth, remaining, null, filter, tree, stats, context));
+        return tree;
+    }
+
+
+    /**
+     * Purpose: Finds the path to the node nearest the source that matches,
+     *          stopping the breadth-first search as soon as it is found.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from (checked first)
+     * @param maxDepth the most edges from src to go, or -1 for no limit
+     * @param match the condition on the node to find
+     * @return the shortest path as a list from src to the matching node,
+     *         or null if no node within maxDepth matches
+     */
+    public static List<Integer> bfsFind(Graph<?> g, int src, int maxDepth, IntPredicate match) {
+        return bfsFind(g, src, maxDepth, match, null, null);
+    }
+
+
+    /**
+     * Purpose: Finds the path to the nearest matching node, recording the
+     *          counters of its search.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from (checked first)
+     * @param maxDepth the most edges from src to go, or -1 for no limit
+     * @param match the condition on the node to find
+     * @param stats the counters to add to, or null
+     * @return the shortest path to the matching node, or null
+     */
+    public static List<Integer> bfsFind(Graph<?> g, int src, int maxDepth, IntPredicate match,
+                                        TraversalStats stats) {
+        return bfsFind(g, src, maxDepth, match, stats, null);
+    }
+
+
+    /**
+     * Purpose: Finds the path to the nearest matching node, stopping when
+     *          the context is cancelled or its deadline passes.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from (checked first)
+     * @param maxDepth the most edges from src to go, or -1 for no limit
+     * @param match the condition on the node to find
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return the shortest path to the matching node, or null
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static List<Integer> bfsFind(Graph<?> g, int src, int maxDepth, IntPredicate match,
+                                        TraversalStats stats, GraphTaskContext context) {
+        Map<Integer,Integer> tree = new HashMap<>();
+        Integer found = run("bfsFind", g.nodeCount(), stats, context,
+                () -> boundedBreadthFirst(g, src, maxDepth, null, match, null, tree, stats, context));
+        if (found == null) {
+            return null;
+        }
+        // walk back up the search tree to the source
+        LinkedList<Integer> path = new LinkedList<>();
+        for (int node = found; node != -1; node = tree.get(node))
+            path.addFirst(node);
+        return path;
+    }
+
+
+    /**
+     * Purpose: The breadth first search used by the bounded variants. It
+     *          goes level by level, so it can stop after maxDepth levels,
+     *          and it stops the moment its goal is met: the last target
+     *          found, or a node matching the condition.
+     * @return the node matching the condition, or null if none was found
+     */
+    private static <T> Integer boundedBreadthFirst(Graph<T> g, int src, int maxDepth, Set<Integer> targets,
+                                                   IntPredicate match, EdgePredicate<? super T> filter,
+                                                   Map<Integer,Integer> tree, TraversalStats stats,
+                                                   GraphTaskContext context) {
+        Deque<Integer> frontier = new ArrayDeque<>();
+        List<Integer> toVisit = new ArrayList<>();
+        tree.put(src, -1);
+        if (match != null && match.test(src)) {
+            return src;
+        }
+        if (targets != null && targets.remove(src) && targets.isEmpty()) {
+            return null;
+        }
+        frontier.add(src);
+        if (stats != null) {
+            stats.level(1);
+        }
+        // the nodes left in the current level, found for the next one,
+        // and the current level's distance from src
+        int levelLeft = 1;
+        int nextLevel = 0;
+        int depth = 0;
+        while (!frontier.isEmpty() && depth != maxDepth) {
+            int uVal = frontier.poll();
+            toVisit.clear();
+            if (g.directed()) {
+                toVisit.addAll(g.outNodes(uVal));
+            } else {
+                toVisit.addAll(g.adjacent(uVal));
+            }
+            if (stats != null) {
+                stats.visit(toVisit.size());
+            }
+            if (context != null) {
+                context.visit();
+            }
+            for (int vertex: toVisit) {
+                if (tree.containsKey(vertex)
+                        || (filter != null && !filter.test(uVal, g.label(uVal, vertex), vertex))) {
+                    continue;
+                }
+                tree.put(vertex, uVal);
+                if (match != null && match.test(vertex)) {
+                    return vertex;
+                }
+                if (targets != null && targets.remove(vertex) && targets.isEmpty()) {
+                    return null;
+                }
+                frontier.add(vertex);
+                ++nextLevel;
+            }
+            if (--levelLeft == 0) {
+                if (stats != null && nextLevel > 0) {
+                    stats.level(nextLevel);
+                }
+                levelLeft = nextLevel;
+                nextLevel = 0;
+                ++depth;
+            }
+        }
+        return null;
+    }
+
+
 
     /**
      * Purpose: Finds the shortest (unweighted) path from src to dst using
@@ -68,10 +342,51 @@ public class GraphAlgorithms {
      *         there is no path, src is invalid, or dst is invalid.
      */
     public static List<Integer> shortestPath(Graph g, int src, int dst) {
+        return shortestPath(g, src, dst, null, null);
+    }
+
+
+    /**
+     * Purpose: Finds the shortest (unweighted) path from src to dst,
+     *          recording the counters of its bfs.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param dst the destination node of the path
+     * @param stats the counters to add to, or null
+     * @return the shortest path as a list from src to dst or null
+     */
+    public static List<Integer> shortestPath(Graph<?> g, int src, int dst, TraversalStats stats) {
+        return shortestPath(g, src, dst, stats, null);
+    }
+
+
+    /**
+     * Purpose: Finds the shortest (unweighted) path from src to dst,
+     *          stopping when the context is cancelled or its deadline passes.
+     * @param g the directed or undirected graph to search
+     * @param src the source node to search from
+     * @param dst the destination node of the path
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return the shortest path as a list from src to dst or null
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static List<Integer> shortestPath(Graph<?> g, int src, int dst, TraversalStats stats,
+                                             GraphTaskContext context) {
+        return run("shortestPath", g.nodeCount(), stats, context,
+                () -> shortestPathFrom(g, src, dst, stats, context));
+    }
+
+
+    /**
+     * Purpose: Finds the shortest path by walking back up the bfs tree.
+     */
+    private static List<Integer> shortestPathFrom(Graph<?> g, int src, int dst, TraversalStats stats,
+                                                  GraphTaskContext context) {
         List<Integer> shortestPath = new ArrayList<>(g.nodeCount());
         stack = new Stack<>();
         // add the list of discovered nodes after performing a Breadth first search.
-        discoveredNodes = bfs(g, src);
+        discoveredNodes = bfs(g, src, stats, context);
         int parent;
         int child = dst;
         // traverse from the destination backwards to the src until the src is either found or no more nodes exist.
@@ -107,9 +422,46 @@ public class GraphAlgorithms {
      * @return the node component map (node to component number)
      */
     public static Map<Integer,Integer> connectedComponents(Graph g) {
+        return connectedComponents(g, null, null);
+    }
+
+
+    /**
+     * Purpose: Finds the connected components, recording nodes visited
+     *          and edges examined.
+     * @param g the given graph
+     * @param stats the counters to add to, or null
+     * @return the node component map (node to component number)
+     */
+    public static Map<Integer,Integer> connectedComponents(Graph<?> g, TraversalStats stats) {
+        return connectedComponents(g, stats, null);
+    }
+
+
+    /**
+     * Purpose: Finds the connected components, stopping when the context
+     *          is cancelled or its deadline passes.
+     * @param g the given graph
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return the node component map (node to component number)
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static Map<Integer,Integer> connectedComponents(Graph<?> g, TraversalStats stats,
+                                                           GraphTaskContext context) {
+        return run("connectedComponents", g.nodeCount(), stats, context,
+                () -> components(g, stats, context));
+    }
+
+
+    /**
+     * Purpose: Labels each node with the component search it was found by.
+     */
+    private static Map<Integer,Integer> components(Graph<?> g, TraversalStats stats, GraphTaskContext context) {
         discoveredNodes = new HashMap<>();
         boolean[] visited = new boolean[g.nodeCount()];
         List<Integer> toVisit = new ArrayList<>(g.nodeCount());
+        boolean refill = false;
         queue = new LinkedList<>();
         discoveredNodes = new HashMap<>();
         int uVal;
@@ -128,8 +480,18 @@ public class GraphAlgorithms {
                     // get the next node to check and clear the list of adjacent nodes
                     uVal = queue.poll();
                     toVisit.clear();
+                    if (stats != null && refill) {
+                        stats.reuse();
+                    }
+                    refill = true;
                     // Get all the nodes adjacent to the uVal
                     toVisit.addAll(g.adjacent(uVal));
+                    if (stats != null) {
+                        stats.visit(toVisit.size());
+                    }
+                    if (context != null) {
+                        context.visit();
+                    }
                     for (int node: toVisit) {
                         // check the list of nodes that can be visited to see if they have already been discovered.
                         // if not discovered and the edge exists, add it to the queue of possible nodes to be checked.
@@ -196,7 +558,45 @@ public class GraphAlgorithms {
      * @return A search tree (node to parent node mapping)
      */
     public static Map<Integer,Integer> dfs(Graph g, int src) {
+        return dfs(g, src, null, null);
+    }
+
+
+    /**
+     * Computes the depth first search of the given graph, recording nodes
+     * visited, edges examined and the largest stack size.
+     * @param g the graph, either directed or undirected
+     * @param src the starting node to search from
+     * @param stats the counters to add to, or null
+     * @return A search tree (node to parent node mapping)
+     */
+    public static Map<Integer,Integer> dfs(Graph<?> g, int src, TraversalStats stats) {
+        return dfs(g, src, stats, null);
+    }
+
+
+    /**
+     * Computes the depth first search of the given graph, stopping when
+     * the context is cancelled or its deadline passes.
+     * @param g the graph, either directed or undirected
+     * @param src the starting node to search from
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return A search tree (node to parent node mapping)
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static Map<Integer,Integer> dfs(Graph<?> g, int src, TraversalStats stats, GraphTaskContext context) {
+        return run("dfs", g.nodeCount(), stats, context, () -> depthFirst(g, src, stats, context));
+    }
+
+
+    /**
+     * Purpose: The stack based depth first search used by dfs.
+     */
+    private static Map<Integer,Integer> depthFirst(Graph<?> g, int src, TraversalStats stats,
+                                                   GraphTaskContext context) {
         List<Integer> toVisit = new ArrayList<>(g.nodeCount());
+        boolean refill = false;
         stack = new Stack<>();
         discoveredNodes = new HashMap<>();
         int uVal;
@@ -208,6 +608,10 @@ public class GraphAlgorithms {
             // get the next node to check and clear the list of adjacent nodes
             uVal = stack.pop();
             toVisit.clear();
+            if (stats != null && refill) {
+                stats.reuse();
+            }
+            refill = true;
             // Get all the nodes adjacent to the uVal
             if (g.directed()) {
                 toVisit.addAll(g.outNodes(uVal));
@@ -222,6 +626,13 @@ public class GraphAlgorithms {
                     discoveredNodes.put(vertex, uVal);
                 }
             }
+            if (stats != null) {
+                stats.visit(toVisit.size());
+                stats.depth(stack.size());
+            }
+            if (context != null) {
+                context.visit();
+            }
         }
         return discoveredNodes;
     }
@@ -232,6 +643,40 @@ public class GraphAlgorithms {
      * @return true if the graph is acyclic, false if it contains cycles
      */
     public static boolean acyclic(Graph g) {
+        return acyclic(g, null, null);
+    }
+
+
+    /**
+     * Checks if a graph contains cycles, recording nodes visited, edges
+     * examined and the largest recursion depth.
+     * @param g the graph, either directed or undirected
+     * @param stats the counters to add to, or null
+     * @return true if the graph is acyclic, false if it contains cycles
+     */
+    public static boolean acyclic(Graph<?> g, TraversalStats stats) {
+        return acyclic(g, stats, null);
+    }
+
+
+    /**
+     * Checks if a graph contains cycles, stopping when the context is
+     * cancelled or its deadline passes.
+     * @param g the graph, either directed or undirected
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return true if the graph is acyclic, false if it contains cycles
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static boolean acyclic(Graph<?> g, TraversalStats stats, GraphTaskContext context) {
+        return run("acyclic", g.nodeCount(), stats, context, () -> noCycles(g, stats, context));
+    }
+
+
+    /**
+     * Purpose: Runs the cycle search from every unvisited node.
+     */
+    private static boolean noCycles(Graph<?> g, TraversalStats stats, GraphTaskContext context) {
         // TODO: still not passing all original tests, but the results appear correct.
         Set<Integer> white = new HashSet<>(g.nodeCount());
         Set<Integer> grey = new HashSet<>(g.nodeCount());
@@ -246,7 +691,7 @@ public class GraphAlgorithms {
         while (!white.isEmpty()) {
             uVal = white.iterator().next();
             // use a recursive helper method to check for any cycles in the graph.
-            if (hasCycle(g, uVal, white, grey, black)) {
+            if (hasCycle(g, uVal, white, grey, black, stats, context, 1)) {
                 return false;
             }
         }
@@ -261,9 +706,13 @@ public class GraphAlgorithms {
      * @param white set of nodes that have not been used at all yet.
      * @param grey set of nodes currently under one parent. all nodes in a cluster.
      * @param black set of nodes that have had all their children visited.
+     * @param stats the counters to add to, or null.
+     * @param context the cancellation, deadline and progress, or null.
+     * @param depth the recursion depth of this call.
      * @return boolean of if the graph contains a cycle.
      */
-    private static boolean hasCycle(Graph g, int uVal, Set<Integer> white, Set<Integer> grey, Set<Integer> black) {
+    private static boolean hasCycle(Graph g, int uVal, Set<Integer> white, Set<Integer> grey, Set<Integer> black,
+                                    TraversalStats stats, GraphTaskContext context, int depth) {
         List<Integer> toVisit = new ArrayList<>(g.nodeCount());
         // move node from white to grey
         white.remove(uVal);
@@ -274,6 +723,13 @@ public class GraphAlgorithms {
         } else {
             toVisit.addAll(g.adjacent(uVal));
         }
+        if (stats != null) {
+            stats.visit(toVisit.size());
+            stats.depth(depth);
+        }
+        if (context != null) {
+            context.visit();
+        }
         // check all the child nodes of uVal.
         for (int vertex: toVisit) {
             // check if vertex has had all its children visited.
@@ -285,7 +741,7 @@ public class GraphAlgorithms {
                 return true;
             }
             // recursively check the next vertex and its children.
-            if (hasCycle(g, vertex, white, grey, black)) {
+            if (hasCycle(g, vertex, white, grey, black, stats, context, depth + 1)) {
                 return true;
             }
         }
@@ -303,6 +759,40 @@ public class GraphAlgorithms {
      * mapping)
      */
     public static Map<Integer,Integer> topologicalSort(Graph g) {
+        return topologicalSort(g, null, null);
+    }
+
+
+    /**
+     * Computes a topological sort, recording nodes visited, edges examined
+     * and the largest recursion depth.
+     * @param g a directed, acyclic graph
+     * @param stats the counters to add to, or null
+     * @return the position of each node (position to node mapping)
+     */
+    public static Map<Integer,Integer> topologicalSort(Graph<?> g, TraversalStats stats) {
+        return topologicalSort(g, stats, null);
+    }
+
+
+    /**
+     * Computes a topological sort, stopping when the context is cancelled
+     * or its deadline passes.
+     * @param g a directed, acyclic graph
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @return the position of each node (position to node mapping)
+     * @throws GraphTaskCancelledException if the context stopped the sort
+     */
+    public static Map<Integer,Integer> topologicalSort(Graph<?> g, TraversalStats stats, GraphTaskContext context) {
+        return run("topologicalSort", g.nodeCount(), stats, context, () -> topologicalOrder(g, stats, context));
+    }
+
+
+    /**
+     * Purpose: Orders the nodes by the finish order of a recursive search.
+     */
+    private static Map<Integer,Integer> topologicalOrder(Graph<?> g, TraversalStats stats, GraphTaskContext context) {
         Deque<Integer> stack = new ArrayDeque<>(g.nodeCount());
         Map<Integer, Integer> sortedNodes = new HashMap<>(g.nodeCount());
         Set<Integer> discoveredNodes = new HashSet<>(g.nodeCount());
@@ -312,7 +802,7 @@ public class GraphAlgorithms {
             if (discoveredNodes.contains(vertex)) {
                 continue;
             }
-            topologicalSortHelper(g, vertex, stack, discoveredNodes);
+            topologicalSortHelper(g, vertex, stack, discoveredNodes, stats, context, 1);
         }
         // match up the node index with the spots that they would be ordered into.
         int i = 0;
@@ -332,9 +822,13 @@ public class GraphAlgorithms {
      * @param vertex the current node that will have its children checked.
      * @param stack the stack of ordered nodes.
      * @param discoveredNodes the nodes that have been visited already.
+     * @param stats the counters to add to, or null.
+     * @param context the cancellation, deadline and progress, or null.
+     * @param depth the recursion depth of this call.
      */
     private static void topologicalSortHelper(Graph g, int vertex, Deque<Integer> stack,
-                                              Set<Integer> discoveredNodes) {
+                                              Set<Integer> discoveredNodes, TraversalStats stats,
+                                              GraphTaskContext context, int depth) {
         List<Integer> toVisit = new ArrayList<>(g.nodeCount());
         // load a list of the adjacent nodes based on if the graph is directed
         if (g.directed()) {
@@ -343,12 +837,19 @@ public class GraphAlgorithms {
             toVisit.addAll(g.adjacent(vertex));
         }
         discoveredNodes.add(vertex);
+        if (stats != null) {
+            stats.visit(toVisit.size());
+            stats.depth(depth);
+        }
+        if (context != null) {
+            context.visit();
+        }
         // recursively go through all the child nodes and check if they have already been visited.
         for (int child: toVisit) {
             if (discoveredNodes.contains(child)) {
                 continue;
             }
-            topologicalSortHelper(g, child, stack, discoveredNodes);
+            topologicalSortHelper(g, child, stack, discoveredNodes, stats, context, depth + 1);
         }
         // load the node into the stack after all its children have been visited.
         stack.offerFirst(vertex);
@@ -366,16 +867,59 @@ public class GraphAlgorithms {
      * @param g a directed graph
      */
     public static void transitiveClosure(Graph g) {
+        transitiveClosure(g, null, null);
+    }
+
+
+    /**
+     * Computes the transitive closure, recording the counters of every
+     * dfs it runs and the number of edges it adds.
+     * @param g a directed graph
+     * @param stats the counters to add to, or null
+     */
+    public static void transitiveClosure(Graph<?> g, TraversalStats stats) {
+        transitiveClosure(g, stats, null);
+    }
+
+
+    /**
+     * Computes the transitive closure, stopping when the context is
+     * cancelled or its deadline passes. Progress is the share of nodes
+     * whose edges have been closed; a stopped closure leaves the edges
+     * added so far.
+     * @param g a directed graph
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @throws GraphTaskCancelledException if the context stopped the closure
+     */
+    public static void transitiveClosure(Graph<?> g, TraversalStats stats, GraphTaskContext context) {
+        run("transitiveClosure", g.nodeCount(), stats, context, () -> {
+            closeEdges(g, stats, context);
+            return null;
+        });
+    }
+
+
+    /**
+     * Purpose: Adds an edge to every node reached by a dfs from each node.
+     */
+    private static void closeEdges(Graph<?> g, TraversalStats stats, GraphTaskContext context) {
         discoveredNodes = new HashMap<>(g.nodeCount());
         // perform a DFS on every node in the graph
         for (int parentNode = 0; parentNode < g.nodeCount(); ++parentNode) {
             // discovered array must be zeroed out for false after each pass.
-            discoveredNodes = dfs(g, parentNode);
+            discoveredNodes = dfs(g, parentNode, stats, context);
             for (int index = 0; index < g.nodeCount(); ++index) {
                 if (discoveredNodes.containsKey(index) && !g.hasEdge(parentNode, index) && parentNode != index) {
                     g.add(parentNode, null, index);
+                    if (stats != null) {
+                        stats.added();
+                    }
                 }
              }
+            if (context != null) {
+                context.visit();
+            }
         }
     }
 
@@ -386,6 +930,28 @@ public class GraphAlgorithms {
      * @return a map of node ids to their corresponding component number
      */
     public static Map<Integer,Integer> stronglyConnectedComponents(Graph g) {
+        return stronglyConnectedComponents(g, null);
+    }
+
+
+    /**
+     * Computes the strongly connected components, stopping when the
+     * context is cancelled or its deadline passes.
+     * @param g a directed graph
+     * @param context the cancellation, deadline and progress, or null
+     * @return a map of node ids to their corresponding component number
+     * @throws GraphTaskCancelledException if the context stopped the search
+     */
+    public static Map<Integer,Integer> stronglyConnectedComponents(Graph<?> g, GraphTaskContext context) {
+        return run("stronglyConnectedComponents", g.nodeCount(), null, context,
+                () -> strongComponents(g, context));
+    }
+
+
+    /**
+     * Purpose: Groups the nodes found on each cycle.
+     */
+    private static Map<Integer,Integer> strongComponents(Graph<?> g, GraphTaskContext context) {
         // TODO
         Map<Integer, Integer> foundStrongs = new HashMap<>(g.nodeCount());
         Set<Integer> white = new HashSet<>(g.nodeCount());
@@ -401,7 +967,7 @@ public class GraphAlgorithms {
         while (white.size() > 0) {
             uVal = white.iterator().next();
             // use a recursive helper method to check for any cycles in the graph.
-            if (hasCycle(g, uVal, white, grey, black)) {
+            if (hasCycle(g, uVal, white, grey, black, null, context, 1)) {
                 while (!grey.isEmpty()) {
                     int parent = grey.iterator().next();
                     // TODO: fix the rest of this possible solution.
@@ -424,4 +990,49 @@ public class GraphAlgorithms {
         Map<Integer, Integer> strongNodes = stronglyConnectedComponents(g);
         // TODO: this method depends on the completion of the strong components method.
     }
+
+
+    //----------------------------------------------------------------------
+    // helpers
+    //----------------------------------------------------------------------
+
+    /**
+     * Runs an algorithm with its optional stats and context. A run that
+     * the context stops drops the search structures held in the static
+     * fields, so the memory of a stopped run can be reclaimed at once.
+     * @param name the algorithm name recorded in the stats
+     * @param nodes the number of nodes the run processes (for progress)
+     * @param stats the counters to add to, or null
+     * @param context the cancellation, deadline and progress, or null
+     * @param algorithm the algorithm to run
+     * @return the result of the algorithm
+     */
+    private static <R> R run(String name, int nodes, TraversalStats stats, GraphTaskContext context,
+                             Supplier<R> algorithm) {
+        if (stats != null) {
+            stats.start(name);
+        }
+        try {
+            if (context != null) {
+                context.begin(nodes);
+            }
+            R result = algorithm.get();
+            if (context != null) {
+                context.complete();
+            }
+            return result;
+        } catch (GraphTaskCancelledException e) {
+            queue = null;
+            stack = null;
+            discoveredNodes = null;
+            throw e;
+        } finally {
+            if (context != null) {
+                context.end();
+            }
+            if (stats != null) {
+                stats.finish();
+            }
+        }
+    }
 }
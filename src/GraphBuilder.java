@@ -0,0 +1,365 @@
+/*
+ * File: GraphBuilder.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Collects labeled edges in primitive arrays so that a whole batch
+ *       of edges can be loaded into a graph at once.
+ */
+
+import java.util.Arrays;
+
+
+public class GraphBuilder<T> {
+
+    // the number of edges collected
+    private int size;
+
+    // the edges collected so far, edge i goes from src[i] to dst[i]
+    private int[] src;
+    private int[] dst;
+
+    // the label of each edge, allocated when the first non-null label
+    // is added
+    private Object[] labels;
+
+    // the int labels added by addInt, kept unboxed until the edges are
+    // built; bit i of intLabeled is set if edge i has one
+    private int[] intLabels;
+    private long[] intLabeled;
+
+    // the largest node id seen so far (-1 if no edges)
+    private int maxNode = -1;
+
+
+    //--------------------------------------------------------------------
+    // constructors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Creates an empty builder.
+     */
+    public GraphBuilder() {
+        this(16);
+    }
+
+
+    /**
+     * Purpose: Creates an empty builder with room for the given number of
+     *          edges.
+     * @param capacity The expected number of edges.
+     */
+    public GraphBuilder(int capacity) {
+        src = new int[Math.max(1, capacity)];
+        dst = new int[Math.max(1, capacity)];
+    }
+
+
+    //--------------------------------------------------------------------
+    // builder methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Adds a labeled edge from node1 to node2. Uses the same
+     *          argument order as Graph.add.
+     * @param node1 The starting node if directed.
+     * @param label The label of the edge.
+     * @param node2 The ending node if directed.
+     */
+    public void add(int node1, T label, int node2) {
+        if (size == src.length) {
+            grow(size + 1);
+        }
+        src[size] = node1;
+        dst[size] = node2;
+        if (label != null) {
+            if (labels == null) {
+                boxIntLabels();
+            }
+            labels[size] = label;
+        }
+        ++size;
+        maxNode = Math.max(maxNode, Math.max(node1, node2));
+    }
+
+
+    /**
+     * Purpose: Adds an edge with an int label without boxing it. The label
+     *          is boxed when the edges are built (or read back with label),
+     *          so a large batch of int labels takes 4 bytes per edge while
+     *          it is collected.
+     * @param node1 The starting node if directed.
+     * @param label The label of the edge.
+     * @param node2 The ending node if directed.
+     */
+    void addInt(int node1, int label, int node2) {
+        if (size == src.length) {
+            grow(size + 1);
+        }
+        src[size] = node1;
+        dst[size] = node2;
+        putInt(size, label);
+        ++size;
+        maxNode = Math.max(maxNode, Math.max(node1, node2));
+    }
+
+
+    /**
+     * Purpose: Appends all the edges of another builder, in order.
+     * @param other The builder to copy the edges from.
+     */
+    public void addAll(GraphBuilder<? extends T> other) {
+        if (size + other.size > src.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.src, 0, src, size, other.size);
+        System.arraycopy(other.dst, 0, dst, size, other.size);
+        if (other.labels != null) {
+            if (labels == null) {
+                boxIntLabels();
+            }
+            System.arraycopy(other.labels, 0, labels, size, other.size);
+        } else if (other.intLabels != null) {
+            for (int i = 0; i < other.size; ++i) {
+                if (other.hasIntLabel(i)) {
+                    putInt(size + i, other.intLabels[i]);
+                }
+            }
+        }
+        size += other.size;
+        maxNode = Math.max(maxNode, other.maxNode);
+    }
+
+
+    /**
+     * Purpose: Copies the edges (without labels) into the given arrays.
+     * @param srcOut The array for the source nodes.
+     * @param dstOut The array for the destination nodes.
+     * @param offset The index of the first edge in the arrays.
+     */
+    void copyEdges(int[] srcOut, int[] dstOut, int offset) {
+        System.arraycopy(src, 0, srcOut, offset, size);
+        System.arraycopy(dst, 0, dstOut, offset, size);
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges collected.
+     * @return The edge count (including any duplicates).
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the largest node id of any edge.
+     * @return The largest node id, or -1 if there are no edges.
+     */
+    public int maxNode() {
+        return maxNode;
+    }
+
+
+    /**
+     * Purpose: Returns the source node of an edge.
+     * @param i The edge index (0 to size-1).
+     * @return The source node.
+     */
+    public int src(int i) {
+        return src[i];
+    }
+
+
+    /**
+     * Purpose: Returns the destination node of an edge.
+     * @param i The edge index (0 to size-1).
+     * @return The destination node.
+     */
+    public int dst(int i) {
+        return dst[i];
+    }
+
+
+    /**
+     * Purpose: Returns the label of an edge.
+     * @param i The edge index (0 to size-1).
+     * @return The label, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public T label(int i) {
+        if (labels != null) {
+            return (T) labels[i];
+        }
+        return hasIntLabel(i) ? (T) Integer.valueOf(intLabels[i]) : null;
+    }
+
+
+    /**
+     * Purpose: Adds the collected edges to the given graph in one batch
+     *          (see Graph.addAll). Later duplicates of an edge are
+     *          skipped, just as repeated calls to add would skip them.
+     *          The edge arrays are handed over as they are when they are
+     *          full and only trimmed otherwise, so the builder shouldn't be
+     *          changed while the graph is using them.
+     * @param g The graph to add the edges to.
+     */
+    @SuppressWarnings("unchecked")
+    public void build(Graph<T> g) {
+        T[] batchLabels = null;
+        if (labels != null) {
+            batchLabels = (T[]) (size == labels.length ? labels : Arrays.copyOf(labels, size));
+        } else if (intLabels != null) {
+            Integer[] boxed = new Integer[size];
+            for (int i = 0; i < size; ++i) {
+                if (hasIntLabel(i)) {
+                    boxed[i] = intLabels[i];
+                }
+            }
+            batchLabels = (T[]) boxed;
+        }
+        int[] batchSrc = size == src.length ? src : Arrays.copyOf(src, size);
+        int[] batchDst = size == dst.length ? dst : Arrays.copyOf(dst, size);
+        g.addAll(batchSrc, batchLabels, batchDst);
+    }
+
+
+    //--------------------------------------------------------------------
+    // sorting
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Sorts non-negative keys in ascending order, moving the
+     *          index values along with them. Uses a stable least
+     *          significant digit radix sort on 16 bit digits, so equal
+     *          keys keep their original order and the cost is linear in
+     *          the number of keys. Digits that are the same for every key
+     *          (such as the high bits of small node ids) are skipped,
+     *          keys that are already in order are left alone, and small
+     *          batches use an insertion sort instead.
+     * @param keys The keys to sort.
+     * @param index The values to move with the keys.
+     * @param count The number of keys to sort (from index 0).
+     */
+    static void sortByKey(long[] keys, int[] index, int count) {
+        // edges are often generated in order, so check that first
+        int sorted = 1;
+        while (sorted < count && keys[sorted - 1] <= keys[sorted]) {
+            ++sorted;
+        }
+        if (sorted >= count) {
+            return;
+        }
+        if (count < 64) {
+            // small batches: a stable insertion sort
+            for (int i = 1; i < count; ++i) {
+                long key = keys[i];
+                int value = index[i];
+                int j = i - 1;
+                while (j >= 0 && keys[j] > key) {
+                    keys[j + 1] = keys[j];
+                    index[j + 1] = index[j];
+                    --j;
+                }
+                keys[j + 1] = key;
+                index[j + 1] = value;
+            }
+            return;
+        }
+        long[] keyBuffer = null;
+        int[] indexBuffer = null;
+        int[] counts = new int[1 << 16];
+        for (int shift = 0; shift < 64; shift += 16) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < count; ++i) {
+                ++counts[(int) (keys[i] >>> shift) & 0xFFFF];
+            }
+            if (count == 0 || counts[(int) (keys[0] >>> shift) & 0xFFFF] == count) {
+                continue;
+            }
+            for (int d = 0, total = 0; d < counts.length; ++d) {
+                int c = counts[d];
+                counts[d] = total;
+                total += c;
+            }
+            if (keyBuffer == null) {
+                keyBuffer = new long[count];
+                indexBuffer = new int[count];
+            }
+            for (int i = 0; i < count; ++i) {
+                int pos = counts[(int) (keys[i] >>> shift) & 0xFFFF]++;
+                keyBuffer[pos] = keys[i];
+                indexBuffer[pos] = index[i];
+            }
+            System.arraycopy(keyBuffer, 0, keys, 0, count);
+            System.arraycopy(indexBuffer, 0, index, 0, count);
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Grows the edge arrays to hold at least the given number of
+     *          edges.
+     */
+    private void grow(int minCapacity) {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+                Math.max(minCapacity, src.length + (long) (src.length >> 1)));
+        src = Arrays.copyOf(src, capacity);
+        dst = Arrays.copyOf(dst, capacity);
+        if (labels != null) {
+            labels = Arrays.copyOf(labels, capacity);
+        }
+        if (intLabels != null) {
+            intLabels = Arrays.copyOf(intLabels, capacity);
+            intLabeled = Arrays.copyOf(intLabeled, (capacity + 63) >>> 6);
+        }
+    }
+
+
+    /**
+     * Purpose: Stores an int label for an edge, unboxed unless the other
+     *          labels are already boxed.
+     */
+    private void putInt(int i, int label) {
+        if (labels != null) {
+            labels[i] = label;
+            return;
+        }
+        if (intLabels == null) {
+            intLabels = new int[src.length];
+            intLabeled = new long[(src.length + 63) >>> 6];
+        }
+        intLabels[i] = label;
+        intLabeled[i >>> 6] |= 1L << i;
+    }
+
+
+    /**
+     * Purpose: Checks if an edge has an unboxed int label.
+     */
+    private boolean hasIntLabel(int i) {
+        return intLabels != null && (intLabeled[i >>> 6] & (1L << i)) != 0;
+    }
+
+
+    /**
+     * Purpose: Allocates the boxed labels, moving any int labels into them
+     *          (needed once a label that isn't an int is added).
+     */
+    private void boxIntLabels() {
+        labels = new Object[src.length];
+        if (intLabels != null) {
+            for (int i = 0; i < size; ++i) {
+                if (hasIntLabel(i)) {
+                    labels[i] = intLabels[i];
+                }
+            }
+            intLabels = null;
+            intLabeled = null;
+        }
+    }
+
+}
@@ -5,48 +5,75 @@
  * Desc: Basic helper functions to generate a variety of test graphs.
  */
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 public class GraphGenerator {
 
+  // row ranges generated per thread by the parallel loaders (extra
+  // ranges balance the load when rows have different lengths)
+  private static final int RANGES_PER_THREAD = 4;
+
+  // R-MAT quadrant probabilities (Graph500 values, d = 1 - a - b - c)
+  private static final double RMAT_A = 0.57;
+  private static final double RMAT_B = 0.19;
+  private static final double RMAT_C = 0.19;
+
   // singleton class
   private GraphGenerator() {
   }
 
+  // Each loader collects its edges in a GraphBuilder and installs them
+  // with one call to g.addAll, so the graph sorts and removes duplicate
+  // edges once instead of checking on every add. The edges (and their
+  // labels) are the same as adding them one at a time.
+
   // Add edges to the given graph g to form a basic ladder graph with
   // additional "forward" edges.
   // pre: g is a graph with n nodes and no edges
   // post: g has O(n) labeled edges
   public static void loadQuickLadder(Graph<Integer> g) {
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
     int n = g.nodeCount();
     for (int u = 0; u < n - 1; u = u + 2) {
-      g.add(u, u, u+1);
+      edges.add(u, u, u+1);
       if (u - 2 >= 0) {
-        g.add(u-2, u-2, u);
-        g.add(u-1, u-1, u+1);
-        g.add(u-2, u-2, u+1);
+        edges.add(u-2, u-2, u);
+        edges.add(u-1, u-1, u+1);
+        edges.add(u-2, u-2, u+1);
       }
       if (u % 2 == 0 && u - 4 >= 0) {
-        g.add(u-4, u-4, u);
+        edges.add(u-4, u-4, u);
       }
     }
+    edges.build(g);
   }
 
   public static void loadSparseDisconnected(Graph<Integer> g, int components) {
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
     int n = g.nodeCount();
     int m = n / components;
     for (int c = 0; c < components - 1; ++c) {
       for (int u = c*m; u < c*m + m; ++u) {
         if (u < (c*m + m - 1))
-          g.add(u, u, u+1);
+          edges.add(u, u, u+1);
         else
-          g.add(u, u, c*m);
+          edges.add(u, u, c*m);
       }
     }
     // add whatever is left
     for (int u = components*m; u < n-1; ++u)
-      g.add(u, u, u+1);
+      edges.add(u, u, u+1);
+    edges.build(g);
   }
   
   // Add edges (at random) to the given graph g with given random
@@ -54,6 +81,7 @@ public class GraphGenerator {
   // pre: g is a graph with n nodes and no edges
   // post: g has O(n) labeled edges (g is sparse)
   public static void loadSparse(Graph<Integer> g, long seed) {
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
     Random random = new Random(seed); 
     int n = g.nodeCount();         
     // number of final edges to try
@@ -62,8 +90,9 @@ public class GraphGenerator {
     for (int i = 0; i < e; ++i) {
       int v1 = random.nextInt(n);
       int v2 = random.nextInt(n);
-      g.add(v1, i, v2);
+      edges.add(v1, i, v2);
     }
+    edges.build(g);
   }
 
   // Add edges (at random) to the given graph g with given random
@@ -72,6 +101,7 @@ public class GraphGenerator {
   // pre: g is a graph with n nodes and no edges
   // post: g has O(n) labeled edges (g is sparse)
   public static void loadSparseAcyclic(Graph<Integer> g, long seed) {
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
     Random random = new Random(seed); 
     int n = g.nodeCount();         
     if (g.directed()) {
@@ -82,9 +112,9 @@ public class GraphGenerator {
         int v2 = random.nextInt(n);
         // only "forward" edges
         if (v1 < v2) 
-          g.add(v1, i, v2);
+          edges.add(v1, i, v2);
         else
-          g.add(v2, i, v1);
+          edges.add(v2, i, v1);
       }
     }
     else {
@@ -94,9 +124,10 @@ public class GraphGenerator {
       for (int i = 0; i < 2*n; ++i) {
         int u = random.nextInt(n/2);
         int v = n/2 + random.nextInt(n - (n/2));
-        g.add(u, j++, v);
+        edges.add(u, j++, v);
       }
     }
+    edges.build(g);
   }
 
 
@@ -106,6 +137,7 @@ public class GraphGenerator {
   // pre: g is a directed graph with n nodes and no edges
   // post: g has O(n^2) labeled edges (dense)
   public static void loadDense(Graph<Integer> g, long seed) {
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
     Random random = new Random(seed); 
     int n = g.nodeCount();
     // probability edge selected: .8 <= p <= 1.0
@@ -115,7 +147,8 @@ public class GraphGenerator {
     for (int i = 0; i < n; ++i) 
       for (int j = 0; j < n; ++j) 
         if (random.nextDouble() <= p)
-          g.add(i, k++, j);
+          edges.add(i, k++, j);
+    edges.build(g);
   }
 
   // Add (random) edges to the given graph, where the seed allows for
@@ -123,6 +156,7 @@ public class GraphGenerator {
   // pre: g is a directed graph with n nodes and no edges
   // post: g has O(n^2) directed, labeled edges with no cycles
   public static void loadDenseAcyclic(Graph<Integer> g, long seed) {
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
     Random random = new Random(seed); 
     int n = g.nodeCount();
     // probability edge selected: .8 <= p <= 1.0
@@ -133,15 +167,356 @@ public class GraphGenerator {
       for (int i = 0; i < n; ++i) 
         for (int j = i + 1; j < n; ++j) 
           if (random.nextDouble() <= p)
-            g.add(i, k++, j);
+            edges.add(i, k++, j);
     }
     else {
       int m = n/2;
       for (int i = 0; i < m; ++i)
         for (int j = m+1; j < n; ++j)
           if (random.nextDouble() <= p)
-            g.add(i, k++, j);
+            edges.add(i, k++, j);
     }
+    edges.build(g);
   }
-  
+
+
+  // Add edges to the given graph g so that each possible edge is chosen
+  // independently with probability p (the Erdos-Renyi G(n,p) model),
+  // without self loops. Directed graphs choose from all ordered pairs
+  // and undirected graphs from all unordered pairs. Uses geometric skip
+  // sampling (Batagelj and Brandes), jumping straight from one chosen
+  // pair to the next, so the work is O(n + m) for any p.
+  // pre: g is a graph with n nodes and no edges, 0 <= p <= 1
+  // post: g has about p*n*(n-1) (directed) or p*n*(n-1)/2 (undirected)
+  //       labeled edges
+  public static void loadErdosRenyi(Graph<Integer> g, double p, long seed) {
+    int n = g.nodeCount();
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
+    Random random = new Random(seed);
+    int[] k = {0};
+    if (g.directed()) {
+      // pair index i*(n-1) + c, where column c skips the diagonal
+      sampleIndexes((long) n * (n - 1), p, random, index -> {
+        int i = (int) (index / (n - 1));
+        int c = (int) (index % (n - 1));
+        edges.add(i, k[0]++, c < i ? c : c + 1);
+      });
+    }
+    else
+      sampleTriangle(n, p, random, (i, j) -> edges.add(i, k[0]++, j));
+    edges.build(g);
+  }
+
+  // G(n,p) version of loadDenseAcyclic. Directed graphs only get
+  // "forward" edges i < j, and undirected graphs are bipartite between
+  // nodes 0 to n/2-1 and n/2 to n-1. Uses geometric skip sampling.
+  // pre: g is a graph with n nodes and no edges, 0 <= p <= 1
+  // post: g has about p*n*(n-1)/2 (directed) or p*n*n/4 (undirected)
+  //       labeled edges and no cycles (no odd cycles if undirected)
+  public static void loadErdosRenyiAcyclic(Graph<Integer> g, double p, long seed) {
+    int n = g.nodeCount();
+    GraphBuilder<Integer> edges = new GraphBuilder<>();
+    Random random = new Random(seed);
+    int[] k = {0};
+    if (g.directed())
+      sampleTriangle(n, p, random, (i, j) -> edges.add(i, k[0]++, j));
+    else {
+      int m = n/2;
+      sampleIndexes((long) m * (n - m), p, random, index -> {
+        int i = (int) (index / (n - m));
+        int j = m + (int) (index % (n - m));
+        edges.add(i, k[0]++, j);
+      });
+    }
+    edges.build(g);
+  }
+
+  // Receives one pair of nodes.
+  interface PairConsumer {
+    void accept(int i, int j);
+  }
+
+  // Calls action with each pair i < j of nodes 0 to n-1 chosen with
+  // probability p, ordered by j and then by i.
+  private static void sampleTriangle(int n, double p, Random random, PairConsumer action) {
+    // pair index j*(j-1)/2 + i for 0 <= i < j < n
+    int[] row = {1};
+    long[] rowStart = {0};
+    sampleIndexes((long) n * (n - 1) / 2, p, random, index -> {
+      // indexes only increase, so walk j forward to the right row
+      while (rowStart[0] + row[0] <= index) {
+        rowStart[0] += row[0];
+        ++row[0];
+      }
+      action.accept((int) (index - rowStart[0]), row[0]);
+    });
+  }
+
+  // Calls action with each index 0 to total-1 chosen with probability p,
+  // in increasing order.
+  private static void sampleIndexes(long total, double p, Random random, LongConsumer action) {
+    sampleIndexes(0, total, p, random::nextDouble, action);
+  }
+
+  // Calls action with each index from to to-1 chosen with probability p,
+  // in increasing order. The gap to the next chosen index is geometric,
+  // so only the chosen indexes are visited.
+  static void sampleIndexes(long from, long to, double p, DoubleSupplier uniform,
+                            LongConsumer action) {
+    if (!(p >= 0 && p <= 1))
+      throw new IllegalArgumentException("edge probability must be between 0 and 1: " + p);
+    if (p == 0)
+      return;
+    if (p == 1) {
+      for (long index = from; index < to; ++index)
+        action.accept(index);
+      return;
+    }
+    double logq = Math.log1p(-p);
+    long index = from - 1;
+    while (true) {
+      double skip = Math.floor(Math.log1p(-uniform.getAsDouble()) / logq);
+      if (skip >= to - 1 - index)
+        return;
+      index += 1 + (long) skip;
+      action.accept(index);
+    }
+  }
+
+
+  // Add edges to the given graph g using the preferential attachment
+  // (Barabasi-Albert) model. Nodes 0 to m form a clique, then each later
+  // node v is joined to m distinct earlier nodes, picked with probability
+  // proportional to their current degree. The result has a power-law
+  // degree distribution with a few high degree hubs. Directed edges go
+  // from the newer node to the older one, so the graph has no cycles.
+  // pre: g is a graph with n > m nodes and no edges, m >= 1
+  // post: g has m*(m+1)/2 + (n-m-1)*m labeled edges
+  public static void loadPreferentialAttachment(Graph<Integer> g, int m, long seed) {
+    int n = g.nodeCount();
+    if (m < 1 || n <= m)
+      throw new IllegalArgumentException("need n > m >= 1 (n = " + n + ", m = " + m + ")");
+    Random random = new Random(seed);
+    long total = (long) m * (m + 1) / 2 + (long) (n - m - 1) * m;
+    if (2 * total > Integer.MAX_VALUE - 8)
+      throw new IllegalArgumentException("too many edges: " + total);
+    GraphBuilder<Integer> edges = new GraphBuilder<>((int) total);
+    // both ends of every edge so far; a uniform pick from this array is a
+    // pick proportional to degree
+    int[] ends = new int[(int) (2 * total)];
+    int count = 0;
+    int k = 0;
+    for (int v = 1; v <= m; ++v) {
+      for (int u = 0; u < v; ++u) {
+        edges.add(v, k++, u);
+        ends[count++] = v;
+        ends[count++] = u;
+      }
+    }
+    int[] chosen = new int[m];
+    for (int v = m + 1; v < n; ++v) {
+      int picked = 0;
+      while (picked < m) {
+        int u = ends[random.nextInt(count)];
+        boolean repeat = false;
+        for (int i = 0; i < picked && !repeat; ++i)
+          repeat = chosen[i] == u;
+        if (!repeat)
+          chosen[picked++] = u;
+      }
+      for (int i = 0; i < m; ++i) {
+        edges.add(v, k++, chosen[i]);
+        ends[count++] = v;
+        ends[count++] = chosen[i];
+      }
+    }
+    edges.build(g);
+  }
+
+  //----------------------------------------------------------------------
+  // parallel loaders
+  //
+  // The parallel loaders split their rows (or edge trials) into ranges
+  // and give each range its own SplittableRandom, split from one root
+  // generator seeded with the given seed in range order. The graph is
+  // the same for a given seed and parallelism, but differs from the
+  // sequential loader with the same seed. Edges are labeled 0, 1, 2, ...
+  // in range order, as the sequential loaders label them.
+  //----------------------------------------------------------------------
+
+  // Parallel version of loadSparse.
+  // pre: g is a graph with n nodes and no edges
+  // post: g has O(n) labeled edges (g is sparse)
+  public static void loadSparseParallel(Graph<Integer> g, long seed, int parallelism) {
+    SplittableRandom root = new SplittableRandom(seed);
+    int n = g.nodeCount();
+    // number of final edges to try
+    int e = n + root.nextInt(n);
+    loadRanges(g, root, e, parallelism, (from, to, random, edges) -> {
+      for (int i = from; i < to; ++i) {
+        int v1 = random.nextInt(n);
+        int v2 = random.nextInt(n);
+        edges.add(v1, null, v2);
+      }
+    });
+  }
+
+  // Parallel version of loadDense.
+  // pre: g is a directed graph with n nodes and no edges
+  // post: g has O(n^2) labeled edges (dense)
+  public static void loadDenseParallel(Graph<Integer> g, long seed, int parallelism) {
+    SplittableRandom root = new SplittableRandom(seed);
+    int n = g.nodeCount();
+    // probability edge selected: .8 <= p <= 1.0
+    double p = 1 - (root.nextDouble() / 5);
+    loadRanges(g, root, n, parallelism, (from, to, random, edges) -> {
+      for (int i = from; i < to; ++i)
+        for (int j = 0; j < n; ++j)
+          if (random.nextDouble() <= p)
+            edges.add(i, null, j);
+    });
+  }
+
+  // Parallel version of loadDenseAcyclic.
+  // pre: g is a graph with n nodes and no edges
+  // post: g has O(n^2) labeled edges with no cycles (bipartite if g
+  //       is undirected)
+  public static void loadDenseAcyclicParallel(Graph<Integer> g, long seed, int parallelism) {
+    SplittableRandom root = new SplittableRandom(seed);
+    int n = g.nodeCount();
+    // probability edge selected: .8 <= p <= 1.0
+    double p = 1 - (root.nextDouble() / 5);
+    if (g.directed()) {
+      loadRanges(g, root, n, parallelism, (from, to, random, edges) -> {
+        for (int i = from; i < to; ++i)
+          for (int j = i + 1; j < n; ++j)
+            if (random.nextDouble() <= p)
+              edges.add(i, null, j);
+      });
+    }
+    else {
+      int m = n/2;
+      loadRanges(g, root, m, parallelism, (from, to, random, edges) -> {
+        for (int i = from; i < to; ++i)
+          for (int j = m+1; j < n; ++j)
+            if (random.nextDouble() <= p)
+              edges.add(i, null, j);
+      });
+    }
+  }
+
+  // Add edges to the given graph g using the R-MAT (recursive matrix)
+  // model with the Graph500 Kronecker parameters. Each of the
+  // edgeFactor * 2^scale edges picks one quadrant of the adjacency
+  // matrix per level, with probabilities a = 0.57, b = c = 0.19 and
+  // d = 0.05, so most edges land near a few hub rows and columns. The
+  // node ids are then shuffled so the hubs aren't all low numbered.
+  // Repeated edges and self loops are skipped, so the labels (edge
+  // positions) may have gaps.
+  // pre: g is a graph with n = 2^scale nodes and no edges
+  // post: g has at most edgeFactor*n labeled edges, with a power-law
+  //       degree distribution
+  public static void loadRmat(Graph<Integer> g, int scale, int edgeFactor, long seed) {
+    loadRmatParallel(g, scale, edgeFactor, seed, 1);
+  }
+
+  // Parallel version of loadRmat.
+  public static void loadRmatParallel(Graph<Integer> g, int scale, int edgeFactor, long seed,
+                                      int parallelism) {
+    if (scale < 0 || scale > 30 || g.nodeCount() != 1 << scale)
+      throw new IllegalArgumentException("R-MAT needs 2^scale nodes (scale = " + scale
+                                         + ", n = " + g.nodeCount() + ")");
+    long total = (long) edgeFactor << scale;
+    if (edgeFactor < 0 || total > Integer.MAX_VALUE - 8)
+      throw new IllegalArgumentException("bad edge factor: " + edgeFactor);
+    SplittableRandom root = new SplittableRandom(seed);
+    // random node permutation (Fisher-Yates)
+    int n = g.nodeCount();
+    int[] permutation = new int[n];
+    for (int i = 0; i < n; ++i)
+      permutation[i] = i;
+    for (int i = n - 1; i > 0; --i) {
+      int j = root.nextInt(i + 1);
+      int swap = permutation[i];
+      permutation[i] = permutation[j];
+      permutation[j] = swap;
+    }
+    loadRanges(g, root, (int) total, parallelism, (from, to, random, edges) -> {
+      for (int e = from; e < to; ++e) {
+        int src = 0;
+        int dst = 0;
+        for (int bit = 1 << scale >>> 1; bit != 0; bit >>>= 1) {
+          double r = random.nextDouble();
+          if (r >= RMAT_A + RMAT_B + RMAT_C) {
+            src |= bit;
+            dst |= bit;
+          }
+          else if (r >= RMAT_A + RMAT_B)
+            src |= bit;
+          else if (r >= RMAT_A)
+            dst |= bit;
+        }
+        if (src != dst)
+          edges.add(permutation[src], null, permutation[dst]);
+      }
+    });
+  }
+
+  // Generates the edges for one range of rows [from, to).
+  interface RangeGenerator {
+    void generate(int from, int to, SplittableRandom random, GraphBuilder<Integer> edges);
+  }
+
+  // Splits rows 0 to rows-1 into ranges, runs the generator on each
+  // range in parallel, and loads the edges into g in range order,
+  // labeled by their position.
+  static void loadRanges(Graph<Integer> g, SplittableRandom root, int rows, int parallelism,
+                         RangeGenerator generator) {
+    parallelism = Math.max(1, parallelism);
+    int ranges = Math.max(1, Math.min(rows, parallelism * RANGES_PER_THREAD));
+    List<SplittableRandom> randoms = new ArrayList<>();
+    for (int r = 0; r < ranges; ++r)
+      randoms.add(root.split());
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<GraphBuilder<Integer>> parts = pool.submit(() -> IntStream.range(0, ranges).parallel()
+          .mapToObj(r -> {
+            GraphBuilder<Integer> part = new GraphBuilder<>();
+            int from = (int) ((long) rows * r / ranges);
+            int to = (int) ((long) rows * (r + 1) / ranges);
+            generator.generate(from, to, randoms.get(r), part);
+            return part;
+          })
+          .collect(Collectors.toList())).get();
+      // the edge arrays are sized once and each part fills its own
+      // slice, so the edges are copied once on the way to g
+      int[] offsets = new int[ranges + 1];
+      for (int r = 0; r < ranges; ++r) {
+        long next = (long) offsets[r] + parts.get(r).size();
+        if (next > Integer.MAX_VALUE - 8)
+          throw new IllegalArgumentException("too many edges: " + next);
+        offsets[r + 1] = (int) next;
+      }
+      int total = offsets[ranges];
+      int[] src = new int[total];
+      int[] dst = new int[total];
+      Integer[] labels = new Integer[total];
+      pool.submit(() -> IntStream.range(0, ranges).parallel().forEach(r -> {
+        parts.get(r).copyEdges(src, dst, offsets[r]);
+        for (int k = offsets[r]; k < offsets[r + 1]; ++k)
+          labels[k] = k;
+      })).get();
+      g.addAll(src, labels, dst);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while generating edges", e);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
 }
@@ -0,0 +1,38 @@
+/*
+ * File: GraphTaskCancelledException.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Thrown by a GraphAlgorithms run that was stopped by its
+ *       GraphTaskContext, because it was cancelled, its thread was
+ *       interrupted or its deadline passed.
+ */
+
+
+public class GraphTaskCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    // true if the run was stopped by its deadline
+    private final boolean deadlineExceeded;
+
+
+    /**
+     * Purpose: Creates the exception.
+     * @param message The reason the run was stopped.
+     * @param deadlineExceeded True if the deadline passed.
+     */
+    public GraphTaskCancelledException(String message, boolean deadlineExceeded) {
+        super(message);
+        this.deadlineExceeded = deadlineExceeded;
+    }
+
+
+    /**
+     * Purpose: Generic getter for whether the deadline stopped the run
+     *          (rather than a cancel or interrupt).
+     */
+    public boolean deadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * File: GraphTaskContext.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Bounds a long GraphAlgorithms run. The algorithms count each node
+ *       they process, and every CHECK_INTERVAL nodes they check whether
+ *       the context was cancelled, its thread interrupted or its deadline
+ *       passed (and throw a GraphTaskCancelledException if so), and
+ *       report the percentage of nodes processed to the progress
+ *       listener. A context can be cancelled from any thread, but is used
+ *       by one run at a time.
+ */
+
+
+public class GraphTaskContext {
+
+    /**
+     * Receives the percentage of nodes processed, each time it changes.
+     */
+    public interface ProgressListener {
+        void progress(int percent);
+    }
+
+    // nodes processed between checks (a power of two)
+    static final int CHECK_INTERVAL = 256;
+
+    // the deadline (System.nanoTime) and whether there is one
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    // the progress listener (or null)
+    private final ProgressListener listener;
+
+    // set by cancel, from any thread
+    private volatile boolean cancelled;
+
+    // the number of nested runs in progress (transitiveClosure runs a
+    // dfs per node; only the outermost run reports progress)
+    private int depth;
+
+    // progress of the outermost run
+    private long total;
+    private long processed;
+    private int percent = -1;
+
+    // nodes processed by every run, to time the checks
+    private long ticks;
+
+
+    //--------------------------------------------------------------------
+    // constructors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Creates a context that is only stopped by cancel (or an
+     *          interrupt).
+     */
+    public GraphTaskContext() {
+        this(0, null);
+    }
+
+
+    /**
+     * Purpose: Creates a context with a deadline and progress listener.
+     * @param timeoutMillis The time allowed from now (0 for no deadline).
+     * @param listener The progress listener (or null).
+     */
+    public GraphTaskContext(long timeoutMillis, ProgressListener listener) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("timeout must not be negative: " + timeoutMillis);
+        }
+        this.hasDeadline = timeoutMillis > 0;
+        this.deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        this.listener = listener;
+    }
+
+
+    //--------------------------------------------------------------------
+    // cancellation
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Asks the run to stop at its next check. Safe to call from
+     *          any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+
+    /**
+     * Purpose: Generic getter for whether cancel was called.
+     */
+    public boolean cancelled() {
+        return cancelled;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the last percentage reported (-1 before
+     *          the first report).
+     */
+    public int percent() {
+        return percent;
+    }
+
+
+    //--------------------------------------------------------------------
+    // run methods (used by GraphAlgorithms)
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Starts a run, checking the context first so an expired or
+     *          cancelled context stops it before any work.
+     * @param nodes The number of nodes the outermost run processes.
+     */
+    void begin(int nodes) {
+        if (depth++ == 0) {
+            total = Math.max(1, nodes);
+            processed = 0;
+            percent = -1;
+        }
+        check();
+    }
+
+
+    /**
+     * Purpose: Counts a processed node, checking the context every
+     *          CHECK_INTERVAL nodes.
+     */
+    void visit() {
+        if (depth == 1) {
+            ++processed;
+        }
+        if ((++ticks & (CHECK_INTERVAL - 1)) == 0) {
+            check();
+        }
+    }
+
+
+    /**
+     * Purpose: Reports 100% when the outermost run completes.
+     */
+    void complete() {
+        if (depth == 1) {
+            processed = total;
+            report();
+        }
+    }
+
+
+    /**
+     * Purpose: Ends a run (completed or not).
+     */
+    void end() {
+        --depth;
+    }
+
+
+    /**
+     * Purpose: Throws if the run should stop, else reports the progress.
+     */
+    void check() {
+        if (cancelled) {
+            throw new GraphTaskCancelledException("graph task cancelled", false);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new GraphTaskCancelledException("graph task interrupted", false);
+        }
+        if (hasDeadline && System.nanoTime() - deadline > 0) {
+            throw new GraphTaskCancelledException("graph task deadline exceeded", true);
+        }
+        report();
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Sends the percentage processed to the listener if it
+     *          changed.
+     */
+    private void report() {
+        int now = (int) Math.min(100, processed * 100 / total);
+        if (now != percent) {
+            percent = now;
+            if (listener != null) {
+                listener.progress(now);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,343 @@
+/*
+ * File: Graphs.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Helper functions for choosing and converting between graph
+ *       representations. A graph is profiled (density, degree skew,
+ *       labels) and the representation with the smallest expected
+ *       memory footprint is picked.
+ */
+
+import java.util.EnumMap;
+import java.util.Map;
+
+
+public class Graphs {
+
+    // assumed JVM object sizes (64-bit JVM with compressed references)
+    private static final long HEADER_BYTES = 16;
+    private static final long REF_BYTES = 4;
+
+    // graphs at least this dense are dense enough for a matrix (the
+    // density at which the adjacency list turns a row into a bitmap)
+    static final double DENSE_DENSITY = 1.0 / AdjacencySet.BITMAP_RATIO;
+
+    // graphs whose max degree is at least this many times the average
+    // degree are treated as hub graphs
+    static final double HUB_SKEW = 4;
+
+    // a representation better suited to the density and skew is chosen
+    // if it needs at most this much more memory than the smallest one
+    static final double MEMORY_SLACK = 1.25;
+
+    // singleton
+    private Graphs() {}
+
+
+    // The in-memory graph representations that can be selected.
+    public enum Representation {
+        ADJACENCY_LIST,     // mutable, per-node adaptive neighbor sets
+        ADJACENCY_MATRIX,   // mutable, n x n label matrix
+        BIT_MATRIX,         // mutable, n x n bit matrix with lazy labels
+        CSR                 // read-only, compressed sparse rows
+    }
+
+
+    /**
+     * Basic measurements of a graph used to pick a representation, along
+     * with the expected memory of each representation.
+     */
+    public static class Profile {
+
+        // the number of nodes and edges of the graph
+        public final int nodeCount;
+        public final int edgeCount;
+
+        // true if the graph is directed
+        public final boolean directed;
+
+        // true if any edge has a non-null label
+        public final boolean labeled;
+
+        // true if any edge has a null label (the adjacency matrix marks
+        // a missing edge with null, so it can't hold these edges)
+        public final boolean nullLabels;
+
+        // the number of stored adjacency entries (out-edges of every
+        // node, so undirected edges count twice)
+        public final long entries;
+
+        // the fraction of possible node pairs that hold an entry
+        public final double density;
+
+        // the largest and average out degree
+        public final int maxDegree;
+        public final double averageDegree;
+
+        // the max degree divided by the average degree (1 for regular
+        // graphs, large for graphs with a few hubs)
+        public final double skew;
+
+        // the expected memory in bytes of each representation
+        private final Map<Representation, Long> bytes = new EnumMap<>(Representation.class);
+
+        private Profile(CsrGraph<?> g, boolean labeled) {
+            nodeCount = g.nodeCount();
+            edgeCount = g.edgeCount();
+            directed = g.directed();
+            this.labeled = labeled;
+            nullLabels = hasNullLabel(g);
+            long sum = 0;
+            int max = 0;
+            for (int u = 0; u < nodeCount; ++u) {
+                sum += g.outDegree(u);
+                max = Math.max(max, g.outDegree(u));
+            }
+            entries = sum;
+            maxDegree = max;
+            density = nodeCount == 0 ? 0 : (double) sum / ((double) nodeCount * nodeCount);
+            averageDegree = nodeCount == 0 ? 0 : (double) sum / nodeCount;
+            skew = averageDegree == 0 ? 1 : maxDegree / averageDegree;
+            long n = nodeCount;
+            long labelBytes = labeled ? REF_BYTES : 0;
+
+            // one adaptive neighbor set per node: object plus two arrays,
+            // with arrays growing by 1.5x (about 1.25x on average)
+            long list = HEADER_BYTES + n * REF_BYTES;
+            for (int u = 0; u < nodeCount; ++u) {
+                int d = g.outDegree(u);
+                list += 3 * HEADER_BYTES + 16;
+                if (n >= AdjacencySet.BITMAP_MIN_NODES && (long) d * AdjacencySet.BITMAP_RATIO >= n) {
+                    // bits, a count per 8 words, and labels in node order
+                    list += ((n + 63) / 64) * 8 + ((n + 511) / 512) * 4 + (d + d / 4) * labelBytes;
+                } else {
+                    list += Math.max(AdjacencySet.SMALL_MAX, d + d / 4) * (4 + REF_BYTES);
+                }
+            }
+            bytes.put(Representation.ADJACENCY_LIST, list);
+
+            // n rows of n references
+            bytes.put(Representation.ADJACENCY_MATRIX, HEADER_BYTES + n * (REF_BYTES + HEADER_BYTES + n * REF_BYTES));
+
+            // n rows of n bits, plus a full label row for any labeled row
+            long bits = HEADER_BYTES + n * ((n + 63) / 64) * 8 + HEADER_BYTES + n * REF_BYTES;
+            if (labeled) {
+                bits += n * (HEADER_BYTES + n * REF_BYTES);
+            }
+            bytes.put(Representation.BIT_MATRIX, bits);
+
+            // offsets and targets, the reversed rows for directed graphs,
+            // and one label per entry
+            long csr = 3 * HEADER_BYTES + (n + 1) * 4 + entries * (4 + labelBytes);
+            if (directed) {
+                csr += 2 * HEADER_BYTES + (n + 1) * 4 + entries * 4;
+            }
+            bytes.put(Representation.CSR, csr);
+        }
+
+        /**
+         * Purpose: Returns the expected memory of a representation.
+         * @param r The representation.
+         * @return The expected size in bytes, not counting the label
+         *         objects themselves.
+         */
+        public long estimatedBytes(Representation r) {
+            return bytes.get(r);
+        }
+
+        /**
+         * Purpose: Picks a representation by density, skew and expected
+         *          memory. An evenly dense graph prefers a matrix (edge
+         *          checks in constant time) and a mutable hub graph prefers
+         *          the adjacency list (hubs become bitmaps while the other
+         *          rows stay small), as long as the preferred one needs at
+         *          most MEMORY_SLACK times the memory of the smallest.
+         *          Otherwise the smallest is picked. The adjacency matrix is
+         *          never picked for a graph with null labels, nor the bit
+         *          matrix for a graph too large for it.
+         * @param mutable True if the result must support add/remove/set
+         *                (which rules out CSR).
+         * @return The selected representation.
+         */
+        public Representation best(boolean mutable) {
+            Representation smallest = Representation.ADJACENCY_LIST;
+            for (Representation r : Representation.values()) {
+                if (available(r, mutable) && estimatedBytes(r) < estimatedBytes(smallest)) {
+                    smallest = r;
+                }
+            }
+            Representation preferred = smallest;
+            if (density >= DENSE_DENSITY && skew < HUB_SKEW) {
+                if (!available(Representation.ADJACENCY_MATRIX, mutable)) {
+                    preferred = available(Representation.BIT_MATRIX, mutable) ? Representation.BIT_MATRIX : smallest;
+                } else if (!available(Representation.BIT_MATRIX, mutable)) {
+                    preferred = Representation.ADJACENCY_MATRIX;
+                } else {
+                    preferred = estimatedBytes(Representation.BIT_MATRIX)
+                            <= estimatedBytes(Representation.ADJACENCY_MATRIX)
+                            ? Representation.BIT_MATRIX : Representation.ADJACENCY_MATRIX;
+                }
+            } else if (mutable && skew >= HUB_SKEW) {
+                preferred = Representation.ADJACENCY_LIST;
+            }
+            return estimatedBytes(preferred) <= estimatedBytes(smallest) * MEMORY_SLACK ? preferred : smallest;
+        }
+
+        /**
+         * Purpose: Checks if a representation can hold this graph: CSR is
+         *          read-only, the adjacency matrix can't hold null labels
+         *          and the bit matrix is limited to one array of bits.
+         * @param r The representation.
+         * @param mutable True if the result must support add/remove/set.
+         * @return True if best() may pick the representation.
+         */
+        private boolean available(Representation r, boolean mutable) {
+            switch (r) {
+                case CSR:
+                    return !mutable;
+                case ADJACENCY_MATRIX:
+                    return !nullLabels;
+                case BIT_MATRIX:
+                    return BitMatrixGraph.fits(nodeCount);
+                default:
+                    return true;
+            }
+        }
+
+        /**
+         * Purpose: Builds a short report of the measurements and the
+         *          expected memory of each representation.
+         * @return The report text.
+         */
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("nodes=%d edges=%d directed=%b labeled=%b nullLabels=%b%n",
+                    nodeCount, edgeCount, directed, labeled, nullLabels));
+            report.append(String.format("density=%.4f avgDegree=%.2f maxDegree=%d skew=%.2f%n",
+                    density, averageDegree, maxDegree, skew));
+            for (Representation r : Representation.values()) {
+                report.append(String.format("  %-16s %,d bytes%n", r, estimatedBytes(r)));
+            }
+            return report.toString();
+        }
+    }
+
+
+    /**
+     * Purpose: Measures the given graph.
+     * @param g The graph to profile.
+     * @return The graph profile with the memory estimates.
+     */
+    public static Profile profile(Graph<?> g) {
+        CsrGraph<?> csr = g instanceof CsrGraph ? (CsrGraph<?>) g : new CsrGraph<>(g);
+        return profileOf(csr);
+    }
+
+
+    /**
+     * Purpose: Copies the given graph into the representation with the
+     *          smallest expected memory, which may be the read-only CSR
+     *          representation.
+     * @param g The graph to copy.
+     * @return The copied graph.
+     */
+    public static <T> Graph<T> optimize(Graph<T> g) {
+        return optimize(g, false);
+    }
+
+
+    /**
+     * Purpose: Copies the given graph into the representation with the
+     *          smallest expected memory. The source graph is read once
+     *          (into CSR form) and the result is built from that copy.
+     * @param g The graph to copy.
+     * @param mutable True if the result must support add/remove/set.
+     * @return The copied graph.
+     */
+    public static <T> Graph<T> optimize(Graph<T> g, boolean mutable) {
+        CsrGraph<T> csr = g instanceof CsrGraph ? (CsrGraph<T>) g : new CsrGraph<>(g);
+        return convert(csr, profileOf(csr).best(mutable));
+    }
+
+
+    /**
+     * Purpose: Copies the given graph into the given representation. The
+     *          CSR rows are read once, in order, into one batch for addAll.
+     *          A graph with null labels is copied into a bit matrix when
+     *          the adjacency matrix is asked for, since the matrix would
+     *          drop those edges.
+     * @param g The graph to copy.
+     * @param r The representation of the copy.
+     * @return The copied graph.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Graph<T> convert(Graph<T> g, Representation r) {
+        CsrGraph<T> csr = g instanceof CsrGraph ? (CsrGraph<T>) g : new CsrGraph<>(g);
+        if (r == Representation.ADJACENCY_MATRIX && hasNullLabel(csr)) {
+            r = Representation.BIT_MATRIX;
+        }
+        Graph<T> result;
+        switch (r) {
+            case CSR:
+                return csr;
+            case ADJACENCY_MATRIX:
+                result = new AdjacencyMatrix<>(csr.nodeCount(), csr.directed());
+                break;
+            case BIT_MATRIX:
+                result = new BitMatrixGraph<>(csr.nodeCount(), csr.directed());
+                break;
+            default:
+                result = new AdjacencyList<>(csr.nodeCount(), csr.directed());
+                break;
+        }
+        // undirected edges are stored in both rows, only copy them once
+        int count = csr.edgeCount();
+        int[] src = new int[count];
+        int[] dst = new int[count];
+        T[] labels = csr.labeled() ? (T[]) new Object[count] : null;
+        int k = 0;
+        for (int u = 0; u < csr.nodeCount(); ++u) {
+            for (int i = 0; i < csr.outDegree(u); ++i) {
+                int v = csr.outNode(u, i);
+                if (csr.directed() || u <= v) {
+                    src[k] = u;
+                    dst[k] = v;
+                    if (labels != null) {
+                        labels[k] = csr.outLabel(u, i);
+                    }
+                    ++k;
+                }
+            }
+        }
+        result.addAll(src, labels, dst);
+        return result;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Profiles a graph that is already in CSR form.
+     */
+    private static Profile profileOf(CsrGraph<?> csr) {
+        return new Profile(csr, csr.labeled());
+    }
+
+
+    /**
+     * Purpose: Checks if any edge of a CSR graph has a null label.
+     */
+    private static boolean hasNullLabel(CsrGraph<?> csr) {
+        for (int u = 0; u < csr.nodeCount(); ++u) {
+            for (int i = 0; i < csr.outDegree(u); ++i) {
+                if (csr.outLabel(u, i) == null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
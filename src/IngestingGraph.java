@@ -0,0 +1,718 @@
+/*
+ * File: IngestingGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: An append-only graph for write paths that are mostly edge adds.
+ *       add appends the edge to a buffer owned by the calling thread, with
+ *       no lock, hashing or duplicate check. compact merges the buffered
+ *       edges into a new immutable CsrGraph segment (dropping duplicates,
+ *       the first copy of an edge wins as with addAll) and publishes it
+ *       with the buffer positions it covers in one atomic step. Queries
+ *       read the published segment plus the edges appended after it, so
+ *       the query overhead is bounded by the number of unmerged edges.
+ *       Compaction runs when a thread's unmerged edges reach the compact
+ *       threshold, on the background compactor if one is started (else in
+ *       the adding thread, unless a compaction is already running), or
+ *       when compact is called. Each compaction sorts only the new edges
+ *       and merges them row by row with the sorted segment. Edges can't
+ *       be removed or relabeled. The buffer of a thread that has ended is
+ *       handed to the next new writer thread, so the number of buffers is
+ *       bounded by the number of writers alive at once.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+public class IngestingGraph<T> implements Graph<T>, AutoCloseable {
+
+    // the number of edges in a buffer block (a power of two)
+    static final int BLOCK = 4096;
+
+    // the default number of unmerged edges a thread may buffer before a
+    // compaction is requested
+    static final int DEFAULT_COMPACT_THRESHOLD = 1 << 16;
+
+    /**
+     * A fixed size block of appended edges. Slots below the buffer size
+     * are never changed.
+     */
+    static final class Block {
+        final long start;
+        final int[] src = new int[BLOCK];
+        final int[] dst = new int[BLOCK];
+        final Object[] labels = new Object[BLOCK];
+        volatile Block next;
+
+        Block(long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * The edges appended by one thread: a chain of blocks written only by
+     * that thread. The size is published after each append, so readers
+     * only read filled slots. Once the owner has ended, another thread
+     * may take the buffer over and carry on appending.
+     */
+    static final class Buffer {
+        final int id;
+        // the writer thread (read and changed only by register)
+        WeakReference<Thread> owner;
+        // the oldest block with unmerged edges (advanced by compact)
+        volatile Block head;
+        // the block being filled (writer only)
+        Block tail;
+        // the number of edges appended, and the number merged
+        volatile long size;
+        volatile long merged;
+
+        Buffer(int id) {
+            this.id = id;
+            head = tail = new Block(0);
+        }
+    }
+
+    /**
+     * A published version: the merged segment and, for each buffer id,
+     * the number of its edges the segment holds.
+     */
+    static final class State<T> {
+        final CsrGraph<T> segment;
+        final long[] positions;
+
+        State(CsrGraph<T> segment, long[] positions) {
+            this.segment = segment;
+            this.positions = positions;
+        }
+
+        long position(Buffer buffer) {
+            return buffer.id < positions.length ? positions[buffer.id] : 0;
+        }
+    }
+
+    /**
+     * Receives unmerged edges; returns true to stop the scan.
+     */
+    private interface PendingVisitor {
+        boolean edge(int src, Object label, int dst);
+    }
+
+    // the total number of nodes in the graph (numbered 0 to nodes-1)
+    private final int nodeCount;
+
+    // true if the graph is directed, false if undirected
+    private final boolean directed;
+
+    // the unmerged edges a thread may buffer before compaction is requested
+    private final int compactThreshold;
+
+    // every thread's buffer (in id order) and the calling thread's buffer
+    private final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(this::register);
+
+    // the published segment and buffer positions
+    private final AtomicReference<State<T>> state;
+
+    // held by the running compaction
+    private final ReentrantLock compactLock = new ReentrantLock();
+
+    // the background compactor (null if not started), and whether a
+    // compaction was requested of it and hasn't started yet
+    private volatile ScheduledExecutorService compactor;
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+
+    //--------------------------------------------------------------------
+    // constructors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Initializes an empty graph with the default compact
+     *          threshold.
+     * @param nodeCount The number of nodes.
+     * @param directed True for a directed graph.
+     */
+    public IngestingGraph(int nodeCount, boolean directed) {
+        this(nodeCount, directed, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+
+    /**
+     * Purpose: Initializes an empty graph.
+     * @param nodeCount The number of nodes.
+     * @param directed True for a directed graph.
+     * @param compactThreshold The unmerged edges a thread may buffer
+     *                         before a compaction is requested.
+     */
+    public IngestingGraph(int nodeCount, boolean directed, int compactThreshold) {
+        if (compactThreshold < 1) {
+            throw new IllegalArgumentException("compact threshold must be positive: " + compactThreshold);
+        }
+        this.nodeCount = nodeCount;
+        this.directed = directed;
+        this.compactThreshold = compactThreshold;
+        CsrGraph<T> empty = new CsrGraph<>(nodeCount, directed, new int[nodeCount + 1], new int[0], null, 0);
+        state = new AtomicReference<>(new State<>(empty, new long[0]));
+    }
+
+
+    //--------------------------------------------------------------------
+    // compaction
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Starts a background thread that compacts every period and
+     *          whenever a thread's unmerged edges reach the threshold.
+     * @param periodMillis The time between periodic compactions.
+     */
+    public synchronized void startCompactor(long periodMillis) {
+        if (compactor != null) {
+            return;
+        }
+        ScheduledExecutorService started = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "graph-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        started.scheduleWithFixedDelay(this::compact, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        compactor = started;
+    }
+
+
+    /**
+     * Purpose: Stops the background compactor (if started), letting a
+     *          running compaction finish. Unmerged edges stay queryable.
+     */
+    public synchronized void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            compactor = null;
+        }
+    }
+
+
+    /**
+     * Purpose: Merges every buffered edge into a new segment and publishes
+     *          it. One compaction runs at a time, and appends by other
+     *          threads carry on while it runs.
+     */
+    public void compact() {
+        requested.set(false);
+        compactLock.lock();
+        try {
+            compactLocked();
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges appended and not
+     *          yet merged into the segment.
+     */
+    public long pendingEdges() {
+        State<T> current = state.get();
+        long pending = 0;
+        for (Buffer b : buffers) {
+            pending += b.size - current.position(b);
+        }
+        return pending;
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true if the graph is directed, otherwise false.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Appends a labeled edge to the calling thread's buffer
+     *          without a lock or duplicate check. A duplicate edge is
+     *          dropped when merged (the first copy wins).
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public void add(int node1, T label, int node2) {
+        if (node1 < 0 || node1 >= nodeCount || node2 < 0 || node2 >= nodeCount) {
+            throw new IndexOutOfBoundsException("edge " + node1 + " -> " + node2 + " outside 0.." + (nodeCount - 1));
+        }
+        Buffer b = buffer.get();
+        long size = b.size;
+        int slot = (int) (size & (BLOCK - 1));
+        if (slot == 0 && size > 0) {
+            Block next = new Block(size);
+            b.tail.next = next;
+            b.tail = next;
+        }
+        Block tail = b.tail;
+        tail.src[slot] = node1;
+        tail.dst[slot] = node2;
+        tail.labels[slot] = label;
+        b.size = size + 1;
+        if (size + 1 - b.merged >= compactThreshold) {
+            requestCompaction();
+        }
+    }
+
+
+    /**
+     * Purpose: Not supported, the graph is append-only.
+     */
+    public void remove(int node1, int node2) {
+        throw new UnsupportedOperationException("IngestingGraph is append-only");
+    }
+
+
+    /**
+     * Purpose: Not supported, the graph is append-only.
+     */
+    public void set(int node1, T label, int node2) {
+        throw new UnsupportedOperationException("IngestingGraph is append-only");
+    }
+
+
+    /**
+     * Purpose: Checks the segment and then the unmerged edges for an edge.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        Block[] heads = heads();
+        State<T> current = state.get();
+        if (current.segment.hasEdge(node1, node2)) {
+            return true;
+        }
+        return scan(heads, current, (src, label, dst) -> matches(src, dst, node1, node2));
+    }
+
+
+    /**
+     * Purpose: Finds the label of an edge in the segment, or else of its
+     *          first unmerged copy (null if unlabeled or no edge).
+     */
+    public T label(int node1, int node2) {
+        Block[] heads = heads();
+        State<T> current = state.get();
+        if (current.segment.hasEdge(node1, node2)) {
+            return current.segment.label(node1, node2);
+        }
+        Object[] found = new Object[1];
+        scan(heads, current, (src, label, dst) -> {
+            if (matches(src, dst, node1, node2)) {
+                found[0] = label;
+                return true;
+            }
+            return false;
+        });
+        @SuppressWarnings("unchecked")
+        T label = (T) found[0];
+        return label;
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming or outgoing edge of the
+     *          node, in ascending order.
+     */
+    public List<Integer> adjacent(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        Block[] heads = heads();
+        State<T> current = state.get();
+        List<Integer> nodesList = current.segment.adjacent(node);
+        scan(heads, current, (src, label, dst) -> {
+            if (src == node) {
+                nodesList.add(dst);
+            }
+            if (dst == node) {
+                nodesList.add(src);
+            }
+            return false;
+        });
+        return sortedUnique(nodesList);
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an outgoing edge of the node in the
+     *          segment and the unmerged edges, in ascending order.
+     */
+    public List<Integer> outNodes(int node) {
+        Block[] heads = heads();
+        State<T> current = state.get();
+        List<Integer> nodesList = current.segment.outNodes(node);
+        scan(heads, current, (src, label, dst) -> {
+            if (src == node) {
+                nodesList.add(dst);
+            } else if (!directed && dst == node) {
+                nodesList.add(src);
+            }
+            return false;
+        });
+        return sortedUnique(nodesList);
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming edge of the node in the
+     *          segment and the unmerged edges, in ascending order.
+     */
+    public List<Integer> inNodes(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        Block[] heads = heads();
+        State<T> current = state.get();
+        List<Integer> nodesList = current.segment.inNodes(node);
+        scan(heads, current, (src, label, dst) -> {
+            if (dst == node) {
+                nodesList.add(src);
+            }
+            return false;
+        });
+        return sortedUnique(nodesList);
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Counts the distinct edges in the segment and the unmerged
+     *          edges.
+     */
+    public int edgeCount() {
+        Block[] heads = heads();
+        State<T> current = state.get();
+        CsrGraph<T> segment = current.segment;
+        // the keys of the unmerged edges not in the segment
+        long[][] keys = {new long[16]};
+        int[] count = {0};
+        scan(heads, current, (src, label, dst) -> {
+            int a = src;
+            int b = dst;
+            if (!directed && a > b) {
+                a = dst;
+                b = src;
+            }
+            if (!segment.hasEdge(a, b)) {
+                if (count[0] == keys[0].length) {
+                    keys[0] = Arrays.copyOf(keys[0], 2 * count[0]);
+                }
+                keys[0][count[0]++] = ((long) a << 32) | b;
+            }
+            return false;
+        });
+        Arrays.sort(keys[0], 0, count[0]);
+        int unique = 0;
+        for (int i = 0; i < count[0]; ++i) {
+            if (i == 0 || keys[0][i] != keys[0][i - 1]) {
+                ++unique;
+            }
+        }
+        return segment.edgeCount() + unique;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Finds the calling thread's buffer: the buffer of a thread
+     *          that has ended if there is one, else a new registered one.
+     *          A taken over buffer keeps its id and edges, so the id
+     *          indexed positions and heads stay valid.
+     */
+    private synchronized Buffer register() {
+        Thread current = Thread.currentThread();
+        for (Buffer b : buffers) {
+            Thread owner = b.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                b.owner = new WeakReference<>(current);
+                return b;
+            }
+        }
+        Buffer b = new Buffer(buffers.size());
+        b.owner = new WeakReference<>(current);
+        buffers.add(b);
+        return b;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of registered buffers.
+     */
+    int bufferCount() {
+        return buffers.size();
+    }
+
+
+    /**
+     * Purpose: Compacts on the background compactor if started (once per
+     *          request), else in the calling thread. The calling thread
+     *          never waits for another compaction: if one is running the
+     *          request is skipped, and the next add past the threshold
+     *          asks again.
+     */
+    private void requestCompaction() {
+        ScheduledExecutorService running = compactor;
+        if (running == null) {
+            tryCompact();
+        } else if (requested.compareAndSet(false, true)) {
+            try {
+                running.execute(this::compact);
+            } catch (RejectedExecutionException e) {
+                // closed in between
+                tryCompact();
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Compacts in the calling thread unless a compaction is
+     *          already running.
+     */
+    private void tryCompact() {
+        if (compactLock.tryLock()) {
+            try {
+                compactLocked();
+            } finally {
+                compactLock.unlock();
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Merges the buffered edges and publishes the new segment
+     *          (the caller holds the compact lock).
+     */
+    private void compactLocked() {
+        State<T> old = state.get();
+        List<Buffer> all = new ArrayList<>(buffers);
+        long[] positions = new long[all.size()];
+        long pending = 0;
+        for (Buffer b : all) {
+            positions[b.id] = b.size;
+            pending += positions[b.id] - old.position(b);
+        }
+        if (pending == 0) {
+            return;
+        }
+        state.set(new State<>(merge(old, all, positions), positions));
+        // let the merged blocks be collected
+        for (Buffer b : all) {
+            b.merged = positions[b.id];
+            Block head = b.head;
+            while (head.next != null && head.start + BLOCK <= positions[b.id]) {
+                head = head.next;
+            }
+            b.head = head;
+        }
+    }
+
+
+    /**
+     * Purpose: Reads the head block of every buffer. Heads are read before
+     *          the state, so a state is never older than the heads (and
+     *          every edge it doesn't hold is still reachable from them).
+     */
+    private Block[] heads() {
+        Block[] heads = new Block[buffers.size()];
+        for (Buffer b : buffers) {
+            if (b.id < heads.length) {
+                heads[b.id] = b.head;
+            }
+        }
+        return heads;
+    }
+
+
+    /**
+     * Purpose: Visits the edges appended after a state's positions, in
+     *          buffer and append order, until the visitor stops.
+     * @return True if the visitor stopped the scan.
+     */
+    private boolean scan(Block[] heads, State<T> current, PendingVisitor visitor) {
+        for (Buffer b : buffers) {
+            if (b.id >= heads.length) {
+                continue;
+            }
+            long end = b.size;
+            long position = current.position(b);
+            Block block = heads[b.id];
+            while (position < end) {
+                while (block.start + BLOCK <= position) {
+                    block = block.next;
+                }
+                int last = (int) Math.min(BLOCK, end - block.start);
+                for (int i = (int) (position - block.start); i < last; ++i) {
+                    if (visitor.edge(block.src[i], block.labels[i], block.dst[i])) {
+                        return true;
+                    }
+                }
+                position = block.start + last;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Purpose: Checks if an appended edge is the edge from node1 to node2
+     *          (in either direction if undirected).
+     */
+    private boolean matches(int src, int dst, int node1, int node2) {
+        return (src == node1 && dst == node2) || (!directed && src == node2 && dst == node1);
+    }
+
+
+    /**
+     * Purpose: Sorts a list of nodes and drops repeats.
+     */
+    private static List<Integer> sortedUnique(List<Integer> nodes) {
+        nodes.sort(null);
+        List<Integer> unique = new ArrayList<>(nodes.size());
+        for (int node : nodes) {
+            if (unique.isEmpty() || unique.get(unique.size() - 1) != node) {
+                unique.add(node);
+            }
+        }
+        return unique;
+    }
+
+
+    /**
+     * Purpose: Builds the segment holding the old segment's edges and the
+     *          buffered edges up to the given positions. Only the new
+     *          edges are sorted; each node's new entries are then merged
+     *          with its sorted row of the old segment. Old entries come
+     *          first and the sort is stable, so the first copy of a
+     *          repeated edge wins.
+     */
+    private CsrGraph<T> merge(State<T> old, List<Buffer> all, long[] positions) {
+        CsrGraph<T> segment = old.segment;
+        // the out rows of the old segment (both directions if undirected)
+        int oldEntries = 0;
+        for (int u = 0; u < nodeCount; ++u) {
+            oldEntries += segment.outDegree(u);
+        }
+        long newEdges = 0;
+        for (Buffer b : all) {
+            newEdges += positions[b.id] - old.position(b);
+        }
+        long newEntries = directed ? newEdges : 2 * newEdges;
+        if (oldEntries + newEntries > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("segment would exceed " + Integer.MAX_VALUE + " entries");
+        }
+        long[] keys = new long[(int) newEntries];
+        int[] index = new int[keys.length];
+        Object[] newLabels = new Object[keys.length];
+        boolean labeled = segment.labeled();
+        int k = 0;
+        for (Buffer b : all) {
+            long position = old.position(b);
+            long end = positions[b.id];
+            Block block = b.head;
+            while (position < end) {
+                while (block.start + BLOCK <= position) {
+                    block = block.next;
+                }
+                int last = (int) Math.min(BLOCK, end - block.start);
+                for (int i = (int) (position - block.start); i < last; ++i) {
+                    int src = block.src[i];
+                    int dst = block.dst[i];
+                    Object label = block.labels[i];
+                    labeled |= label != null;
+                    keys[k] = ((long) src << 32) | dst;
+                    newLabels[k] = label;
+                    index[k] = k;
+                    ++k;
+                    if (!directed && src != dst) {
+                        keys[k] = ((long) dst << 32) | src;
+                        newLabels[k] = label;
+                        index[k] = k;
+                        ++k;
+                    }
+                }
+                position = block.start + last;
+            }
+        }
+        int count = k;
+        GraphBuilder.sortByKey(keys, index, count);
+
+        // merge each old row with the node's new entries, keeping the
+        // first copy of each entry
+        int[] offsets = new int[nodeCount + 1];
+        int[] targets = new int[oldEntries + count];
+        Object[] labels = labeled ? new Object[targets.length] : null;
+        int entries = 0;
+        int selfLoops = 0;
+        int next = 0;
+        for (int u = 0; u < nodeCount; ++u) {
+            int degree = segment.outDegree(u);
+            int i = 0;
+            int previous = -1;
+            while (i < degree || (next < count && (int) (keys[next] >>> 32) == u)) {
+                boolean fromNew = next < count && (int) (keys[next] >>> 32) == u;
+                int v;
+                Object label;
+                if (i < degree && (!fromNew || segment.outNode(u, i) <= (int) keys[next])) {
+                    v = segment.outNode(u, i);
+                    label = labels == null ? null : segment.outLabel(u, i);
+                    ++i;
+                } else {
+                    v = (int) keys[next];
+                    label = newLabels[index[next]];
+                    ++next;
+                }
+                if (v == previous) {
+                    continue;
+                }
+                previous = v;
+                targets[entries] = v;
+                if (labels != null) {
+                    labels[entries] = label;
+                }
+                if (u == v) {
+                    ++selfLoops;
+                }
+                ++entries;
+            }
+            offsets[u + 1] = entries;
+        }
+        int edgeCount = directed ? entries : (entries + selfLoops) / 2;
+        return new CsrGraph<>(nodeCount, directed, offsets,
+                entries == targets.length ? targets : Arrays.copyOf(targets, entries),
+                labels == null || entries == labels.length ? labels : Arrays.copyOf(labels, entries),
+                edgeCount);
+    }
+
+}
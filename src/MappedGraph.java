@@ -0,0 +1,514 @@
+/*
+ * File: MappedGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Read-only graph stored in a binary CSR file and accessed through
+ *       memory mapping, so opening a graph doesn't read it into the heap.
+ *
+ *       File layout (all values little-endian, sections 8-byte aligned):
+ *         header    128 bytes: magic, version, flags (1 = directed,
+ *                   2 = labeled), node count, edge count, row entry
+ *                   count, then the byte position of each section
+ *         outOffsets (nodeCount + 1) longs, entry index of each out row
+ *         outTargets entry count ints, sorted within each row
+ *         inOffsets, inSources   same layout for in rows (directed only,
+ *                   undirected graphs point these at the out sections)
+ *         labels    entry count ints parallel to outTargets (labeled
+ *                   only), with NULL_LABEL standing for a null label
+ *
+ *       Labels are stored as fixed-width ints so every section can be
+ *       indexed straight from the mapping. Other label types would need
+ *       a variable-length encoding and a decoding step on every lookup,
+ *       so the class is a Graph<Integer> rather than a Graph<T>; any
+ *       graph can still be written without its labels.
+ */
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class MappedGraph implements Graph<Integer> {
+
+    // file identification ("CSRG") and format version
+    static final int MAGIC = 0x43535247;
+    static final int VERSION = 1;
+
+    // header flags
+    static final int DIRECTED = 1;
+    static final int LABELED = 2;
+
+    // the on-disk value of a null label
+    public static final int NULL_LABEL = Integer.MIN_VALUE;
+
+    // the size of the header in bytes
+    static final int HEADER_BYTES = 128;
+
+    // each mapped segment covers 2^30 bytes (a MappedByteBuffer is
+    // limited to 2GB), which keeps aligned ints and longs in one segment
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    // the mapped file
+    private final MappedByteBuffer[] segments;
+
+    // values read from the header
+    private final int nodeCount;
+    private final long edgeCount;
+    private final boolean directed;
+    private final boolean labeled;
+
+    // the byte positions of each section
+    private final long outOffsets;
+    private final long outTargets;
+    private final long inOffsets;
+    private final long inSources;
+    private final long labels;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Maps the given file and reads its header.
+     * @param segments The mapped segments of the file.
+     */
+    private MappedGraph(MappedByteBuffer[] segments) throws IOException {
+        this.segments = segments;
+        if (getInt(0) != MAGIC || getInt(4) != VERSION) {
+            throw new IOException("not a version " + VERSION + " graph file");
+        }
+        int flags = getInt(8);
+        directed = (flags & DIRECTED) != 0;
+        labeled = (flags & LABELED) != 0;
+        nodeCount = (int) getLong(16);
+        edgeCount = getLong(24);
+        outOffsets = getLong(40);
+        outTargets = getLong(48);
+        inOffsets = getLong(56);
+        inSources = getLong(64);
+        labels = getLong(72);
+    }
+
+
+    //--------------------------------------------------------------------
+    // reading and writing files
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Opens a graph file by memory mapping it (read-only).
+     * @param path The file to open.
+     * @return The mapped graph.
+     */
+    public static MappedGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedGraph(map(channel, FileChannel.MapMode.READ_ONLY, channel.size()));
+        }
+    }
+
+
+    /**
+     * Purpose: Writes a graph and its (Integer) labels to a graph file.
+     * @param g The graph to write.
+     * @param path The file to write (replaced if it exists).
+     */
+    public static void write(Graph<Integer> g, Path path) throws IOException {
+        write(g, path, true);
+    }
+
+
+    /**
+     * Purpose: Writes a graph to a graph file. The file is written and
+     *          synced under a temporary name and then renamed over the
+     *          target, so a failed or interrupted write never leaves a
+     *          partial file under the target name.
+     * @param g The graph to write.
+     * @param path The file to write (replaced if it exists).
+     * @param withLabels True to write the label section, which requires
+     *                   every label to be an Integer (other than
+     *                   NULL_LABEL) or null.
+     */
+    public static void write(Graph<?> g, Path path, boolean withLabels) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            writeFile(g, temporary, withLabels);
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+
+    /**
+     * Purpose: Writes the graph file itself. The out rows are written
+     *          straight from the graph, and the in rows of a directed
+     *          graph are then built from the written out rows, so no
+     *          copy of the graph is held in memory.
+     */
+    private static void writeFile(Graph<?> g, Path path, boolean withLabels) throws IOException {
+        int n = g.nodeCount();
+        boolean directed = g.directed();
+        // first pass for the row sizes
+        long[] rowStart = new long[n + 1];
+        for (int u = 0; u < n; ++u) {
+            rowStart[u + 1] = rowStart[u] + g.outNodes(u).size();
+        }
+        long entries = rowStart[n];
+        long outOffsets = HEADER_BYTES;
+        long outTargets = outOffsets + 8L * (n + 1);
+        long inOffsets = directed ? align(outTargets + 4 * entries) : outOffsets;
+        long inSources = directed ? inOffsets + 8L * (n + 1) : outTargets;
+        long labels = withLabels ? align(Math.max(outTargets + 4 * entries, inSources + 4 * entries)) : 0;
+        long size = withLabels ? labels + 4 * entries : align(inSources + 4 * entries);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] out = map(channel, FileChannel.MapMode.READ_WRITE, size);
+            putInt(out, 0, MAGIC);
+            putInt(out, 4, VERSION);
+            putInt(out, 8, (directed ? DIRECTED : 0) | (withLabels ? LABELED : 0));
+            putLong(out, 16, n);
+            putLong(out, 24, g.edgeCount());
+            putLong(out, 32, entries);
+            putLong(out, 40, outOffsets);
+            putLong(out, 48, outTargets);
+            putLong(out, 56, inOffsets);
+            putLong(out, 64, inSources);
+            putLong(out, 72, labels);
+
+            // second pass for the out rows and labels
+            for (int u = 0; u <= n; ++u) {
+                putLong(out, outOffsets + 8L * u, rowStart[u]);
+            }
+            for (int u = 0; u < n; ++u) {
+                int[] row = sortedRow(g.outNodes(u));
+                for (int i = 0; i < row.length; ++i) {
+                    long entry = rowStart[u] + i;
+                    putInt(out, outTargets + 4 * entry, row[i]);
+                    if (withLabels) {
+                        Object label = g.label(u, row[i]);
+                        if (label != null && !(label instanceof Integer)) {
+                            throw new IllegalArgumentException("label of edge (" + u + ", "
+                                    + row[i] + ") is not an Integer");
+                        }
+                        if (label != null && (Integer) label == NULL_LABEL) {
+                            throw new IllegalArgumentException("label " + NULL_LABEL
+                                    + " is reserved for null labels");
+                        }
+                        putInt(out, labels + 4 * entry, label == null ? NULL_LABEL : (Integer) label);
+                    }
+                }
+            }
+
+            // counting sort of the written out rows into in rows
+            if (directed) {
+                long[] inStart = new long[n + 1];
+                for (long entry = 0; entry < entries; ++entry) {
+                    ++inStart[getInt(out, outTargets + 4 * entry) + 1];
+                }
+                for (int v = 0; v < n; ++v) {
+                    inStart[v + 1] += inStart[v];
+                }
+                for (int v = 0; v <= n; ++v) {
+                    putLong(out, inOffsets + 8L * v, inStart[v]);
+                }
+                for (int u = 0; u < n; ++u) {
+                    for (long entry = rowStart[u]; entry < rowStart[u + 1]; ++entry) {
+                        int v = getInt(out, outTargets + 4 * entry);
+                        putInt(out, inSources + 4 * inStart[v]++, u);
+                    }
+                }
+            }
+            for (MappedByteBuffer segment : out) {
+                segment.force();
+            }
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for whether the graph is directed.
+     * @return True if directed, false if undirected.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Not supported, mapped graphs are read-only.
+     */
+    public void add(int node1, Integer label, int node2) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Not supported, mapped graphs are read-only.
+     */
+    public void remove(int node1, int node2) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Not supported, mapped graphs are read-only.
+     */
+    public void set(int node1, Integer label, int node2) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+
+    /**
+     * Purpose: Checks for an edge with a binary search of node1's row.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return True if the graph contains an edge from node1 to node2.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        return entryOf(node1, node2) >= 0;
+    }
+
+
+    /**
+     * Purpose: Fetches the label of an edge.
+     * @param node1 The starting node if directed.
+     * @param node2 The ending node if directed.
+     * @return The edge label, or null if there is no such edge or label.
+     */
+    public Integer label(int node1, int node2) {
+        if (!labeled) {
+            return null;
+        }
+        long entry = entryOf(node1, node2);
+        if (entry < 0) {
+            return null;
+        }
+        int label = getInt(labels + 4 * entry);
+        return label == NULL_LABEL ? null : label;
+    }
+
+
+    /**
+     * Purpose: Finds all nodes on an in or out edge of the given node.
+     * @param node The node to find the adjacent nodes of.
+     * @return The adjacent nodes in ascending order.
+     */
+    public List<Integer> adjacent(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        long i = getLong(outOffsets + 8L * node);
+        long iEnd = getLong(outOffsets + 8L * (node + 1));
+        long j = getLong(inOffsets + 8L * node);
+        long jEnd = getLong(inOffsets + 8L * (node + 1));
+        List<Integer> nodesList = new ArrayList<>((int) (iEnd - i + jEnd - j));
+        while (i < iEnd || j < jEnd) {
+            int out = i < iEnd ? getInt(outTargets + 4 * i) : Integer.MAX_VALUE;
+            int in = j < jEnd ? getInt(inSources + 4 * j) : Integer.MAX_VALUE;
+            if (i < iEnd && (j >= jEnd || out <= in)) {
+                nodesList.add(out);
+                ++i;
+                if (j < jEnd && out == in) {
+                    ++j;
+                }
+            } else {
+                nodesList.add(in);
+                ++j;
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Reads the out row of the given node.
+     * @param node The node to find the out nodes of.
+     * @return The out nodes in ascending order.
+     */
+    public List<Integer> outNodes(int node) {
+        return readRow(outOffsets, outTargets, node);
+    }
+
+
+    /**
+     * Purpose: Reads the in row of the given node.
+     * @param node The node to find the in nodes of.
+     * @return The in nodes in ascending order.
+     */
+    public List<Integer> inNodes(int node) {
+        return readRow(inOffsets, inSources, node);
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     * @return Integer count of nodes in Graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges in the graph,
+     *          capped at Integer.MAX_VALUE (see edgeCountLong).
+     * @return Integer count of edges in Graph.
+     */
+    public int edgeCount() {
+        return (int) Math.min(edgeCount, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Purpose: Generic getter for the full number of edges in the graph.
+     * @return The edge count as a long.
+     */
+    public long edgeCountLong() {
+        return edgeCount;
+    }
+
+
+    /**
+     * Purpose: Checks if the file has a label section.
+     * @return True if labels are stored.
+     */
+    public boolean labeled() {
+        return labeled;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Fsyncs a directory so a renamed file survives a crash (not
+     *          possible on every platform).
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directories can't be opened for syncing on some platforms
+        }
+    }
+
+
+    /**
+     * Purpose: Finds the entry index of an edge with a binary search.
+     * @return The entry index, or -1 if there is no such edge.
+     */
+    private long entryOf(int node1, int node2) {
+        long low = getLong(outOffsets + 8L * node1);
+        long high = getLong(outOffsets + 8L * (node1 + 1)) - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int v = getInt(outTargets + 4 * mid);
+            if (v < node2) {
+                low = mid + 1;
+            } else if (v > node2) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Purpose: Reads one row of an offsets/values section pair.
+     */
+    private List<Integer> readRow(long offsets, long values, int node) {
+        long start = getLong(offsets + 8L * node);
+        long end = getLong(offsets + 8L * (node + 1));
+        List<Integer> nodesList = new ArrayList<>((int) (end - start));
+        for (long entry = start; entry < end; ++entry) {
+            nodesList.add(getInt(values + 4 * entry));
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Copies a row into a sorted array.
+     */
+    private static int[] sortedRow(List<Integer> row) {
+        int[] result = new int[row.size()];
+        boolean sorted = true;
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = row.get(i);
+            sorted &= i == 0 || result[i - 1] < result[i];
+        }
+        if (!sorted) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+
+    /**
+     * Purpose: Rounds a position up to a multiple of 8.
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+
+    /**
+     * Purpose: Maps a file as a series of segments.
+     */
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode,
+                                          long size) throws IOException {
+        int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; ++i) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, start, Math.min(SEGMENT_MASK + 1, size - start));
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+
+    private int getInt(long position) {
+        return getInt(segments, position);
+    }
+
+
+    private long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+
+    private static int getInt(MappedByteBuffer[] segments, long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+
+    private static void putInt(MappedByteBuffer[] segments, long position, int value) {
+        segments[(int) (position >>> SEGMENT_SHIFT)].putInt((int) (position & SEGMENT_MASK), value);
+    }
+
+
+    private static void putLong(MappedByteBuffer[] segments, long position, long value) {
+        segments[(int) (position >>> SEGMENT_SHIFT)].putLong((int) (position & SEGMENT_MASK), value);
+    }
+
+}
@@ -0,0 +1,416 @@
+/*
+ * File: PersistentGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: A graph whose versions share structure, for what-if analysis on
+ *       many small variants of one graph. Nodes map to their rows, and
+ *       each row maps neighbor nodes to edge labels, both in persistent
+ *       32-way bitmap tries keyed by node id (a node with no edges and a
+ *       missing neighbor take no space). A change copies only the trie
+ *       nodes on the path to the changed entry, O(log32 n) nodes of at
+ *       most 32 slots, and leaves the old version intact. fork() makes an
+ *       independent copy in constant time, and with, without and
+ *       withLabel return changed copies without touching this graph.
+ *       Forks share all unchanged structure; each version is not thread
+ *       safe to change, but separate forks can be used by separate
+ *       threads.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class PersistentGraph<T> implements Graph<T> {
+
+    // bits of the node id used at each trie level
+    static final int BITS = 5;
+    static final int MASK = (1 << BITS) - 1;
+
+    // stored in place of a null label (a null slot means no entry)
+    private static final Object NULL_LABEL = new Object();
+
+    /**
+     * One trie node: a bitmap of the occupied slots out of 32, and the
+     * occupied slots in order. Slots hold child trie nodes, or the
+     * values at the last level. Never changed once built.
+     */
+    static final class Trie {
+        final int bitmap;
+        final Object[] slots;
+
+        Trie(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    // the total number of nodes in the graph (numbered 0 to nodes-1)
+    private final int nodeCount;
+
+    // true if the graph is directed, false if undirected
+    private final boolean directed;
+
+    // the shift of the top trie level (enough levels for every node id)
+    private final int topShift;
+
+    // the rows by node id (null when the graph has no edges)
+    private Trie rows;
+
+    // the total number of edges in the graph
+    private int edgeCount;
+
+
+    //--------------------------------------------------------------------
+    // constructors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Initializes an empty graph with the given number of nodes
+     *          and the given directionality.
+     * @param nodeCount The number of nodes.
+     * @param directed True for a directed graph.
+     */
+    public PersistentGraph(int nodeCount, boolean directed) {
+        this(nodeCount, directed, topShift(nodeCount), null, 0);
+    }
+
+
+    /**
+     * Purpose: Creates a version sharing the given rows.
+     */
+    private PersistentGraph(int nodeCount, boolean directed, int topShift, Trie rows, int edgeCount) {
+        this.nodeCount = nodeCount;
+        this.directed = directed;
+        this.topShift = topShift;
+        this.rows = rows;
+        this.edgeCount = edgeCount;
+    }
+
+
+    //--------------------------------------------------------------------
+    // versions
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Copies the graph in constant time. Changes to the copy or
+     *          to this graph don't affect the other.
+     * @return The copy.
+     */
+    public PersistentGraph<T> fork() {
+        return new PersistentGraph<>(nodeCount, directed, topShift, rows, edgeCount);
+    }
+
+
+    /**
+     * Purpose: Returns a copy with the edge added, in O(log n).
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     * @return The changed copy.
+     */
+    public PersistentGraph<T> with(int node1, T label, int node2) {
+        PersistentGraph<T> next = fork();
+        next.add(node1, label, node2);
+        return next;
+    }
+
+
+    /**
+     * Purpose: Returns a copy with the edge removed, in O(log n).
+     * @param node1 The starting node if the graph is directed.
+     * @param node2 The ending node if the graph is directed.
+     * @return The changed copy.
+     */
+    public PersistentGraph<T> without(int node1, int node2) {
+        PersistentGraph<T> next = fork();
+        next.remove(node1, node2);
+        return next;
+    }
+
+
+    /**
+     * Purpose: Returns a copy with the edge label changed, in O(log n).
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The new label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     * @return The changed copy.
+     */
+    public PersistentGraph<T> withLabel(int node1, T label, int node2) {
+        PersistentGraph<T> next = fork();
+        next.set(node1, label, node2);
+        return next;
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true if the graph is directed, otherwise false.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Adds a labeled edge to this version from node1 to node2 if
+     *          it isn't already there. Other versions don't see it.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public void add(int node1, T label, int node2) {
+        if (hasEdge(node1, node2)) {
+            System.out.println("Invalid Add: NODE " + node1 + " already contains edge to NODE " + node2);
+            return;
+        }
+        putEdge(node1, label, node2);
+        ++edgeCount;
+    }
+
+
+    /**
+     * Purpose: Removes the edge between node1 and node2 from this version
+     *          if it exists. Other versions keep it.
+     * @param node1 The starting node if the graph is directed.
+     * @param node2 The ending node if the graph is directed.
+     */
+    public void remove(int node1, int node2) {
+        if (!hasEdge(node1, node2)) {
+            System.out.println("Invalid Remove: " + node1 + " is already null");
+            return;
+        }
+        rows = updateRow(rows, node1, remove((Trie) get(rows, node1, topShift), node2, topShift));
+        if (!directed && node1 != node2) {
+            rows = updateRow(rows, node2, remove((Trie) get(rows, node2, topShift), node1, topShift));
+        }
+        --edgeCount;
+    }
+
+
+    /**
+     * Purpose: Sets the label on an existing edge of this version (both
+     *          directions if undirected). Other versions keep the old label.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public void set(int node1, T label, int node2) {
+        if (hasEdge(node1, node2)) {
+            putEdge(node1, label, node2);
+        }
+    }
+
+
+    /**
+     * Purpose: Generic getter for the label on the edge from node1 to
+     *          node2 (null if unlabeled or there is no edge).
+     */
+    @SuppressWarnings("unchecked")
+    public T label(int node1, int node2) {
+        Object label = get((Trie) get(rows, node1, topShift), node2, topShift);
+        return label == NULL_LABEL ? null : (T) label;
+    }
+
+
+    /**
+     * Purpose: Checks for an edge from node1 to node2.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        return get((Trie) get(rows, node1, topShift), node2, topShift) != null;
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming or outgoing edge of the
+     *          node, in ascending order.
+     */
+    public List<Integer> adjacent(int node) {
+        if (!directed) {
+            return outNodes(node);
+        }
+        List<Integer> nodesList = new ArrayList<>();
+        for (int index = 0; index < nodeCount; ++index) {
+            if (hasEdge(node, index) || hasEdge(index, node)) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Copies the nodes on an outgoing edge of the node, in
+     *          ascending order.
+     */
+    public List<Integer> outNodes(int node) {
+        List<Integer> nodesList = new ArrayList<>();
+        addKeys((Trie) get(rows, node, topShift), topShift, 0, nodesList);
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming edge of the node by checking
+     *          every row.
+     */
+    public List<Integer> inNodes(int node) {
+        List<Integer> nodesList = new ArrayList<>();
+        for (int index = 0; index < nodeCount; ++index) {
+            if (hasEdge(index, node)) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges in the graph.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Stores an edge label in the row of node1 (and of node2 if
+     *          undirected), replacing any label already there.
+     */
+    private void putEdge(int node1, T label, int node2) {
+        Object stored = label == null ? NULL_LABEL : label;
+        rows = put(rows, node1, put((Trie) get(rows, node1, topShift), node2, stored, topShift), topShift);
+        if (!directed && node1 != node2) {
+            rows = put(rows, node2, put((Trie) get(rows, node2, topShift), node1, stored, topShift), topShift);
+        }
+    }
+
+
+    /**
+     * Purpose: Replaces a row, dropping it when it became empty.
+     */
+    private Trie updateRow(Trie rows, int node, Trie row) {
+        return row == null ? remove(rows, node, topShift) : put(rows, node, row, topShift);
+    }
+
+
+    /**
+     * Purpose: Finds the shift of the top level of a trie over the node
+     *          ids 0 to nodeCount-1.
+     */
+    static int topShift(int nodeCount) {
+        int shift = 0;
+        while (shift + BITS < 32 && (nodeCount - 1) >>> (shift + BITS) != 0) {
+            shift += BITS;
+        }
+        return shift;
+    }
+
+
+    /**
+     * Purpose: Looks up a key in a trie.
+     * @return The value, or null if the key is missing.
+     */
+    static Object get(Trie trie, int key, int shift) {
+        while (trie != null) {
+            int bit = 1 << ((key >>> shift) & MASK);
+            if ((trie.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = trie.slots[Integer.bitCount(trie.bitmap & (bit - 1))];
+            if (shift == 0) {
+                return slot;
+            }
+            trie = (Trie) slot;
+            shift -= BITS;
+        }
+        return null;
+    }
+
+
+    /**
+     * Purpose: Builds a trie with a key set to a (non-null) value, copying
+     *          only the path to the key.
+     */
+    static Trie put(Trie trie, int key, Object value, int shift) {
+        int bit = 1 << ((key >>> shift) & MASK);
+        if (trie == null) {
+            Object child = shift == 0 ? value : put(null, key, value, shift - BITS);
+            return new Trie(bit, new Object[] {child});
+        }
+        int at = Integer.bitCount(trie.bitmap & (bit - 1));
+        if ((trie.bitmap & bit) != 0) {
+            Object[] slots = trie.slots.clone();
+            slots[at] = shift == 0 ? value : put((Trie) slots[at], key, value, shift - BITS);
+            return new Trie(trie.bitmap, slots);
+        }
+        Object[] slots = new Object[trie.slots.length + 1];
+        System.arraycopy(trie.slots, 0, slots, 0, at);
+        slots[at] = shift == 0 ? value : put(null, key, value, shift - BITS);
+        System.arraycopy(trie.slots, at, slots, at + 1, trie.slots.length - at);
+        return new Trie(trie.bitmap | bit, slots);
+    }
+
+
+    /**
+     * Purpose: Builds a trie without a key, copying only the path to it.
+     * @return The new trie, or null if it became empty.
+     */
+    static Trie remove(Trie trie, int key, int shift) {
+        int bit = 1 << ((key >>> shift) & MASK);
+        if (trie == null || (trie.bitmap & bit) == 0) {
+            return trie;
+        }
+        int at = Integer.bitCount(trie.bitmap & (bit - 1));
+        Trie child = shift == 0 ? null : remove((Trie) trie.slots[at], key, shift - BITS);
+        if (child != null) {
+            Object[] slots = trie.slots.clone();
+            slots[at] = child;
+            return new Trie(trie.bitmap, slots);
+        }
+        if (trie.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[trie.slots.length - 1];
+        System.arraycopy(trie.slots, 0, slots, 0, at);
+        System.arraycopy(trie.slots, at + 1, slots, at, slots.length - at);
+        return new Trie(trie.bitmap & ~bit, slots);
+    }
+
+
+    /**
+     * Purpose: Adds the keys of a trie to a list in ascending order.
+     */
+    static void addKeys(Trie trie, int shift, int prefix, List<Integer> keys) {
+        if (trie == null) {
+            return;
+        }
+        int bitmap = trie.bitmap;
+        for (int at = 0; bitmap != 0; ++at) {
+            int index = Integer.numberOfTrailingZeros(bitmap);
+            bitmap &= bitmap - 1;
+            int key = prefix | (index << shift);
+            if (shift == 0) {
+                keys.add(key);
+            } else {
+                addKeys((Trie) trie.slots[at], shift - BITS, key, keys);
+            }
+        }
+    }
+
+}
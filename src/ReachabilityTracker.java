@@ -0,0 +1,366 @@
+/*
+ * File: ReachabilityTracker.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Wraps a graph and keeps its transitive closure up to date as
+ *       edges are added, without adding the closure edges to the graph
+ *       the way transitiveClosure does. Each node has a row of bits
+ *       marking the nodes it reaches (itself included). Adding an edge
+ *       from x to y only changes the rows that reach x but not yet y
+ *       (Italiano's observation): a backward search from x over the
+ *       in-neighbors (kept by the tracker) finds them, each such row gains
+ *       y's row, 64 nodes per word, and the search stops at rows that
+ *       already reach y. The rows take n*n bits, so this suits graphs of
+ *       up to some tens of thousands of nodes. Removing an edge can't be undone row by row,
+ *       so it marks the closure stale and it is rebuilt on the next query.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class ReachabilityTracker<T> implements Graph<T> {
+
+    // the graph whose closure is kept
+    private final Graph<T> graph;
+
+    // the nodes each node reaches, one bit per node
+    private final long[][] reach;
+
+    // the number of words in a row
+    private final int words;
+
+    // each node's in-neighbors (the first inDegree entries of its row;
+    // both ends of an undirected edge list each other)
+    private final int[][] in;
+    private final int[] inDegree;
+
+    // the search stack for joining and rebuilding (reused by every search)
+    private final int[] stack;
+
+    // true if an edge was removed since the closure was built
+    private boolean stale;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Wraps the graph and computes its closure. From now on the
+     *          graph should only be changed through the tracker.
+     * @param graph The graph to track.
+     */
+    public ReachabilityTracker(Graph<T> graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        words = (n + 63) >>> 6;
+        reach = new long[n][words];
+        stack = new int[n];
+        in = new int[n][];
+        inDegree = new int[n];
+        for (int u = 0; u < n; ++u) {
+            for (int v : graph.outNodes(u))
+                ++inDegree[v];
+        }
+        for (int v = 0; v < n; ++v) {
+            in[v] = new int[Math.max(2, inDegree[v])];
+            inDegree[v] = 0;
+        }
+        for (int u = 0; u < n; ++u) {
+            for (int v : graph.outNodes(u))
+                in[v][inDegree[v]++] = u;
+        }
+        rebuild();
+    }
+
+
+    //--------------------------------------------------------------------
+    // closure queries
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Checks if there is a path from node1 to node2 (every node
+     *          reaches itself).
+     * @param node1 The starting node.
+     * @param node2 The ending node.
+     * @return True if node2 can be reached from node1.
+     */
+    public boolean reachable(int node1, int node2) {
+        refresh();
+        return (reach[node1][node2 >>> 6] & (1L << node2)) != 0;
+    }
+
+
+    /**
+     * Purpose: Lists the nodes a node reaches, in ascending order.
+     * @param node The starting node.
+     * @return The nodes reachable from the node, itself included.
+     */
+    public List<Integer> reachableFrom(int node) {
+        refresh();
+        List<Integer> nodesList = new ArrayList<>();
+        long[] row = reach[node];
+        for (int w = 0; w < words; ++w) {
+            for (long bits = row[w]; bits != 0; bits &= bits - 1)
+                nodesList.add((w << 6) + Long.numberOfTrailingZeros(bits));
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the wrapped graph.
+     * @return The tracked graph.
+     */
+    public Graph<T> graph() {
+        return graph;
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true if the graph is directed, otherwise false.
+     */
+    public boolean directed() {
+        return graph.directed();
+    }
+
+
+    /**
+     * Purpose: Adds a labeled edge to the graph and the pairs it makes
+     *          reachable to the closure.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public void add(int node1, T label, int node2) {
+        boolean added = !graph.hasEdge(node1, node2);
+        graph.add(node1, label, node2);
+        if (added) {
+            link(node1, node2);
+            connect(node1, node2);
+        }
+    }
+
+
+    /**
+     * Purpose: Adds a batch of labeled edges and their reachable pairs.
+     *          Like the other graphs, edges already in the graph (or
+     *          earlier in the batch) are skipped without a message.
+     * @param src The starting node of each edge if directed.
+     * @param labels The label of each edge, or null if all are unlabeled.
+     * @param dst The ending node of each edge if directed.
+     */
+    public void addAll(int[] src, T[] labels, int[] dst) {
+        for (int i = 0; i < src.length; ++i) {
+            if (!graph.hasEdge(src[i], dst[i])) {
+                add(src[i], labels == null ? null : labels[i], dst[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Removes an edge from the graph. The closure is rebuilt on
+     *          the next query.
+     * @param node1 The starting node if the graph is directed.
+     * @param node2 The ending node if the graph is directed.
+     */
+    public void remove(int node1, int node2) {
+        if (graph.hasEdge(node1, node2)) {
+            unlink(node1, node2);
+            stale = true;
+        }
+        graph.remove(node1, node2);
+    }
+
+
+    public void set(int node1, T label, int node2) {
+        graph.set(node1, label, node2);
+    }
+
+
+    public T label(int node1, int node2) {
+        return graph.label(node1, node2);
+    }
+
+
+    public boolean hasEdge(int node1, int node2) {
+        return graph.hasEdge(node1, node2);
+    }
+
+
+    public List<Integer> adjacent(int node) {
+        return graph.adjacent(node);
+    }
+
+
+    public List<Integer> outNodes(int node) {
+        return graph.outNodes(node);
+    }
+
+
+    public List<Integer> inNodes(int node) {
+        return graph.inNodes(node);
+    }
+
+
+    public int nodeCount() {
+        return graph.nodeCount();
+    }
+
+
+    public int edgeCount() {
+        return graph.edgeCount();
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Updates the closure for a new edge (both directions if the
+     *          graph is undirected). Skipped while the closure is stale,
+     *          since the rebuild will see the edge.
+     */
+    private void connect(int node1, int node2) {
+        if (stale) {
+            return;
+        }
+        join(node1, node2);
+        if (!graph.directed()) {
+            join(node2, node1);
+        }
+    }
+
+
+    /**
+     * Purpose: Gives every node that reaches x but not y everything y
+     *          reaches. y's row is closed, so this is the whole change.
+     *          The nodes are found by a search back from x that doesn't
+     *          pass a node already reaching y (the nodes behind it reach y
+     *          too), and the y bit a node gains marks it as visited.
+     */
+    private void join(int x, int y) {
+        long[] target = reach[y];
+        int yWord = y >>> 6;
+        long yBit = 1L << y;
+        if ((reach[x][yWord] & yBit) != 0) {
+            return;
+        }
+        int top = 0;
+        merge(reach[x], target);
+        stack[top++] = x;
+        while (top > 0) {
+            int u = stack[--top];
+            int[] row = in[u];
+            for (int i = 0; i < inDegree[u]; ++i) {
+                long[] source = reach[row[i]];
+                if ((source[yWord] & yBit) == 0) {
+                    merge(source, target);
+                    stack[top++] = row[i];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Adds the nodes of one row to another, a word at a time.
+     */
+    private void merge(long[] row, long[] target) {
+        for (int w = 0; w < words; ++w)
+            row[w] |= target[w];
+    }
+
+
+    /**
+     * Purpose: Records a new edge in the in-neighbor lists.
+     */
+    private void link(int node1, int node2) {
+        in[node2] = push(in[node2], inDegree[node2]++, node1);
+        if (!graph.directed() && node1 != node2) {
+            in[node1] = push(in[node1], inDegree[node1]++, node2);
+        }
+    }
+
+
+    /**
+     * Purpose: Drops a removed edge from the in-neighbor lists.
+     */
+    private void unlink(int node1, int node2) {
+        drop(node2, node1);
+        if (!graph.directed() && node1 != node2) {
+            drop(node1, node2);
+        }
+    }
+
+
+    /**
+     * Purpose: Removes one entry from a node's in-neighbors.
+     */
+    private void drop(int node, int neighbor) {
+        int[] row = in[node];
+        for (int i = 0; i < inDegree[node]; ++i) {
+            if (row[i] == neighbor) {
+                row[i] = row[--inDegree[node]];
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Stores a value in an array, growing it if needed.
+     * @return The array (a larger copy if it grew).
+     */
+    private static int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+
+
+    /**
+     * Purpose: Rebuilds the closure if an edge was removed.
+     */
+    private void refresh() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+
+    /**
+     * Purpose: Computes every row with a depth first search from its node,
+     *          using the row itself as the visited marks.
+     */
+    private void rebuild() {
+        for (int u = 0; u < reach.length; ++u) {
+            long[] row = reach[u];
+            Arrays.fill(row, 0);
+            row[u >>> 6] |= 1L << u;
+            int top = 0;
+            stack[top++] = u;
+            while (top > 0) {
+                for (int v : graph.outNodes(stack[--top])) {
+                    if ((row[v >>> 6] & (1L << v)) == 0) {
+                        row[v >>> 6] |= 1L << v;
+                        stack[top++] = v;
+                    }
+                }
+            }
+        }
+        stale = false;
+    }
+
+}
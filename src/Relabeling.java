@@ -0,0 +1,340 @@
+/*
+ * File: Relabeling.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Renumbers the nodes of a graph so that nodes visited together
+ *       are stored close together (Reverse Cuthill-McKee, degree or BFS
+ *       order). The renumbered graph is stored in CSR form, and the
+ *       algorithm helpers translate results back to the original ids.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class Relabeling<T> {
+
+    // forward[old] is the new id of an original node
+    private final int[] forward;
+
+    // inverse[new] is the original id of a renumbered node
+    private final int[] inverse;
+
+    // the renumbered graph
+    private final CsrGraph<T> graph;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Builds the renumbered copy of a graph for the given order.
+     * @param g The original graph in CSR form.
+     * @param inverse The original node id at each new position.
+     */
+    private Relabeling(CsrGraph<T> g, int[] inverse) {
+        int n = g.nodeCount();
+        this.inverse = inverse;
+        forward = new int[n];
+        for (int i = 0; i < n; ++i) {
+            forward[inverse[i]] = i;
+        }
+        // copy the rows in their new order, renaming and re-sorting the
+        // targets of each row (labels travel with their targets)
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            offsets[i + 1] = offsets[i] + g.outDegree(inverse[i]);
+        }
+        int[] targets = new int[offsets[n]];
+        Object[] labels = g.labeled() ? new Object[offsets[n]] : null;
+        long[] row = new long[0];
+        for (int i = 0; i < n; ++i) {
+            int old = inverse[i];
+            int d = g.outDegree(old);
+            if (row.length < d) {
+                row = new long[d];
+            }
+            // pack (new target, old target) pairs so one sort orders both
+            for (int k = 0; k < d; ++k) {
+                int v = g.outNode(old, k);
+                row[k] = ((long) forward[v] << 32) | v;
+            }
+            Arrays.sort(row, 0, d);
+            for (int k = 0; k < d; ++k) {
+                targets[offsets[i] + k] = (int) (row[k] >>> 32);
+                if (labels != null) {
+                    labels[offsets[i] + k] = g.label(old, (int) row[k]);
+                }
+            }
+        }
+        graph = new CsrGraph<>(n, g.directed(), offsets, targets, labels, g.edgeCount());
+    }
+
+
+    //--------------------------------------------------------------------
+    // orderings
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Renumbers the nodes in Reverse Cuthill-McKee order. Each
+     *          component is searched breadth-first from a node of lowest
+     *          degree, visiting neighbors by increasing degree, and the
+     *          final order is reversed. Edge directions are ignored.
+     * @param g The graph to renumber.
+     * @return The renumbering.
+     */
+    public static <T> Relabeling<T> reverseCuthillMcKee(Graph<T> g) {
+        CsrGraph<T> csr = csrOf(g);
+        int n = csr.nodeCount();
+        int[] degree = new int[n];
+        Integer[] byDegree = new Integer[n];
+        for (int u = 0; u < n; ++u) {
+            degree[u] = csr.adjacent(u).size();
+            byDegree[u] = u;
+        }
+        Arrays.sort(byDegree, (a, b) -> degree[a] != degree[b] ? degree[a] - degree[b] : a - b);
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int count = 0;
+        for (int start : byDegree) {
+            if (visited[start]) {
+                continue;
+            }
+            visited[start] = true;
+            order[count++] = start;
+            // the order array doubles as the BFS queue
+            for (int head = count - 1; head < count; ++head) {
+                List<Integer> next = csr.adjacent(order[head]);
+                next.sort((a, b) -> degree[a] != degree[b] ? degree[a] - degree[b] : a - b);
+                for (int v : next) {
+                    if (!visited[v]) {
+                        visited[v] = true;
+                        order[count++] = v;
+                    }
+                }
+            }
+        }
+        for (int i = 0, j = n - 1; i < j; ++i, --j) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return new Relabeling<>(csr, order);
+    }
+
+
+    /**
+     * Purpose: Renumbers the nodes by decreasing degree (in plus out), so
+     *          the hubs share the first cache lines. Ties keep the
+     *          original order.
+     * @param g The graph to renumber.
+     * @return The renumbering.
+     */
+    public static <T> Relabeling<T> degreeDescending(Graph<T> g) {
+        CsrGraph<T> csr = csrOf(g);
+        int n = csr.nodeCount();
+        long[] keys = new long[n];
+        for (int u = 0; u < n; ++u) {
+            int degree = csr.directed() ? csr.outDegree(u) + csr.inDegree(u) : csr.outDegree(u);
+            // sort ascending on (-degree, u)
+            keys[u] = ((long) (Integer.MAX_VALUE - degree) << 32) | u;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[n];
+        for (int i = 0; i < n; ++i) {
+            order[i] = (int) keys[i];
+        }
+        return new Relabeling<>(csr, order);
+    }
+
+
+    /**
+     * Purpose: Renumbers the nodes in breadth-first order from the given
+     *          source (following out-edges), followed by the nodes it
+     *          can't reach, searched breadth-first from the lowest id.
+     * @param g The graph to renumber.
+     * @param src The node that becomes node 0.
+     * @return The renumbering.
+     */
+    public static <T> Relabeling<T> bfsOrder(Graph<T> g, int src) {
+        CsrGraph<T> csr = csrOf(g);
+        int n = csr.nodeCount();
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int count = 0;
+        for (int s = -1; s < n; ++s) {
+            int start = s < 0 ? src : s;
+            if (n == 0 || visited[start]) {
+                continue;
+            }
+            visited[start] = true;
+            order[count++] = start;
+            for (int head = count - 1; head < count; ++head) {
+                int u = order[head];
+                for (int k = 0; k < csr.outDegree(u); ++k) {
+                    int v = csr.outNode(u, k);
+                    if (!visited[v]) {
+                        visited[v] = true;
+                        order[count++] = v;
+                    }
+                }
+            }
+        }
+        return new Relabeling<>(csr, order);
+    }
+
+
+    //--------------------------------------------------------------------
+    // accessors
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the renumbered graph.
+     * @return The read-only renumbered graph.
+     */
+    public Graph<T> graph() {
+        return graph;
+    }
+
+
+    /**
+     * Purpose: Returns a copy of the forward permutation.
+     * @return The array mapping original ids to new ids.
+     */
+    public int[] forward() {
+        return forward.clone();
+    }
+
+
+    /**
+     * Purpose: Returns a copy of the inverse permutation.
+     * @return The array mapping new ids to original ids.
+     */
+    public int[] inverse() {
+        return inverse.clone();
+    }
+
+
+    /**
+     * Purpose: Translates an original node id to its new id.
+     * @param node The original id.
+     * @return The new id.
+     */
+    public int toNew(int node) {
+        return forward[node];
+    }
+
+
+    /**
+     * Purpose: Translates a new node id back to its original id.
+     * @param node The new id.
+     * @return The original id.
+     */
+    public int toOld(int node) {
+        return inverse[node];
+    }
+
+
+    //--------------------------------------------------------------------
+    // algorithms over the renumbered graph (original ids in and out)
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Runs GraphAlgorithms.bfs over the renumbered graph.
+     * @param src The original id of the source node.
+     * @return The search tree using original ids.
+     */
+    public Map<Integer,Integer> bfs(int src) {
+        return toOldTree(GraphAlgorithms.bfs(graph, forward[src]));
+    }
+
+
+    /**
+     * Purpose: Runs GraphAlgorithms.dfs over the renumbered graph.
+     * @param src The original id of the source node.
+     * @return The search tree using original ids.
+     */
+    public Map<Integer,Integer> dfs(int src) {
+        return toOldTree(GraphAlgorithms.dfs(graph, forward[src]));
+    }
+
+
+    /**
+     * Purpose: Runs GraphAlgorithms.shortestPath over the renumbered graph.
+     * @param src The original id of the source node.
+     * @param dst The original id of the destination node.
+     * @return The path using original ids, or null if there is no path.
+     */
+    public List<Integer> shortestPath(int src, int dst) {
+        List<Integer> path = GraphAlgorithms.shortestPath(graph, forward[src], forward[dst]);
+        if (path == null) {
+            return null;
+        }
+        List<Integer> result = new ArrayList<>(path.size());
+        for (int node : path) {
+            result.add(inverse[node]);
+        }
+        return result;
+    }
+
+
+    /**
+     * Purpose: Runs GraphAlgorithms.connectedComponents over the
+     *          renumbered graph. Nodes and their component numbers are
+     *          translated to original ids.
+     * @return The node component map using original ids.
+     */
+    public Map<Integer,Integer> connectedComponents() {
+        return toOldTree(GraphAlgorithms.connectedComponents(graph));
+    }
+
+
+    /**
+     * Purpose: Runs GraphAlgorithms.topologicalSort over the renumbered
+     *          graph. Positions are unchanged and the nodes at each
+     *          position are translated to original ids.
+     * @return The position to (original) node map.
+     */
+    public Map<Integer,Integer> topologicalSort() {
+        Map<Integer,Integer> sorted = GraphAlgorithms.topologicalSort(graph);
+        Map<Integer,Integer> result = new HashMap<>(sorted.size());
+        for (Map.Entry<Integer,Integer> entry : sorted.entrySet()) {
+            result.put(entry.getKey(), inverse[entry.getValue()]);
+        }
+        return result;
+    }
+
+
+    /**
+     * Purpose: Translates a node to node map (e.g., a search tree) from
+     *          new ids to original ids. Negative values (the -1 parent of
+     *          a search root) are kept as they are.
+     * @param tree The map using new ids.
+     * @return The map using original ids.
+     */
+    public Map<Integer,Integer> toOldTree(Map<Integer,Integer> tree) {
+        Map<Integer,Integer> result = new HashMap<>(tree.size());
+        for (Map.Entry<Integer,Integer> entry : tree.entrySet()) {
+            int value = entry.getValue();
+            result.put(inverse[entry.getKey()], value < 0 ? value : inverse[value]);
+        }
+        return result;
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Reads a graph into CSR form unless it already is.
+     */
+    private static <T> CsrGraph<T> csrOf(Graph<T> g) {
+        return g instanceof CsrGraph ? (CsrGraph<T>) g : new CsrGraph<>(g);
+    }
+
+}
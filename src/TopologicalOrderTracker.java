@@ -0,0 +1,381 @@
+/*
+ * File: TopologicalOrderTracker.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Wraps a directed acyclic graph and keeps a topological order of
+ *       its nodes up to date as edges are added (Pearce and Kelly's
+ *       algorithm), so the order doesn't have to be recomputed after
+ *       every edge. An edge that already agrees with the order costs
+ *       nothing. Otherwise only the nodes placed between its two ends
+ *       are searched: those reachable from the new edge's end and those
+ *       reaching its start are moved past each other, keeping the
+ *       positions they held between them. An edge that would close a
+ *       cycle is found by the same search and rejected. Removing an edge
+ *       never breaks the order. The tracker keeps each node's in-neighbors
+ *       itself, so the backward search doesn't scan every row the way
+ *       inNodes does on most graphs.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class TopologicalOrderTracker<T> implements Graph<T> {
+
+    // the graph whose order is kept
+    private final Graph<T> graph;
+
+    // the position of each node in the order, and the node at each position
+    private final int[] position;
+    private final int[] nodeAt;
+
+    // the search marks: a node is marked by a forward search when its
+    // mark equals the epoch and by a backward one when it equals minus
+    // the epoch, so the marks never need clearing
+    private final int[] mark;
+    private int epoch;
+
+    // each node's in-neighbors (the first inDegree entries of its row)
+    private final int[][] in;
+    private final int[] inDegree;
+
+    // the nodes found by the forward and backward searches, and the
+    // search stack (reused by every add)
+    private int[] forward;
+    private int[] backward;
+    private int[] stack;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Wraps a directed acyclic graph and orders its nodes. From
+     *          now on the graph should only be changed through the tracker.
+     * @param graph The graph to order.
+     * @throws IllegalArgumentException if the graph is undirected or has
+     *         a cycle
+     */
+    public TopologicalOrderTracker(Graph<T> graph) {
+        if (!graph.directed()) {
+            throw new IllegalArgumentException("a topological order needs a directed graph");
+        }
+        this.graph = graph;
+        int n = graph.nodeCount();
+        position = new int[n];
+        nodeAt = new int[n];
+        mark = new int[n];
+        forward = new int[16];
+        backward = new int[16];
+        stack = new int[16];
+        in = new int[n][];
+        inDegree = new int[n];
+        for (int u = 0; u < n; ++u) {
+            for (int v : graph.outNodes(u))
+                ++inDegree[v];
+        }
+        for (int v = 0; v < n; ++v) {
+            in[v] = new int[Math.max(2, inDegree[v])];
+            inDegree[v] = 0;
+        }
+        for (int u = 0; u < n; ++u) {
+            for (int v : graph.outNodes(u))
+                in[v][inDegree[v]++] = u;
+        }
+        // Kahn's algorithm for the first order
+        int[] remaining = inDegree.clone();
+        int placed = 0;
+        for (int u = 0; u < n; ++u) {
+            if (remaining[u] == 0) {
+                nodeAt[placed++] = u;
+            }
+        }
+        for (int next = 0; next < placed; ++next) {
+            for (int v : graph.outNodes(nodeAt[next])) {
+                if (--remaining[v] == 0) {
+                    nodeAt[placed++] = v;
+                }
+            }
+        }
+        if (placed < n) {
+            throw new IllegalArgumentException("graph has a cycle");
+        }
+        for (int i = 0; i < n; ++i)
+            position[nodeAt[i]] = i;
+    }
+
+
+    //--------------------------------------------------------------------
+    // order methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Adds an edge if it keeps the graph acyclic, reordering the
+     *          nodes between its ends if needed.
+     * @param node1 The starting node.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node.
+     * @return True if the edge was added, false if it is already in the
+     *         graph or would close a cycle.
+     */
+    public boolean tryAdd(int node1, T label, int node2) {
+        if (graph.hasEdge(node1, node2) || !reorder(node1, node2)) {
+            return false;
+        }
+        graph.add(node1, label, node2);
+        in[node2] = push(in[node2], inDegree[node2]++, node1);
+        return true;
+    }
+
+
+    /**
+     * Purpose: Generic getter for a node's position in the order. Every
+     *          edge goes from a lower position to a higher one.
+     * @param node The node.
+     * @return The node's position (0 to nodeCount-1).
+     */
+    public int position(int node) {
+        return position[node];
+    }
+
+
+    /**
+     * Purpose: Copies the order in the form topologicalSort returns.
+     * @return The node at each position (position to node mapping).
+     */
+    public Map<Integer,Integer> order() {
+        Map<Integer,Integer> order = new HashMap<>(nodeAt.length);
+        for (int i = 0; i < nodeAt.length; ++i)
+            order.put(i, nodeAt[i]);
+        return order;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the wrapped graph.
+     * @return The ordered graph.
+     */
+    public Graph<T> graph() {
+        return graph;
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true (the graph is always directed).
+     */
+    public boolean directed() {
+        return true;
+    }
+
+
+    /**
+     * Purpose: Adds an edge from node1 to node2 unless it is already there
+     *          or would close a cycle.
+     * @param node1 The starting node.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node.
+     */
+    public void add(int node1, T label, int node2) {
+        if (graph.hasEdge(node1, node2)) {
+            graph.add(node1, label, node2);
+        } else if (!tryAdd(node1, label, node2)) {
+            System.out.println("Invalid Add: edge from NODE " + node1 + " to NODE " + node2
+                    + " would create a cycle");
+        }
+    }
+
+
+    /**
+     * Purpose: Adds a batch of edges. Like the other graphs, edges already
+     *          in the graph are skipped without a message.
+     * @param src The starting node of each edge.
+     * @param labels The label of each edge, or null if all are unlabeled.
+     * @param dst The ending node of each edge.
+     */
+    public void addAll(int[] src, T[] labels, int[] dst) {
+        for (int i = 0; i < src.length; ++i) {
+            if (!graph.hasEdge(src[i], dst[i])) {
+                add(src[i], labels == null ? null : labels[i], dst[i]);
+            }
+        }
+    }
+
+
+    public void remove(int node1, int node2) {
+        if (graph.hasEdge(node1, node2)) {
+            int[] row = in[node2];
+            for (int i = 0; i < inDegree[node2]; ++i) {
+                if (row[i] == node1) {
+                    row[i] = row[--inDegree[node2]];
+                    break;
+                }
+            }
+        }
+        graph.remove(node1, node2);
+    }
+
+
+    public void set(int node1, T label, int node2) {
+        graph.set(node1, label, node2);
+    }
+
+
+    public T label(int node1, int node2) {
+        return graph.label(node1, node2);
+    }
+
+
+    public boolean hasEdge(int node1, int node2) {
+        return graph.hasEdge(node1, node2);
+    }
+
+
+    public List<Integer> adjacent(int node) {
+        return graph.adjacent(node);
+    }
+
+
+    public List<Integer> outNodes(int node) {
+        return graph.outNodes(node);
+    }
+
+
+    public List<Integer> inNodes(int node) {
+        return graph.inNodes(node);
+    }
+
+
+    public int nodeCount() {
+        return graph.nodeCount();
+    }
+
+
+    public int edgeCount() {
+        return graph.edgeCount();
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Moves nodes so an edge from node1 to node2 agrees with the
+     *          order. Only nodes between the two positions are searched.
+     * @return False (with the order unchanged) if node2 reaches node1.
+     */
+    private boolean reorder(int node1, int node2) {
+        int lower = position[node2];
+        int upper = position[node1];
+        if (upper < lower) {
+            return true;
+        }
+        if (node1 == node2) {
+            return false;
+        }
+        // the nodes reachable from node2 that sit no later than node1
+        ++epoch;
+        int forwardCount = search(node2, upper, true);
+        if (forwardCount < 0) {
+            return false;
+        }
+        // the nodes reaching node1 that sit no earlier than node2
+        int backwardCount = search(node1, lower, false);
+        // the nodes reaching node1 go first, then those reached from
+        // node2, each keeping their relative order, in the same positions
+        sortByPosition(backward, backwardCount);
+        sortByPosition(forward, forwardCount);
+        int[] slots = new int[backwardCount + forwardCount];
+        for (int i = 0; i < backwardCount; ++i)
+            slots[i] = position[backward[i]];
+        for (int i = 0; i < forwardCount; ++i)
+            slots[backwardCount + i] = position[forward[i]];
+        Arrays.sort(slots);
+        for (int i = 0; i < backwardCount; ++i)
+            place(backward[i], slots[i]);
+        for (int i = 0; i < forwardCount; ++i)
+            place(forward[i], slots[backwardCount + i]);
+        return true;
+    }
+
+
+    /**
+     * Purpose: Collects the nodes reachable from start (forward) or
+     *          reaching it (backward) without passing the bound position.
+     * @return The number of nodes found, or -1 if the forward search
+     *         reached the node at the bound (the edge would close a cycle).
+     */
+    private int search(int start, int bound, boolean isForward) {
+        int count = 0;
+        int top = 0;
+        stack = push(stack, top++, start);
+        mark[start] = isForward ? epoch : -epoch;
+        while (top > 0) {
+            int u = stack[--top];
+            if (isForward) {
+                forward = push(forward, count++, u);
+            } else {
+                backward = push(backward, count++, u);
+            }
+            List<Integer> out = isForward ? graph.outNodes(u) : null;
+            int degree = isForward ? out.size() : inDegree[u];
+            for (int i = 0; i < degree; ++i) {
+                int w = isForward ? out.get(i) : in[u][i];
+                if (isForward && position[w] == bound) {
+                    return -1;
+                }
+                boolean inRange = isForward ? position[w] < bound : position[w] > bound;
+                int wanted = isForward ? epoch : -epoch;
+                if (inRange && mark[w] != wanted) {
+                    mark[w] = wanted;
+                    stack = push(stack, top++, w);
+                }
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Purpose: Stores a value in an array, growing it if needed.
+     * @return The array (a larger copy if it grew).
+     */
+    private static int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+
+
+    /**
+     * Purpose: Sorts the first count nodes of an array by position.
+     */
+    private void sortByPosition(int[] nodes, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; ++i)
+            keys[i] = ((long) position[nodes[i]] << 32) | nodes[i];
+        Arrays.sort(keys);
+        for (int i = 0; i < count; ++i)
+            nodes[i] = (int) keys[i];
+    }
+
+
+    /**
+     * Purpose: Puts a node at a position.
+     */
+    private void place(int node, int slot) {
+        position[node] = slot;
+        nodeAt[slot] = node;
+    }
+
+}
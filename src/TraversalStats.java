@@ -0,0 +1,274 @@
+/*
+ * File: TraversalStats.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Optional counters for a GraphAlgorithms run: nodes visited, edges
+ *       examined, BFS frontier sizes per level, the largest stack (or
+ *       recursion) depth, neighbor lists read into a reused buffer, edges
+ *       added and the wall time. Pass an instance to an algorithm overload
+ *       to collect them (the plain overloads pass null and skip all the
+ *       counting). Each finished run is also committed as a JFR event when
+ *       a flight recording has the graph.Traversal event enabled.
+ */
+
+import java.util.Arrays;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+public class TraversalStats {
+
+    /**
+     * The JFR event committed for each finished run.
+     */
+    @Name("graph.Traversal")
+    @Label("Graph Traversal")
+    @Category("Graph")
+    @Description("One run of a GraphAlgorithms traversal")
+    static class TraversalEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Nodes Visited")
+        long nodesVisited;
+
+        @Label("Edges Examined")
+        long edgesExamined;
+
+        @Label("Levels")
+        int levels;
+
+        @Label("Largest Frontier")
+        int maxFrontier;
+
+        @Label("Max Stack Depth")
+        int maxStackDepth;
+
+        @Label("Allocations Avoided")
+        long allocationsAvoided;
+
+        @Label("Edges Added")
+        long edgesAdded;
+    }
+
+    // the name of the outermost algorithm run
+    private String algorithm;
+
+    // counters
+    private long nodesVisited;
+    private long edgesExamined;
+    private long allocationsAvoided;
+    private long edgesAdded;
+    private int maxStackDepth;
+
+    // the BFS frontier size of each level (levels used so far)
+    private int[] frontiers = new int[8];
+    private int levels;
+
+    // the number of nested runs in progress, and the outermost start time
+    private int active;
+    private long startNanos;
+    private long elapsedNanos;
+
+    // the JFR event of the outermost run (null if not recording)
+    private TraversalEvent event;
+
+
+    //--------------------------------------------------------------------
+    // getters
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the name of the algorithm measured.
+     */
+    public String algorithm() {
+        return algorithm;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes taken off the queue
+     *          or stack (or entered by recursion).
+     */
+    public long nodesVisited() {
+        return nodesVisited;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges looked at.
+     */
+    public long edgesExamined() {
+        return edgesExamined;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of BFS levels (0 for other
+     *          traversals).
+     */
+    public int levels() {
+        return levels;
+    }
+
+
+    /**
+     * Purpose: Copies the BFS frontier sizes, one per level (level 0 is
+     *          the source).
+     */
+    public int[] frontierSizes() {
+        return Arrays.copyOf(frontiers, levels);
+    }
+
+
+    /**
+     * Purpose: Generic getter for the largest stack or recursion depth.
+     */
+    public int maxStackDepth() {
+        return maxStackDepth;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of neighbor lists read into
+     *          a traversal's existing buffer (sized for every node, so it
+     *          never grows) instead of a new list. The first fill of each
+     *          buffer isn't counted, and the recursive searches, which
+     *          allocate a list per node, count none.
+     */
+    public long allocationsAvoided() {
+        return allocationsAvoided;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges added to the graph
+     *          (by transitiveClosure).
+     */
+    public long edgesAdded() {
+        return edgesAdded;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the wall time of the finished runs.
+     */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+
+    @Override
+    public String toString() {
+        return algorithm + ": " + nodesVisited + " nodes visited, " + edgesExamined
+                + " edges examined, " + levels + " levels, max stack depth " + maxStackDepth
+                + ", " + allocationsAvoided + " allocations avoided, " + edgesAdded
+                + " edges added, " + (elapsedNanos / 1000) + " us";
+    }
+
+
+    //--------------------------------------------------------------------
+    // recording methods (used by GraphAlgorithms)
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Starts a run. Runs nest (transitiveClosure runs a dfs per
+     *          node), and only the outermost one is timed and reported.
+     * @param name The algorithm name.
+     */
+    void start(String name) {
+        if (active++ > 0) {
+            return;
+        }
+        algorithm = name;
+        TraversalEvent started = new TraversalEvent();
+        if (started.isEnabled()) {
+            started.begin();
+            event = started;
+        }
+        startNanos = System.nanoTime();
+    }
+
+
+    /**
+     * Purpose: Finishes a run, adding its time and committing the JFR
+     *          event of the outermost run.
+     */
+    void finish() {
+        if (--active > 0) {
+            return;
+        }
+        elapsedNanos += System.nanoTime() - startNanos;
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.algorithm = algorithm;
+                event.nodesVisited = nodesVisited;
+                event.edgesExamined = edgesExamined;
+                event.levels = levels;
+                int maxFrontier = 0;
+                for (int i = 0; i < levels; ++i) {
+                    maxFrontier = Math.max(maxFrontier, frontiers[i]);
+                }
+                event.maxFrontier = maxFrontier;
+                event.maxStackDepth = maxStackDepth;
+                event.allocationsAvoided = allocationsAvoided;
+                event.edgesAdded = edgesAdded;
+                event.commit();
+            }
+            event = null;
+        }
+    }
+
+
+    /**
+     * Purpose: Counts a visited node and its edges.
+     * @param edges The number of edges of the node examined.
+     */
+    void visit(int edges) {
+        ++nodesVisited;
+        edgesExamined += edges;
+    }
+
+
+    /**
+     * Purpose: Records the frontier size of the next BFS level.
+     */
+    void level(int frontier) {
+        if (levels == frontiers.length) {
+            frontiers = Arrays.copyOf(frontiers, 2 * levels);
+        }
+        frontiers[levels++] = frontier;
+    }
+
+
+    /**
+     * Purpose: Records the current stack or recursion depth.
+     */
+    void depth(int depth) {
+        if (depth > maxStackDepth) {
+            maxStackDepth = depth;
+        }
+    }
+
+
+    /**
+     * Purpose: Counts a neighbor list read into a reused buffer.
+     */
+    void reuse() {
+        ++allocationsAvoided;
+    }
+
+
+    /**
+     * Purpose: Counts an edge added to the graph.
+     */
+    void added() {
+        ++edgesAdded;
+    }
+
+}
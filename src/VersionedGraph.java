@@ -0,0 +1,551 @@
+/*
+ * File: VersionedGraph.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: A mutable graph that hands out cheap, immutable snapshots, so
+ *       long analytics can run on a consistent version while writers
+ *       keep going. Each node's out-edges are kept in an immutable sorted
+ *       row, and the rows are grouped into chunks of CHUNK nodes. Taking
+ *       a snapshot only records the current chunk array. A write after
+ *       that copies the row it changes, plus that row's chunk and the
+ *       chunk array if an open snapshot still shares them (copy on
+ *       write), so a snapshot never sees later changes. Once every
+ *       snapshot of a version is closed, writers update the chunks in
+ *       place again and the old chunks are left to the garbage
+ *       collector. Writers are serialized by the graph's lock; reads of
+ *       the live graph and of snapshots take no lock.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+
+public class VersionedGraph<T> implements Graph<T> {
+
+    // the number of nodes in a chunk (a power of two)
+    static final int CHUNK = 64;
+    static final int CHUNK_BITS = 6;
+
+    /**
+     * The out-edges of one node: sorted neighbor ids and their labels.
+     * Never changed once built.
+     */
+    static final class Row {
+        static final Row EMPTY = new Row(new int[0], new Object[0]);
+
+        final int[] nodes;
+        final Object[] labels;
+
+        Row(int[] nodes, Object[] labels) {
+            this.nodes = nodes;
+            this.labels = labels;
+        }
+    }
+
+    /**
+     * The rows of CHUNK consecutive nodes, and the write epoch it was
+     * made in. A chunk is only changed in place while no open snapshot
+     * was taken at or after its epoch.
+     */
+    static final class Chunk {
+        final long epoch;
+        final Row[] rows;
+
+        Chunk(long epoch, Row[] rows) {
+            this.epoch = epoch;
+            this.rows = rows;
+        }
+    }
+
+    // the total number of nodes in the graph (numbered 0 to nodes-1)
+    private final int nodeCount;
+
+    // true if the graph is directed, false if undirected
+    private final boolean directed;
+
+    // the live chunks (replaced when shared with a snapshot) and the
+    // epoch the array was made in
+    private volatile Chunk[] chunks;
+    private long chunksEpoch;
+
+    // the total number of edges in the graph
+    private volatile int edgeCount;
+
+    // the current write epoch (each snapshot ends one)
+    private long epoch;
+
+    // the epochs of the open snapshots, with how many are open for each
+    private final TreeMap<Long, Integer> openEpochs = new TreeMap<>();
+
+    // the number of chunks copied because a snapshot shared them
+    private long chunkCopies;
+
+
+    //--------------------------------------------------------------------
+    // constructor
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Initializes the graph with the given number of nodes and
+     *          the given directionality.
+     * @param nodeCount The number of nodes.
+     * @param directed True for a directed graph.
+     */
+    public VersionedGraph(int nodeCount, boolean directed) {
+        this.nodeCount = nodeCount;
+        this.directed = directed;
+        chunks = new Chunk[(nodeCount + CHUNK - 1) >>> CHUNK_BITS];
+        for (int c = 0; c < chunks.length; ++c) {
+            Row[] rows = new Row[Math.min(CHUNK, nodeCount - (c << CHUNK_BITS))];
+            Arrays.fill(rows, Row.EMPTY);
+            chunks[c] = new Chunk(0, rows);
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // snapshots
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Takes an immutable snapshot of the graph in constant time.
+     *          Close it when done so writers can stop copying the chunks
+     *          it shares (an unclosed snapshot is still correct, but keeps
+     *          writers copying).
+     * @return The snapshot.
+     */
+    public synchronized Snapshot<T> snapshot() {
+        Snapshot<T> snapshot = new Snapshot<>(this, chunks, nodeCount, directed, edgeCount, epoch);
+        openEpochs.merge(epoch, 1, Integer::sum);
+        ++epoch;
+        return snapshot;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of open snapshots.
+     */
+    public synchronized int openSnapshots() {
+        int open = 0;
+        for (int count : openEpochs.values()) {
+            open += count;
+        }
+        return open;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of chunks copied because a
+     *          snapshot shared them.
+     */
+    synchronized long chunkCopies() {
+        return chunkCopies;
+    }
+
+
+    /**
+     * Purpose: Releases a closed snapshot's epoch.
+     */
+    private synchronized void release(long snapshotEpoch) {
+        Integer count = openEpochs.get(snapshotEpoch);
+        if (count == 1) {
+            openEpochs.remove(snapshotEpoch);
+        } else {
+            openEpochs.put(snapshotEpoch, count - 1);
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // graph methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Generic getter for the field boolean directed.
+     * @return true if the graph is directed, otherwise false.
+     */
+    public boolean directed() {
+        return directed;
+    }
+
+
+    /**
+     * Purpose: Adds a labeled edge to the graph from node1 to node2 if it
+     *          isn't already there. Open snapshots don't see it.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public synchronized void add(int node1, T label, int node2) {
+        if (hasEdge(chunks, node1, node2)) {
+            System.out.println("Invalid Add: NODE " + node1 + " already contains edge to NODE " + node2);
+            return;
+        }
+        putRow(node1, with(row(chunks, node1), node2, label));
+        if (!directed && node1 != node2) {
+            putRow(node2, with(row(chunks, node2), node1, label));
+        }
+        ++edgeCount;
+    }
+
+
+    /**
+     * Purpose: Removes the edge between node1 and node2 if it exists.
+     *          Open snapshots still see it.
+     * @param node1 The starting node if the graph is directed.
+     * @param node2 The ending node if the graph is directed.
+     */
+    public synchronized void remove(int node1, int node2) {
+        if (!hasEdge(chunks, node1, node2)) {
+            System.out.println("Invalid Remove: " + node1 + " is already null");
+            return;
+        }
+        putRow(node1, without(row(chunks, node1), node2));
+        if (!directed && node1 != node2) {
+            putRow(node2, without(row(chunks, node2), node1));
+        }
+        --edgeCount;
+    }
+
+
+    /**
+     * Purpose: Sets the label on an existing edge (both directions if
+     *          undirected). Open snapshots keep the old label.
+     * @param node1 The starting node if it's a directed graph.
+     * @param label The data of type T to be stored as the label for the edge.
+     * @param node2 The ending node if it's a directed graph.
+     */
+    public synchronized void set(int node1, T label, int node2) {
+        if (!hasEdge(chunks, node1, node2)) {
+            return;
+        }
+        putRow(node1, relabeled(row(chunks, node1), node2, label));
+        if (!directed && node1 != node2) {
+            putRow(node2, relabeled(row(chunks, node2), node1, label));
+        }
+    }
+
+
+    /**
+     * Purpose: Generic getter for the label on the edge from node1 to
+     *          node2 (null if unlabeled or there is no edge).
+     */
+    public T label(int node1, int node2) {
+        return label(chunks, node1, node2);
+    }
+
+
+    /**
+     * Purpose: Checks for an edge from node1 to node2.
+     */
+    public boolean hasEdge(int node1, int node2) {
+        return hasEdge(chunks, node1, node2);
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming or outgoing edge of the
+     *          node, in ascending order.
+     */
+    public List<Integer> adjacent(int node) {
+        return adjacent(chunks, nodeCount, directed, node);
+    }
+
+
+    /**
+     * Purpose: Copies the nodes on an outgoing edge of the node, in
+     *          ascending order.
+     */
+    public List<Integer> outNodes(int node) {
+        return outNodes(chunks, node);
+    }
+
+
+    /**
+     * Purpose: Finds the nodes on an incoming edge of the node by
+     *          checking every row.
+     */
+    public List<Integer> inNodes(int node) {
+        return inNodes(chunks, nodeCount, node);
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of nodes in the graph.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Purpose: Generic getter for the number of edges in the graph.
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+
+    //--------------------------------------------------------------------
+    // snapshot class
+    //--------------------------------------------------------------------
+
+    /**
+     * An immutable version of a VersionedGraph. Reads take no lock, and
+     * the mutating methods throw UnsupportedOperationException. Once the
+     * snapshot is closed, reading its edges throws IllegalStateException.
+     */
+    public static class Snapshot<T> implements Graph<T>, AutoCloseable {
+
+        // the graph the snapshot was taken from (null once closed)
+        private VersionedGraph<T> owner;
+
+        // true once the snapshot is closed
+        private volatile boolean closed;
+
+        // the chunks, counts and epoch of the version
+        private final Chunk[] chunks;
+        private final int nodeCount;
+        private final boolean directed;
+        private final int edgeCount;
+        private final long epoch;
+
+        Snapshot(VersionedGraph<T> owner, Chunk[] chunks, int nodeCount, boolean directed,
+                 int edgeCount, long epoch) {
+            this.owner = owner;
+            this.chunks = chunks;
+            this.nodeCount = nodeCount;
+            this.directed = directed;
+            this.edgeCount = edgeCount;
+            this.epoch = epoch;
+        }
+
+        /**
+         * Purpose: Releases the snapshot so writers can reuse the chunks
+         *          it shares (and change them in place). Reading the edges
+         *          of a closed snapshot throws IllegalStateException.
+         *          Closing twice has no effect.
+         */
+        public synchronized void close() {
+            if (owner != null) {
+                closed = true;
+                owner.release(epoch);
+                owner = null;
+            }
+        }
+
+        public boolean directed() {
+            return directed;
+        }
+
+        public void add(int node1, T label, int node2) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+
+        public void remove(int node1, int node2) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+
+        public void set(int node1, T label, int node2) {
+            throw new UnsupportedOperationException("snapshot is read-only");
+        }
+
+        public T label(int node1, int node2) {
+            checkOpen();
+            return VersionedGraph.label(chunks, node1, node2);
+        }
+
+        public boolean hasEdge(int node1, int node2) {
+            checkOpen();
+            return VersionedGraph.hasEdge(chunks, node1, node2);
+        }
+
+        public List<Integer> adjacent(int node) {
+            checkOpen();
+            return VersionedGraph.adjacent(chunks, nodeCount, directed, node);
+        }
+
+        public List<Integer> outNodes(int node) {
+            checkOpen();
+            return VersionedGraph.outNodes(chunks, node);
+        }
+
+        public List<Integer> inNodes(int node) {
+            checkOpen();
+            return VersionedGraph.inNodes(chunks, nodeCount, node);
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        // throws if the snapshot is closed, since writers may have
+        // changed its chunks since
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("snapshot is closed");
+            }
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // helper methods
+    //--------------------------------------------------------------------
+
+    /**
+     * Purpose: Replaces a node's row, first copying the chunk array and
+     *          the node's chunk if an open snapshot shares them.
+     */
+    private void putRow(int node, Row row) {
+        Chunk[] current = chunks;
+        if (shared(chunksEpoch)) {
+            current = current.clone();
+            chunksEpoch = epoch;
+        }
+        int c = node >>> CHUNK_BITS;
+        Chunk chunk = current[c];
+        if (shared(chunk.epoch)) {
+            chunk = new Chunk(epoch, chunk.rows.clone());
+            current[c] = chunk;
+            ++chunkCopies;
+        }
+        chunk.rows[node & (CHUNK - 1)] = row;
+        chunks = current;
+    }
+
+
+    /**
+     * Purpose: Checks if an open snapshot was taken at or after the epoch
+     *          (and so shares what was made in it).
+     */
+    private boolean shared(long madeIn) {
+        return !openEpochs.isEmpty() && openEpochs.lastKey() >= madeIn;
+    }
+
+
+    /**
+     * Purpose: Finds a node's row in a version.
+     */
+    static Row row(Chunk[] chunks, int node) {
+        return chunks[node >>> CHUNK_BITS].rows[node & (CHUNK - 1)];
+    }
+
+
+    /**
+     * Purpose: Checks a version for an edge.
+     */
+    static boolean hasEdge(Chunk[] chunks, int node1, int node2) {
+        return Arrays.binarySearch(row(chunks, node1).nodes, node2) >= 0;
+    }
+
+
+    /**
+     * Purpose: Finds an edge label in a version (null if no edge).
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T label(Chunk[] chunks, int node1, int node2) {
+        Row row = row(chunks, node1);
+        int i = Arrays.binarySearch(row.nodes, node2);
+        return i < 0 ? null : (T) row.labels[i];
+    }
+
+
+    /**
+     * Purpose: Copies a node's out-nodes in a version, in ascending order.
+     */
+    static List<Integer> outNodes(Chunk[] chunks, int node) {
+        int[] nodes = row(chunks, node).nodes;
+        List<Integer> nodesList = new ArrayList<>(nodes.length);
+        for (int neighbor : nodes) {
+            nodesList.add(neighbor);
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Finds a node's in-nodes in a version by checking every row.
+     */
+    static List<Integer> inNodes(Chunk[] chunks, int nodeCount, int node) {
+        List<Integer> nodesList = new ArrayList<>();
+        for (int index = 0; index < nodeCount; ++index) {
+            if (hasEdge(chunks, index, node)) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Finds a node's in- and out-nodes in a version, in
+     *          ascending order.
+     */
+    static List<Integer> adjacent(Chunk[] chunks, int nodeCount, boolean directed, int node) {
+        if (!directed) {
+            return outNodes(chunks, node);
+        }
+        List<Integer> nodesList = new ArrayList<>();
+        for (int index = 0; index < nodeCount; ++index) {
+            if (hasEdge(chunks, node, index) || hasEdge(chunks, index, node)) {
+                nodesList.add(index);
+            }
+        }
+        return nodesList;
+    }
+
+
+    /**
+     * Purpose: Builds a copy of a row with a new neighbor inserted.
+     */
+    private static Row with(Row row, int node, Object label) {
+        int at = -Arrays.binarySearch(row.nodes, node) - 1;
+        int size = row.nodes.length;
+        int[] nodes = new int[size + 1];
+        Object[] labels = new Object[size + 1];
+        System.arraycopy(row.nodes, 0, nodes, 0, at);
+        System.arraycopy(row.labels, 0, labels, 0, at);
+        nodes[at] = node;
+        labels[at] = label;
+        System.arraycopy(row.nodes, at, nodes, at + 1, size - at);
+        System.arraycopy(row.labels, at, labels, at + 1, size - at);
+        return new Row(nodes, labels);
+    }
+
+
+    /**
+     * Purpose: Builds a copy of a row without a neighbor.
+     */
+    private static Row without(Row row, int node) {
+        int at = Arrays.binarySearch(row.nodes, node);
+        int size = row.nodes.length;
+        if (size == 1) {
+            return Row.EMPTY;
+        }
+        int[] nodes = new int[size - 1];
+        Object[] labels = new Object[size - 1];
+        System.arraycopy(row.nodes, 0, nodes, 0, at);
+        System.arraycopy(row.labels, 0, labels, 0, at);
+        System.arraycopy(row.nodes, at + 1, nodes, at, size - at - 1);
+        System.arraycopy(row.labels, at + 1, labels, at, size - at - 1);
+        return new Row(nodes, labels);
+    }
+
+
+    /**
+     * Purpose: Builds a copy of a row with one label changed.
+     */
+    private static Row relabeled(Row row, int node, Object label) {
+        Object[] labels = row.labels.clone();
+        labels[Arrays.binarySearch(row.nodes, node)] = label;
+        return new Row(row.nodes, labels);
+    }
+
+}
@@ -532,4 +532,46 @@ public class AdjacencyMatrixTest {
         }
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void checkDegreeCounts() {
+        int n = 6;
+        AdjacencyMatrix<Integer> g = new AdjacencyMatrix<>(n, true);
+        g.add(0, 1, 1);
+        g.add(0, 2, 2);
+        g.add(3, 3, 0);
+        g.add(0, 4, 1); // duplicate, ignored
+        assertEquals(2, g.outDegree(0));
+        assertEquals(1, g.inDegree(0));
+        assertEquals(1, g.inDegree(1));
+        assertEquals(0, g.outDegree(5));
+        assertEquals(n, g.nodeCount());
+        g.remove(0, 1);
+        assertEquals(1, g.outDegree(0));
+        assertEquals(0, g.inDegree(1));
+        // node1 still has an out edge, node2 has none left
+        assertEquals(n - 1, g.nodeCount());
+        // a null label clears the entry, so the degrees follow
+        g.add(0, 1, 1);
+        g.set(0, null, 1);
+        assertFalse(g.hasEdge(0, 1));
+        assertEquals(0, g.inDegree(1));
+        g.add(0, 2, 1);
+        assertEquals(2, g.outDegree(0));
+        assertEquals(1, g.inDegree(1));
+        assertEquals(3, g.edgeCount());
+        assertEquals(Integer.valueOf(2), g.label(0, 1));
+
+        AdjacencyMatrix<Integer> u = new AdjacencyMatrix<>(n, false);
+        u.add(1, 1, 2);
+        u.add(4, 2, 4);
+        assertEquals(1, u.outDegree(1));
+        assertEquals(1, u.inDegree(1));
+        assertEquals(1, u.outDegree(2));
+        assertEquals(1, u.outDegree(4));
+        u.remove(2, 1);
+        assertEquals(0, u.outDegree(1));
+        assertEquals(0, u.inDegree(2));
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * File: AdjacencySetTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the degree adaptive per-node neighbor sets.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class AdjacencySetTest {
+
+
+    @Test
+    public void checkSmallSet() {
+        AdjacencySet<String> s = new AdjacencySet<>(100);
+        assertTrue(s.add(5, "a"));
+        assertTrue(s.add(1, "b"));
+        assertTrue(s.add(3, "c"));
+        assertFalse(s.add(3, "d"));
+        assertEquals(AdjacencySet.SMALL, s.form());
+        assertEquals(3, s.size());
+        assertTrue(s.contains(1));
+        assertFalse(s.contains(2));
+        assertEquals("c", s.get(3));
+        assertNull(s.get(2));
+        assertArrayEquals(new int[] {1, 3, 5}, s.toArray());
+        s.set(3, "e");
+        assertEquals("e", s.get(3));
+        s.set(4, "f");
+        assertFalse(s.contains(4));
+        assertTrue(s.remove(1));
+        assertFalse(s.remove(1));
+        assertArrayEquals(new int[] {3, 5}, s.toArray());
+    }
+
+
+    @Test
+    public void checkPromoteToSorted() {
+        AdjacencySet<Integer> s = new AdjacencySet<>(1000);
+        // add in descending order to exercise insertion
+        for (int node = 50; node > 0; --node) {
+            assertTrue(s.add(node * 3, node));
+        }
+        assertEquals(AdjacencySet.SORTED, s.form());
+        assertEquals(50, s.size());
+        for (int node = 1; node <= 50; ++node) {
+            assertTrue(s.contains(node * 3));
+            assertFalse(s.contains(node * 3 + 1));
+            assertEquals(node, s.get(node * 3).intValue());
+        }
+        int[] nodes = s.toArray();
+        for (int i = 1; i < nodes.length; ++i) {
+            assertTrue(nodes[i - 1] < nodes[i]);
+        }
+        // remove down to the small form again
+        for (int node = 1; node <= 47; ++node) {
+            assertTrue(s.remove(node * 3));
+        }
+        assertEquals(AdjacencySet.SMALL, s.form());
+        assertArrayEquals(new int[] {144, 147, 150}, s.toArray());
+        assertEquals(49, s.get(147).intValue());
+    }
+
+
+    @Test
+    public void checkPromoteToBitmapAndBack() {
+        int n = 1024;
+        AdjacencySet<Integer> s = new AdjacencySet<>(n);
+        for (int node = 0; node < n; node += 2) {
+            s.add(node, node + 1);
+        }
+        assertEquals(AdjacencySet.BITMAP, s.form());
+        assertEquals(n / 2, s.size());
+        assertTrue(s.contains(0));
+        assertTrue(s.contains(1022));
+        assertFalse(s.contains(1023));
+        assertEquals(101, s.get(100).intValue());
+        assertFalse(s.add(100, 7));
+        assertEquals(101, s.get(100).intValue());
+        List<Integer> out = new ArrayList<>();
+        s.addTo(out);
+        assertEquals(n / 2, out.size());
+        for (int i = 0; i < out.size(); ++i) {
+            assertEquals(2 * i, out.get(i).intValue());
+        }
+        // drop below the demotion threshold
+        for (int node = 0; node < n - 64; node += 2) {
+            assertTrue(s.remove(node));
+        }
+        assertEquals(AdjacencySet.SORTED, s.form());
+        assertEquals(32, s.size());
+        assertEquals(961, s.get(960).intValue());
+        assertFalse(s.contains(958));
+    }
+
+
+    @Test
+    public void checkBitmapLabels() {
+        int n = 1024;
+        AdjacencySet<Integer> s = new AdjacencySet<>(n);
+        for (int node = 1; node < n; node += 4) {
+            s.add(node, null);
+        }
+        assertEquals(AdjacencySet.BITMAP, s.form());
+        assertFalse(s.contains(n));
+        assertFalse(s.contains(-1));
+        assertNull(s.get(5));
+        assertNull(s.get(n + 5));
+        // the first label (and later ones) are kept by node order
+        s.set(5, 50);
+        s.add(0, 7);
+        s.add(1022, 9);
+        assertEquals(7, s.get(0).intValue());
+        assertEquals(50, s.get(5).intValue());
+        assertEquals(9, s.get(1022).intValue());
+        assertNull(s.get(9));
+        assertTrue(s.remove(0));
+        assertEquals(50, s.get(5).intValue());
+        // a batch merged into the bitmap
+        s.addAllSorted(new int[] {2, 6, 1023}, new Object[] {20, 60, 10230}, 0, 3);
+        assertEquals(AdjacencySet.BITMAP, s.form());
+        assertEquals(60, s.get(6).intValue());
+        assertEquals(10230, s.get(1023).intValue());
+        assertEquals(50, s.get(5).intValue());
+        assertEquals(9, s.get(1022).intValue());
+        // labels survive the move back to the sorted form
+        for (int node = 9; node < 1000; node += 4) {
+            assertTrue(s.remove(node));
+        }
+        assertEquals(AdjacencySet.SORTED, s.form());
+        assertEquals(50, s.get(5).intValue());
+        assertEquals(9, s.get(1022).intValue());
+        assertEquals(20, s.get(2).intValue());
+    }
+
+
+    @Test
+    public void checkHubInAdjacencyList() {
+        int n = 2000;
+        Graph<Integer> g = new AdjacencyList<>(n, true);
+        for (int v = 0; v < n; ++v) {
+            g.add(0, v, v);
+        }
+        g.add(1, 1, 0);
+        assertEquals(n + 1, g.edgeCount());
+        assertEquals(n, g.outNodes(0).size());
+        assertEquals(42, g.label(0, 42).intValue());
+        assertTrue(g.hasEdge(0, n - 1));
+        for (int v = 0; v < n; v += 2) {
+            g.remove(0, v);
+        }
+        assertEquals(n / 2 + 1, g.edgeCount());
+        assertFalse(g.hasEdge(0, 42));
+        assertTrue(g.hasEdge(0, 43));
+        assertEquals(1, g.adjacent(1).size());
+        assertEquals(1, g.inNodes(0).size());
+    }
+
+}
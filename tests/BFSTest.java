@@ -12,6 +12,9 @@ import static org.junit.Assert.fail;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.List;
 
@@ -638,4 +641,76 @@ public class BFSTest {
         assertTrue(GraphAlgorithms.bipartite(g));
     }
 
+
+    @Test
+    public void maxDepthBFS() {
+        // a path 0 - 1 - 2 - 3 - 4 with a branch 1 - 5
+        Graph<Integer> g = new AdjacencyList<>(6, false);
+        g.add(0, null, 1);
+        g.add(1, null, 2);
+        g.add(2, null, 3);
+        g.add(3, null, 4);
+        g.add(1, null, 5);
+        Map<Integer,Integer> tree = GraphAlgorithms.bfs(g, 0, 2);
+        assertEquals(4, tree.size());
+        assertEquals(-1, (int) tree.get(0));
+        assertEquals(1, (int) tree.get(2));
+        assertEquals(1, (int) tree.get(5));
+        assertFalse(tree.containsKey(3));
+        assertEquals(1, GraphAlgorithms.bfs(g, 0, 0).size());
+        // no limit matches the full search
+        assertEquals(GraphAlgorithms.bfs(g, 2), GraphAlgorithms.bfs(g, 2, -1));
+    }
+
+
+    @Test
+    public void targetsAndFilterBFS() {
+        Graph<Integer> g = new AdjacencyList<>(400, true);
+        GraphGenerator.loadSparse(g, 4);
+        Map<Integer,Integer> full = GraphAlgorithms.bfs(g, 0);
+        // stops once both targets are found, with the same shortest paths
+        List<Integer> targets = new ArrayList<>(full.keySet());
+        targets.remove(Integer.valueOf(0));
+        targets = targets.subList(0, 2);
+        TraversalStats stats = new TraversalStats();
+        Map<Integer,Integer> tree = GraphAlgorithms.bfs(g, 0, -1, new HashSet<>(targets), null, stats);
+        for (int target : targets) {
+            assertTrue(tree.containsKey(target));
+            assertEquals(GraphAlgorithms.shortestPath(g, 0, target).size(), depth(tree, target) + 1);
+        }
+        assertTrue(stats.nodesVisited() <= full.size());
+        // only edges with even labels
+        GraphAlgorithms.EdgePredicate<Integer> even = (u, label, v) -> label % 2 == 0;
+        Map<Integer,Integer> filtered = GraphAlgorithms.bfs(g, 0, -1, null, even);
+        for (Map.Entry<Integer,Integer> edge : filtered.entrySet()) {
+            if (edge.getValue() != -1)
+                assertEquals(0, g.label(edge.getValue(), edge.getKey()) % 2);
+        }
+    }
+
+
+    @Test
+    public void findBFS() {
+        Graph<Integer> g = new AdjacencyList<>(8, true);
+        g.add(0, null, 1);
+        g.add(0, null, 2);
+        g.add(1, null, 3);
+        g.add(2, null, 6);
+        g.add(3, null, 6);
+        g.add(6, null, 7);
+        assertEquals(Arrays.asList(0, 2, 6), GraphAlgorithms.bfsFind(g, 0, -1, node -> node >= 5));
+        assertEquals(Arrays.asList(0), GraphAlgorithms.bfsFind(g, 0, -1, node -> node == 0));
+        assertEquals(null, GraphAlgorithms.bfsFind(g, 0, 1, node -> node >= 5));
+        assertEquals(null, GraphAlgorithms.bfsFind(g, 0, -1, node -> node == 4));
+    }
+
+
+    // the number of edges from the search root to the node
+    private static int depth(Map<Integer,Integer> tree, int node) {
+        int depth = 0;
+        for (int parent = tree.get(node); parent != -1; parent = tree.get(parent))
+            ++depth;
+        return depth;
+    }
+
 }
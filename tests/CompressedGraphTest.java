@@ -0,0 +1,143 @@
+/*
+ * File: CompressedGraphTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the gap and varint compressed graph.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class CompressedGraphTest {
+
+
+    @Test
+    public void checkVarintRoundTrip() {
+        // 8-byte pages, so some values continue on the next page
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        CompressedGraph.Rows rows = new CompressedGraph.Rows(3, 0);
+        for (int value : values)
+            rows.put(value);
+        rows.finish();
+        long[] pos = {0};
+        for (int value : values)
+            assertEquals(value, rows.read(pos));
+        assertEquals(rows.length(), pos[0]);
+    }
+
+
+    @Test
+    public void checkDirectedCompressedCopy() {
+        Graph<Integer> g = new AdjacencyList<>(120, true);
+        GraphGenerator.loadSparse(g, 17);
+        g.add(100, -5, 3); // first neighbor before the node itself
+        GraphAssert.assertSameGraphExhaustive(g, new CompressedGraph<>(g));
+    }
+
+
+    @Test
+    public void checkUndirectedCompressedCopy() {
+        Graph<Integer> g = new AdjacencyList<>(80, false);
+        GraphGenerator.loadQuickLadder(g);
+        g.add(5, 55, 5);
+        GraphAssert.assertSameGraphExhaustive(g, new CompressedGraph<>(g));
+    }
+
+
+    @Test
+    public void checkUnlabeledCompressedCopy() {
+        Graph<String> g = new AdjacencyList<>(10, true);
+        g.add(9, null, 0);
+        g.add(0, null, 9);
+        CompressedGraph<String> c = new CompressedGraph<>(g);
+        GraphAssert.assertSameGraphExhaustive(g, c);
+        assertArrayEquals(new int[] {9}, c.outArray(0));
+    }
+
+
+    @Test
+    public void checkLocalGraphCompression() {
+        // a ladder graph has neighbors close to each node id
+        Graph<Integer> g = new AdjacencyList<>(10000, true);
+        GraphGenerator.loadQuickLadder(g);
+        CompressedGraph<Integer> c = new CompressedGraph<>(g);
+        assertTrue(c.bytesPerEdge() < 2.0);
+        assertTrue(c.encodedBytes() < 4L * 2 * g.edgeCount());
+    }
+
+
+    @Test
+    public void checkSearchOnCompressedGraph() {
+        Graph<Integer> g = new AdjacencyList<>(200, true);
+        GraphGenerator.loadSparse(g, 2);
+        Graph<Integer> c = new CompressedGraph<>(g);
+        Map<Integer,Integer> expected = GraphAlgorithms.bfs(g, 0);
+        assertEquals(expected, GraphAlgorithms.bfs(c, 0));
+        assertEquals(GraphAlgorithms.shortestPath(g, 0, 150), GraphAlgorithms.shortestPath(c, 0, 150));
+    }
+
+
+    @Test
+    public void checkSmallPagesAndRanges() {
+        // 16-byte pages split varints across pages, and a 50 entry buffer
+        // builds the in rows over many ranges
+        Graph<Integer> g = new AdjacencyList<>(300, true);
+        GraphGenerator.loadSparse(g, 23);
+        g.add(7, 1, 299);
+        GraphAssert.assertSameGraphExhaustive(g, new CompressedGraph<>(g, 4, 50));
+    }
+
+
+    @Test
+    public void checkFromSortedEdges() {
+        for (boolean directed : new boolean[] {true, false}) {
+            Graph<Void> expected = new AdjacencyList<>(500, directed);
+            List<Long> edges = new ArrayList<>();
+            Random random = new Random(3);
+            for (int i = 0; i < 2000; ++i) {
+                int u = random.nextInt(500);
+                int v = random.nextInt(500);
+                if (!expected.hasEdge(u, v))
+                    expected.add(u, null, v);
+                edges.add(EdgeStream.pack(u, v));
+            }
+            // repeats, and undirected edges given both ways
+            edges.add(EdgeStream.pack(3, 4));
+            edges.add(EdgeStream.pack(4, 3));
+            edges.add(EdgeStream.pack(3, 4));
+            if (!expected.hasEdge(3, 4))
+                expected.add(3, null, 4);
+            if (directed && !expected.hasEdge(4, 3))
+                expected.add(4, null, 3);
+            Collections.sort(edges);
+            PrimitiveIterator.OfLong sorted = edges.stream().mapToLong(Long::longValue).iterator();
+            CompressedGraph<Void> c = CompressedGraph.fromSortedEdges(500, directed, sorted, 5, 100);
+            GraphAssert.assertSameGraphExhaustive(expected, c);
+            assertEquals(expected.edgeCount(), c.edgeCountLong());
+        }
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkUnsortedEdgesRejected() {
+        long[] edges = {EdgeStream.pack(2, 1), EdgeStream.pack(1, 5)};
+        CompressedGraph.fromSortedEdges(10, true, Arrays.stream(edges).iterator());
+    }
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkCompressedIsReadOnly() {
+        new CompressedGraph<>(new AdjacencyList<Integer>(2, true)).remove(0, 1);
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * File: ConcurrentAdjacencyListTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the thread safe list implementation of a graph.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+
+public class ConcurrentAdjacencyListTest {
+
+
+    @Test
+    public void checkMatchesAdjacencyList() {
+        for (boolean directed : new boolean[] {true, false}) {
+            Graph<Integer> expected = new AdjacencyList<>(200, directed);
+            Graph<Integer> actual = new ConcurrentAdjacencyList<>(200, directed);
+            GraphGenerator.loadSparse(expected, 3);
+            GraphGenerator.loadSparse(actual, 3);
+            assertEquals(expected.edgeCount(), actual.edgeCount());
+            for (int u = 0; u < 200; ++u) {
+                assertEquals(expected.outNodes(u), actual.outNodes(u));
+                assertEquals(expected.inNodes(u), actual.inNodes(u));
+                assertEquals(expected.adjacent(u), actual.adjacent(u));
+                for (int v : expected.outNodes(u))
+                    assertEquals(expected.label(u, v), actual.label(u, v));
+            }
+        }
+    }
+
+
+    @Test
+    public void checkNullLabelsAndSet() {
+        Graph<String> g = new ConcurrentAdjacencyList<>(4, false);
+        g.add(0, null, 1);
+        assertTrue(g.hasEdge(1, 0));
+        assertNull(g.label(0, 1));
+        g.set(1, "a", 0);
+        assertEquals("a", g.label(0, 1));
+        // set doesn't add a missing edge
+        g.set(2, "b", 3);
+        assertFalse(g.hasEdge(2, 3));
+        assertFalse(g.hasEdge(3, 2));
+        g.remove(1, 0);
+        assertFalse(g.hasEdge(0, 1));
+        assertEquals(0, g.edgeCount());
+    }
+
+
+    @Test
+    public void checkConcurrentUndirectedWrites() throws InterruptedException {
+        int n = 500;
+        int threads = 4;
+        ConcurrentAdjacencyList<Integer> g = new ConcurrentAdjacencyList<>(n, false);
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        // each writer adds the edges (u, v) with (u + v) % threads == t,
+        // half of them as (v, u), then removes every third one
+        for (int t = 0; t < threads; ++t) {
+            int part = t;
+            writers.add(new Thread(() -> {
+                for (int u = 0; u < n; ++u)
+                    for (int v = u; v < n; v += 7)
+                        if ((u + v) % threads == part) {
+                            if ((u & 1) == 0)
+                                g.add(u, u, v);
+                            else
+                                g.add(v, u, u);
+                        }
+                for (int u = 0; u < n; u += 3)
+                    for (int v = u; v < n; v += 7)
+                        if ((u + v) % threads == part)
+                            g.remove(u, v);
+            }));
+        }
+        // a reader checks that every edge it sees has its label (unless
+        // the edge was removed in between)
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                for (int u = 0; u < n; ++u)
+                    for (int v : g.outNodes(u))
+                        if (g.hasEdge(u, v) && g.label(u, v) == null && g.hasEdge(u, v))
+                            failed.set(true);
+            }
+        });
+        reader.start();
+        for (Thread writer : writers)
+            writer.start();
+        for (Thread writer : writers)
+            writer.join();
+        writing.set(false);
+        reader.join();
+        assertFalse(failed.get());
+
+        int edges = 0;
+        for (int u = 0; u < n; ++u)
+            for (int v = u; v < n; v += 7)
+                if (u % 3 != 0) {
+                    ++edges;
+                    assertTrue(g.hasEdge(u, v));
+                    assertTrue(g.hasEdge(v, u));
+                    assertEquals(u, (int) g.label(v, u));
+                } else {
+                    assertFalse(g.hasEdge(u, v));
+                    assertFalse(g.hasEdge(v, u));
+                }
+        assertEquals(edges, g.edgeCount());
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * File: ConnectivityTrackerTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the incrementally maintained connected components.
+ */
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class ConnectivityTrackerTest {
+
+
+    // checks the tracker against a full connectedComponents search
+    private static void assertMatchesSearch(ConnectivityTracker<Integer> tracker) {
+        Map<Integer,Integer> expected = GraphAlgorithms.connectedComponents(tracker.graph());
+        for (int u = 0; u < tracker.nodeCount(); ++u) {
+            int component = expected.containsKey(u) ? expected.get(u) : u;
+            assertEquals(component, tracker.componentOf(u));
+        }
+    }
+
+
+    @Test
+    public void checkMatchesSearchWhileAdding() {
+        for (boolean directed : new boolean[] {true, false}) {
+            ConnectivityTracker<Integer> tracker =
+                    new ConnectivityTracker<>(new AdjacencyList<>(300, directed));
+            Random random = new Random(11);
+            for (int i = 0; i < 300; ++i) {
+                int u = random.nextInt(300);
+                int v = random.nextInt(300);
+                if (!tracker.hasEdge(u, v))
+                    tracker.add(u, i, v);
+                if (i % 50 == 0)
+                    assertMatchesSearch(tracker);
+            }
+            assertMatchesSearch(tracker);
+        }
+    }
+
+
+    @Test
+    public void checkWrapsExistingGraph() {
+        Graph<Integer> g = new AdjacencyList<>(1000, false);
+        GraphGenerator.loadSparseDisconnected(g, 4);
+        ConnectivityTracker<Integer> tracker = new ConnectivityTracker<>(g);
+        assertMatchesSearch(tracker);
+        int components = tracker.componentCount();
+        // joining two components
+        int u = 0;
+        int v = 999;
+        if (!tracker.sameComponent(u, v)) {
+            tracker.add(u, null, v);
+            assertTrue(tracker.sameComponent(u, v));
+            assertEquals(components - 1, tracker.componentCount());
+        }
+        assertMatchesSearch(tracker);
+    }
+
+
+    @Test
+    public void checkRemoveSplitsComponent() {
+        ConnectivityTracker<String> tracker = new ConnectivityTracker<>(new AdjacencyList<>(6, true));
+        tracker.add(0, "a", 1);
+        tracker.add(2, "b", 1);
+        tracker.add(3, "c", 4);
+        assertEquals(3, tracker.componentCount());
+        assertTrue(tracker.sameComponent(0, 2));
+        assertEquals(3, tracker.componentOf(4));
+        tracker.remove(2, 1);
+        assertFalse(tracker.sameComponent(0, 2));
+        assertEquals(2, tracker.componentOf(2));
+        assertEquals(4, tracker.componentCount());
+        // removing a missing edge changes nothing
+        tracker.remove(2, 1);
+        assertEquals(4, tracker.componentCount());
+        tracker.add(4, "d", 2);
+        assertEquals(2, tracker.componentOf(4));
+        assertEquals(3, tracker.componentCount());
+    }
+
+}
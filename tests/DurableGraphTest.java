@@ -0,0 +1,234 @@
+/*
+ * File: DurableGraphTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the logged graph, its checkpoints and its recovery.
+ */
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+
+public class DurableGraphTest {
+
+
+    // makes an empty directory that is removed when the tests exit
+    private static Path directory() throws IOException {
+        Path dir = Files.createTempDirectory("graph-log");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            } catch (IOException e) {
+                // left for the system to clean up
+            }
+        }));
+        return dir;
+    }
+
+
+    @Test
+    public void checkReopenReplaysLog() throws IOException {
+        for (boolean directed : new boolean[] {true, false}) {
+            Path dir = directory();
+            Graph<Integer> expected = new AdjacencyList<>(200, directed);
+            DurableGraph g = DurableGraph.open(dir, 200, directed);
+            GraphGenerator.loadSparse(expected, 3);
+            GraphGenerator.loadSparse(g, 3);
+            for (int u = 0; u < 200; u += 7) {
+                for (int v : new ArrayList<>(expected.outNodes(u))) {
+                    expected.remove(u, v);
+                    g.remove(u, v);
+                }
+                if (!expected.outNodes(u + 1).isEmpty()) {
+                    int v = expected.outNodes(u + 1).get(0);
+                    expected.set(u + 1, null, v);
+                    g.set(u + 1, null, v);
+                }
+            }
+            g.close();
+            DurableGraph reopened = DurableGraph.open(dir, 200, directed);
+            GraphAssert.assertSameGraph(expected, reopened);
+            reopened.close();
+        }
+    }
+
+
+    @Test
+    public void checkCheckpointStartsNewLog() throws IOException {
+        Path dir = directory();
+        Graph<Integer> expected = new AdjacencyList<>(300, true);
+        DurableGraph g = DurableGraph.open(dir, 300, true);
+        GraphGenerator.loadSparse(expected, 5);
+        GraphGenerator.loadSparse(g, 5);
+        g.checkpoint();
+        assertEquals(1, g.generation());
+        assertTrue(Files.exists(dir.resolve("snapshot-1.csrg")));
+        assertFalse(Files.exists(dir.resolve("wal-0.log")));
+        // only the changes after the checkpoint are in the log
+        expected.add(0, 42, 299);
+        g.add(0, 42, 299);
+        assertEquals(DurableGraph.HEADER_BYTES + DurableGraph.RECORD_BYTES,
+                Files.size(dir.resolve("wal-1.log")));
+        g.close();
+        // the snapshot's node count and direction win over the arguments
+        DurableGraph reopened = DurableGraph.open(dir, 1, false);
+        GraphAssert.assertSameGraph(expected, reopened);
+        reopened.close();
+    }
+
+
+    @Test
+    public void checkTornTailIsCut() throws IOException {
+        Path dir = directory();
+        DurableGraph g = DurableGraph.open(dir, 10, true);
+        g.add(1, 10, 2);
+        g.add(2, 20, 3);
+        g.add(3, 30, 4);
+        g.close();
+        // a crash in the middle of the last record
+        Path log = dir.resolve("wal-0.log");
+        long size = Files.size(log);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+        DurableGraph reopened = DurableGraph.open(dir, 10, true);
+        assertEquals(2, reopened.edgeCount());
+        assertEquals(Integer.valueOf(20), reopened.label(2, 3));
+        assertFalse(reopened.hasEdge(3, 4));
+        assertEquals(size - DurableGraph.RECORD_BYTES, Files.size(log));
+        // new changes follow the last good record
+        reopened.add(5, 50, 6);
+        reopened.close();
+        DurableGraph again = DurableGraph.open(dir, 10, true);
+        assertEquals(3, again.edgeCount());
+        assertEquals(Integer.valueOf(50), again.label(5, 6));
+        again.close();
+    }
+
+
+    @Test
+    public void checkReplayAcrossBlocks() throws IOException {
+        // enough records for several replay blocks, with a bad checksum
+        // in a later block
+        int records = 3 * DurableGraph.REPLAY_RECORDS + 100;
+        Path dir = directory();
+        DurableGraph g = DurableGraph.open(dir, 1000, true, 1000);
+        for (int i = 0; i < records; ++i)
+            g.add(i % 1000, i, i / 1000);
+        g.close();
+        int bad = 2 * DurableGraph.REPLAY_RECORDS + 7;
+        Path log = dir.resolve("wal-0.log");
+        long offset = DurableGraph.HEADER_BYTES + (long) bad * DurableGraph.RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {-1}), offset + 3);
+        }
+        DurableGraph reopened = DurableGraph.open(dir, 1000, true);
+        assertEquals(bad, reopened.edgeCount());
+        assertEquals(Integer.valueOf(bad - 1), reopened.label((bad - 1) % 1000, (bad - 1) / 1000));
+        assertFalse(reopened.hasEdge(bad % 1000, bad / 1000));
+        assertEquals(offset, Files.size(log));
+        reopened.close();
+    }
+
+
+    @Test
+    public void checkNullLabelRejected() throws IOException {
+        DurableGraph g = DurableGraph.open(directory(), 4, true);
+        g.add(0, null, 1);
+        try {
+            g.add(1, DurableGraph.NULL_LABEL, 2);
+            fail("expected NULL_LABEL to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertFalse(g.hasEdge(1, 2));
+        }
+        try {
+            g.set(0, DurableGraph.NULL_LABEL, 1);
+            fail("expected NULL_LABEL to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertNull(g.label(0, 1));
+        }
+        g.close();
+    }
+
+
+    @Test
+    public void checkBackgroundFailureRethrown() throws Exception {
+        Path dir = directory();
+        DurableGraph g = DurableGraph.open(dir, 10, true);
+        g.add(0, 1, 1);
+        // with the directory gone the next checkpoint can't start a log
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+        g.startCheckpoints(5);
+        UncheckedIOException thrown = null;
+        for (int i = 0; i < 1000 && thrown == null; ++i) {
+            Thread.sleep(5);
+            try {
+                g.sync();
+            } catch (UncheckedIOException e) {
+                thrown = e;
+            }
+        }
+        assertNotNull(thrown);
+        assertTrue(thrown.getCause() instanceof IOException);
+        // the failure is kept, and the change is refused
+        try {
+            g.add(1, 2, 2);
+            fail("expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertSame(thrown.getCause(), e.getCause());
+        }
+        assertFalse(g.hasEdge(1, 2));
+        try {
+            g.close();
+            fail("expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertSame(thrown.getCause(), e.getCause());
+        }
+    }
+
+
+    @Test
+    public void checkConcurrentWriters() throws Exception {
+        for (long syncMillis : new long[] {0, 5}) {
+            Path dir = directory();
+            DurableGraph g = DurableGraph.open(dir, 400, false, syncMillis);
+            g.startCheckpoints(10);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; ++t) {
+                int first = t * 100;
+                writers.add(new Thread(() -> {
+                    for (int u = first; u < first + 99; ++u)
+                        g.add(u, u, u + 1);
+                }));
+            }
+            for (Thread writer : writers)
+                writer.start();
+            for (Thread writer : writers)
+                writer.join();
+            g.close();
+            DurableGraph reopened = DurableGraph.open(dir, 400, false);
+            assertEquals(396, reopened.edgeCount());
+            for (int u = 0; u < 400; ++u) {
+                if (u % 100 != 99)
+                    assertEquals(Integer.valueOf(u), reopened.label(u + 1, u));
+            }
+            reopened.close();
+        }
+    }
+
+}
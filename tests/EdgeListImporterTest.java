@@ -0,0 +1,115 @@
+/*
+ * File: EdgeListImporterTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for reading edge list text files.
+ */
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class EdgeListImporterTest {
+
+
+    // writes the given text to a temporary file
+    private static Path tempFile(String text) throws IOException {
+        Path path = Files.createTempFile("edges", ".txt");
+        path.toFile().deleteOnExit();
+        Files.write(path, text.getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+
+
+    // parses text without going through a file
+    private static GraphBuilder<Integer> parse(String text) throws IOException {
+        return EdgeListImporter.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)), 0);
+    }
+
+
+    @Test
+    public void checkWhitespaceAndCsv() throws Exception {
+        GraphBuilder<Integer> edges = parse("# comment\n0 1\n1\t2 7\n\n  2,3,-4\r\n% other comment\n3 0");
+        assertEquals(4, edges.size());
+        assertEquals(0, edges.src(0));
+        assertEquals(1, edges.dst(0));
+        assertNull(edges.label(0));
+        assertEquals(7, edges.label(1).intValue());
+        assertEquals(2, edges.src(2));
+        assertEquals(3, edges.dst(2));
+        assertEquals(-4, edges.label(2).intValue());
+        assertEquals(3, edges.src(3));
+        assertEquals(0, edges.dst(3));
+        assertEquals(3, edges.maxNode());
+    }
+
+
+    @Test
+    public void checkMalformedLines() {
+        String[] bad = {"0\n", "0 1 2 3\n", "0 x\n", "-1 2\n", "0 1a\n", "0 99999999999\n"};
+        for (String text : bad) {
+            try {
+                parse(text);
+                fail("accepted: " + text);
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("malformed edge"));
+            }
+        }
+    }
+
+
+    @Test
+    public void checkLoadGraph() throws Exception {
+        Path path = tempFile("0 1 10\n1 2 20\n2 0 30\n0 1 40\n");
+        Graph<Integer> g = EdgeListImporter.load(path, true);
+        assertEquals(3, g.nodeCount());
+        assertEquals(3, g.edgeCount());
+        assertEquals(10, g.label(0, 1).intValue());
+        assertEquals(30, g.label(2, 0).intValue());
+    }
+
+
+    @Test
+    public void checkParallelMatchesSequential() throws Exception {
+        // a file larger than several chunks
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(5);
+        int lines = 400000;
+        for (int i = 0; i < lines; ++i) {
+            text.append(random.nextInt(100000)).append(' ').append(random.nextInt(100000));
+            if (i % 3 == 0)
+                text.append(',').append(i);
+            text.append('\n');
+        }
+        Path path = tempFile(text.toString());
+        assertTrue(Files.size(path) > 3 * EdgeListImporter.MIN_CHUNK_BYTES);
+        GraphBuilder<Integer> one = EdgeListImporter.read(path, 1);
+        GraphBuilder<Integer> many = EdgeListImporter.read(path, 8);
+        assertEquals(lines, one.size());
+        assertEquals(lines, many.size());
+        for (int i = 0; i < lines; ++i) {
+            assertEquals(one.src(i), many.src(i));
+            assertEquals(one.dst(i), many.dst(i));
+            assertEquals(one.label(i), many.label(i));
+        }
+    }
+
+
+    @Test(expected = IOException.class)
+    public void checkParallelErrorReported() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300000; ++i)
+            text.append(i).append(' ').append(i + 1).append('\n');
+        text.append("oops\n");
+        EdgeListImporter.read(tempFile(text.toString()), 4);
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * File: EdgeStreamTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the lazy generated edge streams.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class EdgeStreamTest {
+
+
+    // adds the edges of a stream to a new graph
+    private static Graph<Integer> load(EdgeStream edges, int n, boolean directed) {
+        Graph<Integer> g = new AdjacencyList<>(n, directed);
+        GraphBuilder<Integer> builder = new GraphBuilder<>();
+        edges.forEachRemaining((index, src, dst) -> builder.add(src, null, dst));
+        builder.build(g);
+        return g;
+    }
+
+
+    // checks that two graphs have the same edges (ignoring labels)
+    private static void assertSameEdges(Graph<Integer> expected, Graph<Integer> actual) {
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int u = 0; u < expected.nodeCount(); ++u)
+            assertEquals(expected.outNodes(u), actual.outNodes(u));
+    }
+
+
+    @Test
+    public void checkSplitsDoNotChangeEdges() {
+        EdgeStream[] streams = {
+            EdgeStream.sparse(300000, 4),
+            EdgeStream.dense(700, 4),
+            EdgeStream.erdosRenyi(3000, false, 0.05, 4),
+            EdgeStream.rmat(14, 16, 4),
+        };
+        EdgeStream[] again = {
+            EdgeStream.sparse(300000, 4),
+            EdgeStream.dense(700, 4),
+            EdgeStream.erdosRenyi(3000, false, 0.05, 4),
+            EdgeStream.rmat(14, 16, 4),
+        };
+        for (int s = 0; s < streams.length; ++s) {
+            List<Long> sequential = new ArrayList<>();
+            streams[s].forEachRemaining((long edge) -> sequential.add(edge));
+            assertTrue(sequential.size() > 2 * EdgeStream.BLOCK);
+            long[] parallel = again[s].asLongStream(true).toArray();
+            assertEquals(sequential.size(), parallel.length);
+            for (int i = 0; i < parallel.length; ++i)
+                assertEquals(sequential.get(i).longValue(), parallel[i]);
+        }
+    }
+
+
+    @Test
+    public void checkIndexesIncrease() {
+        EdgeStream edges = EdgeStream.erdosRenyiAcyclic(1000, true, 0.2, 8);
+        long[] last = {-1};
+        edges.forEachRemaining((index, src, dst) -> {
+            assertTrue(index > last[0]);
+            assertTrue(src < dst);
+            last[0] = index;
+        });
+        assertTrue(last[0] > 0);
+    }
+
+
+    @Test
+    public void checkTrySplitPrefix() {
+        EdgeStream edges = EdgeStream.sparse(500000, 6);
+        long size = edges.estimateSize();
+        assertTrue(edges.hasCharacteristics(EdgeStream.SIZED));
+        // consume a few edges, then split: the prefix keeps them in order
+        long[] first = new long[1];
+        assertTrue(edges.tryAdvance((long edge) -> first[0] = edge));
+        EdgeStream prefix = edges.trySplit();
+        assertNotNull(prefix);
+        assertEquals(size - 1, prefix.estimateSize() + edges.estimateSize());
+        long[] rest = EdgeStream.sparse(500000, 6).asLongStream(false).toArray();
+        long[] joined = new long[rest.length];
+        int[] count = {1};
+        joined[0] = first[0];
+        prefix.forEachRemaining((long edge) -> joined[count[0]++] = edge);
+        edges.forEachRemaining((long edge) -> joined[count[0]++] = edge);
+        assertArrayEquals(rest, joined);
+    }
+
+
+    @Test
+    public void checkMatchesFixedLoaders() {
+        Graph<Integer> ladder = new AdjacencyList<>(41, true);
+        GraphGenerator.loadQuickLadder(ladder);
+        assertSameEdges(ladder, load(EdgeStream.quickLadder(41), 41, true));
+
+        Graph<Integer> parts = new AdjacencyList<>(53, true);
+        GraphGenerator.loadSparseDisconnected(parts, 5);
+        assertSameEdges(parts, load(EdgeStream.sparseDisconnected(53, 5), 53, true));
+    }
+
+
+    @Test
+    public void checkCompleteTriangle() {
+        List<int[]> pairs = new ArrayList<>();
+        EdgeStream.erdosRenyi(6, false, 1, 0).forEachRemaining(
+                (index, src, dst) -> pairs.add(new int[] {src, dst}));
+        assertEquals(15, pairs.size());
+        int k = 0;
+        for (int j = 1; j < 6; ++j)
+            for (int i = 0; i < j; ++i)
+                assertArrayEquals(new int[] {i, j}, pairs.get(k++));
+    }
+
+
+    @Test
+    public void checkLazy() {
+        // a billion edge stream is only generated as far as it is read
+        EdgeStream edges = EdgeStream.rmat(26, 16, 1);
+        assertTrue(edges.estimateSize() <= 16L << 26);
+        assertTrue(edges.estimateSize() > 15L << 26);
+        long[] some = edges.asLongStream(false).limit(10).toArray();
+        for (long edge : some) {
+            assertTrue(EdgeStream.src(edge) >= 0 && EdgeStream.src(edge) < 1 << 26);
+            assertTrue(EdgeStream.dst(edge) >= 0 && EdgeStream.dst(edge) < 1 << 26);
+            assertNotEquals(EdgeStream.src(edge), EdgeStream.dst(edge));
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * File: GraphAssert.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Graph comparisons shared by the tests of the graph classes.
+ */
+
+import static org.junit.Assert.*;
+
+
+public final class GraphAssert {
+
+    // singleton
+    private GraphAssert() {}
+
+
+    /**
+     * Purpose: Checks that two graphs have the same nodes, edges and
+     *          labels, reading only each node's out row (so it stays
+     *          cheap on large graphs).
+     * @param expected The reference graph.
+     * @param actual The graph under test.
+     */
+    public static void assertSameGraph(Graph<?> expected, Graph<?> actual) {
+        assertEquals(expected.directed(), actual.directed());
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int u = 0; u < expected.nodeCount(); ++u) {
+            assertEquals(expected.outNodes(u), actual.outNodes(u));
+            for (int v : expected.outNodes(u)) {
+                assertTrue(actual.hasEdge(u, v));
+                assertEquals(expected.label(u, v), actual.label(u, v));
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Like assertSameGraph, but also compares every node's
+     *          in-nodes and adjacent nodes and every pair of nodes
+     *          (quadratic, for small graphs).
+     * @param expected The reference graph.
+     * @param actual The graph under test.
+     */
+    public static void assertSameGraphExhaustive(Graph<?> expected, Graph<?> actual) {
+        assertSameGraph(expected, actual);
+        for (int u = 0; u < expected.nodeCount(); ++u) {
+            assertEquals(expected.inNodes(u), actual.inNodes(u));
+            assertEquals(expected.adjacent(u), actual.adjacent(u));
+            for (int v = 0; v < expected.nodeCount(); ++v) {
+                assertEquals(expected.hasEdge(u, v), actual.hasEdge(u, v));
+                assertEquals(expected.label(u, v), actual.label(u, v));
+            }
+        }
+    }
+
+
+    /**
+     * Purpose: Loads the same sparse graph into an empty graph and into a
+     *          new AdjacencyList of the same size and directionality, and
+     *          checks that they match, comparing the in-nodes and adjacent
+     *          nodes of every stride-th node.
+     * @param actual The empty graph under test.
+     * @param seed The loadSparse seed.
+     * @param stride The step between the nodes whose in-nodes and
+     *               adjacent nodes are compared.
+     * @return The loaded AdjacencyList, for further checks.
+     */
+    public static Graph<Integer> assertLoadsLikeAdjacencyList(Graph<Integer> actual, long seed, int stride) {
+        Graph<Integer> expected = new AdjacencyList<>(actual.nodeCount(), actual.directed());
+        GraphGenerator.loadSparse(expected, seed);
+        GraphGenerator.loadSparse(actual, seed);
+        assertSameGraph(expected, actual);
+        for (int u = 0; u < expected.nodeCount(); u += stride) {
+            assertEquals(expected.inNodes(u), actual.inNodes(u));
+            assertEquals(expected.adjacent(u), actual.adjacent(u));
+        }
+        return expected;
+    }
+
+}
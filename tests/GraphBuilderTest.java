@@ -0,0 +1,153 @@
+/*
+ * File: GraphBuilderTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for loading batches of edges with Graph.addAll.
+ */
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class GraphBuilderTest {
+
+
+    // random edges with many duplicates (and reversed duplicates)
+    private static GraphBuilder<Integer> randomEdges(int n, int count, long seed) {
+        Random random = new Random(seed);
+        GraphBuilder<Integer> edges = new GraphBuilder<>();
+        for (int i = 0; i < count; ++i) {
+            edges.add(random.nextInt(n), i, random.nextInt(n));
+        }
+        return edges;
+    }
+
+
+    // adds the edges one at a time
+    private static void addEach(GraphBuilder<Integer> edges, Graph<Integer> g) {
+        for (int i = 0; i < edges.size(); ++i) {
+            g.add(edges.src(i), edges.label(i), edges.dst(i));
+        }
+    }
+
+
+    @Test
+    public void checkListMatchesAdd() {
+        for (boolean directed : new boolean[] {true, false}) {
+            // a small graph with many duplicates, and a larger one with
+            // hub rows that switch to the bitmap form
+            GraphBuilder<Integer> small = randomEdges(20, 300, 1);
+            GraphBuilder<Integer> large = randomEdges(400, 40000, 2);
+            for (GraphBuilder<Integer> edges : List.of(small, large)) {
+                int n = edges.maxNode() + 1;
+                Graph<Integer> expected = new AdjacencyList<>(n, directed);
+                addEach(edges, expected);
+                Graph<Integer> actual = new AdjacencyList<>(n, directed);
+                edges.build(actual);
+                GraphAssert.assertSameGraphExhaustive(expected, actual);
+            }
+        }
+    }
+
+
+    @Test
+    public void checkMatrixMatchesAdd() {
+        for (boolean directed : new boolean[] {true, false}) {
+            GraphBuilder<Integer> edges = randomEdges(30, 500, 3);
+            Graph<Integer> expected = new AdjacencyMatrix<>(30, directed);
+            addEach(edges, expected);
+            Graph<Integer> actual = new AdjacencyMatrix<>(30, directed);
+            edges.build(actual);
+            GraphAssert.assertSameGraphExhaustive(expected, actual);
+        }
+    }
+
+
+    @Test
+    public void checkBatchOnExistingEdges() {
+        Graph<Integer> g = new AdjacencyList<>(5, false);
+        g.add(0, 1, 1);
+        GraphBuilder<Integer> edges = new GraphBuilder<>();
+        edges.add(1, 2, 0);
+        edges.add(2, 3, 2);
+        edges.add(3, 4, 4);
+        edges.add(4, 5, 3);
+        edges.build(g);
+        assertEquals(3, g.edgeCount());
+        assertEquals(1, g.label(1, 0).intValue());
+        assertEquals(3, g.label(2, 2).intValue());
+        assertEquals(4, g.label(4, 3).intValue());
+    }
+
+
+    @Test
+    public void checkGeneratorsUnchanged() {
+        // the loaders must still produce the edges of one add per edge
+        Graph<Integer> expected = new AdjacencyList<>(200, true);
+        Random random = new Random(7);
+        int n = expected.nodeCount();
+        int e = n + random.nextInt(n);
+        for (int i = 0; i < e; ++i) {
+            int v1 = random.nextInt(n);
+            int v2 = random.nextInt(n);
+            expected.add(v1, i, v2);
+        }
+        Graph<Integer> actual = new AdjacencyList<>(200, true);
+        GraphGenerator.loadSparse(actual, 7);
+        GraphAssert.assertSameGraphExhaustive(expected, actual);
+    }
+
+
+    @Test
+    public void checkSortByKey() {
+        Random random = new Random(11);
+        for (int count : new int[] {0, 10, 5000}) {
+            long[] keys = new long[count];
+            int[] index = new int[count];
+            for (int i = 0; i < count; ++i) {
+                keys[i] = ((long) random.nextInt(50) << 32) | random.nextInt(70000);
+                index[i] = i;
+            }
+            long[] original = keys.clone();
+            GraphBuilder.sortByKey(keys, index, count);
+            for (int i = 0; i < count; ++i) {
+                assertEquals(original[index[i]], keys[i]);
+                if (i > 0) {
+                    assertTrue(keys[i - 1] <= keys[i]);
+                    if (keys[i - 1] == keys[i])
+                        assertTrue(index[i - 1] < index[i]);
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void checkIntLabelsMixedWithBoxed() {
+        GraphBuilder<Integer> edges = new GraphBuilder<>(2);
+        edges.addInt(0, 7, 1);
+        edges.add(1, null, 2);
+        edges.addInt(2, -3, 3);
+        GraphBuilder<Integer> more = new GraphBuilder<>();
+        more.add(3, 9, 0);
+        more.addInt(4, 5, 0);
+        edges.addAll(more);
+        assertEquals(7, edges.label(0).intValue());
+        assertNull(edges.label(1));
+        assertEquals(-3, edges.label(2).intValue());
+        assertEquals(5, edges.label(4).intValue());
+        Graph<Integer> g = new AdjacencyList<>(5, true);
+        edges.build(g);
+        assertEquals(5, g.edgeCount());
+        assertEquals(7, g.label(0, 1).intValue());
+        assertNull(g.label(1, 2));
+        assertEquals(-3, g.label(2, 3).intValue());
+        assertEquals(9, g.label(3, 0).intValue());
+        assertEquals(5, g.label(4, 0).intValue());
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * File: GraphGeneratorTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the random graph generators.
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class GraphGeneratorTest {
+
+
+    // checks that every label is a distinct edge position
+    private static void assertLabeledInOrder(Graph<Integer> g, int maxLabel) {
+        boolean[] seen = new boolean[maxLabel];
+        for (int u = 0; u < g.nodeCount(); ++u) {
+            for (int v : g.outNodes(u)) {
+                int label = g.label(u, v);
+                assertTrue(label >= 0 && label < maxLabel);
+                if (g.directed())
+                    assertFalse(seen[label]);
+                seen[label] = true;
+            }
+        }
+    }
+
+
+    @Test
+    public void checkParallelDeterministic() {
+        for (int parallelism : new int[] {1, 3}) {
+            Graph<Integer> a = new AdjacencyList<>(300, true);
+            Graph<Integer> b = new AdjacencyList<>(300, true);
+            GraphGenerator.loadDenseParallel(a, 17, parallelism);
+            GraphGenerator.loadDenseParallel(b, 17, parallelism);
+            GraphAssert.assertSameGraphExhaustive(a, b);
+            assertTrue(a.edgeCount() >= 300 * 300 * 7 / 10);
+
+            a = new AdjacencyList<>(500, true);
+            b = new AdjacencyList<>(500, true);
+            GraphGenerator.loadSparseParallel(a, 17, parallelism);
+            GraphGenerator.loadSparseParallel(b, 17, parallelism);
+            GraphAssert.assertSameGraphExhaustive(a, b);
+            assertTrue(a.edgeCount() <= 1000);
+        }
+    }
+
+
+    @Test
+    public void checkParallelismValues() {
+        // different splits give different graphs, but each one is valid
+        for (int parallelism : new int[] {1, 2, 5, 16}) {
+            Graph<Integer> g = new AdjacencyList<>(200, true);
+            GraphGenerator.loadDenseParallel(g, 17, parallelism);
+            assertLabeledInOrder(g, g.edgeCount());
+            assertTrue(g.edgeCount() >= 200 * 200 * 7 / 10);
+
+            g = new AdjacencyList<>(500, true);
+            GraphGenerator.loadSparseParallel(g, 17, parallelism);
+            assertTrue(g.edgeCount() > 0 && g.edgeCount() <= 1000);
+            assertLabeledInOrder(g, 1000);
+
+            g = new AdjacencyList<>(100, true);
+            GraphGenerator.loadDenseAcyclicParallel(g, 17, parallelism);
+            assertLabeledInOrder(g, g.edgeCount());
+            for (int u = 0; u < g.nodeCount(); ++u)
+                for (int v : g.outNodes(u))
+                    assertTrue(u < v);
+        }
+    }
+
+
+    @Test
+    public void checkDenseParallelLabels() {
+        Graph<Integer> g = new AdjacencyList<>(100, true);
+        GraphGenerator.loadDenseParallel(g, 4, 4);
+        // no duplicate edges are possible, so labels are 0 to m-1
+        assertLabeledInOrder(g, g.edgeCount());
+    }
+
+
+    @Test
+    public void checkDenseAcyclicParallel() {
+        Graph<Integer> g = new AdjacencyList<>(120, true);
+        GraphGenerator.loadDenseAcyclicParallel(g, 9, 4);
+        assertLabeledInOrder(g, g.edgeCount());
+        for (int u = 0; u < g.nodeCount(); ++u)
+            for (int v : g.outNodes(u))
+                assertTrue(u < v);
+        assertEquals(g.nodeCount(), GraphAlgorithms.topologicalSort(g).size());
+
+        // undirected edges only join the two halves
+        Graph<Integer> h = new AdjacencyList<>(120, false);
+        GraphGenerator.loadDenseAcyclicParallel(h, 9, 4);
+        assertTrue(h.edgeCount() > 0);
+        for (int u = 0; u < 60; ++u)
+            for (int v : h.adjacent(u))
+                assertTrue(v > 60);
+    }
+
+
+    @Test
+    public void checkErdosRenyiDensity() {
+        int n = 400;
+        Graph<Integer> g = new AdjacencyList<>(n, true);
+        GraphGenerator.loadErdosRenyi(g, 0.05, 21);
+        double expected = 0.05 * n * (n - 1);
+        assertEquals(expected, g.edgeCount(), expected * 0.1);
+        assertLabeledInOrder(g, g.edgeCount());
+        for (int u = 0; u < n; ++u)
+            assertFalse(g.hasEdge(u, u));
+
+        Graph<Integer> h = new AdjacencyList<>(n, false);
+        GraphGenerator.loadErdosRenyi(h, 0.05, 21);
+        assertEquals(expected / 2, h.edgeCount(), expected * 0.05);
+    }
+
+
+    @Test
+    public void checkErdosRenyiExtremes() {
+        Graph<Integer> g = new AdjacencyList<>(30, true);
+        GraphGenerator.loadErdosRenyi(g, 0, 1);
+        assertEquals(0, g.edgeCount());
+        g = new AdjacencyList<>(30, true);
+        GraphGenerator.loadErdosRenyi(g, 1, 1);
+        assertEquals(30 * 29, g.edgeCount());
+        g = new AdjacencyList<>(30, false);
+        GraphGenerator.loadErdosRenyi(g, 1, 1);
+        assertEquals(30 * 29 / 2, g.edgeCount());
+        g = new AdjacencyList<>(31, false);
+        GraphGenerator.loadErdosRenyiAcyclic(g, 1, 1);
+        assertEquals(15 * 16, g.edgeCount());
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkErdosRenyiBadProbability() {
+        GraphGenerator.loadErdosRenyi(new AdjacencyList<>(5, true), 1.5, 1);
+    }
+
+
+    @Test
+    public void checkErdosRenyiAcyclic() {
+        Graph<Integer> g = new AdjacencyList<>(300, true);
+        GraphGenerator.loadErdosRenyiAcyclic(g, 0.1, 5);
+        assertTrue(g.edgeCount() > 0);
+        for (int u = 0; u < g.nodeCount(); ++u)
+            for (int v : g.outNodes(u))
+                assertTrue(u < v);
+
+        Graph<Integer> h = new AdjacencyList<>(300, false);
+        GraphGenerator.loadErdosRenyiAcyclic(h, 0.1, 5);
+        assertTrue(h.edgeCount() > 0);
+        for (int u = 0; u < 150; ++u)
+            for (int v : h.adjacent(u))
+                assertTrue(v >= 150);
+    }
+
+
+    @Test
+    public void checkErdosRenyiLargeSparse() {
+        // far too many pairs to visit one at a time
+        Graph<Integer> g = new AdjacencyList<>(200000, false);
+        GraphGenerator.loadErdosRenyi(g, 5.0 / 200000, 3);
+        assertEquals(500000, g.edgeCount(), 5000);
+    }
+
+
+    @Test
+    public void checkRmatSkew() {
+        int scale = 12;
+        Graph<Integer> g = new AdjacencyList<>(1 << scale, false);
+        GraphGenerator.loadRmat(g, scale, 8, 33);
+        assertTrue(g.edgeCount() <= 8 << scale);
+        assertTrue(g.edgeCount() > 4 << scale);
+        int maxDegree = 0;
+        for (int u = 0; u < g.nodeCount(); ++u) {
+            assertFalse(g.hasEdge(u, u));
+            maxDegree = Math.max(maxDegree, g.adjacent(u).size());
+        }
+        // hubs far above the average degree of about 16
+        assertTrue(maxDegree > 200);
+    }
+
+
+    @Test
+    public void checkRmatParallelDeterministic() {
+        Graph<Integer> a = new AdjacencyList<>(1 << 10, true);
+        Graph<Integer> b = new AdjacencyList<>(1 << 10, true);
+        GraphGenerator.loadRmatParallel(a, 10, 16, 8, 3);
+        GraphGenerator.loadRmatParallel(b, 10, 16, 8, 3);
+        GraphAssert.assertSameGraphExhaustive(a, b);
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkRmatNeedsPowerOfTwo() {
+        GraphGenerator.loadRmat(new AdjacencyList<>(1000, true), 10, 16, 1);
+    }
+
+
+    @Test
+    public void checkPreferentialAttachment() {
+        int n = 2000;
+        int m = 3;
+        Graph<Integer> g = new AdjacencyList<>(n, true);
+        GraphGenerator.loadPreferentialAttachment(g, m, 12);
+        assertEquals(m * (m + 1) / 2 + (n - m - 1) * m, g.edgeCount());
+        assertLabeledInOrder(g, g.edgeCount());
+        int maxIn = 0;
+        for (int u = 0; u < n; ++u) {
+            for (int v : g.outNodes(u))
+                assertTrue(v < u);
+            if (u > m)
+                assertEquals(m, g.outNodes(u).size());
+            maxIn = Math.max(maxIn, g.inNodes(u).size());
+        }
+        assertTrue(maxIn > 10 * m);
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * File: GraphTaskContextTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for stopping GraphAlgorithms runs with a GraphTaskContext.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class GraphTaskContextTest {
+
+
+    // a sparse directed graph with every node reachable from node 0
+    private static Graph<Integer> sparse(int n) {
+        Graph<Integer> g = new AdjacencyList<>(n, true);
+        GraphGenerator.loadSparse(g, 7);
+        for (int i = 0; i + 1 < n; ++i)
+            if (!g.hasEdge(i, i + 1))
+                g.add(i, i, i + 1);
+        return g;
+    }
+
+
+    @Test
+    public void checkSameResults() {
+        Graph<Integer> g = sparse(3000);
+        GraphTaskContext context = new GraphTaskContext(60000, null);
+        assertEquals(-1, context.percent());
+        assertEquals(GraphAlgorithms.bfs(g, 0), GraphAlgorithms.bfs(g, 0, null, context));
+        assertEquals(GraphAlgorithms.dfs(g, 0), GraphAlgorithms.dfs(g, 0, null, context));
+        assertEquals(GraphAlgorithms.connectedComponents(g),
+                GraphAlgorithms.connectedComponents(g, null, context));
+        assertEquals(GraphAlgorithms.acyclic(g), GraphAlgorithms.acyclic(g, null, context));
+        assertEquals(100, context.percent());
+    }
+
+
+    @Test(expected = GraphTaskCancelledException.class)
+    public void checkCancelledBeforeStart() {
+        GraphTaskContext context = new GraphTaskContext();
+        context.cancel();
+        GraphAlgorithms.bfs(sparse(10), 0, null, context);
+    }
+
+
+    @Test
+    public void checkDeadline() throws InterruptedException {
+        GraphTaskContext context = new GraphTaskContext(1, null);
+        Thread.sleep(5);
+        try {
+            GraphAlgorithms.topologicalSort(sparse(100), null, context);
+            fail("expected the deadline to stop the sort");
+        } catch (GraphTaskCancelledException e) {
+            assertTrue(e.deadlineExceeded());
+        }
+    }
+
+
+    @Test
+    public void checkProgressAndCancelMidRun() {
+        Graph<Integer> g = sparse(5000);
+        List<Integer> reported = new ArrayList<>();
+        GraphTaskContext context = new GraphTaskContext(0, reported::add);
+        GraphAlgorithms.bfs(g, 0, null, context);
+        assertEquals(0, (int) reported.get(0));
+        assertEquals(100, (int) reported.get(reported.size() - 1));
+        for (int i = 1; i < reported.size(); ++i)
+            assertTrue(reported.get(i) > reported.get(i - 1));
+
+        // a listener cancels the closure a quarter of the way through
+        Graph<Integer> chain = new AdjacencyList<>(1200, true);
+        for (int i = 0; i + 1 < 1200; ++i)
+            chain.add(i, i, i + 1);
+        GraphTaskContext[] stopping = new GraphTaskContext[1];
+        stopping[0] = new GraphTaskContext(0, percent -> {
+            if (percent >= 25)
+                stopping[0].cancel();
+        });
+        try {
+            GraphAlgorithms.transitiveClosure(chain, null, stopping[0]);
+            fail("expected the closure to be cancelled");
+        } catch (GraphTaskCancelledException e) {
+            assertFalse(e.deadlineExceeded());
+            assertTrue(stopping[0].percent() < 100);
+        }
+        // the closure stopped part way, leaving the edges added so far
+        assertTrue(chain.edgeCount() > 1199);
+        assertTrue(chain.hasEdge(0, 1199));
+        assertFalse(chain.hasEdge(1100, 1199));
+    }
+
+
+    @Test
+    public void checkInterrupt() {
+        Thread.currentThread().interrupt();
+        try {
+            GraphAlgorithms.stronglyConnectedComponents(sparse(10), new GraphTaskContext());
+            fail("expected the interrupt to stop the search");
+        } catch (GraphTaskCancelledException e) {
+            assertFalse(e.deadlineExceeded());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkNegativeTimeout() {
+        new GraphTaskContext(-1, null);
+    }
+
+}
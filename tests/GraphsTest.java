@@ -0,0 +1,216 @@
+/*
+ * File: GraphsTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the CSR and bit matrix representations and for
+ *       choosing between representations.
+ */
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class GraphsTest {
+
+
+    //--------------------------------------------------------------------
+    // CSR tests
+    //--------------------------------------------------------------------
+
+
+    @Test
+    public void checkDirectedCsrCopy() {
+        Graph<Integer> g = new AdjacencyList<>(50, true);
+        GraphGenerator.loadSparse(g, 7);
+        CsrGraph<Integer> csr = new CsrGraph<>(g);
+        GraphAssert.assertSameGraphExhaustive(g, csr);
+        assertTrue(csr.labeled());
+    }
+
+
+    @Test
+    public void checkUndirectedCsrCopy() {
+        Graph<Integer> g = new AdjacencyList<>(40, false);
+        GraphGenerator.loadQuickLadder(g);
+        CsrGraph<Integer> csr = new CsrGraph<>(g);
+        GraphAssert.assertSameGraphExhaustive(g, csr);
+        assertEquals(g.outNodes(4).size(), csr.outDegree(4));
+        assertEquals(g.outNodes(4).get(1).intValue(), csr.outNode(4, 1));
+    }
+
+
+    @Test
+    public void checkUnlabeledCsr() {
+        Graph<String> g = new AdjacencyList<>(3, true);
+        g.add(0, null, 1);
+        g.add(1, null, 2);
+        CsrGraph<String> csr = new CsrGraph<>(g);
+        assertFalse(csr.labeled());
+        assertNull(csr.label(0, 1));
+        assertFalse(csr.hasEdge(0, 2));
+    }
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkCsrIsReadOnly() {
+        CsrGraph<Integer> csr = new CsrGraph<>(new AdjacencyList<Integer>(3, true));
+        csr.add(0, 1, 2);
+    }
+
+
+    //--------------------------------------------------------------------
+    // Bit matrix tests
+    //--------------------------------------------------------------------
+
+
+    @Test
+    public void checkBitMatrixMatchesAdjacencyList() {
+        Graph<Integer> expected = new AdjacencyList<>(100, true);
+        Graph<Integer> actual = new BitMatrixGraph<>(100, true);
+        GraphGenerator.loadSparse(expected, 3);
+        GraphGenerator.loadSparse(actual, 3);
+        GraphAssert.assertSameGraphExhaustive(expected, actual);
+        int u = 0;
+        while (expected.outNodes(u).isEmpty())
+            ++u;
+        int v = expected.outNodes(u).get(0);
+        expected.remove(u, v);
+        actual.remove(u, v);
+        GraphAssert.assertSameGraphExhaustive(expected, actual);
+    }
+
+
+    @Test
+    public void checkUndirectedBitMatrix() {
+        Graph<String> g = new BitMatrixGraph<>(70, false);
+        g.add(3, null, 65);
+        g.add(65, "x", 3);
+        assertEquals(1, g.edgeCount());
+        assertTrue(g.hasEdge(65, 3));
+        assertNull(g.label(3, 65));
+        g.set(65, "y", 3);
+        assertEquals("y", g.label(3, 65));
+        assertEquals(List.of(65), g.outNodes(3));
+        assertEquals(List.of(3), g.inNodes(65));
+        g.remove(3, 65);
+        assertEquals(0, g.edgeCount());
+        assertFalse(g.hasEdge(65, 3));
+        assertNull(g.label(65, 3));
+    }
+
+
+    @Test
+    public void checkBitMatrixTooLarge() {
+        assertTrue(BitMatrixGraph.fits(300000));
+        assertFalse(BitMatrixGraph.fits(400000));
+        assertFalse(BitMatrixGraph.fits(Integer.MAX_VALUE));
+        try {
+            new BitMatrixGraph<Integer>(400000, true);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("400000"));
+        }
+    }
+
+
+    //--------------------------------------------------------------------
+    // Representation selection tests
+    //--------------------------------------------------------------------
+
+
+    @Test
+    public void checkSparseProfile() {
+        Graph<Integer> g = new AdjacencyList<>(200, true);
+        GraphGenerator.loadSparse(g, 11);
+        Graphs.Profile p = Graphs.profile(g);
+        assertEquals(g.edgeCount(), p.entries);
+        assertTrue(p.labeled);
+        assertTrue(p.density < 0.05);
+        assertEquals(Graphs.Representation.CSR, p.best(false));
+        assertEquals(Graphs.Representation.ADJACENCY_LIST, p.best(true));
+        assertTrue(p.toString().contains("CSR"));
+    }
+
+
+    @Test
+    public void checkDenseUnlabeledSelectsBitMatrix() {
+        int n = 100;
+        Graph<Integer> g = new AdjacencyList<>(n, true);
+        for (int u = 0; u < n; ++u)
+            for (int v = 0; v < n; ++v)
+                if ((u + v) % 5 != 0)
+                    g.add(u, null, v);
+        Graphs.Profile p = Graphs.profile(g);
+        assertFalse(p.labeled);
+        assertTrue(p.density > 0.7);
+        assertEquals(Graphs.Representation.BIT_MATRIX, p.best(true));
+        Graph<Integer> optimized = Graphs.optimize(g);
+        assertTrue(optimized instanceof BitMatrixGraph);
+        GraphAssert.assertSameGraphExhaustive(g, optimized);
+    }
+
+
+    @Test
+    public void checkDenseLabeledSelectsMatrix() {
+        Graph<Integer> g = new AdjacencyList<>(60, true);
+        GraphGenerator.loadDense(g, 5);
+        Graphs.Profile p = Graphs.profile(g);
+        assertEquals(Graphs.Representation.ADJACENCY_MATRIX, p.best(true));
+        assertTrue(p.skew >= 1.0);
+    }
+
+
+    @Test
+    public void checkHubGraphPrefersList() {
+        // a sparse graph with five hubs, where the bit matrix is a little
+        // smaller but the skew favors the adaptive list
+        int n = 1000;
+        Graph<Integer> g = new AdjacencyList<>(n, true);
+        Random random = new Random(1);
+        for (int u = 0; u < n; ++u) {
+            for (int k = 0; k < (u < 5 ? n : 2); ++k) {
+                int v = random.nextInt(n);
+                if (!g.hasEdge(u, v))
+                    g.add(u, null, v);
+            }
+        }
+        Graphs.Profile p = Graphs.profile(g);
+        assertTrue(p.skew >= Graphs.HUB_SKEW);
+        assertTrue(p.estimatedBytes(Graphs.Representation.BIT_MATRIX)
+                < p.estimatedBytes(Graphs.Representation.ADJACENCY_LIST));
+        assertEquals(Graphs.Representation.ADJACENCY_LIST, p.best(true));
+        assertEquals(Graphs.Representation.CSR, p.best(false));
+    }
+
+
+    @Test
+    public void checkConvertEachRepresentation() {
+        Graph<Integer> g = new AdjacencyList<>(30, false);
+        GraphGenerator.loadSparseAcyclic(g, 9);
+        for (Graphs.Representation r : Graphs.Representation.values()) {
+            GraphAssert.assertSameGraphExhaustive(g, Graphs.convert(g, r));
+        }
+    }
+
+
+    @Test
+    public void checkConvertPartiallyLabeled() {
+        Graph<Integer> g = new AdjacencyList<>(4, true);
+        g.add(0, null, 1);
+        g.add(1, 5, 2);
+        g.add(2, null, 3);
+        Graphs.Profile p = Graphs.profile(g);
+        assertTrue(p.labeled);
+        assertTrue(p.nullLabels);
+        assertNotEquals(Graphs.Representation.ADJACENCY_MATRIX, p.best(true));
+        for (Graphs.Representation r : Graphs.Representation.values()) {
+            GraphAssert.assertSameGraphExhaustive(g, Graphs.convert(g, r));
+        }
+        assertTrue(Graphs.convert(g, Graphs.Representation.ADJACENCY_MATRIX) instanceof BitMatrixGraph);
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * File: IngestingGraphTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the append-only ingesting graph and its compaction.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class IngestingGraphTest {
+
+
+    @Test
+    public void checkMatchesAdjacencyList() {
+        for (boolean directed : new boolean[] {true, false}) {
+            // a small threshold compacts several times while loading
+            IngestingGraph<Integer> actual = new IngestingGraph<>(400, directed, 100);
+            Graph<Integer> expected = GraphAssert.assertLoadsLikeAdjacencyList(actual, 8, 1);
+            assertTrue(actual.pendingEdges() < 100);
+            actual.compact();
+            assertEquals(0, actual.pendingEdges());
+            GraphAssert.assertSameGraphExhaustive(expected, actual);
+        }
+    }
+
+
+    @Test
+    public void checkDuplicatesFirstWins() {
+        IngestingGraph<String> g = new IngestingGraph<>(10, false, 1000);
+        g.add(1, "a", 2);
+        g.add(2, "b", 1);
+        g.add(3, null, 3);
+        g.add(3, "c", 3);
+        assertEquals(2, g.edgeCount());
+        assertEquals("a", g.label(2, 1));
+        assertEquals(Arrays.asList(2), g.outNodes(1));
+        g.compact();
+        g.add(1, "d", 2);
+        assertEquals(2, g.edgeCount());
+        assertEquals("a", g.label(1, 2));
+        assertEquals("a", g.label(2, 1));
+        assertNull(g.label(3, 3));
+        g.compact();
+        assertEquals(2, g.edgeCount());
+        assertEquals(Arrays.asList(3), g.outNodes(3));
+        assertEquals("a", g.label(2, 1));
+    }
+
+
+    @Test
+    public void checkConcurrentIngest() throws InterruptedException {
+        int n = 1000;
+        int threads = 4;
+        int perThread = 50000;
+        IngestingGraph<Integer> g = new IngestingGraph<>(n, true, 5000);
+        g.startCompactor(5);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            int part = t;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; ++i) {
+                    int edge = part * perThread + i;
+                    g.add(edge % n, edge, (edge / n) % n);
+                }
+            }));
+        }
+        for (Thread writer : writers)
+            writer.start();
+        // queries run while the writers and compactor do
+        for (int i = 0; i < 50; ++i) {
+            int seen = g.outNodes(i).size();
+            assertTrue(seen <= n);
+        }
+        for (Thread writer : writers)
+            writer.join();
+        g.close();
+        int edges = threads * perThread;
+        assertEquals(edges, g.edgeCount());
+        g.compact();
+        assertEquals(0, g.pendingEdges());
+        assertEquals(edges, g.edgeCount());
+        for (int edge = 0; edge < edges; edge += 997)
+            assertEquals(edge, (int) g.label(edge % n, (edge / n) % n));
+    }
+
+
+    @Test
+    public void checkInlineCompactionWithoutCompactor() throws InterruptedException {
+        // the adders compact themselves, skipping while another one runs
+        int n = 500;
+        int threads = 4;
+        int perThread = 20000;
+        IngestingGraph<Integer> g = new IngestingGraph<>(n, true, 500);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            int part = t;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; ++i) {
+                    int edge = part * perThread + i;
+                    g.add(edge % n, edge, (edge / n) % n);
+                }
+            }));
+        }
+        for (Thread writer : writers)
+            writer.start();
+        for (Thread writer : writers)
+            writer.join();
+        assertTrue(g.pendingEdges() < (long) threads * perThread);
+        g.compact();
+        assertEquals(0, g.pendingEdges());
+        assertEquals(threads * perThread, g.edgeCount());
+        for (int edge = 0; edge < threads * perThread; edge += 991)
+            assertEquals(edge, (int) g.label(edge % n, (edge / n) % n));
+    }
+
+
+    @Test
+    public void checkEndedWritersBuffersReused() throws InterruptedException {
+        // short-lived writers one after another share one buffer, with
+        // blocks filled part way when a writer ends
+        int n = 300;
+        int writers = 20;
+        int perThread = 3000;
+        IngestingGraph<Integer> g = new IngestingGraph<>(n, true, 4000);
+        for (int t = 0; t < writers; ++t) {
+            int part = t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < perThread; ++i) {
+                    int edge = part * perThread + i;
+                    g.add(edge % n, edge, (edge / n) % n);
+                }
+            });
+            writer.start();
+            writer.join();
+            if (t % 3 == 0)
+                g.compact();
+        }
+        assertEquals(1, g.bufferCount());
+        assertEquals(writers * perThread, g.edgeCount());
+        g.compact();
+        assertEquals(0, g.pendingEdges());
+        assertEquals(writers * perThread, g.edgeCount());
+        for (int edge = 0; edge < writers * perThread; edge += 997)
+            assertEquals(edge, (int) g.label(edge % n, (edge / n) % n));
+
+        // a writer alive alongside another gets its own buffer
+        g.add(0, -1, 250);
+        Thread other = new Thread(() -> g.add(1, -2, 251));
+        other.start();
+        other.join();
+        assertEquals(2, g.bufferCount());
+        assertEquals(-2, (int) g.label(1, 251));
+    }
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkAppendOnly() {
+        IngestingGraph<Integer> g = new IngestingGraph<>(4, true);
+        g.add(0, 1, 2);
+        g.remove(0, 2);
+    }
+
+}
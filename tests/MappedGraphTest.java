@@ -0,0 +1,130 @@
+/*
+ * File: MappedGraphTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for writing graph files and opening them memory mapped.
+ */
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+
+public class MappedGraphTest {
+
+
+    // writes a graph to a temporary file and maps it back
+    private static MappedGraph roundTrip(Graph<Integer> g) throws IOException {
+        Path path = Files.createTempFile("graph", ".csr");
+        path.toFile().deleteOnExit();
+        MappedGraph.write(g, path);
+        return MappedGraph.open(path);
+    }
+
+
+    @Test
+    public void checkDirectedRoundTrip() throws Exception {
+        Graph<Integer> g = new AdjacencyList<>(150, true);
+        GraphGenerator.loadSparse(g, 12);
+        g.add(149, null, 0);
+        MappedGraph m = roundTrip(g);
+        assertTrue(m.labeled());
+        assertEquals(g.edgeCount(), m.edgeCountLong());
+        GraphAssert.assertSameGraphExhaustive(g, m);
+    }
+
+
+    @Test
+    public void checkUndirectedRoundTrip() throws Exception {
+        Graph<Integer> g = new AdjacencyList<>(64, false);
+        GraphGenerator.loadQuickLadder(g);
+        g.add(7, 7, 7);
+        GraphAssert.assertSameGraphExhaustive(g, roundTrip(g));
+    }
+
+
+    @Test
+    public void checkEmptyGraphRoundTrip() throws Exception {
+        Graph<Integer> g = new AdjacencyList<>(0, true);
+        MappedGraph m = roundTrip(g);
+        assertEquals(0, m.nodeCount());
+        assertEquals(0, m.edgeCount());
+    }
+
+
+    @Test
+    public void checkUnlabeledFile() throws Exception {
+        Graph<String> g = new AdjacencyList<>(3, true);
+        g.add(0, "not an int", 2);
+        Path path = Files.createTempFile("graph", ".csr");
+        path.toFile().deleteOnExit();
+        MappedGraph.write(g, path, false);
+        MappedGraph m = MappedGraph.open(path);
+        assertFalse(m.labeled());
+        assertTrue(m.hasEdge(0, 2));
+        assertNull(m.label(0, 2));
+    }
+
+
+    @Test
+    public void checkNonIntegerLabelsRejected() throws Exception {
+        Graph<String> g = new AdjacencyList<>(2, true);
+        g.add(0, "a", 1);
+        Path path = Files.createTempFile("graph", ".csr");
+        path.toFile().deleteOnExit();
+        try {
+            MappedGraph.write(g, path, true);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("not an Integer"));
+        }
+        // nothing was written over the target or left behind
+        assertEquals(0, Files.size(path));
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+    }
+
+
+    @Test
+    public void checkNullLabelValueRejected() throws Exception {
+        Graph<Integer> g = new AdjacencyList<>(3, true);
+        g.add(0, 4, 1);
+        Path path = Files.createTempFile("graph", ".csr");
+        path.toFile().deleteOnExit();
+        MappedGraph.write(g, path);
+        g.add(1, MappedGraph.NULL_LABEL, 2);
+        try {
+            MappedGraph.write(g, path);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("reserved"));
+        }
+        // the earlier file is still intact
+        MappedGraph m = MappedGraph.open(path);
+        assertEquals(1, m.edgeCount());
+        assertEquals(Integer.valueOf(4), m.label(0, 1));
+    }
+
+
+    @Test(expected = IOException.class)
+    public void checkBadFileRejected() throws Exception {
+        Path path = Files.createTempFile("graph", ".csr");
+        path.toFile().deleteOnExit();
+        Files.write(path, new byte[256]);
+        MappedGraph.open(path);
+    }
+
+
+    @Test
+    public void checkSearchOnMappedGraph() throws Exception {
+        Graph<Integer> g = new AdjacencyList<>(300, true);
+        GraphGenerator.loadSparse(g, 99);
+        MappedGraph m = roundTrip(g);
+        assertEquals(GraphAlgorithms.bfs(g, 3), GraphAlgorithms.bfs(m, 3));
+        assertEquals(GraphAlgorithms.connectedComponents(g), GraphAlgorithms.connectedComponents(m));
+    }
+
+}
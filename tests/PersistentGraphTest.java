@@ -0,0 +1,106 @@
+/*
+ * File: PersistentGraphTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the persistent graph and its versions.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class PersistentGraphTest {
+
+
+    @Test
+    public void checkMatchesAdjacencyList() {
+        for (int n : new int[] {1, 31, 32, 33, 1025, 3000}) {
+            for (boolean directed : new boolean[] {true, false}) {
+                Graph<Integer> actual = new PersistentGraph<>(n, directed);
+                Graph<Integer> expected = GraphAssert.assertLoadsLikeAdjacencyList(actual, 6, 97);
+                // remove every other edge from both
+                for (int u = 0; u < n; ++u)
+                    for (int v : expected.outNodes(u))
+                        if ((u + v) % 2 == 0 && (directed || u <= v)) {
+                            expected.remove(u, v);
+                            actual.remove(u, v);
+                        }
+                GraphAssert.assertSameGraph(expected, actual);
+            }
+        }
+    }
+
+
+    @Test
+    public void checkVersionsAreIndependent() {
+        PersistentGraph<String> base = new PersistentGraph<>(100, true);
+        base.add(0, "a", 1);
+        base.add(1, "b", 2);
+        PersistentGraph<String> added = base.with(2, "c", 3);
+        PersistentGraph<String> removed = base.without(0, 1);
+        PersistentGraph<String> relabeled = base.withLabel(1, "z", 2);
+
+        assertEquals(2, base.edgeCount());
+        assertFalse(base.hasEdge(2, 3));
+        assertTrue(base.hasEdge(0, 1));
+        assertEquals("b", base.label(1, 2));
+
+        assertEquals(3, added.edgeCount());
+        assertEquals("c", added.label(2, 3));
+        assertEquals(1, removed.edgeCount());
+        assertFalse(removed.hasEdge(0, 1));
+        assertEquals(Arrays.asList(2), removed.outNodes(1));
+        assertEquals("z", relabeled.label(1, 2));
+
+        // changing a fork in place leaves the original alone
+        PersistentGraph<String> fork = base.fork();
+        fork.remove(1, 2);
+        fork.add(5, null, 4);
+        assertTrue(base.hasEdge(1, 2));
+        assertFalse(base.hasEdge(5, 4));
+        assertTrue(fork.hasEdge(5, 4));
+        assertNull(fork.label(5, 4));
+    }
+
+
+    @Test
+    public void checkScenarios() {
+        // many one-edge variants of a shared graph, each with its own
+        // shortest path
+        PersistentGraph<Integer> base = new PersistentGraph<>(2000, true);
+        for (int u = 0; u + 1 < 2000; ++u)
+            base.add(u, u, u + 1);
+        List<PersistentGraph<Integer>> scenarios = new ArrayList<>();
+        for (int k = 1; k < 1000; ++k)
+            scenarios.add(base.with(0, -k, 2 * k));
+        for (int k = 1; k < 1000; k += 111) {
+            List<Integer> path = GraphAlgorithms.shortestPath(scenarios.get(k - 1), 0, 1999);
+            assertEquals(1999 - 2 * k + 2, path.size());
+            assertEquals(2 * k, (int) path.get(1));
+        }
+        assertEquals(1999, base.edgeCount());
+        assertEquals(Arrays.asList(1), base.outNodes(0));
+    }
+
+
+    @Test
+    public void checkUndirectedSelfLoop() {
+        PersistentGraph<Integer> g = new PersistentGraph<>(40, false);
+        g.add(35, 7, 35);
+        g.add(35, 8, 3);
+        assertEquals(2, g.edgeCount());
+        assertEquals(Arrays.asList(3, 35), g.outNodes(35));
+        assertEquals(8, (int) g.label(3, 35));
+        g.remove(35, 35);
+        g.remove(3, 35);
+        assertEquals(0, g.edgeCount());
+        assertTrue(g.outNodes(35).isEmpty());
+        assertTrue(g.outNodes(3).isEmpty());
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * File: ReachabilityTrackerTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the incrementally maintained transitive closure.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class ReachabilityTrackerTest {
+
+
+    // checks the closure against a search from every node
+    private static void assertMatchesSearch(ReachabilityTracker<Integer> tracker) {
+        for (int u = 0; u < tracker.nodeCount(); ++u) {
+            Map<Integer,Integer> found = GraphAlgorithms.bfs(tracker.graph(), u);
+            List<Integer> expected = new ArrayList<>(found.keySet());
+            if (!expected.contains(u))
+                expected.add(u);
+            Collections.sort(expected);
+            assertEquals(expected, tracker.reachableFrom(u));
+            for (int v : expected)
+                assertTrue(tracker.reachable(u, v));
+        }
+    }
+
+
+    @Test
+    public void checkMatchesSearchWhileAdding() {
+        for (boolean directed : new boolean[] {true, false}) {
+            ReachabilityTracker<Integer> tracker =
+                    new ReachabilityTracker<>(new AdjacencyList<>(150, directed));
+            Random random = new Random(17);
+            for (int i = 0; i < 200; ++i) {
+                int u = random.nextInt(150);
+                int v = random.nextInt(150);
+                if (!tracker.hasEdge(u, v))
+                    tracker.add(u, i, v);
+                if (i % 40 == 0)
+                    assertMatchesSearch(tracker);
+            }
+            assertMatchesSearch(tracker);
+        }
+    }
+
+
+    @Test
+    public void checkLeavesGraphUnchanged() {
+        Graph<Integer> g = new AdjacencyList<>(5, true);
+        ReachabilityTracker<Integer> tracker = new ReachabilityTracker<>(g);
+        tracker.add(0, 1, 1);
+        tracker.add(1, 2, 2);
+        tracker.add(3, 3, 4);
+        assertTrue(tracker.reachable(0, 2));
+        assertTrue(tracker.reachable(4, 4));
+        assertFalse(tracker.reachable(2, 0));
+        assertFalse(tracker.reachable(0, 3));
+        // no closure edges in the graph
+        assertEquals(3, g.edgeCount());
+        assertFalse(g.hasEdge(0, 2));
+        tracker.add(2, 4, 3);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), tracker.reachableFrom(0));
+        assertEquals(Arrays.asList(3, 4), tracker.reachableFrom(3));
+        assertEquals(Arrays.asList(4), tracker.reachableFrom(4));
+    }
+
+
+    @Test
+    public void checkAddsAfterRemoves() {
+        // the in-neighbors the adds search must follow the removes
+        for (boolean directed : new boolean[] {true, false}) {
+            Graph<Integer> g = new AdjacencyList<>(120, directed);
+            GraphGenerator.loadSparse(g, 5);
+            ReachabilityTracker<Integer> tracker = new ReachabilityTracker<>(g);
+            Random random = new Random(3);
+            for (int i = 0; i < 300; ++i) {
+                int u = random.nextInt(120);
+                int v = random.nextInt(120);
+                if (i % 4 == 0 && !tracker.outNodes(u).isEmpty()) {
+                    tracker.remove(u, tracker.outNodes(u).get(0));
+                } else if (i % 4 == 1) {
+                    // a batch with a repeated edge
+                    tracker.addAll(new int[] {u, v, u}, null, new int[] {v, u, v});
+                } else {
+                    tracker.add(u, i, v);
+                }
+                if (i % 30 == 0)
+                    assertMatchesSearch(tracker);
+            }
+            assertMatchesSearch(tracker);
+        }
+    }
+
+
+    @Test
+    public void checkRemoveRebuilds() {
+        Graph<Integer> g = new AdjacencyList<>(300, true);
+        GraphGenerator.loadSparse(g, 21);
+        ReachabilityTracker<Integer> tracker = new ReachabilityTracker<>(g);
+        assertMatchesSearch(tracker);
+        for (int u = 0; u < 300; u += 10) {
+            for (int v : new ArrayList<>(tracker.outNodes(u)))
+                tracker.remove(u, v);
+        }
+        // adds while stale are picked up by the rebuild
+        tracker.add(0, null, 299);
+        assertMatchesSearch(tracker);
+        tracker.add(299, null, 1);
+        assertMatchesSearch(tracker);
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * File: RelabelingTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for renumbering graph nodes (RCM, degree and BFS order).
+ */
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class RelabelingTest {
+
+
+    // checks the permutations are inverses and the renumbered graph has
+    // the same edges and labels as the original
+    private static <T> void assertRenumbered(Graph<T> g, Relabeling<T> r) {
+        Graph<T> h = r.graph();
+        int[] forward = r.forward();
+        int[] inverse = r.inverse();
+        assertEquals(g.nodeCount(), h.nodeCount());
+        assertEquals(g.edgeCount(), h.edgeCount());
+        for (int u = 0; u < g.nodeCount(); ++u) {
+            assertEquals(u, inverse[forward[u]]);
+            assertEquals(forward[u], r.toNew(u));
+            assertEquals(u, r.toOld(forward[u]));
+            assertEquals(g.outNodes(u).size(), h.outNodes(forward[u]).size());
+            for (int v : g.outNodes(u)) {
+                assertTrue(h.hasEdge(forward[u], forward[v]));
+                assertEquals(g.label(u, v), h.label(forward[u], forward[v]));
+            }
+        }
+    }
+
+
+    // the largest id distance between the two ends of an edge
+    private static int bandwidth(Graph<?> g) {
+        int width = 0;
+        for (int u = 0; u < g.nodeCount(); ++u)
+            for (int v : g.outNodes(u))
+                width = Math.max(width, Math.abs(u - v));
+        return width;
+    }
+
+
+    // a path 0-1-2-...-(n-1) with its node ids shuffled
+    private static Graph<Integer> shuffledPath(int n, long seed) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; ++i)
+            ids[i] = i;
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        Graph<Integer> g = new AdjacencyList<>(n, false);
+        for (int i = 0; i < n - 1; ++i)
+            g.add(ids[i], i, ids[i + 1]);
+        return g;
+    }
+
+
+    @Test
+    public void checkReverseCuthillMcKeeReducesBandwidth() {
+        Graph<Integer> g = shuffledPath(200, 4);
+        assertTrue(bandwidth(g) > 10);
+        Relabeling<Integer> r = Relabeling.reverseCuthillMcKee(g);
+        assertRenumbered(g, r);
+        assertEquals(1, bandwidth(r.graph()));
+    }
+
+
+    @Test
+    public void checkDegreeDescending() {
+        Graph<Integer> g = new AdjacencyList<>(20, true);
+        for (int v = 0; v < 20; ++v)
+            if (v != 7)
+                g.add(7, v, v);
+        g.add(3, 100, 4);
+        Relabeling<Integer> r = Relabeling.degreeDescending(g);
+        assertRenumbered(g, r);
+        assertEquals(0, r.toNew(7));
+        assertEquals(19, r.graph().outNodes(0).size());
+    }
+
+
+    @Test
+    public void checkBfsOrder() {
+        Graph<Integer> g = new AdjacencyList<>(100, true);
+        GraphGenerator.loadSparse(g, 21);
+        Relabeling<Integer> r = Relabeling.bfsOrder(g, 5);
+        assertRenumbered(g, r);
+        assertEquals(0, r.toNew(5));
+    }
+
+
+    @Test
+    public void checkAlgorithmResultsTranslated() {
+        Graph<Integer> g = new AdjacencyList<>(60, false);
+        GraphGenerator.loadSparseDisconnected(g, 3);
+        Relabeling<Integer> r = Relabeling.reverseCuthillMcKee(g);
+        Map<Integer,Integer> expected = GraphAlgorithms.bfs(g, 10);
+        Map<Integer,Integer> actual = r.bfs(10);
+        assertEquals(expected.keySet(), actual.keySet());
+        assertEquals(-1, actual.get(10).intValue());
+        for (Map.Entry<Integer,Integer> entry : actual.entrySet())
+            if (entry.getValue() >= 0)
+                assertTrue(g.hasEdge(entry.getValue(), entry.getKey()));
+        assertEquals(GraphAlgorithms.dfs(g, 30).keySet(), r.dfs(30).keySet());
+        List<Integer> path = r.shortestPath(10, 15);
+        assertEquals(GraphAlgorithms.shortestPath(g, 10, 15).size(), path.size());
+        assertEquals(10, path.get(0).intValue());
+        assertEquals(15, path.get(path.size() - 1).intValue());
+        assertNull(r.shortestPath(10, 50));
+        assertEquals(GraphAlgorithms.connectedComponents(g).keySet(),
+                r.connectedComponents().keySet());
+    }
+
+
+    @Test
+    public void checkTopologicalSortTranslated() {
+        Graph<Integer> g = new AdjacencyList<>(40, true);
+        GraphGenerator.loadSparseAcyclic(g, 8);
+        Map<Integer,Integer> sorted = Relabeling.degreeDescending(g).topologicalSort();
+        int[] position = new int[40];
+        for (Map.Entry<Integer,Integer> entry : sorted.entrySet())
+            position[entry.getValue()] = entry.getKey();
+        for (int u = 0; u < 40; ++u)
+            for (int v : g.outNodes(u))
+                assertTrue(position[u] < position[v]);
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * File: TopologicalOrderTrackerTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the incrementally maintained topological order.
+ */
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class TopologicalOrderTrackerTest {
+
+
+    // checks that every edge goes forward in the order
+    private static void assertOrdered(TopologicalOrderTracker<Integer> tracker) {
+        Map<Integer,Integer> order = tracker.order();
+        for (int i = 0; i < tracker.nodeCount(); ++i)
+            assertEquals(i, tracker.position(order.get(i)));
+        for (int u = 0; u < tracker.nodeCount(); ++u) {
+            for (int v : tracker.outNodes(u))
+                assertTrue(tracker.position(u) < tracker.position(v));
+        }
+    }
+
+
+    @Test
+    public void checkRandomInsertionsStayOrdered() {
+        TopologicalOrderTracker<Integer> tracker =
+                new TopologicalOrderTracker<>(new AdjacencyList<>(200, true));
+        Random random = new Random(5);
+        int rejected = 0;
+        for (int i = 0; i < 1500; ++i) {
+            int u = random.nextInt(200);
+            int v = random.nextInt(200);
+            boolean had = tracker.hasEdge(u, v);
+            boolean cycle = u == v || GraphAlgorithms.bfs(tracker.graph(), v).containsKey(u);
+            boolean added = tracker.tryAdd(u, i, v);
+            assertEquals(!had && !cycle, added);
+            if (!had && cycle)
+                ++rejected;
+            if (i % 100 == 0)
+                assertOrdered(tracker);
+        }
+        assertTrue(rejected > 0);
+        assertOrdered(tracker);
+        assertTrue(GraphAlgorithms.acyclic(tracker.graph()));
+    }
+
+
+    @Test
+    public void checkRandomRemovesAndInsertions() {
+        // the backward search relies on the tracked in-neighbors, which
+        // removes must keep up to date
+        TopologicalOrderTracker<Integer> tracker =
+                new TopologicalOrderTracker<>(new AdjacencyList<>(100, true));
+        Random random = new Random(13);
+        for (int i = 0; i < 3000; ++i) {
+            int u = random.nextInt(100);
+            List<Integer> out = tracker.outNodes(u);
+            if (random.nextInt(3) == 0 && !out.isEmpty()) {
+                tracker.remove(u, out.get(random.nextInt(out.size())));
+            } else {
+                int v = random.nextInt(100);
+                boolean cycle = u == v || GraphAlgorithms.bfs(tracker.graph(), v).containsKey(u);
+                assertEquals(!tracker.hasEdge(u, v) && !cycle, tracker.tryAdd(u, i, v));
+            }
+            if (i % 100 == 0)
+                assertOrdered(tracker);
+        }
+        assertOrdered(tracker);
+    }
+
+
+    @Test
+    public void checkWrapsExistingDag() {
+        // forward edges only (loadSparseAcyclic may add self loops)
+        Graph<Integer> g = new AdjacencyList<>(500, true);
+        Random random = new Random(9);
+        for (int i = 0; i < 1000; ++i) {
+            int u = random.nextInt(499);
+            int v = u + 1 + random.nextInt(499 - u);
+            if (!g.hasEdge(u, v))
+                g.add(u, i, v);
+        }
+        TopologicalOrderTracker<Integer> tracker = new TopologicalOrderTracker<>(g);
+        assertOrdered(tracker);
+        // an edge against the order moves the nodes between its ends
+        int first = tracker.order().get(0);
+        int last = tracker.order().get(499);
+        if (tracker.tryAdd(last, null, first))
+            assertTrue(tracker.position(last) < tracker.position(first));
+        assertOrdered(tracker);
+    }
+
+
+    @Test
+    public void checkRejectsCycles() {
+        TopologicalOrderTracker<String> tracker =
+                new TopologicalOrderTracker<>(new AdjacencyList<>(4, true));
+        tracker.add(3, "a", 2);
+        tracker.add(2, "b", 1);
+        tracker.add(1, "c", 0);
+        assertTrue(tracker.position(3) < tracker.position(0));
+        assertFalse(tracker.tryAdd(0, "d", 3));
+        assertFalse(tracker.tryAdd(2, "e", 2));
+        tracker.add(0, "f", 3);
+        assertFalse(tracker.hasEdge(0, 3));
+        assertEquals(3, tracker.edgeCount());
+        // once the path is broken the edge is allowed
+        tracker.remove(2, 1);
+        assertTrue(tracker.tryAdd(0, "d", 3));
+        assertTrue(tracker.position(0) < tracker.position(3));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkCyclicGraphRejected() {
+        Graph<Integer> g = new AdjacencyList<>(3, true);
+        g.add(0, null, 1);
+        g.add(1, null, 2);
+        g.add(2, null, 0);
+        new TopologicalOrderTracker<>(g);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * File: TraversalStatsTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the counters recorded by the GraphAlgorithms overloads
+ *       that take a TraversalStats.
+ */
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class TraversalStatsTest {
+
+
+    // a directed binary tree: node i has children 2i+1 and 2i+2
+    private static Graph<Integer> tree(int n) {
+        Graph<Integer> g = new AdjacencyList<>(n, true);
+        for (int i = 0; 2 * i + 1 < n; ++i) {
+            g.add(i, i, 2 * i + 1);
+            if (2 * i + 2 < n)
+                g.add(i, i, 2 * i + 2);
+        }
+        return g;
+    }
+
+
+    @Test
+    public void checkBfsLevels() {
+        Graph<Integer> g = tree(15);
+        TraversalStats stats = new TraversalStats();
+        Map<Integer,Integer> tree = GraphAlgorithms.bfs(g, 0, stats);
+        assertEquals(GraphAlgorithms.bfs(g, 0), tree);
+        assertEquals("bfs", stats.algorithm());
+        assertEquals(15, stats.nodesVisited());
+        assertEquals(14, stats.edgesExamined());
+        assertArrayEquals(new int[] {1, 2, 4, 8}, stats.frontierSizes());
+        assertEquals(4, stats.levels());
+        // one neighbor buffer, filled once per node
+        assertEquals(14, stats.allocationsAvoided());
+        assertTrue(stats.elapsedNanos() > 0);
+    }
+
+
+    @Test
+    public void checkDepths() {
+        Graph<Integer> chain = new AdjacencyList<>(10, true);
+        for (int i = 0; i < 9; ++i)
+            chain.add(i, i, i + 1);
+        TraversalStats stats = new TraversalStats();
+        assertTrue(GraphAlgorithms.acyclic(chain, stats));
+        assertEquals(10, stats.maxStackDepth());
+        assertEquals(10, stats.nodesVisited());
+        // the recursive search allocates a neighbor list per node
+        assertEquals(0, stats.allocationsAvoided());
+
+        stats = new TraversalStats();
+        GraphAlgorithms.topologicalSort(chain, stats);
+        assertEquals(10, stats.maxStackDepth());
+
+        // a star pushes every leaf before popping any of them
+        Graph<Integer> star = new AdjacencyList<>(10, true);
+        for (int i = 1; i < 10; ++i)
+            star.add(0, i, i);
+        stats = new TraversalStats();
+        GraphAlgorithms.dfs(star, 0, stats);
+        assertEquals(9, stats.maxStackDepth());
+        assertEquals(10, stats.nodesVisited());
+        assertEquals(9, stats.edgesExamined());
+        assertEquals(9, stats.allocationsAvoided());
+    }
+
+
+    @Test
+    public void checkNestedRuns() {
+        Graph<Integer> chain = new AdjacencyList<>(4, true);
+        for (int i = 0; i < 3; ++i)
+            chain.add(i, i, i + 1);
+        TraversalStats stats = new TraversalStats();
+        GraphAlgorithms.transitiveClosure(chain, stats);
+        // only the outermost run names the stats; the dfs runs add to it
+        assertEquals("transitiveClosure", stats.algorithm());
+        assertEquals(3, stats.edgesAdded());
+        assertEquals(4 + 3 + 2 + 1, stats.nodesVisited());
+        assertEquals(6, chain.edgeCount());
+
+        stats = new TraversalStats();
+        GraphAlgorithms.shortestPath(tree(7), 0, 6, stats);
+        assertEquals("shortestPath", stats.algorithm());
+        assertEquals(3, stats.levels());
+    }
+
+
+    @Test
+    public void checkComponents() {
+        Graph<Integer> g = new AdjacencyList<>(6, false);
+        g.add(0, 0, 1);
+        g.add(2, 0, 3);
+        TraversalStats stats = new TraversalStats();
+        GraphAlgorithms.connectedComponents(g, stats);
+        // every node is visited at least once, all through one buffer
+        assertTrue(stats.nodesVisited() >= 6);
+        assertTrue(stats.edgesExamined() >= 4);
+        assertEquals(stats.nodesVisited() - 1, stats.allocationsAvoided());
+        assertEquals(0, stats.levels());
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * File: VersionedGraphTest.java
+ * Date: Spring 2022
+ * Auth: Dustin Cassell
+ * Desc: Tests for the snapshots of a versioned graph.
+ */
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class VersionedGraphTest {
+
+
+    @Test
+    public void checkMatchesAdjacencyList() {
+        for (boolean directed : new boolean[] {true, false})
+            GraphAssert.assertLoadsLikeAdjacencyList(new VersionedGraph<>(300, directed), 5, 7);
+    }
+
+
+    @Test
+    public void checkSnapshotIsolation() {
+        VersionedGraph<Integer> g = new VersionedGraph<>(200, false);
+        GraphGenerator.loadSparse(g, 9);
+        Graph<Integer> copy = new AdjacencyList<>(200, false);
+        GraphGenerator.loadSparse(copy, 9);
+        Map<Integer,Integer> components = GraphAlgorithms.connectedComponents(copy);
+
+        try (VersionedGraph.Snapshot<Integer> snapshot = g.snapshot()) {
+            // change every node after the snapshot
+            for (int u = 0; u < 200; ++u) {
+                for (int v : g.outNodes(u))
+                    if (u < v)
+                        g.set(u, -1, v);
+                if (g.hasEdge(u, (u + 1) % 200))
+                    g.remove(u, (u + 1) % 200);
+                else
+                    g.add(u, -2, (u + 1) % 200);
+            }
+            GraphAssert.assertSameGraph(copy, snapshot);
+            assertEquals(components, GraphAlgorithms.connectedComponents(snapshot));
+            assertEquals(1, g.openSnapshots());
+        }
+        assertEquals(0, g.openSnapshots());
+        // the live graph kept the writes
+        assertTrue(copy.hasEdge(0, 1) != g.hasEdge(0, 1));
+    }
+
+
+    @Test
+    public void checkCopiesStopAfterClose() {
+        VersionedGraph<Integer> g = new VersionedGraph<>(1000, true);
+        GraphGenerator.loadSparse(g, 2);
+        // without snapshots no chunk is copied
+        g.add(0, 1, 999);
+        assertEquals(0, g.chunkCopies());
+
+        VersionedGraph.Snapshot<Integer> first = g.snapshot();
+        VersionedGraph.Snapshot<Integer> second = g.snapshot();
+        // the first write to a chunk copies it, later writes reuse the copy
+        g.remove(0, 999);
+        g.add(1, 1, 999);
+        assertEquals(1, g.chunkCopies());
+        assertTrue(first.hasEdge(0, 999));
+        assertTrue(second.hasEdge(0, 999));
+        assertFalse(second.hasEdge(1, 999));
+
+        first.close();
+        first.close();
+        try {
+            first.hasEdge(0, 999);
+            fail("expected reading a closed snapshot to throw");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+        g.add(65, 1, 999);
+        assertEquals(2, g.chunkCopies());
+        second.close();
+        g.add(130, 1, 999);
+        assertEquals(2, g.chunkCopies());
+        assertEquals(0, g.openSnapshots());
+    }
+
+
+    @Test
+    public void checkWritesWhileReading() throws InterruptedException {
+        VersionedGraph<Integer> g = new VersionedGraph<>(500, true);
+        GraphGenerator.loadSparse(g, 4);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; ++i) {
+                int u = (i * 31) % 500;
+                int v = (i * 17 + 3) % 500;
+                if (g.hasEdge(u, v))
+                    g.remove(u, v);
+                else
+                    g.add(u, i, v);
+            }
+        });
+        writer.start();
+        // every snapshot keeps the edge count it was taken with
+        for (int round = 0; round < 20; ++round) {
+            try (VersionedGraph.Snapshot<Integer> snapshot = g.snapshot()) {
+                int edges = 0;
+                for (int u = 0; u < 500; ++u)
+                    edges += snapshot.outNodes(u).size();
+                GraphAlgorithms.topologicalSort(snapshot);
+                int again = 0;
+                for (int u = 0; u < 500; ++u)
+                    again += snapshot.outNodes(u).size();
+                assertEquals(snapshot.edgeCount(), edges);
+                assertEquals(edges, again);
+            }
+        }
+        writer.join();
+        assertEquals(0, g.openSnapshots());
+    }
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void checkSnapshotReadOnly() {
+        VersionedGraph<Integer> g = new VersionedGraph<>(10, true);
+        g.snapshot().add(0, 1, 2);
+    }
+
+}